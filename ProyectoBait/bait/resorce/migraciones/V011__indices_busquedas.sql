@@ -0,0 +1,5 @@
+CREATE INDEX IF NOT EXISTS "IDX_USUARIOS_NOMBRE_USUARIO" ON "USUARIOS" ("nombreUsuario");
+CREATE INDEX IF NOT EXISTS "IDX_PEDIDOS_CLIENTE" ON "PEDIDOS" ("idCliente");
+CREATE INDEX IF NOT EXISTS "IDX_PRODUCTOS_CATEGORIA" ON "PRODUCTOS" ("idCategoria");
+CREATE INDEX IF NOT EXISTS "IDX_PRODUCTOS_MARCA" ON "PRODUCTOS" ("idMarca");
+CREATE INDEX IF NOT EXISTS "IDX_ENVIOS_PEDIDO" ON "ENVIOS" ("idPedido");
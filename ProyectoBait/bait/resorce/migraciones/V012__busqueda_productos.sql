@@ -0,0 +1,27 @@
+-- Indice de texto completo sobre el nombre y la descripcion de los productos.
+-- Es de contenido externo: el texto se lee de PRODUCTOS por rowid y los
+-- triggers mantienen el indice al dia
+CREATE VIRTUAL TABLE IF NOT EXISTS "PRODUCTOS_FTS" USING fts5(
+	"nombre",
+	"descripcion",
+	content='PRODUCTOS',
+	content_rowid='rowid',
+	tokenize='unicode61 remove_diacritics 2'
+);
+
+CREATE TRIGGER IF NOT EXISTS "PRODUCTOS_FTS_INSERT" AFTER INSERT ON "PRODUCTOS" BEGIN
+	INSERT INTO "PRODUCTOS_FTS" (rowid, "nombre", "descripcion") VALUES (new.rowid, new."nombre", new."descripcion");
+END;
+
+CREATE TRIGGER IF NOT EXISTS "PRODUCTOS_FTS_DELETE" AFTER DELETE ON "PRODUCTOS" BEGIN
+	INSERT INTO "PRODUCTOS_FTS" ("PRODUCTOS_FTS", rowid, "nombre", "descripcion")
+	VALUES ('delete', old.rowid, old."nombre", old."descripcion");
+END;
+
+CREATE TRIGGER IF NOT EXISTS "PRODUCTOS_FTS_UPDATE" AFTER UPDATE OF "nombre", "descripcion" ON "PRODUCTOS" BEGIN
+	INSERT INTO "PRODUCTOS_FTS" ("PRODUCTOS_FTS", rowid, "nombre", "descripcion")
+	VALUES ('delete', old.rowid, old."nombre", old."descripcion");
+	INSERT INTO "PRODUCTOS_FTS" (rowid, "nombre", "descripcion") VALUES (new.rowid, new."nombre", new."descripcion");
+END;
+
+INSERT INTO "PRODUCTOS_FTS" ("PRODUCTOS_FTS") VALUES ('rebuild');
@@ -0,0 +1,6 @@
+-- Indices para listar los productos ordenados y paginados sin ordenar aparte.
+-- El identificador desempata para que la clave de cada pagina sea unica. El
+-- precio se redondea porque se lee como float y se guarda como double
+CREATE INDEX IF NOT EXISTS "IDX_PRODUCTOS_PRECIO" ON "PRODUCTOS" (ROUND("precio", 2), "idProducto");
+CREATE INDEX IF NOT EXISTS "IDX_PRODUCTOS_NOMBRE" ON "PRODUCTOS" ("nombre", "idProducto");
+CREATE INDEX IF NOT EXISTS "IDX_PRODUCTOS_STOCK" ON "PRODUCTOS" ("stock", "idProducto");
@@ -0,0 +1,4 @@
+-- El nombre de usuario no es unico en la tabla: el indice solo acelera el
+-- login. Las bases de datos que ya aplicaron V011 lo tienen como UNIQUE
+DROP INDEX IF EXISTS "IDX_USUARIOS_NOMBRE_USUARIO";
+CREATE INDEX IF NOT EXISTS "IDX_USUARIOS_NOMBRE_USUARIO" ON "USUARIOS" ("nombreUsuario");
@@ -7,6 +7,8 @@ import es.iespuertodelacruz.bait.api.movimientos.Envio;
 import es.iespuertodelacruz.bait.exceptions.ApiException;
 import es.iespuertodelacruz.bait.exceptions.PersistenciaException;
 import es.iespuertodelacruz.bait.modelo.movimientosModelo.EnvioModelo;
+import es.iespuertodelacruz.bait.modelo.mysql.Pagina;
+import es.iespuertodelacruz.bait.modelo.mysql.Transaccion;
 
 public class EnvioController extends Validar{
     EnvioModelo envioModelo;
@@ -53,6 +55,20 @@ public class EnvioController extends Validar{
         envioModelo.insertar(envio);
     }
 
+    /**
+     * Metodo encargado de insertar un envio nuevo dentro de una transaccion
+     * abierta. No busca antes si existe: el identificador es nuevo y la clave
+     * primaria impide duplicarlo
+     * @param envio a insertar
+     * @param transaccion en la que se inserta
+     * @throws ApiException con mensaje controlado
+     * @throws PersistenciaException con mensaje controlado
+     */
+    public void insertar(Envio envio, Transaccion transaccion) throws ApiException, PersistenciaException{
+        validar(envio);
+        envioModelo.insertar(envio, transaccion);
+    }
+
     /**
      * Metodo encargado de eliminar
      * @param idEnvio a eliminar
@@ -149,4 +165,37 @@ public class EnvioController extends Validar{
         return envios;
         
     }
+
+    /**
+     * Funcion que obtiene una pagina de la lista de envios. La pagina puede
+     * venir vacia si no hay envios
+     * @param token de la pagina que se pide, null para la primera
+     * @param tamanio numero maximo de envios de la pagina
+     * @return la pagina de envios
+     * @throws PersistenciaException error a controlar
+     * @throws ApiException error a controlar
+     */
+    public Pagina<Envio> obtenerPagina(String token, int tamanio) throws PersistenciaException, ApiException {
+        if (tamanio <= 0) {
+            throw new ApiException("El tamaño de la pagina tiene que ser mayor que cero");
+        }
+        return envioModelo.obtenerPagina(token, tamanio);
+    }
+
+    /**
+     * Funcion que obtiene una pagina de la lista de envios de un usuario
+     * @param dni del usuario
+     * @param token de la pagina que se pide, null para la primera
+     * @param tamanio numero maximo de envios de la pagina
+     * @return la pagina de envios
+     * @throws PersistenciaException error a controlar
+     * @throws ApiException error a controlar
+     */
+    public Pagina<Envio> obtenerPagina(String dni, String token, int tamanio) 
+            throws PersistenciaException, ApiException {
+        if (tamanio <= 0) {
+            throw new ApiException("El tamaño de la pagina tiene que ser mayor que cero");
+        }
+        return envioModelo.obtenerPagina(dni, token, tamanio);
+    }
 }
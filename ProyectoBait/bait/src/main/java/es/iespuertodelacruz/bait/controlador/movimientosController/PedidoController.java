@@ -12,6 +12,7 @@ import es.iespuertodelacruz.bait.controlador.productosController.ProductoControl
 import es.iespuertodelacruz.bait.exceptions.ApiException;
 import es.iespuertodelacruz.bait.exceptions.PersistenciaException;
 import es.iespuertodelacruz.bait.modelo.movimientosModelo.PedidoModelo;
+import es.iespuertodelacruz.bait.modelo.mysql.Pagina;
 
 public class PedidoController {
 
@@ -80,8 +81,11 @@ public class PedidoController {
         if(existe(pedido.getIdPedido())){
             throw new ApiException("El pedido ya existe");          
         }
-        pedidoModelo.insertar(pedido);
-        productoController.reducirStock(pedido.getProducto().getIdProducto(), pedido.getUnidades());
+        pedidoModelo.ejecutarEnTransaccion(transaccion -> {
+            pedidoModelo.insertar(pedido, transaccion);
+            productoController.reducirStock(pedido.getProducto().getIdProducto(), pedido.getUnidades(), transaccion);
+            return null;
+        });
     }
 
     /**
@@ -182,7 +186,42 @@ public class PedidoController {
     }
 
     /**
-     * Metodo que realiza un pedido y luego envio con los datos dados por el usuario
+     * Funcion que obtiene una pagina de la lista de pedidos. La pagina puede
+     * venir vacia si no hay pedidos
+     * @param token de la pagina que se pide, null para la primera
+     * @param tamanio numero maximo de pedidos de la pagina
+     * @return la pagina de pedidos
+     * @throws PersistenciaException error a controlar
+     * @throws ApiException error a controlar
+     */
+    public Pagina<Pedido> obtenerPagina(String token, int tamanio) throws PersistenciaException, ApiException {
+        if (tamanio <= 0) {
+            throw new ApiException("El tamaño de la pagina tiene que ser mayor que cero");
+        }
+        return pedidoModelo.obtenerPagina(token, tamanio);
+    }
+
+    /**
+     * Funcion que obtiene una pagina de la lista de pedidos de un usuario
+     * @param dni del usuario
+     * @param token de la pagina que se pide, null para la primera
+     * @param tamanio numero maximo de pedidos de la pagina
+     * @return la pagina de pedidos
+     * @throws PersistenciaException error a controlar
+     * @throws ApiException error a controlar
+     */
+    public Pagina<Pedido> obtenerPagina(String dni, String token, int tamanio) 
+            throws PersistenciaException, ApiException {
+        if (tamanio <= 0) {
+            throw new ApiException("El tamaño de la pagina tiene que ser mayor que cero");
+        }
+        return pedidoModelo.obtenerPagina(dni, token, tamanio);
+    }
+
+    /**
+     * Metodo que realiza un pedido y luego envio con los datos dados por el usuario.
+     * El stock, el saldo, el pedido y el envio se guardan en una sola transaccion:
+     * si falla cualquier paso no se guarda ninguno
      * @param usuario que realiza el pedido
      * @param idProducto del producto que va a comprar
      * @param unidades del producto a comprar
@@ -191,26 +230,27 @@ public class PedidoController {
      * @return Envio 
      */
     public Envio realizarPedido(Usuario usuario, String idProducto, int unidades) throws PersistenciaException, ApiException {
-        Pedido pedido;
-        Producto producto;
-        Envio envio;     
-        String fechaPedido; 
-        
-        
-        productoController.reducirStock(idProducto, unidades);
-        producto = productoController.buscar(idProducto); 
-        fechaPedido = LocalDate.now().toString();
-        float total = producto.getPrecio() * unidades;
-        
-        usuarioController.reducirSaldo(usuario,total);
-        pedido = new Pedido(unidades, total, fechaPedido, usuario, producto);
-    
-        envio = new Envio(pedido, fechaPedido, "Enviado");
+        return pedidoModelo.ejecutarEnTransaccion(transaccion -> {
+            Pedido pedido;
+            Producto producto;
+            Envio envio;     
+            String fechaPedido; 
+            
+            productoController.reducirStock(idProducto, unidades, transaccion);
+            producto = productoController.buscar(idProducto, transaccion); 
+            fechaPedido = LocalDate.now().toString();
+            float total = producto.getPrecio() * unidades;
+            
+            usuarioController.reducirSaldo(usuario, total, transaccion);
+            pedido = new Pedido(unidades, total, fechaPedido, usuario, producto);
         
-        pedidoModelo.insertar(pedido);
-        envioController.insertar(envio);
+            envio = new Envio(pedido, fechaPedido, "Enviado");
+            
+            pedidoModelo.insertar(pedido, transaccion);
+            envioController.insertar(envio, transaccion);
 
-        return envio;
+            return envio;
+        });
     }
     
 }
@@ -6,6 +6,8 @@ import es.iespuertodelacruz.bait.api.Validar;
 import es.iespuertodelacruz.bait.api.personas.Usuario;
 import es.iespuertodelacruz.bait.exceptions.PersistenciaException;
 import es.iespuertodelacruz.bait.exceptions.ApiException;
+import es.iespuertodelacruz.bait.modelo.mysql.Pagina;
+import es.iespuertodelacruz.bait.modelo.mysql.Transaccion;
 import es.iespuertodelacruz.bait.modelo.personasModelo.UsuarioModelo;
 
 public class UsuarioController extends Validar{
@@ -156,7 +158,8 @@ public class UsuarioController extends Validar{
     }
 
     /**
-     * Funcion que añade saldo a un usuario
+     * Funcion que añade saldo a un usuario. La suma se hace en la base de datos
+     * y el usuario recibe el saldo resultante
      * @param usuario que se le va a añadir saldo
      * @param saldo que se va a sumar al actula del usuario
      * @throws PersistenciaException error a controlar
@@ -164,15 +167,17 @@ public class UsuarioController extends Validar{
      */
     public void añadirSaldo(Usuario usuario,float saldo) throws PersistenciaException, ApiException{
         validar(usuario);
-        float saldoActual;
-        saldoActual = usuario.getSaldo();
+        Float nuevoSaldo;
 
         if (saldo <= 0) {
             throw new ApiException("El saldo a añadir no puede menor o igual que 0.");
         }
 
-        usuario.setSaldo(saldoActual + saldo);
-        modificar(usuario);
+        nuevoSaldo = usuarioModelo.añadirSaldo(usuario.getDni(), saldo);
+        if (nuevoSaldo == null) {
+            throw new ApiException("El usuario que quiere modificar no existe.");
+        }
+        usuario.setSaldo(nuevoSaldo);
     }
 
     /**
@@ -205,19 +210,81 @@ public class UsuarioController extends Validar{
     }
 
     /**
-     * Metodo que reduce el saldo de un usuario
+     * Funcion que obtiene una pagina de la lista de usuarios. La pagina puede
+     * venir vacia si no hay usuarios
+     * @param token de la pagina que se pide, null para la primera
+     * @param tamanio numero maximo de usuarios de la pagina
+     * @return la pagina de usuarios
+     * @throws PersistenciaException error a controlar
+     * @throws ApiException error a controlar
+     */
+    public Pagina<Usuario> obtenerPagina(String token, int tamanio) throws PersistenciaException, ApiException {
+        if (tamanio <= 0) {
+            throw new ApiException("El tamaño de la pagina tiene que ser mayor que cero");
+        }
+        return usuarioModelo.obtenerPagina(token, tamanio);
+    }
+
+    /**
+     * Metodo que reduce el saldo de un usuario. La comprobacion y el descuento se
+     * hacen en la base de datos y el usuario recibe el saldo resultante
      * @param usuario que se va a reducir el saldo
      * @param total que se va a reducir del saldo
      * @throws ApiException error controlado
      * @throws PersistenciaException error controlado
      */
     public void reducirSaldo(Usuario usuario, float total) throws ApiException, PersistenciaException {
-        float nuevoSaldo = usuario.getSaldo() - total;
-        if (nuevoSaldo < 0) {
+        validar(usuario);
+        validarTotal(total);
+        usuario.setSaldo(comprobarSaldoReducido(usuarioModelo.reducirSaldo(usuario.getDni(), total), usuario));
+    }
+
+    /**
+     * Metodo que reduce el saldo de un usuario dentro de una transaccion abierta.
+     * El usuario recibe el saldo resultante solo cuando se confirma la
+     * transaccion
+     * @param usuario que se va a reducir el saldo
+     * @param total que se va a reducir del saldo
+     * @param transaccion en la que se reduce el saldo
+     * @throws ApiException error controlado
+     * @throws PersistenciaException error controlado
+     */
+    public void reducirSaldo(Usuario usuario, float total, Transaccion transaccion) 
+        throws ApiException, PersistenciaException {
+        validar(usuario);
+        validarTotal(total);
+        float nuevoSaldo = comprobarSaldoReducido(usuarioModelo.reducirSaldo(usuario.getDni(), total, transaccion), 
+            usuario);
+        transaccion.despuesDeConfirmar(() -> usuario.setSaldo(nuevoSaldo));
+    }
+
+    /**
+     * Metodo que comprueba el total que se va a reducir del saldo
+     * @param total que se va a reducir
+     * @throws ApiException error controlado
+     */
+    private void validarTotal(float total) throws ApiException {
+        if (total <= 0) {
+            throw new ApiException("El total a reducir no puede ser menor o igual que 0.");
+        }
+    }
+
+    /**
+     * Funcion que explica por que no se ha podido reducir el saldo
+     * @param nuevoSaldo devuelto por la actualizacion, o null si no se ha hecho
+     * @param usuario al que se le queria reducir el saldo
+     * @return el nuevo saldo
+     * @throws ApiException si el usuario no existe o no tiene saldo suficiente
+     * @throws PersistenciaException error controlado
+     */
+    private float comprobarSaldoReducido(Float nuevoSaldo, Usuario usuario) throws ApiException, PersistenciaException {
+        if (nuevoSaldo == null) {
+            if (!existe(usuario.getDni())) {
+                throw new ApiException("El usuario que quiere modificar no existe.");
+            }
             throw new ApiException("No tiene saldo suficiente");
         }
-        usuario.setSaldo(nuevoSaldo);
-        modificar(usuario);
+        return nuevoSaldo;
     }
    
 }
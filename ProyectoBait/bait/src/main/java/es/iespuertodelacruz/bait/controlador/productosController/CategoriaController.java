@@ -5,6 +5,7 @@ import java.util.ArrayList;
 import es.iespuertodelacruz.bait.api.productos.Categoria;
 import es.iespuertodelacruz.bait.exceptions.ApiException;
 import es.iespuertodelacruz.bait.exceptions.PersistenciaException;
+import es.iespuertodelacruz.bait.modelo.mysql.Pagina;
 import es.iespuertodelacruz.bait.modelo.productosModelo.CategoriaModelo;
 
 public class CategoriaController {
@@ -133,4 +134,20 @@ public class CategoriaController {
         return categorias;
         
     }
+
+    /**
+     * Funcion que obtiene una pagina de la lista de categorias. La pagina puede
+     * venir vacia si no hay categorias
+     * @param token de la pagina que se pide, null para la primera
+     * @param tamanio numero maximo de categorias de la pagina
+     * @return la pagina de categorias
+     * @throws PersistenciaException error a controlar
+     * @throws ApiException error a controlar
+     */
+    public Pagina<Categoria> obtenerPagina(String token, int tamanio) throws PersistenciaException, ApiException {
+        if (tamanio <= 0) {
+            throw new ApiException("El tamaño de la pagina tiene que ser mayor que cero");
+        }
+        return categoriaModelo.obtenerPagina(token, tamanio);
+    }
 }
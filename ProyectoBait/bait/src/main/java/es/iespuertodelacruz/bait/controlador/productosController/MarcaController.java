@@ -5,6 +5,7 @@ import java.util.ArrayList;
 import es.iespuertodelacruz.bait.api.productos.Marca;
 import es.iespuertodelacruz.bait.exceptions.ApiException;
 import es.iespuertodelacruz.bait.exceptions.PersistenciaException;
+import es.iespuertodelacruz.bait.modelo.mysql.Pagina;
 import es.iespuertodelacruz.bait.modelo.productosModelo.MarcaModelo;
 
 public class MarcaController {
@@ -133,4 +134,20 @@ public class MarcaController {
         return marcas;
         
     }
+
+    /**
+     * Funcion que obtiene una pagina de la lista de marcas. La pagina puede
+     * venir vacia si no hay marcas
+     * @param token de la pagina que se pide, null para la primera
+     * @param tamanio numero maximo de marcas de la pagina
+     * @return la pagina de marcas
+     * @throws PersistenciaException error a controlar
+     * @throws ApiException error a controlar
+     */
+    public Pagina<Marca> obtenerPagina(String token, int tamanio) throws PersistenciaException, ApiException {
+        if (tamanio <= 0) {
+            throw new ApiException("El tamaño de la pagina tiene que ser mayor que cero");
+        }
+        return marcaModelo.obtenerPagina(token, tamanio);
+    }
 }
@@ -5,7 +5,17 @@ import java.util.ArrayList;
 import es.iespuertodelacruz.bait.api.productos.Producto;
 import es.iespuertodelacruz.bait.exceptions.ApiException;
 import es.iespuertodelacruz.bait.exceptions.PersistenciaException;
+import es.iespuertodelacruz.bait.modelo.busqueda.Normalizador;
+import es.iespuertodelacruz.bait.modelo.busqueda.Sugerencia;
+import es.iespuertodelacruz.bait.modelo.mysql.Pagina;
+import es.iespuertodelacruz.bait.modelo.mysql.Transaccion;
+import es.iespuertodelacruz.bait.modelo.productosModelo.AutocompletadoProductos;
+import es.iespuertodelacruz.bait.modelo.productosModelo.CatalogoProductos;
+import es.iespuertodelacruz.bait.modelo.productosModelo.FiltroProductos;
+import es.iespuertodelacruz.bait.modelo.productosModelo.IndiceProductos;
+import es.iespuertodelacruz.bait.modelo.productosModelo.OrdenProductos;
 import es.iespuertodelacruz.bait.modelo.productosModelo.ProductoModelo;
+import es.iespuertodelacruz.bait.modelo.productosModelo.ResultadoFacetas;
 
 public class ProductoController {
     ProductoModelo productoModelo;
@@ -120,6 +130,24 @@ public class ProductoController {
         return producto;
     }
 
+    /**
+     * Funcion que busca un producto dentro de una transaccion abierta
+     * @param idProducto del producto a buscar
+     * @param transaccion en la que se busca
+     * @return el producto encontrado
+     * @throws PersistenciaException error controlado
+     * @throws ApiException si el producto no existe
+     */
+    public Producto buscar(String idProducto, Transaccion transaccion) throws PersistenciaException, ApiException {
+        Producto producto = productoModelo.buscarPorId(idProducto, transaccion);
+
+        if (producto == null) {
+            throw new ApiException("El producto que quiere buscar no existe.");
+        }
+
+        return producto;
+    }
+
     /**
      * Metodo que modifica un producto 
      * @param producto con los nuevos cambios 
@@ -169,7 +197,10 @@ public class ProductoController {
     }
 
     /**
-     * Funcion que devuelve un lista de productos que tiene el nombre o parte de el
+     * Funcion que devuelve un lista de productos que tiene el nombre o parte de el.
+     * Se responde desde el indice en memoria, sin ir a la base de datos. Si el
+     * nombre no tiene ninguna palabra, como un buscador vacio, se devuelve el
+     * listado completo
      * @param nombre que tiene el producto o productos
      * @return la lista de productos filtrados por un nombre
      * @throws ApiException error a controlar
@@ -177,7 +208,10 @@ public class ProductoController {
      */
     public ArrayList<Producto> buscarPorNombre(String nombre) throws ApiException, PersistenciaException {
         ArrayList<Producto> productos = null;
-        productos = productoModelo.buscarPorNombre(nombre);
+        if (Normalizador.tokens(nombre).isEmpty()) {
+            return obtenerListado();
+        }
+        productos = IndiceProductos.obtener().buscar(nombre);
 
         if (productos.isEmpty()) {
             throw new ApiException("No existe productos con ese nombre");
@@ -186,14 +220,73 @@ public class ProductoController {
     }
 
     /**
-     * Funcion que obtiene la lista de productos y la devuelve
+     * Funcion que devuelve los productos con un nombre o descripcion parecidos
+     * al texto aunque tenga errores de escritura, los mas parecidos primero
+     * @param nombre que escribe el usuario, con o sin errores
+     * @return la lista de productos encontrados
+     * @throws ApiException error a controlar
+     * @throws PersistenciaException error a controlar
+     */
+    public ArrayList<Producto> buscarAproximado(String nombre) throws ApiException, PersistenciaException {
+        ArrayList<Producto> productos = null;
+        productos = IndiceProductos.obtener().buscarAproximado(nombre, IndiceProductos.DISTANCIA_MAXIMA);
+
+        if (productos.isEmpty()) {
+            throw new ApiException("No existe productos parecidos a ese nombre");
+        }
+        return productos;
+    }
+
+    /**
+     * Funcion que devuelve los productos mas relevantes para el texto buscado,
+     * buscando cada palabra como prefijo en el nombre y la descripcion
+     * @param texto que escribe el usuario
+     * @param limite numero maximo de productos
+     * @return la lista de productos ordenada por relevancia
+     * @throws ApiException error a controlar
+     * @throws PersistenciaException error a controlar
+     */
+    public ArrayList<Producto> buscarPorTexto(String texto, int limite) throws ApiException, PersistenciaException {
+        ArrayList<Producto> productos = null;
+        if (limite <= 0) {
+            throw new ApiException("El numero de resultados tiene que ser mayor que cero");
+        }
+        productos = productoModelo.buscarPorTexto(texto, limite);
+
+        if (productos.isEmpty()) {
+            throw new ApiException("No existe productos con ese texto");
+        }
+        return productos;
+    }
+
+    /**
+     * Funcion que devuelve los nombres de los productos mas vendidos que
+     * empiezan por lo que lleva escrito el usuario, para autocompletar el
+     * buscador. Sin coincidencias devuelve la lista vacia
+     * @param prefijo que ha escrito el usuario
+     * @param limite numero maximo de sugerencias
+     * @return las sugerencias con el id y el nombre del producto
+     * @throws ApiException error a controlar
+     * @throws PersistenciaException error a controlar
+     */
+    public ArrayList<Sugerencia> autocompletar(String prefijo, int limite) throws ApiException, PersistenciaException {
+        if (limite <= 0) {
+            throw new ApiException("El numero de sugerencias tiene que ser mayor que cero");
+        }
+        return AutocompletadoProductos.obtener().sugerir(prefijo, limite);
+    }
+
+    /**
+     * Funcion que obtiene la lista de productos de la version actual del
+     * catalogo, sin ir a la base de datos. Los productos son compartidos y no
+     * deben modificarse
      * @return la lista de prodcutos
      * @throws PersistenciaException error a controlar
      * @throws ApiException error a controlar
      */
     public ArrayList<Producto> obtenerListado() throws PersistenciaException, ApiException{
         ArrayList<Producto> productos = null;
-        productos = productoModelo.obtenerListado();
+        productos = new ArrayList<>(CatalogoProductos.obtener().getCatalogo().getProductos());
         if(productos == null || productos.isEmpty()){
             throw new ApiException("La lista de productos es vacia o nula");
         }
@@ -202,28 +295,135 @@ public class ProductoController {
     }
 
     /**
-     * Metodo que reduce el stock de un producto cuando se realiza un compra
+     * Funcion que obtiene una pagina de la version actual del catalogo. La
+     * pagina puede venir vacia si no hay productos
+     * @param token de la pagina que se pide, null para la primera
+     * @param tamanio numero maximo de productos de la pagina
+     * @return la pagina de productos
+     * @throws PersistenciaException error a controlar
+     * @throws ApiException error a controlar
+     */
+    public Pagina<Producto> obtenerPagina(String token, int tamanio) throws PersistenciaException, ApiException {
+        if (tamanio <= 0) {
+            throw new ApiException("El tamaño de la pagina tiene que ser mayor que cero");
+        }
+        return CatalogoProductos.obtener().getCatalogo().obtenerPagina(token, tamanio);
+    }
+
+    /**
+     * Funcion que obtiene una pagina del listado de productos ordenado. Se lee
+     * de la base de datos por el indice del orden
+     * @param orden en el que se listan
+     * @param token de la pagina que se pide, null para la primera
+     * @param tamanio numero maximo de productos de la pagina
+     * @return la pagina de productos
+     * @throws PersistenciaException error a controlar
+     * @throws ApiException error a controlar
+     */
+    public Pagina<Producto> obtenerPagina(OrdenProductos orden, String token, int tamanio) 
+            throws PersistenciaException, ApiException {
+        if (orden == null) {
+            throw new ApiException("El orden no puede ser nulo");
+        }
+        if (tamanio <= 0) {
+            throw new ApiException("El tamaño de la pagina tiene que ser mayor que cero");
+        }
+        return productoModelo.obtenerPagina(orden, token, tamanio);
+    }
+
+    /**
+     * Funcion que obtiene los primeros productos de una categoria en un orden,
+     * por ejemplo los diez mas baratos. Se calculan en memoria sobre la version
+     * actual del catalogo
+     * @param idCategoria de la categoria, null para todo el catalogo
+     * @param orden en el que se eligen
+     * @param limite numero maximo de productos
+     * @return los productos ordenados
+     * @throws PersistenciaException error a controlar
+     * @throws ApiException error a controlar
+     */
+    public ArrayList<Producto> obtenerTop(String idCategoria, OrdenProductos orden, int limite) 
+            throws PersistenciaException, ApiException {
+        if (orden == null) {
+            throw new ApiException("El orden no puede ser nulo");
+        }
+        if (limite <= 0) {
+            throw new ApiException("El numero de resultados tiene que ser mayor que cero");
+        }
+        return new ArrayList<>(CatalogoProductos.obtener().getCatalogo().obtenerTop(idCategoria, orden, limite));
+    }
+
+    /**
+     * Funcion que filtra el catalogo por categoria, marca, franja de precio y
+     * stock a la vez, y cuenta cuantos productos del resultado tienen cada
+     * valor de cada faceta
+     * @param filtro con los valores elegidos
+     * @param limite numero maximo de productos que se devuelven
+     * @return los productos y las cuentas de las facetas
+     * @throws PersistenciaException error a controlar
+     * @throws ApiException error a controlar
+     */
+    public ResultadoFacetas filtrar(FiltroProductos filtro, int limite) throws PersistenciaException, ApiException {
+        if (filtro == null) {
+            throw new ApiException("El filtro no puede ser nulo");
+        }
+        if (limite <= 0) {
+            throw new ApiException("El numero de resultados tiene que ser mayor que cero");
+        }
+        return CatalogoProductos.obtener().getCatalogo().getFacetas().filtrar(filtro, limite);
+    }
+
+    /**
+     * Metodo que reduce el stock de un producto cuando se realiza un compra. La
+     * comprobacion del stock y el descuento son una sola sentencia
      * @param idProducto del producto que se va a comprar
      * @param unidades que se van a comprar del producto
      * @throws PersistenciaException error controlado
      * @throws ApiException error controlado
      */
     public void reducirStock(String idProducto, int unidades) throws PersistenciaException, ApiException {
-        Producto producto = buscar(idProducto);
-        int nuevoStock;
-        
+        validarUnidades(unidades);
+        comprobarStockReducido(productoModelo.reducirStock(idProducto, unidades), idProducto);
+    }
+
+    /**
+     * Metodo que reduce el stock de un producto dentro de una transaccion abierta
+     * @param idProducto del producto que se va a comprar
+     * @param unidades que se van a comprar del producto
+     * @param transaccion en la que se reduce el stock
+     * @throws PersistenciaException error controlado
+     * @throws ApiException error controlado
+     */
+    public void reducirStock(String idProducto, int unidades, Transaccion transaccion) 
+        throws PersistenciaException, ApiException {
+        validarUnidades(unidades);
+        comprobarStockReducido(productoModelo.reducirStock(idProducto, unidades, transaccion), idProducto);
+    }
+
+    /**
+     * Metodo que comprueba las unidades de una compra
+     * @param unidades que se van a comprar
+     * @throws ApiException error controlado
+     */
+    private void validarUnidades(int unidades) throws ApiException {
         if (unidades <=0) {
             throw new ApiException("Las unidades son menores o igual a 0");
         }
+    }
 
-        nuevoStock = producto.getStock() - unidades;
-        if (nuevoStock < 0) {
+    /**
+     * Metodo que explica por que no se ha podido reducir el stock
+     * @param reducido si la actualizacion ha descontado las unidades
+     * @param idProducto del producto que se queria comprar
+     * @throws PersistenciaException error controlado
+     * @throws ApiException si el producto no existe o no hay stock suficiente
+     */
+    private void comprobarStockReducido(boolean reducido, String idProducto) 
+        throws PersistenciaException, ApiException {
+        if (!reducido) {
+            buscar(idProducto);
             throw new ApiException("No hay suficiente stock para la compra");
         }
-
-        producto.setStock(nuevoStock);    
-
-        modificar(producto);
     }
 
     /**
@@ -235,16 +435,12 @@ public class ProductoController {
      * @throws PersistenciaException error controlado
      */
     public void aumentarStock(String idProducto, int cantidad) throws ApiException, PersistenciaException {
-        Producto producto;
-        int nuevoStock;
         if (cantidad <=0) {
             throw new ApiException("Las cantidad es menor o igual a 0");
         }
-        producto = buscar(idProducto);  
-        nuevoStock = producto.getStock() + cantidad;
-
-        producto.setStock(nuevoStock);
-        modificar(producto);
+        if (!productoModelo.aumentarStock(idProducto, cantidad)) {
+            throw new ApiException("El producto que quiere buscar no existe.");
+        }
     }
 
 }
@@ -0,0 +1,161 @@
+package es.iespuertodelacruz.bait.modelo.busqueda;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Busca en una lista ordenada de palabras las que estan a una distancia de
+ * Levenshtein acotada, como un automata de Levenshtein recorriendo un trie:
+ * las filas de la tabla de distancias se comparten entre palabras con el mismo
+ * prefijo, y en cuanto una fila supera la distancia maxima se salta de golpe
+ * todo el rango de palabras que empiezan por ese prefijo. No guarda estado
+ * entre busquedas
+ */
+public class BuscadorAproximado {
+    private String palabra;
+    private int distanciaMaxima;
+    private int[][] filas;
+
+    /**
+     * Constructor con la palabra buscada
+     *
+     * @param palabra         normalizada
+     * @param distanciaMaxima numero de caracteres que se pueden insertar,
+     *                        borrar o cambiar
+     */
+    public BuscadorAproximado(String palabra, int distanciaMaxima) {
+        this.palabra = palabra;
+        this.distanciaMaxima = distanciaMaxima;
+        filas = new int[16][palabra.length() + 1];
+        for (int j = 0; j <= palabra.length(); j++) {
+            filas[0][j] = j;
+        }
+    }
+
+    /**
+     * Funcion que recorre las palabras y devuelve las que estan a distancia
+     * menor o igual que la maxima, agrupadas por distancia
+     *
+     * @param palabras ordenadas y sin repetir
+     * @return una lista por distancia, de 0 a distanciaMaxima
+     */
+    public ArrayList<ArrayList<String>> buscar(String[] palabras) {
+        ArrayList<ArrayList<String>> resultado = new ArrayList<>(distanciaMaxima + 1);
+        for (int i = 0; i <= distanciaMaxima; i++) {
+            resultado.add(new ArrayList<>());
+        }
+
+        String anterior = "";
+        int i = 0;
+        while (i < palabras.length) {
+            String termino = palabras[i];
+            int fila = comunes(anterior, termino);
+            boolean descartado = false;
+            while (fila < termino.length() && !descartado) {
+                fila++;
+                descartado = calcularFila(fila, termino.charAt(fila - 1)) > distanciaMaxima;
+            }
+            if (descartado) {
+                anterior = termino.substring(0, fila);
+                i = saltarPrefijo(palabras, i, anterior);
+            } else {
+                int distancia = filas[fila][palabra.length()];
+                if (distancia <= distanciaMaxima) {
+                    resultado.get(distancia).add(termino);
+                }
+                anterior = termino;
+                i++;
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Funcion que calcula la distancia de Levenshtein entre dos palabras
+     *
+     * @param una  palabra
+     * @param otra palabra
+     * @return numero minimo de inserciones, borrados y cambios
+     */
+    public static int distancia(String una, String otra) {
+        BuscadorAproximado buscador = new BuscadorAproximado(una, Integer.MAX_VALUE);
+        for (int i = 1; i <= otra.length(); i++) {
+            buscador.calcularFila(i, otra.charAt(i - 1));
+        }
+        return buscador.filas[otra.length()][una.length()];
+    }
+
+    /**
+     * Funcion que calcula la fila de un caracter mas del prefijo a partir de
+     * la anterior
+     *
+     * @param fila     numero de caracteres del prefijo
+     * @param caracter ultimo caracter del prefijo
+     * @return el minimo de la fila: si supera la distancia maxima, ninguna
+     *         palabra con este prefijo puede estar cerca
+     */
+    private int calcularFila(int fila, char caracter) {
+        if (fila == filas.length) {
+            filas = Arrays.copyOf(filas, fila * 2);
+        }
+        if (filas[fila] == null) {
+            filas[fila] = new int[palabra.length() + 1];
+        }
+        int[] previa = filas[fila - 1];
+        int[] actual = filas[fila];
+        actual[0] = fila;
+        int minimo = fila;
+        for (int j = 1; j <= palabra.length(); j++) {
+            int cambio = previa[j - 1] + (palabra.charAt(j - 1) == caracter ? 0 : 1);
+            actual[j] = Math.min(cambio, Math.min(previa[j], actual[j - 1]) + 1);
+            minimo = Math.min(minimo, actual[j]);
+        }
+        return minimo;
+    }
+
+    /**
+     * Funcion que busca la primera palabra que ya no empieza por el prefijo.
+     * Las que empiezan por el son consecutivas y casi siempre pocas, asi que se
+     * avanza a saltos que se duplican y despues se afina con una busqueda
+     * binaria, sin recorrer el array entero
+     *
+     * @param palabras ordenadas
+     * @param desde    posicion de una palabra que empieza por el prefijo
+     * @param prefijo  descartado
+     * @return la posicion de la primera palabra sin el prefijo
+     */
+    private int saltarPrefijo(String[] palabras, int desde, String prefijo) {
+        int inicio = desde + 1;
+        int salto = 1;
+        while (inicio + salto <= palabras.length && palabras[inicio + salto - 1].startsWith(prefijo)) {
+            inicio += salto;
+            salto *= 2;
+        }
+        int fin = Math.min(inicio + salto - 1, palabras.length);
+        while (inicio < fin) {
+            int medio = (inicio + fin) >>> 1;
+            if (palabras[medio].startsWith(prefijo)) {
+                inicio = medio + 1;
+            } else {
+                fin = medio;
+            }
+        }
+        return inicio;
+    }
+
+    /**
+     * Funcion que cuenta los caracteres iniciales comunes de dos palabras
+     *
+     * @param una  palabra
+     * @param otra palabra
+     * @return numero de caracteres comunes
+     */
+    private int comunes(String una, String otra) {
+        int maximo = Math.min(una.length(), otra.length());
+        int comunes = 0;
+        while (comunes < maximo && una.charAt(comunes) == otra.charAt(comunes)) {
+            comunes++;
+        }
+        return comunes;
+    }
+}
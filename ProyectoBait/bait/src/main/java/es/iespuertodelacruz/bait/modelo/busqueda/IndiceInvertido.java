@@ -0,0 +1,142 @@
+package es.iespuertodelacruz.bait.modelo.busqueda;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Indice invertido en memoria: para cada termino normalizado guarda la lista
+ * ordenada de documentos (enteros) que lo contienen. Los terminos estan
+ * ordenados, asi que buscar por prefijo es recorrer un rango y buscar con
+ * errores de escritura es recorrerlos como un trie. No es seguro entre hilos;
+ * quien lo use tiene que sincronizarlo
+ */
+public class IndiceInvertido {
+    private TreeMap<String, ListaEnteros> terminos;
+    private String[] vocabulario;
+
+    /**
+     * Constructor basico de la clase
+     */
+    public IndiceInvertido() {
+        terminos = new TreeMap<>();
+    }
+
+    /**
+     * Metodo que añade un documento a la lista de cada uno de sus terminos
+     *
+     * @param documento identificador del documento
+     * @param tokens    terminos normalizados del documento
+     */
+    public void añadir(int documento, Collection<String> tokens) {
+        for (String token : tokens) {
+            terminos.computeIfAbsent(token, clave -> {
+                vocabulario = null;
+                return new ListaEnteros();
+            }).añadir(documento);
+        }
+    }
+
+    /**
+     * Metodo que quita un documento de las listas de sus terminos. Los terminos
+     * que se quedan sin documentos desaparecen
+     *
+     * @param documento identificador del documento
+     * @param tokens    terminos con los que se añadio
+     */
+    public void quitar(int documento, Collection<String> tokens) {
+        for (String token : tokens) {
+            ListaEnteros documentos = terminos.get(token);
+            if (documentos != null) {
+                documentos.quitar(documento);
+                if (documentos.estaVacia()) {
+                    terminos.remove(token);
+                    vocabulario = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Funcion que devuelve los documentos que contienen un termino que empieza
+     * por cada uno de los prefijos. Se intersecan de menor a mayor para que las
+     * listas intermedias sean lo mas cortas posible
+     *
+     * @param prefijos normalizados
+     * @return los documentos ordenados, vacia si no hay prefijos
+     */
+    public ListaEnteros buscar(Collection<String> prefijos) {
+        ArrayList<ListaEnteros> listas = new ArrayList<>();
+        for (String prefijo : prefijos) {
+            ListaEnteros documentos = buscarPrefijo(prefijo);
+            if (documentos.estaVacia()) {
+                return documentos;
+            }
+            listas.add(documentos);
+        }
+        if (listas.isEmpty()) {
+            return new ListaEnteros();
+        }
+        listas.sort(Comparator.comparingInt(ListaEnteros::tamanio));
+        ListaEnteros resultado = listas.get(0);
+        for (int i = 1; i < listas.size() && !resultado.estaVacia(); i++) {
+            resultado = resultado.interseccion(listas.get(i));
+        }
+        return resultado;
+    }
+
+    /**
+     * Funcion que devuelve los documentos con un termino parecido a la palabra,
+     * separados por la distancia de edicion del termino. Un documento puede
+     * estar en varias distancias si tiene varios terminos parecidos. Los
+     * terminos se recorren en un array ordenado que se rehace en la primera
+     * busqueda tras añadir o quitar alguno
+     *
+     * @param palabra         normalizada
+     * @param distanciaMaxima de edicion que se admite
+     * @return una lista de documentos por distancia, de 0 a distanciaMaxima
+     */
+    public ArrayList<ListaEnteros> buscarAproximado(String palabra, int distanciaMaxima) {
+        ArrayList<ListaEnteros> resultado = new ArrayList<>(distanciaMaxima + 1);
+        if (vocabulario == null) {
+            vocabulario = terminos.keySet().toArray(new String[0]);
+        }
+        for (ArrayList<String> parecidos : new BuscadorAproximado(palabra, distanciaMaxima).buscar(vocabulario)) {
+            ArrayList<ListaEnteros> listas = new ArrayList<>(parecidos.size());
+            for (String parecido : parecidos) {
+                listas.add(terminos.get(parecido));
+            }
+            resultado.add(ListaEnteros.union(listas));
+        }
+        return resultado;
+    }
+
+    /**
+     * Funcion que une las listas de todos los terminos que empiezan por el
+     * prefijo
+     *
+     * @param prefijo normalizado
+     * @return los documentos ordenados
+     */
+    private ListaEnteros buscarPrefijo(String prefijo) {
+        ListaEnteros resultado = new ListaEnteros();
+        for (Map.Entry<String, ListaEnteros> termino : terminos.tailMap(prefijo).entrySet()) {
+            if (!termino.getKey().startsWith(prefijo)) {
+                break;
+            }
+            resultado = resultado.union(termino.getValue());
+        }
+        return resultado;
+    }
+
+    /**
+     * Funcion que devuelve el numero de terminos distintos
+     *
+     * @return numero de terminos
+     */
+    public int getTerminos() {
+        return terminos.size();
+    }
+}
@@ -0,0 +1,189 @@
+package es.iespuertodelacruz.bait.modelo.busqueda;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Conjunto ordenado de enteros sobre un int[] que crece bajo demanda. Es la
+ * lista de documentos (posting list) de cada termino del indice invertido: sin
+ * objetos Integer y con interseccion y union lineales
+ */
+public class ListaEnteros {
+    private static final int CAPACIDAD_INICIAL = 4;
+
+    private int[] valores;
+    private int tamanio;
+
+    /**
+     * Constructor basico de la clase
+     */
+    public ListaEnteros() {
+        this(CAPACIDAD_INICIAL);
+    }
+
+    /**
+     * Constructor con la capacidad inicial
+     *
+     * @param capacidad inicial del array
+     */
+    public ListaEnteros(int capacidad) {
+        valores = new int[Math.max(1, capacidad)];
+    }
+
+    /**
+     * Funcion que añade un valor manteniendo el orden. Añadir al final, que es
+     * lo habitual, no mueve nada
+     *
+     * @param valor a añadir
+     * @return verdadero si no estaba
+     */
+    public boolean añadir(int valor) {
+        int posicion = tamanio == 0 || valores[tamanio - 1] < valor ? -(tamanio + 1)
+                : Arrays.binarySearch(valores, 0, tamanio, valor);
+        if (posicion >= 0) {
+            return false;
+        }
+        posicion = -(posicion + 1);
+        if (tamanio == valores.length) {
+            valores = Arrays.copyOf(valores, tamanio * 2);
+        }
+        System.arraycopy(valores, posicion, valores, posicion + 1, tamanio - posicion);
+        valores[posicion] = valor;
+        tamanio++;
+        return true;
+    }
+
+    /**
+     * Funcion que quita un valor
+     *
+     * @param valor a quitar
+     * @return verdadero si estaba
+     */
+    public boolean quitar(int valor) {
+        int posicion = Arrays.binarySearch(valores, 0, tamanio, valor);
+        if (posicion < 0) {
+            return false;
+        }
+        System.arraycopy(valores, posicion + 1, valores, posicion, tamanio - posicion - 1);
+        tamanio--;
+        return true;
+    }
+
+    /**
+     * Funcion que indica si contiene un valor
+     *
+     * @param valor a buscar
+     * @return verdadero/falso
+     */
+    public boolean contiene(int valor) {
+        return Arrays.binarySearch(valores, 0, tamanio, valor) >= 0;
+    }
+
+    /**
+     * Funcion que devuelve los valores que estan en las dos listas
+     *
+     * @param otra lista
+     * @return una lista nueva con la interseccion
+     */
+    public ListaEnteros interseccion(ListaEnteros otra) {
+        ListaEnteros resultado = new ListaEnteros(Math.min(tamanio, otra.tamanio));
+        int i = 0;
+        int j = 0;
+        while (i < tamanio && j < otra.tamanio) {
+            if (valores[i] < otra.valores[j]) {
+                i++;
+            } else if (valores[i] > otra.valores[j]) {
+                j++;
+            } else {
+                resultado.valores[resultado.tamanio++] = valores[i];
+                i++;
+                j++;
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Funcion que devuelve los valores que estan en alguna de las dos listas
+     *
+     * @param otra lista
+     * @return una lista nueva con la union
+     */
+    public ListaEnteros union(ListaEnteros otra) {
+        ListaEnteros resultado = new ListaEnteros(tamanio + otra.tamanio);
+        int i = 0;
+        int j = 0;
+        while (i < tamanio || j < otra.tamanio) {
+            int valor;
+            if (j == otra.tamanio || (i < tamanio && valores[i] < otra.valores[j])) {
+                valor = valores[i++];
+            } else if (i == tamanio || valores[i] > otra.valores[j]) {
+                valor = otra.valores[j++];
+            } else {
+                valor = valores[i];
+                i++;
+                j++;
+            }
+            resultado.valores[resultado.tamanio++] = valor;
+        }
+        return resultado;
+    }
+
+    /**
+     * Funcion que une muchas listas de una vez: junta todos los valores, los
+     * ordena y quita los repetidos, en lugar de ir uniendo de dos en dos
+     *
+     * @param listas a unir
+     * @return una lista nueva con la union
+     */
+    public static ListaEnteros union(Collection<ListaEnteros> listas) {
+        int total = 0;
+        for (ListaEnteros lista : listas) {
+            total += lista.tamanio;
+        }
+        ListaEnteros resultado = new ListaEnteros(total);
+        for (ListaEnteros lista : listas) {
+            System.arraycopy(lista.valores, 0, resultado.valores, resultado.tamanio, lista.tamanio);
+            resultado.tamanio += lista.tamanio;
+        }
+        Arrays.sort(resultado.valores, 0, resultado.tamanio);
+        int distintos = 0;
+        for (int i = 0; i < resultado.tamanio; i++) {
+            if (distintos == 0 || resultado.valores[distintos - 1] != resultado.valores[i]) {
+                resultado.valores[distintos++] = resultado.valores[i];
+            }
+        }
+        resultado.tamanio = distintos;
+        return resultado;
+    }
+
+    /**
+     * Funcion que devuelve el valor de una posicion
+     *
+     * @param posicion en la lista, de 0 a tamanio - 1
+     * @return el valor
+     */
+    public int get(int posicion) {
+        if (posicion >= tamanio) {
+            throw new IndexOutOfBoundsException(posicion);
+        }
+        return valores[posicion];
+    }
+
+    public int tamanio() {
+        return tamanio;
+    }
+
+    public boolean estaVacia() {
+        return tamanio == 0;
+    }
+
+    /**
+     * Funcion que devuelve una copia de los valores
+     *
+     * @return los valores en orden
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(valores, tamanio);
+    }
+}
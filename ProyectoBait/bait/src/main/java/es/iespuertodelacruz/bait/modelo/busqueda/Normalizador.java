@@ -0,0 +1,48 @@
+package es.iespuertodelacruz.bait.modelo.busqueda;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Normaliza el texto para las busquedas en memoria: minusculas y sin tildes ni
+ * diéresis, de modo que "Fútbol" y "futbol" son el mismo termino
+ */
+public class Normalizador {
+    private static final Pattern SEPARADOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern DIACRITICOS = Pattern.compile("\\p{M}+");
+
+    private Normalizador() {
+    }
+
+    /**
+     * Funcion que pasa el texto a minusculas y le quita los diacriticos
+     *
+     * @param texto a normalizar
+     * @return el texto normalizado, vacio si es null
+     */
+    public static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String descompuesto = Normalizer.normalize(texto.toLowerCase(Locale.ROOT), Normalizer.Form.NFD);
+        return DIACRITICOS.matcher(descompuesto).replaceAll("");
+    }
+
+    /**
+     * Funcion que divide el texto normalizado en palabras de letras y numeros
+     *
+     * @param texto a dividir
+     * @return las palabras en orden, sin vacias
+     */
+    public static ArrayList<String> tokens(String texto) {
+        ArrayList<String> tokens = new ArrayList<>();
+        for (String token : SEPARADOR.split(normalizar(texto))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,41 @@
+package es.iespuertodelacruz.bait.modelo.busqueda;
+
+/**
+ * Texto que se ofrece al autocompletar, con el identificador de lo que
+ * representa y el peso con el que se ordena (mayor primero)
+ */
+public class Sugerencia {
+    private String id;
+    private String texto;
+    private int peso;
+
+    /**
+     * Constructor con todos los datos
+     *
+     * @param id    identificador de lo sugerido
+     * @param texto que se muestra
+     * @param peso  para ordenar las sugerencias
+     */
+    public Sugerencia(String id, String texto, int peso) {
+        this.id = id;
+        this.texto = texto;
+        this.peso = peso;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getTexto() {
+        return texto;
+    }
+
+    public int getPeso() {
+        return peso;
+    }
+
+    @Override
+    public String toString() {
+        return texto + " (" + peso + ")";
+    }
+}
@@ -0,0 +1,369 @@
+package es.iespuertodelacruz.bait.modelo.busqueda;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.PriorityQueue;
+
+/**
+ * Trie compacto (radix) para autocompletar. Cada arista guarda un trozo de
+ * clave en lugar de un caracter, y cada nodo el peso maximo de lo que cuelga
+ * de el, asi que las N mejores sugerencias de un prefijo se sacan recorriendo
+ * primero las ramas mas pesadas sin visitar el resto. Cada texto se indexa
+ * desde el principio de cada una de sus palabras. No es seguro entre hilos;
+ * quien lo use tiene que sincronizarlo
+ */
+public class TrieSugerencias {
+    private static final Nodo[] SIN_HIJOS = new Nodo[0];
+    private static final Sugerencia[] SIN_ENTRADAS = new Sugerencia[0];
+
+    private Nodo raiz;
+    private HashMap<String, Sugerencia> sugerencias;
+
+    /**
+     * Constructor basico de la clase
+     */
+    public TrieSugerencias() {
+        raiz = new Nodo("");
+        sugerencias = new HashMap<>();
+    }
+
+    /**
+     * Metodo que añade una sugerencia, sustituyendo la que tuviera el mismo id
+     *
+     * @param sugerencia a añadir
+     */
+    public void añadir(Sugerencia sugerencia) {
+        quitar(sugerencia.getId());
+        sugerencias.put(sugerencia.getId(), sugerencia);
+        for (String clave : claves(sugerencia.getTexto())) {
+            insertar(clave, sugerencia);
+        }
+    }
+
+    /**
+     * Metodo que quita la sugerencia de un id si estaba
+     *
+     * @param id de la sugerencia
+     */
+    public void quitar(String id) {
+        Sugerencia sugerencia = sugerencias.remove(id);
+        if (sugerencia != null) {
+            for (String clave : claves(sugerencia.getTexto())) {
+                borrar(raiz, clave, 0, id);
+            }
+        }
+    }
+
+    /**
+     * Metodo que suma al peso de una sugerencia, si existe
+     *
+     * @param id       de la sugerencia
+     * @param cantidad que se suma
+     */
+    public void sumarPeso(String id, int cantidad) {
+        Sugerencia sugerencia = sugerencias.get(id);
+        if (sugerencia != null) {
+            añadir(new Sugerencia(id, sugerencia.getTexto(), sugerencia.getPeso() + cantidad));
+        }
+    }
+
+    /**
+     * Funcion que devuelve la sugerencia de un id
+     *
+     * @param id de la sugerencia
+     * @return la sugerencia o null si no existe
+     */
+    public Sugerencia get(String id) {
+        return sugerencias.get(id);
+    }
+
+    /**
+     * Funcion que devuelve las sugerencias con mas peso que tienen una palabra
+     * que empieza por el prefijo, y si el prefijo tiene varias palabras, que
+     * siguen en ese orden
+     *
+     * @param prefijo que ha escrito el usuario
+     * @param limite  numero maximo de sugerencias
+     * @return las sugerencias ordenadas de mayor a menor peso
+     */
+    public ArrayList<Sugerencia> buscar(String prefijo, int limite) {
+        ArrayList<Sugerencia> resultado = new ArrayList<>();
+        String clave = String.join(" ", Normalizador.tokens(prefijo));
+        Nodo nodo = clave.isEmpty() ? null : descender(clave);
+        if (nodo == null || limite <= 0) {
+            return resultado;
+        }
+
+        HashSet<String> vistas = new HashSet<>();
+        PriorityQueue<Candidato> candidatos = new PriorityQueue<>();
+        candidatos.add(new Candidato(nodo.maximo, nodo, null));
+        while (!candidatos.isEmpty() && resultado.size() < limite) {
+            Candidato candidato = candidatos.poll();
+            if (candidato.sugerencia != null) {
+                if (vistas.add(candidato.sugerencia.getId())) {
+                    resultado.add(candidato.sugerencia);
+                }
+            } else {
+                for (Sugerencia sugerencia : candidato.nodo.entradas) {
+                    candidatos.add(new Candidato(sugerencia.getPeso(), null, sugerencia));
+                }
+                for (Nodo hijo : candidato.nodo.hijos) {
+                    candidatos.add(new Candidato(hijo.maximo, hijo, null));
+                }
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Funcion que devuelve cuantas sugerencias hay
+     *
+     * @return numero de sugerencias
+     */
+    public int getSugerencias() {
+        return sugerencias.size();
+    }
+
+    /**
+     * Funcion que devuelve las claves de un texto: el texto normalizado desde
+     * cada una de sus palabras
+     *
+     * @param texto de la sugerencia
+     * @return las claves
+     */
+    private ArrayList<String> claves(String texto) {
+        ArrayList<String> tokens = Normalizador.tokens(texto);
+        ArrayList<String> claves = new ArrayList<>(tokens.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            claves.add(String.join(" ", tokens.subList(i, tokens.size())));
+        }
+        return claves;
+    }
+
+    /**
+     * Metodo que cuelga una sugerencia de su clave, partiendo la arista que
+     * solo coincide en parte y subiendo el maximo de los nodos del camino
+     *
+     * @param clave      normalizada
+     * @param sugerencia a colgar
+     */
+    private void insertar(String clave, Sugerencia sugerencia) {
+        Nodo nodo = raiz;
+        int posicion = 0;
+        while (true) {
+            nodo.maximo = Math.max(nodo.maximo, sugerencia.getPeso());
+            if (posicion == clave.length()) {
+                nodo.entradas = Arrays.copyOf(nodo.entradas, nodo.entradas.length + 1);
+                nodo.entradas[nodo.entradas.length - 1] = sugerencia;
+                return;
+            }
+            int indice = nodo.buscarHijo(clave.charAt(posicion));
+            if (indice < 0) {
+                Nodo hoja = new Nodo(clave.substring(posicion));
+                hoja.maximo = sugerencia.getPeso();
+                hoja.entradas = new Sugerencia[] {sugerencia};
+                nodo.insertarHijo(-(indice + 1), hoja);
+                return;
+            }
+            Nodo hijo = nodo.hijos[indice];
+            int comunes = comunes(hijo.etiqueta, clave, posicion);
+            if (comunes < hijo.etiqueta.length()) {
+                Nodo intermedio = new Nodo(hijo.etiqueta.substring(0, comunes));
+                hijo.etiqueta = hijo.etiqueta.substring(comunes);
+                intermedio.hijos = new Nodo[] {hijo};
+                intermedio.maximo = hijo.maximo;
+                nodo.hijos[indice] = intermedio;
+                hijo = intermedio;
+            }
+            posicion += comunes;
+            nodo = hijo;
+        }
+    }
+
+    /**
+     * Metodo que quita una sugerencia de su clave, eliminando los nodos que se
+     * quedan vacios, juntando los que se quedan con un solo hijo y
+     * recalculando el maximo del camino
+     *
+     * @param nodo     actual
+     * @param clave    normalizada
+     * @param posicion de la clave ya recorrida
+     * @param id       de la sugerencia
+     */
+    private void borrar(Nodo nodo, String clave, int posicion, String id) {
+        if (posicion == clave.length()) {
+            nodo.quitarEntrada(id);
+        } else {
+            int indice = nodo.buscarHijo(clave.charAt(posicion));
+            if (indice < 0 || !clave.startsWith(nodo.hijos[indice].etiqueta, posicion)) {
+                return;
+            }
+            Nodo hijo = nodo.hijos[indice];
+            borrar(hijo, clave, posicion + hijo.etiqueta.length(), id);
+            if (hijo.entradas.length == 0 && hijo.hijos.length == 0) {
+                nodo.quitarHijo(indice);
+            } else if (hijo.entradas.length == 0 && hijo.hijos.length == 1) {
+                Nodo nieto = hijo.hijos[0];
+                nieto.etiqueta = hijo.etiqueta + nieto.etiqueta;
+                nodo.hijos[indice] = nieto;
+            }
+        }
+        nodo.recalcularMaximo();
+    }
+
+    /**
+     * Funcion que baja por el trie siguiendo la clave, que puede acabar a
+     * mitad de una arista
+     *
+     * @param clave normalizada
+     * @return el nodo del que cuelgan todas las claves con ese prefijo, o null
+     */
+    private Nodo descender(String clave) {
+        Nodo nodo = raiz;
+        int posicion = 0;
+        while (posicion < clave.length()) {
+            int indice = nodo.buscarHijo(clave.charAt(posicion));
+            if (indice < 0) {
+                return null;
+            }
+            Nodo hijo = nodo.hijos[indice];
+            int comunes = comunes(hijo.etiqueta, clave, posicion);
+            if (comunes < hijo.etiqueta.length() && posicion + comunes < clave.length()) {
+                return null;
+            }
+            posicion += comunes;
+            nodo = hijo;
+        }
+        return nodo;
+    }
+
+    /**
+     * Funcion que cuenta los caracteres iniciales de la etiqueta que coinciden
+     * con la clave a partir de una posicion
+     *
+     * @param etiqueta de la arista
+     * @param clave    normalizada
+     * @param posicion desde la que se compara la clave
+     * @return numero de caracteres comunes
+     */
+    private int comunes(String etiqueta, String clave, int posicion) {
+        int comunes = 0;
+        int maximo = Math.min(etiqueta.length(), clave.length() - posicion);
+        while (comunes < maximo && etiqueta.charAt(comunes) == clave.charAt(posicion + comunes)) {
+            comunes++;
+        }
+        return comunes;
+    }
+
+    /**
+     * Nodo del trie: la etiqueta de la arista que llega a el, los hijos
+     * ordenados por su primer caracter, las sugerencias cuya clave acaba aqui
+     * y el peso maximo del subarbol
+     */
+    private static class Nodo {
+        private String etiqueta;
+        private Nodo[] hijos;
+        private Sugerencia[] entradas;
+        private int maximo;
+
+        Nodo(String etiqueta) {
+            this.etiqueta = etiqueta;
+            hijos = SIN_HIJOS;
+            entradas = SIN_ENTRADAS;
+            maximo = Integer.MIN_VALUE;
+        }
+
+        /**
+         * Funcion que busca el hijo cuya etiqueta empieza por el caracter
+         *
+         * @param caracter inicial
+         * @return la posicion, o -(posicion de insercion + 1) si no existe
+         */
+        int buscarHijo(char caracter) {
+            int inicio = 0;
+            int fin = hijos.length - 1;
+            while (inicio <= fin) {
+                int medio = (inicio + fin) >>> 1;
+                char actual = hijos[medio].etiqueta.charAt(0);
+                if (actual < caracter) {
+                    inicio = medio + 1;
+                } else if (actual > caracter) {
+                    fin = medio - 1;
+                } else {
+                    return medio;
+                }
+            }
+            return -(inicio + 1);
+        }
+
+        void insertarHijo(int posicion, Nodo hijo) {
+            Nodo[] nuevos = new Nodo[hijos.length + 1];
+            System.arraycopy(hijos, 0, nuevos, 0, posicion);
+            nuevos[posicion] = hijo;
+            System.arraycopy(hijos, posicion, nuevos, posicion + 1, hijos.length - posicion);
+            hijos = nuevos;
+        }
+
+        void quitarHijo(int posicion) {
+            Nodo[] nuevos = hijos.length == 1 ? SIN_HIJOS : new Nodo[hijos.length - 1];
+            System.arraycopy(hijos, 0, nuevos, 0, posicion);
+            System.arraycopy(hijos, posicion + 1, nuevos, posicion, hijos.length - posicion - 1);
+            hijos = nuevos;
+        }
+
+        void quitarEntrada(String id) {
+            for (int i = 0; i < entradas.length; i++) {
+                if (entradas[i].getId().equals(id)) {
+                    Sugerencia[] nuevas = entradas.length == 1 ? SIN_ENTRADAS : new Sugerencia[entradas.length - 1];
+                    System.arraycopy(entradas, 0, nuevas, 0, i);
+                    System.arraycopy(entradas, i + 1, nuevas, i, entradas.length - i - 1);
+                    entradas = nuevas;
+                    return;
+                }
+            }
+        }
+
+        void recalcularMaximo() {
+            maximo = Integer.MIN_VALUE;
+            for (Sugerencia entrada : entradas) {
+                maximo = Math.max(maximo, entrada.getPeso());
+            }
+            for (Nodo hijo : hijos) {
+                maximo = Math.max(maximo, hijo.maximo);
+            }
+        }
+    }
+
+    /**
+     * Elemento pendiente del recorrido: un nodo por explorar o una sugerencia
+     * por devolver. Con el mismo peso van antes las sugerencias, que ya se
+     * pueden devolver
+     */
+    private static class Candidato implements Comparable<Candidato> {
+        private int peso;
+        private Nodo nodo;
+        private Sugerencia sugerencia;
+
+        Candidato(int peso, Nodo nodo, Sugerencia sugerencia) {
+            this.peso = peso;
+            this.nodo = nodo;
+            this.sugerencia = sugerencia;
+        }
+
+        @Override
+        public int compareTo(Candidato otro) {
+            if (peso != otro.peso) {
+                return Integer.compare(otro.peso, peso);
+            }
+            if ((sugerencia == null) != (otro.sugerencia == null)) {
+                return sugerencia != null ? -1 : 1;
+            }
+            if (sugerencia != null) {
+                return sugerencia.getTexto().compareTo(otro.sugerencia.getTexto());
+            }
+            return 0;
+        }
+    }
+}
@@ -1,30 +1,52 @@
 package es.iespuertodelacruz.bait.modelo.movimientosModelo;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.stream.Stream;
 
 import es.iespuertodelacruz.bait.api.movimientos.Envio;
-import es.iespuertodelacruz.bait.api.movimientos.Pedido;
 import es.iespuertodelacruz.bait.exceptions.PersistenciaException;
 import es.iespuertodelacruz.bait.modelo.mysql.BbddSqlite;
+import es.iespuertodelacruz.bait.modelo.mysql.Binder;
+import es.iespuertodelacruz.bait.modelo.mysql.BinderLote;
+import es.iespuertodelacruz.bait.modelo.mysql.Pagina;
+import es.iespuertodelacruz.bait.modelo.mysql.Paginador;
+import es.iespuertodelacruz.bait.modelo.mysql.ResultadoLote;
+import es.iespuertodelacruz.bait.modelo.mysql.RowMapper;
+import es.iespuertodelacruz.bait.modelo.mysql.Transaccion;
 import es.iespuertodelacruz.bait.modelo.mysql.UtilidadesSQL;
 
 public class EnvioModelo {
     private static final String ID_ENVIO = "idEnvio";
     public static final String TABLE_NAME = "ENVIOS";
     private static UtilidadesSQL utilidadesSQL = new UtilidadesSQL(TABLE_NAME, "idEnvio, idPedido, fechaEnvio, estado");
+    private static final BinderLote<Envio> INSERTAR = (preparedStatement, envio) -> {
+        preparedStatement.setString(1, envio.getIdEnvio());
+        preparedStatement.setString(2, envio.getPedido().getIdPedido());
+        preparedStatement.setString(3, envio.getFechaEnvio());
+        preparedStatement.setString(4, envio.getEstado());
+    };
+    private static final BinderLote<Envio> MODIFICAR = (preparedStatement, envio) -> {
+        INSERTAR.enlazar(preparedStatement, envio);
+        preparedStatement.setString(5, envio.getIdEnvio());
+    };
+    /**
+     * Consulta de los envios con su pedido completo, a la que se añaden los
+     * filtros
+     */
+    public static final String SELECT_ENVIOS = "SELECT e.idEnvio, e.fechaEnvio, e.estado, "
+        + HidratadorPedidos.COLUMNAS + " FROM ENVIOS e LEFT JOIN PEDIDOS pe ON pe.idPedido = e.idPedido"
+        + HidratadorPedidos.JOIN;
+    public static final String FILTRO_CLIENTE = " WHERE pe.idCliente = ?";
+    private static final Paginador<Envio> PAGINADOR = new Paginador<>(SELECT_ENVIOS, "e.idEnvio", 
+        () -> mapper(true), Envio::getIdEnvio);
     BbddSqlite persistencia;
-    PedidoModelo pedidoModelo;
     /**
      * Constructor basico de la clase
      * @throws PersistenciaException error a controlar
      */
     public EnvioModelo() throws PersistenciaException{
         persistencia = new BbddSqlite(TABLE_NAME,null, null);
-        pedidoModelo = new PedidoModelo();
     }
 
     /**
@@ -34,21 +56,24 @@ public class EnvioModelo {
      * @throws PersistenciaException error a controlar
      */
     public void insertar(Envio envio) throws PersistenciaException {
-        Connection connection = null;
-        PreparedStatement preparedStatement = null;
+        persistencia.ejecutarEnTransaccion(transaccion -> {
+            insertar(envio, transaccion);
+            return null;
+        });
+    }
+
+    /**
+     * Metodo que inserta un envio dentro de una transaccion abierta
+     * 
+     * @param envio       que va a insertar en la base de datos
+     * @param transaccion en la que se inserta
+     * @throws PersistenciaException error a controlar
+     */
+    public void insertar(Envio envio, Transaccion transaccion) throws PersistenciaException {
         try {
-            connection = persistencia.getConnection();
-            preparedStatement = connection.prepareStatement(utilidadesSQL.getINSERT());
-            preparedStatement.setString(1, envio.getIdEnvio());
-            preparedStatement.setString(2, envio.getPedido().getIdPedido());
-            preparedStatement.setString(3, envio.getFechaEnvio());
-            preparedStatement.setString(4, envio.getEstado());
-
-            preparedStatement.executeUpdate();
-        } catch (Exception e) {
+            persistencia.actualizar(transaccion, utilidadesSQL.getINSERT(), INSERTAR.para(envio));
+        } catch (PersistenciaException e) {
             throw new PersistenciaException("Ha ocurrido un error al insertar el envio", e);
-        }finally{
-            persistencia.closeConnection(connection, preparedStatement, null);
         }
 
     }
@@ -60,20 +85,12 @@ public class EnvioModelo {
      * @throws PersistenciaException error a controlar
      */
     public void eliminar(String idEnvio) throws PersistenciaException {
-        Connection connection = null;
-        PreparedStatement preparedStatement = null;
-
         try {
-            connection = persistencia.getConnection();
-            preparedStatement = connection.prepareStatement(utilidadesSQL.setDelete(ID_ENVIO));
-            preparedStatement.setString(1, idEnvio);
-
-            preparedStatement.executeUpdate();
-
-        } catch (Exception e) {
+            persistencia.actualizar(utilidadesSQL.setDelete(ID_ENVIO), preparedStatement -> {
+                preparedStatement.setString(1, idEnvio);
+            });
+        } catch (PersistenciaException e) {
             throw new PersistenciaException("Ha ocurrido un error al eliminar el envio", e);
-        }finally{
-            persistencia.closeConnection(connection, preparedStatement, null);
         }
 
     }
@@ -84,60 +101,39 @@ public class EnvioModelo {
      * @throws PersistenciaException error a controlar
      */
     public void modificar(Envio envio) throws PersistenciaException {
-        Connection connection = null;
-        PreparedStatement preparedStatement = null;
         try {
-            connection = persistencia.getConnection();
-            preparedStatement = connection.prepareStatement(utilidadesSQL.setUpdate());
-            preparedStatement.setString(1, envio.getIdEnvio());
-            preparedStatement.setString(2, envio.getPedido().getIdPedido());
-            preparedStatement.setString(3, envio.getFechaEnvio());
-            preparedStatement.setString(4, envio.getEstado());
-            preparedStatement.setString(5, envio.getIdEnvio());
-
-            preparedStatement.executeUpdate();
-        } catch (Exception e) {
+            persistencia.actualizar(utilidadesSQL.setUpdate(), MODIFICAR.para(envio));
+        } catch (PersistenciaException e) {
             throw new PersistenciaException("Ha ocurrido un error al modificar el ENVIO", e);
-        }finally{
-            persistencia.closeConnection(connection, preparedStatement, null);
         }
         
         
     }
 
     /**
-     * Funcion que realiza un consulta y devuelve una lista de envio
+     * Funcion que realiza un consulta y devuelve una lista de envio. El pedido,
+     * su cliente y su producto vienen en la misma consulta
      * 
-     * @param sql   consulta que se va a realizar
-     * @param valor del campo patron
+     * @param filtro  condicion que se añade a la consulta de envios
+     * @param valores de los campos patron
      * @return una lista de envios
      * @throws PersistenciaException error a controlar
      */
-    private ArrayList<Envio> buscarPorElemento(String sql, String valor) throws PersistenciaException {
-        ResultSet resultSet;
-        ArrayList<Envio> lista = new ArrayList<>();
-
-        resultSet = persistencia.buscarElemento(sql, valor);
-
-        try {
-            while (resultSet.next()) {
-                String idEnvio = resultSet.getString(ID_ENVIO);
-                String idPedido = resultSet.getString("idPedido");
-                String fechaEnvio = resultSet.getString("fechaEnvio");
-                String estado = resultSet.getString("estado");
-               
-
-                Pedido pedido = pedidoModelo.buscaPorIdentificador(idPedido);
-
-                Envio envio = new Envio(idEnvio, pedido, fechaEnvio, estado);
-                lista.add(envio);
-            }
-        } catch (SQLException e) {
-            throw new PersistenciaException(e.getMessage());
-        }
-
-        return lista;
+    private ArrayList<Envio> buscarPorElemento(String filtro, Object... valores) throws PersistenciaException {
+        return persistencia.consultar(SELECT_ENVIOS + filtro, Binder.valores(valores), mapper(true));
+    }
 
+    /**
+     * Funcion que crea el mapper de una consulta de envios, con su propio
+     * hidratador de pedidos
+     * 
+     * @param compartir si se reutilizan los clientes y productos repetidos
+     * @return el mapper de los envios
+     */
+    private static RowMapper<Envio> mapper(boolean compartir) {
+        HidratadorPedidos pedidos = new HidratadorPedidos(compartir);
+        return resultSet -> new Envio(resultSet.getString(ID_ENVIO), pedidos.mapear(resultSet), 
+            resultSet.getString("fechaEnvio"), resultSet.getString("estado"));
     }
 
     /**
@@ -148,9 +144,7 @@ public class EnvioModelo {
      */
     public ArrayList<Envio> obtenerListado() throws PersistenciaException {
         ArrayList<Envio> lista;
-        String sql = utilidadesSQL.getSELECTALL();
-
-        lista = buscarPorElemento(sql, "");
+        lista = buscarPorElemento("");
 
         return lista;
     }
@@ -164,14 +158,62 @@ public class EnvioModelo {
      */
     public ArrayList<Envio> obtenerListado(String dni) throws PersistenciaException {
         ArrayList<Envio> lista;
-        
-        String sql = "SELECT * FROM ENVIOS INNER JOIN PEDIDOS ON ENVIOS.idPedido = PEDIDOS.idPedido WHERE idCliente = ?";
 
-        lista = buscarPorElemento(sql, dni);
+        lista = buscarPorElemento(FILTRO_CLIENTE, dni);
 
         return lista;
     }
 
+    /**
+     * Funcion que devuelve los envios como un Stream perezoso que va leyendo las
+     * filas segun se recorre, sin cargarlas todas en memoria. La conexion queda
+     * abierta hasta que se cierra, asi que debe usarse en un try-with-resources
+     * 
+     * @return el Stream de envios
+     * @throws PersistenciaException error a controlar
+     */
+    public Stream<Envio> streamListado() throws PersistenciaException {
+        return persistencia.consultarStream(SELECT_ENVIOS, Binder.NINGUNO, mapper(false));
+    }
+
+    /**
+     * Funcion que devuelve los envios de un usuario como un Stream perezoso. Hay
+     * que cerrarlo para devolver la conexion
+     * 
+     * @param dni del usuario
+     * @return el Stream de envios
+     * @throws PersistenciaException error a controlar
+     */
+    public Stream<Envio> streamListado(String dni) throws PersistenciaException {
+        return persistencia.consultarStream(SELECT_ENVIOS + FILTRO_CLIENTE, Binder.valores(dni), mapper(false));
+    }
+
+    /**
+     * Funcion que obtiene una pagina del listado de envios, ordenado por su
+     * identificador
+     * 
+     * @param token de la pagina, null para la primera
+     * @param tamanio numero maximo de envios de la pagina
+     * @return la pagina de envios
+     * @throws PersistenciaException error a controlar
+     */
+    public Pagina<Envio> obtenerPagina(String token, int tamanio) throws PersistenciaException {
+        return PAGINADOR.obtener(persistencia, token, tamanio, "");
+    }
+
+    /**
+     * Funcion que obtiene una pagina del listado de envios de un usuario
+     * 
+     * @param dni del usuario
+     * @param token de la pagina, null para la primera
+     * @param tamanio numero maximo de envios de la pagina
+     * @return la pagina de envios
+     * @throws PersistenciaException error a controlar
+     */
+    public Pagina<Envio> obtenerPagina(String dni, String token, int tamanio) throws PersistenciaException {
+        return PAGINADOR.obtener(persistencia, token, tamanio, FILTRO_CLIENTE, dni);
+    }
+
     /**
      * Funcion que busca un envio por su identificador
      * 
@@ -182,8 +224,7 @@ public class EnvioModelo {
     public Envio buscaPorIdentificador(String identificador) throws PersistenciaException {
         ArrayList<Envio> lista;
         Envio envio = null;
-        String sql = utilidadesSQL.setSelectOne(ID_ENVIO);
-        lista = buscarPorElemento(sql, identificador);
+        lista = buscarPorElemento(" WHERE e.idEnvio = ?", identificador);
 
         if (!lista.isEmpty()) {
             envio = lista.get(0);
@@ -196,5 +237,34 @@ public class EnvioModelo {
 
    
 
+    /**
+     * Funcion que inserta los envios en una sola transaccion, reutilizando la
+     * sentencia con executeBatch
+     * @param envios que se van a insertar en la base de datos
+     * @return el resultado con los envios que no se han podido insertar
+     * @throws PersistenciaException error a controlar
+     */
+    public ResultadoLote<Envio> insertarLote(Collection<Envio> envios) throws PersistenciaException {
+        try {
+            return persistencia.actualizarLote(utilidadesSQL.getINSERT(), envios, INSERTAR);
+        } catch (PersistenciaException e) {
+            throw new PersistenciaException("Ha ocurrido un error al insertar los envios", e);
+        }
+    }
+
+    /**
+     * Funcion que modifica los envios en una sola transaccion, reutilizando la
+     * sentencia con executeBatch
+     * @param envios que se van a modificar
+     * @return el resultado con los envios que no se han podido modificar
+     * @throws PersistenciaException error a controlar
+     */
+    public ResultadoLote<Envio> modificarLote(Collection<Envio> envios) throws PersistenciaException {
+        try {
+            return persistencia.actualizarLote(utilidadesSQL.setUpdate(), envios, MODIFICAR);
+        } catch (PersistenciaException e) {
+            throw new PersistenciaException("Ha ocurrido un error al modificar los envios", e);
+        }
+    }
 
 }
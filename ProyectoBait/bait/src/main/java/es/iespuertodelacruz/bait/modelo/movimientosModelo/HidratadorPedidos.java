@@ -0,0 +1,110 @@
+package es.iespuertodelacruz.bait.modelo.movimientosModelo;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+
+import es.iespuertodelacruz.bait.api.movimientos.Pedido;
+import es.iespuertodelacruz.bait.api.personas.Usuario;
+import es.iespuertodelacruz.bait.api.productos.Producto;
+import es.iespuertodelacruz.bait.modelo.mysql.MapaIdentidad;
+import es.iespuertodelacruz.bait.modelo.mysql.RowMapper;
+import es.iespuertodelacruz.bait.modelo.personasModelo.UsuarioModelo;
+import es.iespuertodelacruz.bait.modelo.productosModelo.ProductoModelo;
+
+/**
+ * Reconstruye el pedido con su cliente y su producto (con categoria y marca) a
+ * partir de una sola fila. Dentro de un mismo resultado los clientes y los
+ * productos repetidos se comparten en lugar de crearse de nuevo, por eso hay
+ * que usar un hidratador nuevo por consulta. Si hay un mapa de identidad
+ * abierto, se comparten tambien con las demas consultas de la peticion
+ */
+class HidratadorPedidos implements RowMapper<Pedido> {
+    /**
+     * Columnas del pedido (alias pe) con su cliente y su producto
+     */
+    static final String COLUMNAS = "pe.idPedido, pe.unidades, pe.total, pe.fechaPedido, " + UsuarioModelo.COLUMNAS
+        + ", " + ProductoModelo.COLUMNAS;
+    /**
+     * JOIN de PEDIDOS (alias pe) con USUARIOS, PRODUCTOS, CATEGORIAS y MARCAS
+     */
+    static final String JOIN = " LEFT JOIN USUARIOS u ON u.dni = pe.idCliente"
+        + " LEFT JOIN PRODUCTOS p ON p.idProducto = pe.idProducto" + ProductoModelo.JOIN_CATEGORIA_MARCA;
+
+    private HashMap<String, Usuario> usuarios;
+    private HashMap<String, Producto> productos;
+
+    /**
+     * Constructor basico de la clase
+     */
+    HidratadorPedidos() {
+        this(true);
+    }
+
+    /**
+     * Constructor que permite no compartir los clientes y los productos. Al
+     * recorrer un Stream no se guardan, para que la memoria no crezca con el
+     * numero de filas
+     * @param compartir true para reutilizar los ya creados en el resultado
+     */
+    HidratadorPedidos(boolean compartir) {
+        if (compartir) {
+            usuarios = new HashMap<>();
+            productos = new HashMap<>();
+        }
+    }
+
+    @Override
+    public Pedido mapear(ResultSet resultSet) throws SQLException {
+        String idPedido = resultSet.getString("idPedido");
+        if (idPedido == null) {
+            return null;
+        }
+        return new Pedido(idPedido, resultSet.getInt("unidades"), resultSet.getFloat("total"),
+            resultSet.getString("fechaPedido"), cliente(resultSet), producto(resultSet));
+    }
+
+    /**
+     * Funcion que devuelve el cliente de la fila, reutilizando el ya creado si
+     * aparecio en una fila anterior
+     * @param resultSet fila actual
+     * @return el cliente o null si no existe
+     * @throws SQLException error a controlar
+     */
+    private Usuario cliente(ResultSet resultSet) throws SQLException {
+        String dni = resultSet.getString("dni");
+        Usuario cliente = null;
+        if (dni != null && usuarios == null) {
+            cliente = UsuarioModelo.MAPPER.mapear(resultSet);
+        } else if (dni != null) {
+            cliente = usuarios.get(dni);
+            if (cliente == null) {
+                cliente = MapaIdentidad.registrar(Usuario.class, dni, UsuarioModelo.MAPPER.mapear(resultSet));
+                usuarios.put(dni, cliente);
+            }
+        }
+        return cliente;
+    }
+
+    /**
+     * Funcion que devuelve el producto de la fila, reutilizando el ya creado si
+     * aparecio en una fila anterior
+     * @param resultSet fila actual
+     * @return el producto o null si no existe
+     * @throws SQLException error a controlar
+     */
+    private Producto producto(ResultSet resultSet) throws SQLException {
+        String idProducto = resultSet.getString("idProducto");
+        Producto producto = null;
+        if (idProducto != null && productos == null) {
+            producto = ProductoModelo.MAPPER.mapear(resultSet);
+        } else if (idProducto != null) {
+            producto = productos.get(idProducto);
+            if (producto == null) {
+                producto = MapaIdentidad.registrar(Producto.class, idProducto, ProductoModelo.MAPPER.mapear(resultSet));
+                productos.put(idProducto, producto);
+            }
+        }
+        return producto;
+    }
+}
@@ -1,63 +1,96 @@
 package es.iespuertodelacruz.bait.modelo.movimientosModelo;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.stream.Stream;
 
 import es.iespuertodelacruz.bait.api.movimientos.Pedido;
-import es.iespuertodelacruz.bait.api.personas.Usuario;
-import es.iespuertodelacruz.bait.api.productos.Producto;
 import es.iespuertodelacruz.bait.exceptions.PersistenciaException;
 import es.iespuertodelacruz.bait.modelo.mysql.BbddSqlite;
+import es.iespuertodelacruz.bait.modelo.mysql.Binder;
+import es.iespuertodelacruz.bait.modelo.mysql.BinderLote;
+import es.iespuertodelacruz.bait.modelo.mysql.Pagina;
+import es.iespuertodelacruz.bait.modelo.mysql.Paginador;
+import es.iespuertodelacruz.bait.modelo.mysql.ResultadoLote;
+import es.iespuertodelacruz.bait.modelo.mysql.Transaccion;
+import es.iespuertodelacruz.bait.modelo.mysql.UnidadTrabajo;
 import es.iespuertodelacruz.bait.modelo.mysql.UtilidadesSQL;
-import es.iespuertodelacruz.bait.modelo.personasModelo.UsuarioModelo;
-import es.iespuertodelacruz.bait.modelo.productosModelo.ProductoModelo;
 
 public class PedidoModelo {
     private static final String ID_PEDIDO = "idPedido";
     public static final String TABLE_NAME = "PEDIDOS";
     private static UtilidadesSQL utilidadesSQL = new UtilidadesSQL(TABLE_NAME, "idPedido,unidades,total,fechaPedido,idCliente,idProducto");
+    private static final BinderLote<Pedido> INSERTAR = (preparedStatement, pedido) -> {
+        preparedStatement.setString(1, pedido.getIdPedido());
+        preparedStatement.setInt(2, pedido.getUnidades());
+        preparedStatement.setFloat(3, pedido.getTotal());
+        preparedStatement.setString(4, pedido.getFechaPedido());
+        preparedStatement.setString(5, pedido.getUsuario().getDni());
+        preparedStatement.setString(6, pedido.getProducto().getIdProducto());
+    };
+    private static final BinderLote<Pedido> MODIFICAR = (preparedStatement, pedido) -> {
+        INSERTAR.enlazar(preparedStatement, pedido);
+        preparedStatement.setString(7, pedido.getIdPedido());
+    };
+    /**
+     * Consulta de los pedidos con su cliente y su producto, a la que se añaden
+     * los filtros
+     */
+    public static final String SELECT_PEDIDOS = "SELECT " + HidratadorPedidos.COLUMNAS + " FROM PEDIDOS pe"
+        + HidratadorPedidos.JOIN;
+    public static final String FILTRO_CLIENTE = " WHERE pe.idCliente = ?";
+    private static final Paginador<Pedido> PAGINADOR = new Paginador<>(SELECT_PEDIDOS, "pe.idPedido",
+        HidratadorPedidos::new, Pedido::getIdPedido);
     BbddSqlite persistencia;
-    UsuarioModelo usuarioModelo;
-    ProductoModelo productoModelo;
 
     /**
      * Constructor basico de la clase
      * @throws PersistenciaException error a controlar
      */
     public PedidoModelo() throws PersistenciaException{     
-        usuarioModelo = new UsuarioModelo();
-        productoModelo = new ProductoModelo();
         persistencia = new BbddSqlite(TABLE_NAME,null, null);
     }
 
-        /**
+    /**
+     * Funcion que ejecuta una unidad de trabajo en una sola transaccion de la
+     * base de datos
+     * 
+     * @param <T>    tipo del resultado de la unidad de trabajo
+     * @param <E>    excepcion propia de la unidad de trabajo
+     * @param unidad de trabajo a ejecutar
+     * @return el resultado de la unidad de trabajo
+     * @throws PersistenciaException error a controlar
+     * @throws E                     error de la unidad de trabajo
+     */
+    public <T, E extends Exception> T ejecutarEnTransaccion(UnidadTrabajo<T, E> unidad) throws PersistenciaException, E {
+        return persistencia.ejecutarEnTransaccion(unidad);
+    }
+
+    /**
      * Metodo que inserta un pedido en la base de datos
      * 
      * @param pedido que va a insertar en la base de datos
      * @throws PersistenciaException error a controlar
      */
     public void insertar(Pedido pedido) throws PersistenciaException {
-        Connection connection = null;
-        PreparedStatement preparedStatement = null;
+        persistencia.ejecutarEnTransaccion(transaccion -> {
+            insertar(pedido, transaccion);
+            return null;
+        });
+    }
 
-        connection = persistencia.getConnection();
+    /**
+     * Metodo que inserta un pedido dentro de una transaccion abierta
+     * 
+     * @param pedido      que va a insertar en la base de datos
+     * @param transaccion en la que se inserta
+     * @throws PersistenciaException error a controlar
+     */
+    public void insertar(Pedido pedido, Transaccion transaccion) throws PersistenciaException {
         try {
-            preparedStatement = connection.prepareStatement(utilidadesSQL.getINSERT());
-            preparedStatement.setString(1, pedido.getIdPedido());
-            preparedStatement.setInt(2, pedido.getUnidades());
-            preparedStatement.setFloat(3, pedido.getTotal());
-            preparedStatement.setString(4, pedido.getFechaPedido());
-            preparedStatement.setString(5, pedido.getUsuario().getDni());
-            preparedStatement.setString(6, pedido.getProducto().getIdProducto());
-
-            preparedStatement.executeUpdate();
-        } catch (SQLException e) {
+            persistencia.actualizar(transaccion, utilidadesSQL.getINSERT(), INSERTAR.para(pedido));
+        } catch (PersistenciaException e) {
             throw new PersistenciaException("Ha ocurrido un error al insertar el pedido.", e);
-        }finally{
-            persistencia.closeConnection(connection, preparedStatement, null);
         }
 
         
@@ -70,19 +103,12 @@ public class PedidoModelo {
      * @throws PersistenciaException error en caso de no poder eliminar
      */
     public void eliminar(String idPedido) throws PersistenciaException {
-        Connection connection = null;
-        PreparedStatement preparedStatement = null;
-
         try {
-            connection = persistencia.getConnection();
-            preparedStatement = connection.prepareStatement(utilidadesSQL.setDelete(ID_PEDIDO));
-            preparedStatement.setString(1, idPedido);
-
-            preparedStatement.executeUpdate();
-        } catch (SQLException e) {
+            persistencia.actualizar(utilidadesSQL.setDelete(ID_PEDIDO), preparedStatement -> {
+                preparedStatement.setString(1, idPedido);
+            });
+        } catch (PersistenciaException e) {
             throw new PersistenciaException("Ha ocurrido un error al eliminar el pedido", e);
-        }finally{
-            persistencia.closeConnection(connection, preparedStatement, null);
         }
 
         
@@ -95,25 +121,10 @@ public class PedidoModelo {
      * @throws PersistenciaException error controlado
      */
     public void modificar(Pedido pedido) throws PersistenciaException {
-        Connection connection = null;
-        PreparedStatement preparedStatement = null;
-
         try {
-            connection = persistencia.getConnection();
-            preparedStatement = connection.prepareStatement(utilidadesSQL.setUpdate());
-            preparedStatement.setString(1, pedido.getIdPedido());
-            preparedStatement.setInt(2, pedido.getUnidades());
-            preparedStatement.setFloat(3, pedido.getTotal());
-            preparedStatement.setString(4, pedido.getFechaPedido());
-            preparedStatement.setString(5, pedido.getUsuario().getDni());
-            preparedStatement.setString(6, pedido.getProducto().getIdProducto());
-            preparedStatement.setString(7, pedido.getIdPedido());
-            
-            preparedStatement.executeUpdate();
-        } catch (SQLException e) {
+            persistencia.actualizar(utilidadesSQL.setUpdate(), MODIFICAR.para(pedido));
+        } catch (PersistenciaException e) {
             throw new PersistenciaException("Ha courrido un error al modificar la categoria", e);
-        }finally{
-            persistencia.closeConnection(connection, preparedStatement, null);
         }
         
     }
@@ -127,8 +138,7 @@ public class PedidoModelo {
     public Pedido buscaPorIdentificador(String identificador) throws PersistenciaException {
         ArrayList<Pedido> lista;
         Pedido pedido = null;
-        String sql = utilidadesSQL.setSelectOne(ID_PEDIDO);
-        lista = buscarPorElemento(sql, identificador); 
+        lista = buscarPorElemento(" WHERE pe.idPedido = ?", identificador); 
 
         if (!lista.isEmpty()) {
             pedido = lista.get(0);
@@ -138,37 +148,16 @@ public class PedidoModelo {
     }
 
     /**
-     * Funcion que realiza un consulta y devuelve una lista de pedidos
-     * @param sql consulta que se va a realizar
-     * @param valor del campo patron
+     * Funcion que realiza un consulta y devuelve una lista de pedidos. El usuario
+     * y el producto vienen en la misma consulta y se comparten entre los pedidos
+     * que los repiten
+     * @param filtro condicion que se añade a la consulta de pedidos
+     * @param valores de los campos patron
      * @return una lista de pedidos 
      * @throws PersistenciaException error a controlar
      */
-    private ArrayList<Pedido> buscarPorElemento(String sql, String valor) throws PersistenciaException{
-        ResultSet resultSet;
-        ArrayList<Pedido> lista = new ArrayList<>();
-
-        resultSet = persistencia.buscarElemento(sql, valor);
-        try {
-            while (resultSet.next()){
-                String idPedido = resultSet.getString(ID_PEDIDO);
-                int unidades = resultSet.getInt("unidades");
-                float total = resultSet.getFloat("total");
-                String fechaPedido = resultSet.getString("fechaPedido");
-                String idCliente = resultSet.getString("idCliente");
-                String idProducto = resultSet.getString("idProducto");
-                
-                Usuario cliente = usuarioModelo.buscaPorDni(idCliente);
-                Producto producto = productoModelo.buscarPorId(idProducto);
-                Pedido pedido = new Pedido(idPedido, unidades, total, fechaPedido, cliente, producto);
-                lista.add(pedido);
-            }
-        } catch (SQLException e) {
-            throw new PersistenciaException(e.getMessage());
-        }
-
-        return lista;
-
+    private ArrayList<Pedido> buscarPorElemento(String filtro, Object... valores) throws PersistenciaException{
+        return persistencia.consultar(SELECT_PEDIDOS + filtro, Binder.valores(valores), new HidratadorPedidos());
     }
 
 
@@ -179,9 +168,7 @@ public class PedidoModelo {
     */
     public ArrayList<Pedido> obtenerListado() throws PersistenciaException {
         ArrayList<Pedido> lista;
-        String sql = utilidadesSQL.getSELECTALL();
-
-        lista = buscarPorElemento(sql, "");
+        lista = buscarPorElemento("");
 
         return lista;
     }
@@ -195,11 +182,90 @@ public class PedidoModelo {
      */
     public ArrayList<Pedido> obtenerListado(String dni) throws PersistenciaException {
         ArrayList<Pedido> lista;
-        String sql = utilidadesSQL.setSelectOne("idCliente");
-
-        lista = buscarPorElemento(sql, dni);
+        lista = buscarPorElemento(FILTRO_CLIENTE, dni);
 
         return lista;
     }
 
+    /**
+     * Funcion que devuelve los pedidos como un Stream perezoso que va leyendo las
+     * filas segun se recorre, sin cargarlas todas en memoria. La conexion queda
+     * abierta hasta que se cierra, asi que debe usarse en un try-with-resources
+     * 
+     * @return el Stream de pedidos
+     * @throws PersistenciaException error a controlar
+     */
+    public Stream<Pedido> streamListado() throws PersistenciaException {
+        return persistencia.consultarStream(SELECT_PEDIDOS, Binder.NINGUNO, new HidratadorPedidos(false));
+    }
+
+    /**
+     * Funcion que devuelve los pedidos de un usuario como un Stream perezoso. Hay
+     * que cerrarlo para devolver la conexion
+     * 
+     * @param dni del usuario
+     * @return el Stream de pedidos
+     * @throws PersistenciaException error a controlar
+     */
+    public Stream<Pedido> streamListado(String dni) throws PersistenciaException {
+        return persistencia.consultarStream(SELECT_PEDIDOS + FILTRO_CLIENTE, Binder.valores(dni), 
+            new HidratadorPedidos(false));
+    }
+
+    /**
+     * Funcion que obtiene una pagina del listado de pedidos, ordenado por su
+     * identificador
+     * 
+     * @param token de la pagina, null para la primera
+     * @param tamanio numero maximo de pedidos de la pagina
+     * @return la pagina de pedidos
+     * @throws PersistenciaException error a controlar
+     */
+    public Pagina<Pedido> obtenerPagina(String token, int tamanio) throws PersistenciaException {
+        return PAGINADOR.obtener(persistencia, token, tamanio, "");
+    }
+
+    /**
+     * Funcion que obtiene una pagina del listado de pedidos de un usuario
+     * 
+     * @param dni del usuario
+     * @param token de la pagina, null para la primera
+     * @param tamanio numero maximo de pedidos de la pagina
+     * @return la pagina de pedidos
+     * @throws PersistenciaException error a controlar
+     */
+    public Pagina<Pedido> obtenerPagina(String dni, String token, int tamanio) throws PersistenciaException {
+        return PAGINADOR.obtener(persistencia, token, tamanio, FILTRO_CLIENTE, dni);
+    }
+
+    /**
+     * Funcion que inserta los pedidos en una sola transaccion, reutilizando la
+     * sentencia con executeBatch
+     * @param pedidos que se van a insertar en la base de datos
+     * @return el resultado con los pedidos que no se han podido insertar
+     * @throws PersistenciaException error a controlar
+     */
+    public ResultadoLote<Pedido> insertarLote(Collection<Pedido> pedidos) throws PersistenciaException {
+        try {
+            return persistencia.actualizarLote(utilidadesSQL.getINSERT(), pedidos, INSERTAR);
+        } catch (PersistenciaException e) {
+            throw new PersistenciaException("Ha ocurrido un error al insertar los pedidos", e);
+        }
+    }
+
+    /**
+     * Funcion que modifica los pedidos en una sola transaccion, reutilizando la
+     * sentencia con executeBatch
+     * @param pedidos que se van a modificar
+     * @return el resultado con los pedidos que no se han podido modificar
+     * @throws PersistenciaException error a controlar
+     */
+    public ResultadoLote<Pedido> modificarLote(Collection<Pedido> pedidos) throws PersistenciaException {
+        try {
+            return persistencia.actualizarLote(utilidadesSQL.setUpdate(), pedidos, MODIFICAR);
+        } catch (PersistenciaException e) {
+            throw new PersistenciaException("Ha ocurrido un error al modificar los pedidos", e);
+        }
+    }
+
 }
@@ -2,17 +2,31 @@ package es.iespuertodelacruz.bait.modelo.mysql;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Properties;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import es.iespuertodelacruz.bait.exceptions.PersistenciaException;
-import es.iespuertodelacruz.bait.modelo.Fichero;
 
 public class Bbdd {
+    public static final String PROPIEDAD_TAMANIO_LOTE = "bait.lote.tamanio";
+    private static final int TAMANIO_LOTE_POR_DEFECTO = 500;
+    private static final AtomicLong CONSULTAS_EJECUTADAS = new AtomicLong();
     private String driver;
     private String url;
     private String usuario;
     private String password;
-    private static final String TABLE = "TABLE";
     private String tableName;
+    private PoolConexiones pool;
+    private PoolConexiones poolEscritura;
+    private EscritorBbdd escritor;
 
     /**
      * Constructor basico de la clase Bbdd
@@ -30,7 +44,7 @@ public class Bbdd {
         this.usuario = usuario;
         this.password = password;
         this.tableName = tableName;
-        init(this.tableName);
+        MigradorBbdd.inicializar(this, url);
     }
 
     /**
@@ -44,80 +58,99 @@ public class Bbdd {
         this.usuario = usuario;
         this.password = password;
         this.tableName = tableName;
-        init(this.tableName);
+        MigradorBbdd.inicializar(this, url);
     }
 
     /**
-     * Metodo que crear la base de datos con sus correspondientes tablas 
-     * si no existen
-     * @throws PersistenciaException error a controlar
+     * Funcion encargada de devolver una conexion del pool de lectura compartido
+     * de la base de datos. Al cerrarla con closeConnection vuelve al pool. Las
+     * escrituras van por ejecutarEnTransaccion o actualizar
+     * 
+     * @return Connection
+     * @throws PersistenciaException error a controlar en caso de que falle la conexion
      */
-    private void init(String tableName) throws PersistenciaException {
-        DatabaseMetaData databaseMetaData;
-        Connection connection = null;
-        ResultSet resultSet = null;
-        ArrayList<String> listaTablas = new ArrayList<>();
+    public Connection getConnection() throws PersistenciaException {
+        return getPool().getConnection();
+    }
 
-        try {
-            connection = getConnection();
-            databaseMetaData = connection.getMetaData();
-            resultSet = databaseMetaData.getTables(null, null, null, new String[] {TABLE});
-            while (resultSet.next()) {
-                listaTablas.add(resultSet.getString("TABLE_NAME"));
-            }
+    /**
+     * Funcion que devuelve la unica conexion de escritura de la base de datos.
+     * La usan el migrador al arrancar y despues el escritor, que se queda con
+     * ella
+     * 
+     * @return Connection
+     * @throws PersistenciaException error a controlar en caso de que falle la conexion
+     */
+    public Connection getConnectionEscritura() throws PersistenciaException {
+        return getPoolEscritura().getConnection();
+    }
 
-            crearTabla(tableName, listaTablas);
-        } catch (Exception e) {
-            throw new PersistenciaException("Se ha producido un error en la inicializacion de la BBDD", e);
-        } finally {
-            closeConnection(connection, null, null);
-        }
+    /**
+     * Funcion que devuelve las propiedades con las que se abren las conexiones
+     * de lectura. Las subclases la sobrescriben para configurar su driver
+     * 
+     * @return las propiedades de conexion
+     */
+    protected Properties getPropiedadesLectura() {
+        return new Properties();
     }
 
     /**
-     * Metodo que lee el fichero con la informacion para crear la tabla
-     * y la lanza en la base datos
-     * @param tabla que se va a crear
-     * @param listaTablas lista de tablas que hay actualmente en la base de datos
+     * Funcion que devuelve las propiedades con las que se abre la conexion de
+     * escritura
+     * 
+     * @return las propiedades de conexion
+     */
+    protected Properties getPropiedadesEscritura() {
+        return new Properties();
+    }
+
+    /**
+     * Funcion que devuelve las estadisticas del pool de conexiones
+     * 
+     * @return las estadisticas del pool
      * @throws PersistenciaException error a controlar
      */
-    private void crearTabla(String tabla, ArrayList<String> listaTablas) throws PersistenciaException{
-        Fichero fichero = new Fichero();
-        String tablaFichero = "resorce/tables/"+ tabla +".sql";
-        String insertFichero = "resorce/insert/"+ tabla +"_INSERT.sql";
-        String informacionTablas;
-        String informacionInsert;
+    public PoolConexiones.Estadisticas getEstadisticasPool() throws PersistenciaException {
+        return getPool().getEstadisticas();
+    }
 
-        informacionTablas = fichero.leer(tablaFichero);
-        informacionInsert = fichero.leer(insertFichero);
+    /**
+     * Funcion que devuelve el numero de consultas lanzadas con consultar y
+     * consultarStream desde que arranco la aplicacion
+     * 
+     * @return el numero de consultas ejecutadas
+     */
+    public static long getConsultasEjecutadas() {
+        return CONSULTAS_EJECUTADAS.get();
+    }
 
-        if (!listaTablas.contains(tabla) || !informacionInsert.isEmpty() ) { 
-            actualizar(informacionTablas);
-            actualizar(informacionInsert);
+    /**
+     * Funcion que devuelve el pool de lectura compartido por todas las
+     * instancias que usan la misma url
+     * 
+     * @return el pool de conexiones
+     * @throws PersistenciaException error a controlar
+     */
+    private PoolConexiones getPool() throws PersistenciaException {
+        if (pool == null) {
+            pool = PoolConexiones.obtener(driver, url, usuario, password, getPropiedadesLectura());
         }
+        return pool;
     }
 
     /**
-     * Funcion encargada de crear y devolver una conexion a la base de datos
+     * Funcion que devuelve el pool de escritura, de una sola conexion,
+     * compartido por todas las instancias que usan la misma url
      * 
-     * @return Connection
-     * @throws PersistenciaException error a controlar en caso de que falle la conexion
+     * @return el pool de escritura
+     * @throws PersistenciaException error a controlar
      */
-    public Connection getConnection() throws PersistenciaException {
-        Connection connection = null;
-        try {
-            Class.forName(driver);
-            if (usuario == null || password == null) {
-                connection = DriverManager.getConnection(url);
-            } else {
-                DriverManager.getConnection(url, usuario, password);
-            }
-        } catch (Exception exception) {
-            throw new PersistenciaException("Se ha producido un error al conectar a la base de datos ", exception);
+    private PoolConexiones getPoolEscritura() throws PersistenciaException {
+        if (poolEscritura == null) {
+            poolEscritura = PoolConexiones.obtenerEscritura(driver, url, usuario, password, getPropiedadesEscritura());
         }
-
-        return connection;
-
+        return poolEscritura;
     }
 
     /**
@@ -153,44 +186,382 @@ public class Bbdd {
      * @throws PersistenciaException error controlado
      */
     public void actualizar(String sql) throws PersistenciaException {
-        Statement statement = null;
-        Connection connection = null;
+        actualizar(sql, Binder.NINGUNO);
+    }
+
+    /**
+     * Funcion que lanza una consulta y convierte cada fila con el RowMapper. La
+     * conexion, la sentencia y el ResultSet se cierran antes de devolver la lista
+     * 
+     * @param <T>    tipo de los elementos devueltos
+     * @param sql    consulta que se va a realizar
+     * @param binder que asigna los parametros de la consulta
+     * @param mapper que convierte cada fila en un elemento
+     * @return la lista de elementos encontrados
+     * @throws PersistenciaException error a controlar
+     */
+    public <T> ArrayList<T> consultar(String sql, Binder binder, RowMapper<T> mapper) throws PersistenciaException {
+        Connection connection = getConnection();
         try {
-            connection = getConnection();
-            statement = connection.createStatement();
-            statement.executeUpdate(sql);
-        } catch (Exception exception) {
-            throw new PersistenciaException("Se ha producido un error realizando la consulta", exception);
+            return consultar(connection, sql, binder, mapper);
+        } finally {
+            closeConnection(connection, null, null);
+        }
+    }
+
+    /**
+     * Funcion que lanza una consulta dentro de una transaccion abierta, de modo
+     * que ve lo que la transaccion ya ha modificado
+     * 
+     * @param <T>         tipo de los elementos devueltos
+     * @param transaccion en la que se lanza la consulta
+     * @param sql         consulta que se va a realizar
+     * @param binder      que asigna los parametros de la consulta
+     * @param mapper      que convierte cada fila en un elemento
+     * @return la lista de elementos encontrados
+     * @throws PersistenciaException error a controlar
+     */
+    public <T> ArrayList<T> consultar(Transaccion transaccion, String sql, Binder binder, RowMapper<T> mapper)
+            throws PersistenciaException {
+        return consultar(transaccion.getConnection(), sql, binder, mapper);
+    }
+
+    /**
+     * Funcion que lanza la consulta con la conexion recibida, sin cerrarla
+     * 
+     * @param <T>        tipo de los elementos devueltos
+     * @param connection con la que se lanza la consulta
+     * @param sql        consulta que se va a realizar
+     * @param binder     que asigna los parametros de la consulta
+     * @param mapper     que convierte cada fila en un elemento
+     * @return la lista de elementos encontrados
+     * @throws PersistenciaException error a controlar
+     */
+    private <T> ArrayList<T> consultar(Connection connection, String sql, Binder binder, RowMapper<T> mapper)
+            throws PersistenciaException {
+        ArrayList<T> lista = new ArrayList<>();
+        PreparedStatement preparedStatement = null;
+        ResultSet resultSet = null;
+        try {
+            preparedStatement = connection.prepareStatement(sql);
+            binder.enlazar(preparedStatement);
+            resultSet = preparedStatement.executeQuery();
+            CONSULTAS_EJECUTADAS.incrementAndGet();
+            while (resultSet.next()) {
+                lista.add(mapper.mapear(resultSet));
+            }
+        } catch (SQLException e) {
+            throw new PersistenciaException("Se ha producido un error en la busqueda.", e);
+        } finally {
+            closeConnection(null, preparedStatement, resultSet);
+        }
+
+        return lista;
+    }
+
+    /**
+     * Funcion que encola una unidad de trabajo en el escritor de la base de
+     * datos sin esperar a que termine. La unidad se ejecuta en su propio
+     * savepoint dentro del lote del escritor y el futuro se completa tras el
+     * commit, despues de las acciones registradas con despuesDeConfirmar
+     * 
+     * @param <T>    tipo del resultado de la unidad de trabajo
+     * @param <E>    excepcion propia de la unidad de trabajo
+     * @param unidad de trabajo a ejecutar
+     * @return el futuro con el resultado
+     * @throws PersistenciaException error a controlar
+     */
+    public <T, E extends Exception> CompletableFuture<T> escribir(UnidadTrabajo<T, E> unidad)
+            throws PersistenciaException {
+        return getEscritor().enviar(unidad);
+    }
+
+    /**
+     * Funcion que ejecuta una unidad de trabajo en el escritor de la base de
+     * datos y espera a que se confirme. Si la unidad termina bien se confirma
+     * con el resto del lote; si lanza cualquier excepcion se deshace lo suyo y
+     * se relanza la excepcion
+     * 
+     * @param <T>    tipo del resultado de la unidad de trabajo
+     * @param <E>    excepcion propia de la unidad de trabajo
+     * @param unidad de trabajo a ejecutar
+     * @return el resultado de la unidad de trabajo
+     * @throws PersistenciaException error a controlar
+     * @throws E                     error de la unidad de trabajo
+     */
+    @SuppressWarnings("unchecked")
+    public <T, E extends Exception> T ejecutarEnTransaccion(UnidadTrabajo<T, E> unidad) throws PersistenciaException, E {
+        try {
+            return escribir(unidad).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PersistenciaException("Interrumpido esperando la escritura", e);
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof RuntimeException) {
+                throw (RuntimeException) causa;
+            }
+            if (causa instanceof Error) {
+                throw (Error) causa;
+            }
+            if (causa instanceof PersistenciaException) {
+                throw (PersistenciaException) causa;
+            }
+            throw (E) causa;
+        }
+    }
+
+    /**
+     * Funcion que ejecuta una sentencia de actualizacion en el escritor de la
+     * base de datos
+     * 
+     * @param sql    sentencia que se va a ejecutar
+     * @param binder que asigna los parametros de la sentencia
+     * @return el numero de filas afectadas
+     * @throws PersistenciaException error a controlar
+     */
+    public int actualizar(String sql, Binder binder) throws PersistenciaException {
+        return ejecutarEnTransaccion(transaccion -> actualizar(transaccion, sql, binder));
+    }
+
+    /**
+     * Funcion que ejecuta una sentencia de actualizacion dentro de una
+     * transaccion abierta
+     * 
+     * @param transaccion en la que se ejecuta
+     * @param sql         sentencia que se va a ejecutar
+     * @param binder      que asigna los parametros de la sentencia
+     * @return el numero de filas afectadas
+     * @throws PersistenciaException error a controlar
+     */
+    public int actualizar(Transaccion transaccion, String sql, Binder binder) throws PersistenciaException {
+        PreparedStatement preparedStatement = null;
+        try {
+            preparedStatement = transaccion.getConnection().prepareStatement(sql);
+            binder.enlazar(preparedStatement);
+            return preparedStatement.executeUpdate();
+        } catch (SQLException | RuntimeException e) {
+            throw new PersistenciaException("Se ha producido un error realizando la actualizacion", e);
+        } finally {
+            closeConnection(null, preparedStatement, null);
+        }
+    }
+
+    /**
+     * Funcion que ejecuta la misma sentencia para cada elemento de la coleccion
+     * en una sola transaccion del escritor, en trozos del tamaño indicado en la
+     * propiedad del sistema bait.lote.tamanio
+     * 
+     * @param <T>       tipo de los elementos
+     * @param sql       sentencia que se ejecuta por cada elemento
+     * @param elementos a guardar
+     * @param binder    que asigna los parametros de cada elemento
+     * @return el resultado con los elementos que han fallado
+     * @throws PersistenciaException error a controlar
+     */
+    public <T> ResultadoLote<T> actualizarLote(String sql, Collection<T> elementos, BinderLote<T> binder)
+            throws PersistenciaException {
+        return actualizarLote(sql, elementos, binder, Integer.getInteger(PROPIEDAD_TAMANIO_LOTE, TAMANIO_LOTE_POR_DEFECTO));
+    }
+
+    /**
+     * Funcion que ejecuta la misma sentencia para cada elemento de la coleccion
+     * en una sola transaccion del escritor, en trozos del tamaño recibido
+     * 
+     * @param <T>       tipo de los elementos
+     * @param sql       sentencia que se ejecuta por cada elemento
+     * @param elementos a guardar
+     * @param binder    que asigna los parametros de cada elemento
+     * @param tamanio   numero de elementos que se envian juntos con executeBatch
+     * @return el resultado con los elementos que han fallado
+     * @throws PersistenciaException error a controlar
+     */
+    public <T> ResultadoLote<T> actualizarLote(String sql, Collection<T> elementos, BinderLote<T> binder, int tamanio)
+            throws PersistenciaException {
+        return ejecutarEnTransaccion(transaccion -> actualizarLote(transaccion, sql, elementos, binder, tamanio));
+    }
+
+    /**
+     * Funcion que ejecuta la misma sentencia para cada elemento de la coleccion
+     * dentro de una transaccion abierta. Se reutiliza una sola sentencia
+     * preparada; cada trozo se envia con executeBatch y, si falla, se deshace el
+     * trozo y se repite fila a fila para saber que elementos fallan sin perder
+     * el resto. Una actualizacion que no afecta a ninguna fila cuenta como fallo
+     * 
+     * @param <T>         tipo de los elementos
+     * @param transaccion en la que se ejecuta
+     * @param sql         sentencia que se ejecuta por cada elemento
+     * @param elementos   a guardar
+     * @param binder      que asigna los parametros de cada elemento
+     * @param tamanio     numero de elementos que se envian juntos con executeBatch
+     * @return el resultado con los elementos que han fallado
+     * @throws PersistenciaException error a controlar
+     */
+    public <T> ResultadoLote<T> actualizarLote(Transaccion transaccion, String sql, Collection<T> elementos,
+            BinderLote<T> binder, int tamanio) throws PersistenciaException {
+        ResultadoLote<T> resultado = new ResultadoLote<>();
+        ArrayList<T> trozo = new ArrayList<>(Math.min(Math.max(1, tamanio), elementos.size()));
+        Connection connection = transaccion.getConnection();
+        PreparedStatement preparedStatement = null;
+        try {
+            preparedStatement = connection.prepareStatement(sql);
+            for (T elemento : elementos) {
+                trozo.add(elemento);
+                if (trozo.size() >= tamanio) {
+                    ejecutarTrozo(connection, preparedStatement, trozo, binder, resultado);
+                    trozo.clear();
+                }
+            }
+            if (!trozo.isEmpty()) {
+                ejecutarTrozo(connection, preparedStatement, trozo, binder, resultado);
+            }
+        } catch (SQLException e) {
+            throw new PersistenciaException("Se ha producido un error realizando la actualizacion por lotes", e);
         } finally {
-            closeConnection(connection, statement, null);
+            closeConnection(null, preparedStatement, null);
+        }
+        return resultado;
+    }
+
+    /**
+     * Metodo que envia un trozo con executeBatch dentro de un savepoint. Si
+     * falla, deshace el trozo y lo repite fila a fila anotando los fallos
+     * 
+     * @param <T>               tipo de los elementos
+     * @param connection        de la transaccion
+     * @param preparedStatement sentencia reutilizada
+     * @param trozo             elementos que se envian juntos
+     * @param binder            que asigna los parametros de cada elemento
+     * @param resultado         donde se anotan los correctos y los fallos
+     * @throws SQLException si no se puede gestionar el savepoint
+     */
+    private <T> void ejecutarTrozo(Connection connection, PreparedStatement preparedStatement, ArrayList<T> trozo,
+            BinderLote<T> binder, ResultadoLote<T> resultado) throws SQLException {
+        Savepoint savepoint = connection.setSavepoint();
+        int[] filas;
+        try {
+            for (T elemento : trozo) {
+                binder.enlazar(preparedStatement, elemento);
+                preparedStatement.addBatch();
+            }
+            filas = preparedStatement.executeBatch();
+            connection.releaseSavepoint(savepoint);
+        } catch (SQLException | RuntimeException e) {
+            preparedStatement.clearBatch();
+            connection.rollback(savepoint);
+            connection.releaseSavepoint(savepoint);
+            for (T elemento : trozo) {
+                ejecutarFila(preparedStatement, elemento, binder, resultado);
+            }
+            return;
+        }
+        for (int i = 0; i < filas.length; i++) {
+            anotar(resultado, trozo.get(i), filas[i]);
         }
     }
 
     /**
-    * Funcion que se encarga de realizar un lanzar un consulta y devolver 
-    * el resultado obtenido de la base de datos 
-    * @param sql consulta que se va a realizar 
-    * @param valor valor de la sentencia sql a buscar
-    * @throws PersistenciaException error a controlar
-    * @return ResulSet
-    */
-   public ResultSet buscarElemento(String sql, String valor) throws PersistenciaException {
-    Connection connection = null;
-    PreparedStatement preparedStatement;
-    ResultSet resultSet = null;
-    try {
-       connection = getConnection();
-       preparedStatement = connection.prepareStatement(sql);
-       if (!valor.isEmpty()) {
-        preparedStatement.setString(1, valor);
-       } 
-       resultSet = preparedStatement.executeQuery();
-    } catch (SQLException e) {
-       throw new PersistenciaException("Se ha producido un error en la busqueda.",e);
-    } finally {
-       //closeConecction(connection, preparedStatement, null);
-    }
-
-    return resultSet;
- }
+     * Metodo que ejecuta la sentencia para un solo elemento y anota si ha ido
+     * bien. Si falla, SQLite deshace solo esa sentencia
+     * 
+     * @param <T>               tipo de los elementos
+     * @param preparedStatement sentencia reutilizada
+     * @param elemento          a guardar
+     * @param binder            que asigna los parametros del elemento
+     * @param resultado         donde se anota
+     */
+    private <T> void ejecutarFila(PreparedStatement preparedStatement, T elemento, BinderLote<T> binder,
+            ResultadoLote<T> resultado) {
+        try {
+            preparedStatement.clearParameters();
+            binder.enlazar(preparedStatement, elemento);
+            anotar(resultado, elemento, preparedStatement.executeUpdate());
+        } catch (SQLException | RuntimeException e) {
+            resultado.fallo(elemento, e.getMessage());
+        }
+    }
+
+    /**
+     * Metodo que anota un elemento segun las filas a las que ha afectado
+     * 
+     * @param <T>       tipo de los elementos
+     * @param resultado donde se anota
+     * @param elemento  guardado
+     * @param filas     afectadas por su sentencia
+     */
+    private <T> void anotar(ResultadoLote<T> resultado, T elemento, int filas) {
+        if (filas == 0) {
+            resultado.fallo(elemento, "No existe ninguna fila que actualizar");
+        } else {
+            resultado.correcto();
+        }
+    }
+
+    /**
+     * Funcion que devuelve el escritor compartido por todas las instancias que
+     * usan la misma url
+     * 
+     * @return el escritor de la base de datos
+     * @throws PersistenciaException error a controlar
+     */
+    public EscritorBbdd getEscritor() throws PersistenciaException {
+        if (escritor == null) {
+            escritor = EscritorBbdd.obtener(url, getPoolEscritura());
+        }
+        return escritor;
+    }
+
+    /**
+     * Funcion que lanza una consulta y devuelve sus filas como un Stream perezoso.
+     * La conexion queda abierta hasta que se cierra el Stream, por lo que debe
+     * usarse dentro de un try-with-resources
+     * 
+     * @param <T>    tipo de los elementos devueltos
+     * @param sql    consulta que se va a realizar
+     * @param binder que asigna los parametros de la consulta
+     * @param mapper que convierte cada fila en un elemento
+     * @return el Stream de elementos
+     * @throws PersistenciaException error a controlar
+     */
+    public <T> Stream<T> consultarStream(String sql, Binder binder, RowMapper<T> mapper) throws PersistenciaException {
+        Connection connection = null;
+        PreparedStatement preparedStatement = null;
+        ResultSet resultSet = null;
+        try {
+            connection = getConnection();
+            preparedStatement = connection.prepareStatement(sql);
+            binder.enlazar(preparedStatement);
+            resultSet = preparedStatement.executeQuery();
+            CONSULTAS_EJECUTADAS.incrementAndGet();
+        } catch (SQLException e) {
+            closeConnection(connection, preparedStatement, resultSet);
+            throw new PersistenciaException("Se ha producido un error en la busqueda.", e);
+        }
+
+        Connection conexionAbierta = connection;
+        PreparedStatement sentenciaAbierta = preparedStatement;
+        ResultSet filas = resultSet;
+        Spliterator<T> spliterator = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE, Spliterator.ORDERED) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                try {
+                    if (!filas.next()) {
+                        return false;
+                    }
+                    action.accept(mapper.mapear(filas));
+                    return true;
+                } catch (SQLException e) {
+                    throw new IllegalStateException("Se ha producido un error recorriendo la busqueda.", e);
+                }
+            }
+        };
+
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            try {
+                closeConnection(conexionAbierta, sentenciaAbierta, filas);
+            } catch (PersistenciaException e) {
+                throw new IllegalStateException(e.getMessage(), e);
+            }
+        });
+    }
 }
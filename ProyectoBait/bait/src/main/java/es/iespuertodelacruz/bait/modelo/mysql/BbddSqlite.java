@@ -1,5 +1,7 @@
 package es.iespuertodelacruz.bait.modelo.mysql;
 
+import java.util.Properties;
+
 import es.iespuertodelacruz.bait.exceptions.PersistenciaException;
 
 public class BbddSqlite extends Bbdd{
@@ -17,4 +19,23 @@ public class BbddSqlite extends Bbdd{
         super(tablaName, driver, url, usuario, password);
     }
 
+    @Override
+    protected Properties getPropiedadesLectura() {
+        return PerfilSqlite.lectura();
+    }
+
+    @Override
+    protected Properties getPropiedadesEscritura() {
+        return PerfilSqlite.escritura();
+    }
+
+    /**
+     * Metodo que aplica las migraciones pendientes de la base de datos por
+     * defecto. Se llama una vez al arrancar la aplicacion
+     * @throws PersistenciaException error a controlar
+     */
+    public static void inicializar() throws PersistenciaException {
+        new BbddSqlite(MigradorBbdd.TABLA_VERSIONES, usuario, password);
+    }
+
 }
@@ -0,0 +1,32 @@
+package es.iespuertodelacruz.bait.modelo.mysql;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+@FunctionalInterface
+public interface Binder {
+    Binder NINGUNO = preparedStatement -> {
+    };
+
+    /**
+     * Metodo que asigna los parametros de la sentencia
+     * 
+     * @param preparedStatement sentencia a la que se le asignan los parametros
+     * @throws SQLException error al asignar los parametros
+     */
+    void enlazar(PreparedStatement preparedStatement) throws SQLException;
+
+    /**
+     * Funcion que devuelve un Binder que asigna los valores en orden
+     * 
+     * @param valores de los parametros de la sentencia
+     * @return el Binder con los valores
+     */
+    static Binder valores(Object... valores) {
+        return preparedStatement -> {
+            for (int i = 0; i < valores.length; i++) {
+                preparedStatement.setObject(i + 1, valores[i]);
+            }
+        };
+    }
+}
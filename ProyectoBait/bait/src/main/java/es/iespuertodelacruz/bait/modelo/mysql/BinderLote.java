@@ -0,0 +1,29 @@
+package es.iespuertodelacruz.bait.modelo.mysql;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+@FunctionalInterface
+public interface BinderLote<T> {
+
+    /**
+     * Metodo que asigna los parametros de la sentencia con los datos de un
+     * elemento
+     * 
+     * @param preparedStatement sentencia a la que se le asignan los parametros
+     * @param elemento          del que se toman los valores
+     * @throws SQLException error al asignar los parametros
+     */
+    void enlazar(PreparedStatement preparedStatement, T elemento) throws SQLException;
+
+    /**
+     * Funcion que devuelve el Binder de un solo elemento, para reutilizar la
+     * misma asignacion en las sentencias sueltas
+     * 
+     * @param elemento del que se toman los valores
+     * @return el Binder del elemento
+     */
+    default Binder para(T elemento) {
+        return preparedStatement -> enlazar(preparedStatement, elemento);
+    }
+}
@@ -0,0 +1,334 @@
+package es.iespuertodelacruz.bait.modelo.mysql;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import es.iespuertodelacruz.bait.exceptions.PersistenciaException;
+
+/**
+ * Unico escritor de una base de datos. SQLite solo admite un escritor a la
+ * vez, asi que en lugar de que cada hilo pelee por el fichero, las escrituras
+ * se encolan y un hilo propio las ejecuta en lotes: varias escrituras
+ * comparten un solo commit (group commit) y cada una va en su propio savepoint
+ * para que un fallo solo deshaga la suya
+ */
+public class EscritorBbdd {
+    public static final String PROPIEDAD_LOTE = "bait.escritor.lote";
+    public static final String PROPIEDAD_ESPERA = "bait.escritor.espera";
+    private static final int LOTE_POR_DEFECTO = 64;
+    private static final long ESPERA_POR_DEFECTO = 2;
+
+    private static final Map<String, EscritorBbdd> ESCRITORES = new ConcurrentHashMap<>();
+
+    private Connection connection;
+    private int maximoLote;
+    private long esperaMaxima;
+    private LinkedBlockingQueue<Escritura<?>> cola;
+    private Thread hilo;
+    private volatile boolean activo;
+    private AtomicLong escrituras;
+    private AtomicLong commits;
+
+    /**
+     * Constructor con la conexion de escritura y el tamaño de los lotes
+     *
+     * @param connection   conexion que usa el escritor en exclusiva
+     * @param maximoLote   escrituras que como mucho comparten un commit; 1
+     *                     desactiva el group commit
+     * @param esperaMaxima milisegundos que se espera a que lleguen mas
+     *                     escrituras antes de confirmar el lote
+     */
+    public EscritorBbdd(Connection connection, int maximoLote, long esperaMaxima) {
+        this.connection = connection;
+        this.maximoLote = Math.max(1, maximoLote);
+        this.esperaMaxima = Math.max(0, esperaMaxima);
+        cola = new LinkedBlockingQueue<>();
+        escrituras = new AtomicLong();
+        commits = new AtomicLong();
+        activo = true;
+        hilo = new Thread(this::escribirLotes, "bait-escritor");
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+
+    /**
+     * Funcion que devuelve el escritor compartido de una url, creandolo la
+     * primera vez con la conexion del pool de escritura y la configuracion de
+     * las propiedades del sistema
+     *
+     * @param url  de la base de datos
+     * @param pool de escritura del que se toma la conexion
+     * @return el escritor de la url
+     * @throws PersistenciaException error a controlar
+     */
+    static EscritorBbdd obtener(String url, PoolConexiones pool) throws PersistenciaException {
+        EscritorBbdd escritor = ESCRITORES.get(url);
+        if (escritor == null) {
+            synchronized (ESCRITORES) {
+                escritor = ESCRITORES.get(url);
+                if (escritor == null) {
+                    escritor = new EscritorBbdd(pool.getConnection(),
+                            Integer.getInteger(PROPIEDAD_LOTE, LOTE_POR_DEFECTO),
+                            Long.getLong(PROPIEDAD_ESPERA, ESPERA_POR_DEFECTO));
+                    ESCRITORES.put(url, escritor);
+                }
+            }
+        }
+        return escritor;
+    }
+
+    /**
+     * Metodo que para todos los escritores compartidos tras terminar lo que
+     * tengan encolado
+     */
+    public static void cerrarTodos() {
+        synchronized (ESCRITORES) {
+            for (EscritorBbdd escritor : ESCRITORES.values()) {
+                escritor.cerrar();
+            }
+            ESCRITORES.clear();
+        }
+    }
+
+    /**
+     * Funcion que encola una escritura. El futuro se completa cuando se ha
+     * confirmado el lote en el que va, o con la excepcion que la hizo fallar
+     *
+     * @param <T>    tipo del resultado de la escritura
+     * @param <E>    excepcion propia de la escritura
+     * @param unidad de trabajo que se ejecuta en el hilo escritor
+     * @return el futuro con el resultado
+     * @throws PersistenciaException si se llama desde otra escritura o el
+     *                               escritor esta cerrado
+     */
+    public <T, E extends Exception> CompletableFuture<T> enviar(UnidadTrabajo<T, E> unidad)
+            throws PersistenciaException {
+        Escritura<T> escritura = new Escritura<>(unidad);
+        if (Thread.currentThread() == hilo) {
+            throw new PersistenciaException("No se puede encolar una escritura desde otra escritura, "
+                    + "usa la transaccion recibida");
+        }
+        if (!activo) {
+            throw new PersistenciaException("El escritor de la base de datos esta cerrado");
+        }
+        cola.add(escritura);
+        if (!activo && cola.remove(escritura)) {
+            throw new PersistenciaException("El escritor de la base de datos esta cerrado");
+        }
+        return escritura.futuro;
+    }
+
+    /**
+     * Funcion que indica si el hilo actual es el del escritor
+     *
+     * @return verdadero/falso
+     */
+    public boolean esHiloEscritor() {
+        return Thread.currentThread() == hilo;
+    }
+
+    /**
+     * Metodo que deja de aceptar escrituras, espera a que se vacie la cola y
+     * devuelve la conexion
+     */
+    public void cerrar() {
+        activo = false;
+        hilo.interrupt();
+        try {
+            hilo.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            // La conexion se descarta igualmente
+        }
+    }
+
+    /**
+     * Funcion que devuelve las escrituras confirmadas
+     *
+     * @return numero de escrituras
+     */
+    public long getEscrituras() {
+        return escrituras.get();
+    }
+
+    /**
+     * Funcion que devuelve los commits realizados. Comparado con las
+     * escrituras indica cuanto se agrupan
+     *
+     * @return numero de commits
+     */
+    public long getCommits() {
+        return commits.get();
+    }
+
+    /**
+     * Bucle del hilo escritor: espera la primera escritura, junta las que
+     * lleguen hasta llenar el lote o agotar la espera y las confirma juntas.
+     * Si el hilo termina por un error inesperado, deja de aceptar escrituras y
+     * falla las que quedan para que nadie se quede esperando
+     */
+    private void escribirLotes() {
+        ArrayList<Escritura<?>> lote = new ArrayList<>();
+        try {
+            while (activo || !cola.isEmpty()) {
+                try {
+                    Escritura<?> primera = activo ? cola.take() : cola.poll();
+                    if (primera == null) {
+                        break;
+                    }
+                    lote.add(primera);
+                    juntar(lote);
+                } catch (InterruptedException e) {
+                    // cerrar() interrumpe la espera; se vacia la cola antes de salir
+                }
+                if (!lote.isEmpty()) {
+                    confirmar(lote);
+                    lote.clear();
+                }
+            }
+        } finally {
+            activo = false;
+            PersistenciaException error = new PersistenciaException("El escritor de la base de datos esta cerrado");
+            lote.addAll(cola);
+            cola.clear();
+            for (Escritura<?> escritura : lote) {
+                escritura.futuro.completeExceptionally(error);
+            }
+        }
+    }
+
+    /**
+     * Metodo que añade al lote las escrituras que lleguen dentro de la espera
+     * maxima
+     *
+     * @param lote que se esta formando
+     * @throws InterruptedException si se cierra el escritor mientras espera
+     */
+    private void juntar(ArrayList<Escritura<?>> lote) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(esperaMaxima);
+        Escritura<?> siguiente;
+        while (lote.size() < maximoLote) {
+            long restante = limite - System.nanoTime();
+            if (restante > 0 && activo) {
+                siguiente = cola.poll(restante, TimeUnit.NANOSECONDS);
+            } else {
+                siguiente = cola.poll();
+            }
+            if (siguiente == null) {
+                return;
+            }
+            lote.add(siguiente);
+        }
+    }
+
+    /**
+     * Metodo que ejecuta un lote en una transaccion, cada escritura en su
+     * savepoint, y completa los futuros despues del commit. Si algo falla
+     * fuera de los savepoints, incluido un Error, se deshace el lote entero y
+     * fallan todos sus futuros
+     *
+     * @param lote de escrituras
+     */
+    private void confirmar(ArrayList<Escritura<?>> lote) {
+        ArrayList<Escritura<?>> correctas = new ArrayList<>();
+        try {
+            connection.setAutoCommit(false);
+            for (Escritura<?> escritura : lote) {
+                if (escritura.ejecutar(connection)) {
+                    correctas.add(escritura);
+                }
+            }
+            connection.commit();
+            commits.incrementAndGet();
+        } catch (Throwable e) {
+            try {
+                connection.rollback();
+            } catch (SQLException ignorada) {
+                // Se informa del error original
+            }
+            Throwable error = e instanceof Exception
+                    ? new PersistenciaException("Se ha producido un error confirmando las escrituras", (Exception) e)
+                    : e;
+            for (Escritura<?> escritura : lote) {
+                escritura.futuro.completeExceptionally(error);
+            }
+            return;
+        } finally {
+            try {
+                connection.setAutoCommit(true);
+            } catch (SQLException e) {
+                // La siguiente escritura lo vuelve a intentar
+            }
+        }
+
+        for (Escritura<?> escritura : correctas) {
+            escrituras.incrementAndGet();
+            escritura.confirmada();
+        }
+    }
+
+    /**
+     * Escritura encolada con su futuro
+     */
+    private static class Escritura<T> {
+        private UnidadTrabajo<T, ?> unidad;
+        private MapaIdentidad mapa;
+        private CompletableFuture<T> futuro;
+        private Transaccion transaccion;
+        private T resultado;
+
+        Escritura(UnidadTrabajo<T, ?> unidad) {
+            this.unidad = unidad;
+            mapa = MapaIdentidad.actual();
+            futuro = new CompletableFuture<>();
+        }
+
+        /**
+         * Funcion que ejecuta la escritura en su savepoint. Si falla, aunque sea
+         * con un Error, deshace solo lo suyo y completa el futuro con el error
+         *
+         * @param connection del escritor, con la transaccion del lote abierta
+         * @return verdadero si ha ido bien
+         * @throws SQLException si no se puede gestionar el savepoint
+         */
+        boolean ejecutar(Connection connection) throws SQLException {
+            Savepoint savepoint = connection.setSavepoint();
+            transaccion = new Transaccion(connection, mapa);
+            try {
+                resultado = unidad.ejecutar(transaccion);
+                connection.releaseSavepoint(savepoint);
+                return true;
+            } catch (Throwable e) {
+                connection.rollback(savepoint);
+                connection.releaseSavepoint(savepoint);
+                futuro.completeExceptionally(e);
+                return false;
+            }
+        }
+
+        /**
+         * Metodo que ejecuta las acciones posteriores al commit y completa el
+         * futuro
+         */
+        void confirmada() {
+            try {
+                transaccion.confirmada();
+                futuro.complete(resultado);
+            } catch (Throwable e) {
+                futuro.completeExceptionally(e);
+            }
+        }
+    }
+}
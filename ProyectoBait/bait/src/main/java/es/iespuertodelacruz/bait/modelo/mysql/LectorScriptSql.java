@@ -0,0 +1,199 @@
+package es.iespuertodelacruz.bait.modelo.mysql;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Lee un script SQL sentencia a sentencia sin cargar el fichero entero en
+ * memoria: solo se guarda la sentencia que se esta leyendo. Separa por ';'
+ * respetando cadenas, identificadores entre comillas, comentarios y el cuerpo
+ * BEGIN ... END de los triggers
+ */
+public class LectorScriptSql implements Closeable {
+    private static final int TAMANIO_BUFFER = 64 * 1024;
+    private static final int FIN = -1;
+
+    private FileChannel canal;
+    private Reader reader;
+    private long bytesTotales;
+    private int sentenciasLeidas;
+
+    /**
+     * Constructor con el fichero del script, que se lee en UTF-8
+     *
+     * @param fichero con las sentencias
+     * @throws IOException si no se puede abrir el fichero
+     */
+    public LectorScriptSql(Path fichero) throws IOException {
+        canal = FileChannel.open(fichero, StandardOpenOption.READ);
+        bytesTotales = canal.size();
+        reader = new BufferedReader(Channels.newReader(canal, StandardCharsets.UTF_8.newDecoder(), TAMANIO_BUFFER),
+                TAMANIO_BUFFER);
+    }
+
+    /**
+     * Funcion que devuelve la siguiente sentencia del script, sin el ';' final
+     * ni los comentarios
+     *
+     * @return la sentencia o null si no quedan mas
+     * @throws IOException error leyendo el fichero
+     */
+    public String siguiente() throws IOException {
+        StringBuilder sentencia = new StringBuilder();
+        StringBuilder palabra = new StringBuilder();
+        String primeraPalabra = null;
+        int palabras = 0;
+        int bloques = 0;
+        boolean trigger = false;
+        int caracter = reader.read();
+
+        while (caracter != FIN) {
+            if (Character.isLetterOrDigit(caracter) || caracter == '_') {
+                palabra.append((char) caracter);
+                sentencia.append((char) caracter);
+                caracter = reader.read();
+                continue;
+            }
+            if (palabra.length() > 0) {
+                String ultimaPalabra = palabra.toString().toUpperCase();
+                palabra.setLength(0);
+                if (palabras == 0) {
+                    primeraPalabra = ultimaPalabra;
+                }
+                palabras++;
+                if (palabras <= 3 && "CREATE".equals(primeraPalabra) && "TRIGGER".equals(ultimaPalabra)) {
+                    trigger = true;
+                } else if (trigger && ("BEGIN".equals(ultimaPalabra) || "CASE".equals(ultimaPalabra))) {
+                    bloques++;
+                } else if (trigger && "END".equals(ultimaPalabra)) {
+                    bloques--;
+                }
+            }
+
+            if (caracter == '\'' || caracter == '"' || caracter == '`') {
+                copiarEntreComillas(caracter, sentencia);
+            } else if (caracter == '[') {
+                copiarEntreComillas(']', sentencia.append('['));
+            } else if (caracter == '-' || caracter == '/') {
+                int siguiente = reader.read();
+                if (caracter == '-' && siguiente == '-') {
+                    saltarComentarioLinea();
+                    sentencia.append(' ');
+                } else if (caracter == '/' && siguiente == '*') {
+                    saltarComentarioBloque();
+                    sentencia.append(' ');
+                } else {
+                    sentencia.append((char) caracter);
+                    caracter = siguiente;
+                    continue;
+                }
+            } else if (caracter == ';' && bloques <= 0) {
+                String resultado = sentencia.toString().trim();
+                if (!resultado.isEmpty()) {
+                    sentenciasLeidas++;
+                    return resultado;
+                }
+                sentencia.setLength(0);
+                palabras = 0;
+                primeraPalabra = null;
+            } else {
+                sentencia.append((char) caracter);
+            }
+            caracter = reader.read();
+        }
+
+        String resultado = sentencia.toString().trim();
+        if (resultado.isEmpty()) {
+            return null;
+        }
+        sentenciasLeidas++;
+        return resultado;
+    }
+
+    /**
+     * Metodo que copia una cadena o identificador hasta su cierre. Dos comillas
+     * seguidas son una comilla escapada y no cierran
+     *
+     * @param cierre    caracter que cierra
+     * @param sentencia donde se copia
+     * @throws IOException error leyendo el fichero
+     */
+    private void copiarEntreComillas(int cierre, StringBuilder sentencia) throws IOException {
+        if (cierre != ']') {
+            sentencia.append((char) cierre);
+        }
+        int caracter = reader.read();
+        while (caracter != FIN) {
+            sentencia.append((char) caracter);
+            if (caracter == cierre) {
+                if (cierre == ']') {
+                    return;
+                }
+                reader.mark(1);
+                if (reader.read() != cierre) {
+                    reader.reset();
+                    return;
+                }
+                sentencia.append((char) cierre);
+            }
+            caracter = reader.read();
+        }
+    }
+
+    /**
+     * Metodo que salta un comentario -- hasta el fin de linea
+     *
+     * @throws IOException error leyendo el fichero
+     */
+    private void saltarComentarioLinea() throws IOException {
+        int caracter = reader.read();
+        while (caracter != FIN && caracter != '\n') {
+            caracter = reader.read();
+        }
+    }
+
+    /**
+     * Metodo que salta un comentario de bloque hasta el cierre
+     *
+     * @throws IOException error leyendo el fichero
+     */
+    private void saltarComentarioBloque() throws IOException {
+        int anterior = 0;
+        int caracter = reader.read();
+        while (caracter != FIN && !(anterior == '*' && caracter == '/')) {
+            anterior = caracter;
+            caracter = reader.read();
+        }
+    }
+
+    /**
+     * Funcion que devuelve los bytes del fichero leidos hasta ahora. Como se lee
+     * por bloques puede ir algo por delante de la ultima sentencia devuelta
+     *
+     * @return bytes leidos
+     * @throws IOException error consultando el fichero
+     */
+    public long getBytesLeidos() throws IOException {
+        return canal.isOpen() ? canal.position() : bytesTotales;
+    }
+
+    public long getBytesTotales() {
+        return bytesTotales;
+    }
+
+    public int getSentenciasLeidas() {
+        return sentenciasLeidas;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,248 @@
+package es.iespuertodelacruz.bait.modelo.mysql;
+
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import es.iespuertodelacruz.bait.exceptions.PersistenciaException;
+
+/**
+ * Mapa de identidad de una peticion: mientras esta abierto en un hilo, cada
+ * entidad se lee una sola vez por su identificador y las siguientes busquedas
+ * devuelven el mismo objeto, tambien si no existe. Los modelos olvidan lo que
+ * modifican para que la peticion vea sus propios cambios. Se abre al empezar
+ * la peticion y se vacia al cerrarlo; fuera de el las busquedas van directas
+ * al modelo. Los metodos estaticos trabajan con el mapa del hilo que los
+ * llama: dentro de una transaccion, que corre en el hilo del escritor, hay que
+ * olvidar con Transaccion.olvidar para que llegue al mapa de la peticion
+ */
+public final class MapaIdentidad implements AutoCloseable {
+    private static final ThreadLocal<MapaIdentidad> ACTUAL = new ThreadLocal<>();
+    /**
+     * Marca de las entidades que se han buscado y no existen
+     */
+    private static final Object AUSENTE = new Object();
+
+    /**
+     * Lee una entidad que no esta en el mapa
+     */
+    @FunctionalInterface
+    public interface Cargador<T> {
+        /**
+         * Funcion que lee una entidad por su identificador
+         *
+         * @param id de la entidad
+         * @return la entidad o null si no existe
+         * @throws PersistenciaException error a controlar
+         */
+        T cargar(String id) throws PersistenciaException;
+    }
+
+    private HashMap<Class<?>, HashMap<String, Object>> entidades;
+    private ConcurrentLinkedQueue<Olvido> pendientes;
+    private int aperturas;
+    private long aciertos;
+    private long cargas;
+
+    /**
+     * Entidad, o tipo entero si no hay identificador, que otro hilo ha pedido
+     * quitar
+     */
+    private static class Olvido {
+        private Class<?> tipo;
+        private String id;
+
+        Olvido(Class<?> tipo, String id) {
+            this.tipo = tipo;
+            this.id = id;
+        }
+    }
+
+    private MapaIdentidad() {
+        entidades = new HashMap<>();
+        pendientes = new ConcurrentLinkedQueue<>();
+    }
+
+    /**
+     * Funcion que abre el mapa en el hilo actual, o reutiliza el que ya esta
+     * abierto si se abre dentro de otro. Se vacia al cerrar la apertura mas
+     * externa, por lo que debe usarse en un try-with-resources
+     *
+     * @return el mapa abierto
+     */
+    public static MapaIdentidad abrir() {
+        MapaIdentidad mapa = ACTUAL.get();
+        if (mapa == null) {
+            mapa = new MapaIdentidad();
+            ACTUAL.set(mapa);
+        }
+        mapa.aperturas++;
+        return mapa;
+    }
+
+    /**
+     * Funcion que devuelve el mapa abierto en el hilo actual
+     *
+     * @return el mapa o null si no hay ninguno abierto
+     */
+    public static MapaIdentidad actual() {
+        return ACTUAL.get();
+    }
+
+    /**
+     * Funcion que busca una entidad en el mapa del hilo, leyendola la primera
+     * vez. Sin mapa abierto se lee siempre
+     *
+     * @param <T>      tipo de la entidad
+     * @param tipo     clase de la entidad
+     * @param id       identificador de la entidad
+     * @param cargador que la lee si no esta
+     * @return la entidad o null si no existe
+     * @throws PersistenciaException error a controlar
+     */
+    public static <T> T buscar(Class<T> tipo, String id, Cargador<T> cargador) throws PersistenciaException {
+        MapaIdentidad mapa = ACTUAL.get();
+        if (mapa == null || id == null) {
+            return cargador.cargar(id);
+        }
+        mapa.aplicarPendientes();
+        HashMap<String, Object> porId = mapa.entidades.computeIfAbsent(tipo, clave -> new HashMap<>());
+        Object guardada = porId.get(id);
+        if (guardada != null) {
+            mapa.aciertos++;
+            return guardada == AUSENTE ? null : tipo.cast(guardada);
+        }
+        T entidad = cargador.cargar(id);
+        mapa.cargas++;
+        porId.put(id, entidad == null ? AUSENTE : entidad);
+        return entidad;
+    }
+
+    /**
+     * Funcion que guarda una entidad leida por otra consulta, salvo que ya
+     * hubiera otra con el mismo identificador, en cuyo caso devuelve esa para
+     * que la peticion comparta un solo objeto. Sin mapa abierto no hace nada
+     *
+     * @param <T>     tipo de la entidad
+     * @param tipo    clase de la entidad
+     * @param id      identificador de la entidad
+     * @param entidad leida
+     * @return la entidad que se debe usar
+     */
+    public static <T> T registrar(Class<T> tipo, String id, T entidad) {
+        MapaIdentidad mapa = ACTUAL.get();
+        if (mapa == null || id == null || entidad == null) {
+            return entidad;
+        }
+        mapa.aplicarPendientes();
+        HashMap<String, Object> porId = mapa.entidades.computeIfAbsent(tipo, clave -> new HashMap<>());
+        Object guardada = porId.get(id);
+        if (guardada != null && guardada != AUSENTE) {
+            mapa.aciertos++;
+            return tipo.cast(guardada);
+        }
+        porId.put(id, entidad);
+        return entidad;
+    }
+
+    /**
+     * Metodo que quita una entidad del mapa del hilo porque se ha modificado.
+     * Solo sirve en el hilo de la peticion; dentro de una transaccion se usa
+     * Transaccion.olvidar
+     *
+     * @param tipo clase de la entidad
+     * @param id   identificador de la entidad
+     */
+    public static void olvidar(Class<?> tipo, String id) {
+        MapaIdentidad mapa = ACTUAL.get();
+        if (mapa != null) {
+            mapa.aplicarPendientes();
+            mapa.quitar(tipo, id);
+        }
+    }
+
+    /**
+     * Metodo que quita todas las entidades de un tipo del mapa del hilo, tras
+     * un cambio que afecta a muchas. Solo sirve en el hilo de la peticion;
+     * dentro de una transaccion se usa Transaccion.olvidarTodas
+     *
+     * @param tipo clase de las entidades
+     */
+    public static void olvidarTodas(Class<?> tipo) {
+        MapaIdentidad mapa = ACTUAL.get();
+        if (mapa != null) {
+            mapa.aplicarPendientes();
+            mapa.quitar(tipo, null);
+        }
+    }
+
+    /**
+     * Metodo que pide desde otro hilo, como el del escritor, quitar una entidad
+     * o todas las de un tipo. Se quitan en el hilo dueño del mapa antes de su
+     * siguiente busqueda
+     *
+     * @param tipo clase de la entidad
+     * @param id   identificador de la entidad, null para todas las del tipo
+     */
+    void encolarOlvido(Class<?> tipo, String id) {
+        pendientes.add(new Olvido(tipo, id));
+    }
+
+    /**
+     * Metodo que quita del mapa lo que han pedido otros hilos
+     */
+    private void aplicarPendientes() {
+        Olvido olvido;
+        while ((olvido = pendientes.poll()) != null) {
+            quitar(olvido.tipo, olvido.id);
+        }
+    }
+
+    /**
+     * Metodo que quita una entidad o todas las de un tipo
+     *
+     * @param tipo clase de la entidad
+     * @param id   identificador de la entidad, null para todas las del tipo
+     */
+    private void quitar(Class<?> tipo, String id) {
+        if (id == null) {
+            entidades.remove(tipo);
+            return;
+        }
+        HashMap<String, Object> porId = entidades.get(tipo);
+        if (porId != null) {
+            porId.remove(id);
+        }
+    }
+
+    /**
+     * Metodo que cierra una apertura; al cerrar la ultima se vacia el mapa y se
+     * quita del hilo
+     */
+    @Override
+    public void close() {
+        aperturas--;
+        if (aperturas == 0) {
+            entidades.clear();
+            pendientes.clear();
+            ACTUAL.remove();
+        }
+    }
+
+    /**
+     * Funcion que devuelve las busquedas que ya estaban en el mapa
+     *
+     * @return numero de aciertos
+     */
+    public long getAciertos() {
+        return aciertos;
+    }
+
+    /**
+     * Funcion que devuelve las entidades que se han tenido que leer
+     *
+     * @return numero de cargas
+     */
+    public long getCargas() {
+        return cargas;
+    }
+}
@@ -0,0 +1,230 @@
+package es.iespuertodelacruz.bait.modelo.mysql;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import es.iespuertodelacruz.bait.exceptions.PersistenciaException;
+
+public class MigradorBbdd {
+    public static final String DIRECTORIO_MIGRACIONES = "resorce/migraciones";
+    public static final String TABLA_VERSIONES = "SCHEMA_VERSION";
+    public static final String PROPIEDAD_SENTENCIAS_POR_LOTE = "bait.migracion.lote";
+    private static final int SENTENCIAS_POR_LOTE_POR_DEFECTO = 1000;
+    private static final Pattern PATRON_MIGRACION = Pattern.compile("^V(\\d+)__(.+)\\.sql$");
+    private static final String CREAR_TABLA_VERSIONES = "CREATE TABLE IF NOT EXISTS " + TABLA_VERSIONES
+            + " (version INTEGER PRIMARY KEY, script VARCHAR(100) NOT NULL, fechaAplicacion VARCHAR(25))";
+    private static final String SELECT_VERSIONES = "SELECT version FROM " + TABLA_VERSIONES;
+    private static final String INSERT_VERSION = "INSERT INTO " + TABLA_VERSIONES
+            + " (version, script, fechaAplicacion) VALUES (?, ?, ?)";
+
+    private static final Set<String> INICIALIZADAS = ConcurrentHashMap.newKeySet();
+
+    private Bbdd bbdd;
+    private String directorio;
+    private ProgresoScript progreso;
+    private int sentenciasPorLote;
+
+    /**
+     * Constructor con la base de datos y el directorio de las migraciones
+     *
+     * @param bbdd       base de datos que se va a migrar
+     * @param directorio donde estan los ficheros V&lt;n&gt;__&lt;descripcion&gt;.sql
+     */
+    public MigradorBbdd(Bbdd bbdd, String directorio) {
+        this.bbdd = bbdd;
+        this.directorio = directorio;
+        progreso = ProgresoScript.NINGUNO;
+        sentenciasPorLote = Integer.getInteger(PROPIEDAD_SENTENCIAS_POR_LOTE, SENTENCIAS_POR_LOTE_POR_DEFECTO);
+    }
+
+    /**
+     * Metodo que aplica las migraciones pendientes una sola vez por url durante
+     * la vida de la JVM. Las llamadas siguientes no tocan la base de datos
+     *
+     * @param bbdd base de datos que se va a inicializar
+     * @param url  identificador de la base de datos
+     * @throws PersistenciaException error a controlar
+     */
+    public static void inicializar(Bbdd bbdd, String url) throws PersistenciaException {
+        if (url == null) {
+            throw new PersistenciaException("No se ha indicado la url de la base de datos a inicializar");
+        }
+        if (INICIALIZADAS.contains(url)) {
+            return;
+        }
+        synchronized (INICIALIZADAS) {
+            if (!INICIALIZADAS.contains(url)) {
+                new MigradorBbdd(bbdd, DIRECTORIO_MIGRACIONES).migrar();
+                INICIALIZADAS.add(url);
+            }
+        }
+    }
+
+    /**
+     * Funcion que aplica, en orden de version, las migraciones que aun no estan
+     * registradas en la tabla de versiones
+     *
+     * @return el numero de migraciones aplicadas
+     * @throws PersistenciaException error a controlar
+     */
+    public int migrar() throws PersistenciaException {
+        int aplicadas = 0;
+        Connection connection = null;
+        Set<Integer> versionesAplicadas;
+
+        try {
+            connection = bbdd.getConnectionEscritura();
+            versionesAplicadas = obtenerVersionesAplicadas(connection);
+            for (Map.Entry<Integer, File> migracion : obtenerMigraciones().entrySet()) {
+                if (!versionesAplicadas.contains(migracion.getKey())) {
+                    aplicar(connection, migracion.getKey(), migracion.getValue());
+                    aplicadas++;
+                }
+            }
+        } catch (SQLException e) {
+            throw new PersistenciaException("Se ha producido un error en la inicializacion de la BBDD", e);
+        } finally {
+            bbdd.closeConnection(connection, null, null);
+        }
+
+        return aplicadas;
+    }
+
+    /**
+     * Funcion que crea la tabla de versiones si no existe y devuelve las
+     * versiones ya aplicadas
+     *
+     * @param connection conexion con la base de datos
+     * @return las versiones aplicadas
+     * @throws SQLException error a controlar
+     */
+    private Set<Integer> obtenerVersionesAplicadas(Connection connection) throws SQLException {
+        Set<Integer> versiones = new HashSet<>();
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate(CREAR_TABLA_VERSIONES);
+            try (ResultSet resultSet = statement.executeQuery(SELECT_VERSIONES)) {
+                while (resultSet.next()) {
+                    versiones.add(resultSet.getInt("version"));
+                }
+            }
+        }
+        return versiones;
+    }
+
+    /**
+     * Funcion que lista los ficheros de migracion ordenados por version
+     *
+     * @return mapa ordenado de version a fichero
+     * @throws PersistenciaException si el directorio no existe o hay versiones
+     *                               repetidas
+     */
+    private TreeMap<Integer, File> obtenerMigraciones() throws PersistenciaException {
+        TreeMap<Integer, File> migraciones = new TreeMap<>();
+        File[] ficheros = new File(directorio).listFiles();
+
+        if (ficheros == null) {
+            throw new PersistenciaException("No existe el directorio de migraciones " + directorio);
+        }
+        for (File fichero : ficheros) {
+            Matcher matcher = PATRON_MIGRACION.matcher(fichero.getName());
+            if (matcher.matches()) {
+                int version = Integer.parseInt(matcher.group(1));
+                if (migraciones.put(version, fichero) != null) {
+                    throw new PersistenciaException("La version de migracion " + version + " esta repetida");
+                }
+            }
+        }
+        return migraciones;
+    }
+
+    /**
+     * Metodo que ejecuta una migracion y la registra en la misma transaccion.
+     * El script se lee sentencia a sentencia y se envia en lotes de
+     * sentenciasPorLote, avisando del progreso tras cada lote, asi que la
+     * memoria usada no depende del tamaño del fichero
+     *
+     * @param connection conexion con la base de datos
+     * @param version    de la migracion
+     * @param fichero    con las sentencias de la migracion
+     * @throws PersistenciaException error a controlar
+     * @throws SQLException          error a controlar
+     */
+    private void aplicar(Connection connection, int version, File fichero) throws PersistenciaException, SQLException {
+        connection.setAutoCommit(false);
+        try (LectorScriptSql lector = new LectorScriptSql(fichero.toPath());
+                Statement statement = connection.createStatement();
+                PreparedStatement preparedStatement = connection.prepareStatement(INSERT_VERSION)) {
+            int pendientes = 0;
+            String sentencia = lector.siguiente();
+            while (sentencia != null) {
+                statement.addBatch(sentencia);
+                pendientes++;
+                if (pendientes == sentenciasPorLote) {
+                    ejecutarLote(statement, lector, fichero);
+                    pendientes = 0;
+                }
+                sentencia = lector.siguiente();
+            }
+            if (pendientes > 0) {
+                ejecutarLote(statement, lector, fichero);
+            }
+            preparedStatement.setInt(1, version);
+            preparedStatement.setString(2, fichero.getName());
+            preparedStatement.setString(3, LocalDateTime.now().toString());
+            preparedStatement.executeUpdate();
+            connection.commit();
+        } catch (SQLException | IOException e) {
+            connection.rollback();
+            throw new PersistenciaException("Ha ocurrido un error aplicando la migracion " + fichero.getName(), e);
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Metodo que ejecuta las sentencias acumuladas y avisa del progreso
+     *
+     * @param statement con las sentencias del lote
+     * @param lector    del script, para saber cuanto se ha leido
+     * @param fichero   que se esta ejecutando
+     * @throws SQLException error a controlar
+     * @throws IOException  error a controlar
+     */
+    private void ejecutarLote(Statement statement, LectorScriptSql lector, File fichero)
+            throws SQLException, IOException {
+        statement.executeBatch();
+        progreso.avance(fichero.getName(), lector.getSentenciasLeidas(), lector.getBytesLeidos(),
+                lector.getBytesTotales());
+    }
+
+    /**
+     * Metodo que indica a quien se avisa del progreso de cada migracion
+     *
+     * @param progreso que recibe los avisos
+     */
+    public void setProgreso(ProgresoScript progreso) {
+        this.progreso = progreso;
+    }
+
+    /**
+     * Metodo que indica cuantas sentencias se envian juntas
+     *
+     * @param sentenciasPorLote sentencias de cada lote
+     */
+    public void setSentenciasPorLote(int sentenciasPorLote) {
+        this.sentenciasPorLote = Math.max(1, sentenciasPorLote);
+    }
+}
@@ -0,0 +1,60 @@
+package es.iespuertodelacruz.bait.modelo.mysql;
+
+import java.util.ArrayList;
+
+/**
+ * Una pagina de un listado con los tokens para pedir la siguiente y la
+ * anterior. Los tokens son opacos: solo sirven para volver a pedirselos al
+ * mismo listado, y son null cuando no hay mas paginas en ese sentido
+ */
+public class Pagina<T> {
+    public static final String PROPIEDAD_TAMANIO = "bait.pagina.tamanio";
+    private static final int TAMANIO_POR_DEFECTO = 20;
+
+    private ArrayList<T> elementos;
+    private String siguiente;
+    private String anterior;
+
+    /**
+     * Constructor con todos los datos
+     * 
+     * @param elementos de la pagina, en orden
+     * @param siguiente token de la pagina siguiente o null
+     * @param anterior  token de la pagina anterior o null
+     */
+    public Pagina(ArrayList<T> elementos, String siguiente, String anterior) {
+        this.elementos = elementos;
+        this.siguiente = siguiente;
+        this.anterior = anterior;
+    }
+
+    /**
+     * Funcion que devuelve el tamaño de pagina configurado con la propiedad
+     * del sistema bait.pagina.tamanio
+     * 
+     * @return elementos por pagina
+     */
+    public static int getTamanioPorDefecto() {
+        return Math.max(1, Integer.getInteger(PROPIEDAD_TAMANIO, TAMANIO_POR_DEFECTO));
+    }
+
+    public ArrayList<T> getElementos() {
+        return elementos;
+    }
+
+    public String getSiguiente() {
+        return siguiente;
+    }
+
+    public String getAnterior() {
+        return anterior;
+    }
+
+    public boolean haySiguiente() {
+        return siguiente != null;
+    }
+
+    public boolean hayAnterior() {
+        return anterior != null;
+    }
+}
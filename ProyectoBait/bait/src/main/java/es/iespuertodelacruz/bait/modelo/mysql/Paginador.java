@@ -0,0 +1,338 @@
+package es.iespuertodelacruz.bait.modelo.mysql;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import es.iespuertodelacruz.bait.exceptions.PersistenciaException;
+
+/**
+ * Pagina una consulta por su clave (seek): en lugar de OFFSET, cada pagina
+ * pide las filas con la clave mayor que la ultima de la anterior, asi que
+ * cualquier pagina cuesta lo mismo que la primera y recorre el indice de la
+ * clave. La clave puede tener varias columnas, comparadas como fila. Los
+ * tokens llevan el sentido y la clave desde la que seguir, codificados en
+ * Base64
+ */
+public class Paginador<T> {
+    private static final char ADELANTE = 'S';
+    private static final char ATRAS = 'A';
+    private static final char SEPARADOR = '\u001F';
+    private static final char TEXTO = 'T';
+    private static final char ENTERO = 'E';
+    private static final char REAL = 'R';
+
+    private String consulta;
+    private String[] columnas;
+    private boolean descendente;
+    private Supplier<RowMapper<T>> mappers;
+    private Function<T, Object[]> claves;
+
+    /**
+     * Constructor con la consulta y su clave
+     * 
+     * @param consulta base, sin ORDER BY; puede llevar ya un WHERE
+     * @param columna  clave unica por la que se ordena, con su alias
+     * @param mappers  que crean el mapper de cada consulta
+     * @param clave    funcion que devuelve la clave de un elemento
+     */
+    public Paginador(String consulta, String columna, Supplier<RowMapper<T>> mappers, Function<T, String> clave) {
+        this(consulta, new String[] { columna }, false, mappers, elemento -> new Object[] { clave.apply(elemento) });
+    }
+
+    /**
+     * Constructor que ordena por varias columnas en el mismo sentido. La ultima
+     * tiene que ser unica para que no se repitan ni se salten filas, y para no
+     * ordenar aparte tiene que haber un indice con las mismas columnas
+     * 
+     * @param consulta    base, sin ORDER BY; puede llevar ya un WHERE
+     * @param columnas    expresiones por las que se ordena, con su alias
+     * @param descendente true para ordenar de mayor a menor
+     * @param mappers     que crean el mapper de cada consulta
+     * @param claves      funcion que devuelve el valor de cada columna de un
+     *                    elemento, como String, Integer, Long o Double
+     */
+    public Paginador(String consulta, String[] columnas, boolean descendente, Supplier<RowMapper<T>> mappers,
+            Function<T, Object[]> claves) {
+        this.consulta = consulta;
+        this.columnas = columnas;
+        this.descendente = descendente;
+        this.mappers = mappers;
+        this.claves = claves;
+    }
+
+    /**
+     * Funcion que devuelve una pagina de la consulta
+     * 
+     * @param persistencia base de datos en la que se consulta
+     * @param token        de la pagina que se pide, null para la primera
+     * @param tamanio      numero maximo de elementos
+     * @param filtro       condicion que se añade a la consulta, "" si ninguna
+     * @param valores      de los parametros del filtro
+     * @return la pagina con los tokens de la siguiente y la anterior
+     * @throws PersistenciaException si el token no es valido o falla la consulta
+     */
+    public Pagina<T> obtener(Bbdd persistencia, String token, int tamanio, String filtro, Object... valores)
+            throws PersistenciaException {
+        if (token == null || token.isEmpty()) {
+            return adelante(persistencia, null, tamanio, filtro, valores);
+        }
+        String decodificado = decodificar(token);
+        Object[] desde = valores(decodificado.substring(1), columnas.length);
+        if (decodificado.charAt(0) == ADELANTE) {
+            return adelante(persistencia, desde, tamanio, filtro, valores);
+        }
+        return atras(persistencia, desde, tamanio, filtro, valores);
+    }
+
+    /**
+     * Funcion que pagina una lista ya ordenada por la clave con los mismos
+     * tokens que la consulta, buscando la posicion de la clave en lugar de
+     * recorrer la lista
+     * 
+     * @param <E>       tipo de los elementos
+     * @param ordenados lista ordenada por la clave, sin claves repetidas
+     * @param clave     funcion que devuelve la clave de un elemento
+     * @param token     de la pagina que se pide, null para la primera
+     * @param tamanio   numero maximo de elementos
+     * @return la pagina con los tokens de la siguiente y la anterior
+     * @throws PersistenciaException si el token no es valido
+     */
+    public static <E> Pagina<E> paginar(List<E> ordenados, Function<E, String> clave, String token, int tamanio)
+            throws PersistenciaException {
+        int inicio = 0;
+        String desde = null;
+        if (token != null && !token.isEmpty()) {
+            String decodificado = decodificar(token);
+            Object valor = valores(decodificado.substring(1), 1)[0];
+            if (!(valor instanceof String)) {
+                throw new PersistenciaException("El token de pagina no es valido");
+            }
+            desde = (String) valor;
+            if (decodificado.charAt(0) == ADELANTE) {
+                inicio = posicion(ordenados, clave, desde, true);
+            } else {
+                inicio = Math.max(0, posicion(ordenados, clave, desde, false) - tamanio);
+                desde = null;
+            }
+        }
+        int fin = Math.min(ordenados.size(), inicio + tamanio);
+        ArrayList<E> elementos = new ArrayList<>(ordenados.subList(inicio, fin));
+
+        String siguiente = fin < ordenados.size() ? token(ADELANTE, clave.apply(elementos.get(elementos.size() - 1)))
+            : null;
+        String anterior = null;
+        if (inicio > 0) {
+            anterior = token(ATRAS, elementos.isEmpty() ? desde : clave.apply(elementos.get(0)));
+        }
+        return new Pagina<>(elementos, siguiente, anterior);
+    }
+
+    /**
+     * Funcion que busca con una busqueda binaria la primera posicion cuya
+     * clave es mayor (o mayor o igual) que la dada
+     * 
+     * @param <E>       tipo de los elementos
+     * @param ordenados lista ordenada por la clave
+     * @param clave     funcion que devuelve la clave de un elemento
+     * @param buscada   clave que se busca
+     * @param despues   true para saltar tambien la clave buscada
+     * @return la posicion, el tamaño de la lista si no hay ninguna
+     */
+    private static <E> int posicion(List<E> ordenados, Function<E, String> clave, String buscada, boolean despues) {
+        int inicio = 0;
+        int fin = ordenados.size();
+        while (inicio < fin) {
+            int medio = (inicio + fin) >>> 1;
+            int comparacion = clave.apply(ordenados.get(medio)).compareTo(buscada);
+            if (comparacion < 0 || (despues && comparacion == 0)) {
+                inicio = medio + 1;
+            } else {
+                fin = medio;
+            }
+        }
+        return inicio;
+    }
+
+    /**
+     * Funcion que lee la pagina que sigue a una clave
+     * 
+     * @param persistencia base de datos
+     * @param desde        clave tras la que se empieza, null desde el principio
+     * @param tamanio      de la pagina
+     * @param filtro       condicion añadida a la consulta
+     * @param valores      de los parametros del filtro
+     * @return la pagina
+     * @throws PersistenciaException error a controlar
+     */
+    private Pagina<T> adelante(Bbdd persistencia, Object[] desde, int tamanio, String filtro, Object... valores)
+            throws PersistenciaException {
+        ArrayList<T> elementos = consultar(persistencia, desde, true, tamanio, filtro, valores);
+        boolean hayMas = elementos.size() > tamanio;
+        if (hayMas) {
+            elementos.remove(tamanio);
+        }
+
+        String siguiente = hayMas ? token(ADELANTE, claves.apply(elementos.get(elementos.size() - 1))) : null;
+        String anterior = null;
+        if (desde != null) {
+            anterior = token(ATRAS, elementos.isEmpty() ? desde : claves.apply(elementos.get(0)));
+        }
+        return new Pagina<>(elementos, siguiente, anterior);
+    }
+
+    /**
+     * Funcion que lee la pagina que precede a una clave. Si no llega a llenar
+     * la pagina es que se ha llegado al principio, y se devuelve la primera
+     * pagina completa
+     * 
+     * @param persistencia base de datos
+     * @param hasta        clave antes de la que se acaba
+     * @param tamanio      de la pagina
+     * @param filtro       condicion añadida a la consulta
+     * @param valores      de los parametros del filtro
+     * @return la pagina
+     * @throws PersistenciaException error a controlar
+     */
+    private Pagina<T> atras(Bbdd persistencia, Object[] hasta, int tamanio, String filtro, Object... valores)
+            throws PersistenciaException {
+        ArrayList<T> elementos = consultar(persistencia, hasta, false, tamanio, filtro, valores);
+        if (elementos.size() <= tamanio) {
+            return adelante(persistencia, null, tamanio, filtro, valores);
+        }
+        elementos.remove(tamanio);
+        Collections.reverse(elementos);
+        return new Pagina<>(elementos, token(ADELANTE, claves.apply(elementos.get(elementos.size() - 1))),
+            token(ATRAS, claves.apply(elementos.get(0))));
+    }
+
+    /**
+     * Funcion que pide una fila mas que el tamaño para saber si hay mas. Hacia
+     * adelante se sigue el orden del paginador y hacia atras el contrario. Con
+     * varias columnas se repite la condicion sobre la primera sola, porque
+     * SQLite no busca en un indice de expresiones por una comparacion de filas
+     * 
+     * @param persistencia base de datos
+     * @param desde        clave desde la que se busca o null
+     * @param adelante     true hacia adelante, false hacia atras
+     * @param tamanio      de la pagina
+     * @param filtro       condicion añadida a la consulta
+     * @param valores      de los parametros del filtro
+     * @return hasta tamanio + 1 elementos
+     * @throws PersistenciaException error a controlar
+     */
+    private ArrayList<T> consultar(Bbdd persistencia, Object[] desde, boolean adelante, int tamanio,
+            String filtro, Object... valores) throws PersistenciaException {
+        boolean mayores = adelante != descendente;
+        String columna = String.join(", ", columnas);
+        StringBuilder sql = new StringBuilder(consulta).append(filtro);
+        Object[] parametros = valores;
+        if (desde != null) {
+            sql.append(filtro.isEmpty() && !consulta.contains(" WHERE ") ? " WHERE " : " AND ");
+            parametros = new Object[valores.length + desde.length];
+            System.arraycopy(valores, 0, parametros, 0, valores.length);
+            if (columnas.length == 1) {
+                sql.append(columna).append(mayores ? " > ?" : " < ?");
+            } else {
+                sql.append(columnas[0]).append(mayores ? " >= ? AND (" : " <= ? AND (").append(columna)
+                    .append(mayores ? ") > (" : ") < (")
+                    .append(String.join(", ", Collections.nCopies(columnas.length, "?"))).append(')');
+                parametros = Arrays.copyOf(parametros, parametros.length + 1);
+                parametros[valores.length] = desde[0];
+            }
+            System.arraycopy(desde, 0, parametros, parametros.length - desde.length, desde.length);
+        }
+        String orden = mayores ? " ASC" : " DESC";
+        sql.append(" ORDER BY ").append(String.join(orden + ", ", columnas)).append(orden)
+            .append(" LIMIT ").append(tamanio + 1);
+        return persistencia.consultar(sql.toString(), Binder.valores(parametros), mappers.get());
+    }
+
+    /**
+     * Funcion que codifica un token
+     * 
+     * @param sentido ADELANTE o ATRAS
+     * @param desde   valores de la clave desde la que se sigue
+     * @return el token
+     */
+    private static String token(char sentido, Object... desde) {
+        StringBuilder texto = new StringBuilder().append(sentido);
+        for (int i = 0; i < desde.length; i++) {
+            if (i > 0) {
+                texto.append(SEPARADOR);
+            }
+            Object valor = desde[i];
+            if (valor instanceof Double || valor instanceof Float) {
+                texto.append(REAL).append(((Number) valor).doubleValue());
+            } else if (valor instanceof Integer || valor instanceof Long) {
+                texto.append(ENTERO).append(((Number) valor).longValue());
+            } else {
+                texto.append(TEXTO).append(valor);
+            }
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(texto.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Funcion que recupera los valores de la clave de un token con su tipo
+     * 
+     * @param texto    clave codificada, sin el sentido
+     * @param columnas numero de valores que tiene que haber
+     * @return los valores
+     * @throws PersistenciaException si la clave no es valida
+     */
+    private static Object[] valores(String texto, int columnas) throws PersistenciaException {
+        String[] partes = texto.split(String.valueOf(SEPARADOR), -1);
+        if (partes.length != columnas) {
+            throw new PersistenciaException("El token de pagina no es valido");
+        }
+        Object[] valores = new Object[columnas];
+        try {
+            for (int i = 0; i < columnas; i++) {
+                String valor = partes[i].isEmpty() ? "" : partes[i].substring(1);
+                switch (partes[i].isEmpty() ? ' ' : partes[i].charAt(0)) {
+                    case TEXTO:
+                        valores[i] = valor;
+                        break;
+                    case ENTERO:
+                        valores[i] = Long.valueOf(valor);
+                        break;
+                    case REAL:
+                        valores[i] = Double.valueOf(valor);
+                        break;
+                    default:
+                        throw new PersistenciaException("El token de pagina no es valido");
+                }
+            }
+        } catch (NumberFormatException e) {
+            throw new PersistenciaException("El token de pagina no es valido", e);
+        }
+        return valores;
+    }
+
+    /**
+     * Funcion que decodifica un token y comprueba su sentido
+     * 
+     * @param token recibido
+     * @return el sentido seguido de la clave
+     * @throws PersistenciaException si el token no es valido
+     */
+    private static String decodificar(String token) throws PersistenciaException {
+        String decodificado;
+        try {
+            decodificado = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new PersistenciaException("El token de pagina no es valido", e);
+        }
+        if (decodificado.isEmpty() || (decodificado.charAt(0) != ADELANTE && decodificado.charAt(0) != ATRAS)) {
+            throw new PersistenciaException("El token de pagina no es valido");
+        }
+        return decodificado;
+    }
+}
@@ -0,0 +1,76 @@
+package es.iespuertodelacruz.bait.modelo.mysql;
+
+import java.util.Properties;
+
+import org.sqlite.SQLiteConfig;
+
+/**
+ * Configuracion con la que se abren las conexiones de SQLite. El perfil WAL
+ * (por defecto) deja que las lecturas sigan mientras el escritor confirma; el
+ * perfil clasico mantiene el journal de siempre. Se elige con la propiedad del
+ * sistema bait.sqlite.perfil
+ */
+public class PerfilSqlite {
+    public static final String PROPIEDAD_PERFIL = "bait.sqlite.perfil";
+    public static final String PERFIL_WAL = "wal";
+    public static final String PERFIL_CLASICO = "clasico";
+    private static final int CACHE_KIB = 16 * 1024;
+    private static final long MMAP_BYTES = 64L * 1024 * 1024;
+    private static final int ESPERA_BLOQUEO_MS = 5000;
+
+    private PerfilSqlite() {
+    }
+
+    /**
+     * Funcion que indica si esta activo el perfil WAL
+     *
+     * @return verdadero/falso
+     */
+    public static boolean esWal() {
+        return !PERFIL_CLASICO.equalsIgnoreCase(System.getProperty(PROPIEDAD_PERFIL, PERFIL_WAL));
+    }
+
+    /**
+     * Funcion que devuelve las propiedades de las conexiones de lectura, que se
+     * abren en solo lectura
+     *
+     * @return las propiedades para el driver
+     */
+    public static Properties lectura() {
+        SQLiteConfig config = comun();
+        config.setReadOnly(true);
+        return config.toProperties();
+    }
+
+    /**
+     * Funcion que devuelve las propiedades de la conexion de escritura, que es
+     * la que activa el modo WAL en el fichero
+     *
+     * @return las propiedades para el driver
+     */
+    public static Properties escritura() {
+        SQLiteConfig config = comun();
+        if (esWal()) {
+            config.setJournalMode(SQLiteConfig.JournalMode.WAL);
+        }
+        return config.toProperties();
+    }
+
+    /**
+     * Funcion que devuelve la configuracion compartida por lectura y escritura.
+     * Con WAL basta synchronous=NORMAL: un corte de luz puede perder el ultimo
+     * commit pero no corromper la base de datos
+     *
+     * @return la configuracion
+     */
+    private static SQLiteConfig comun() {
+        SQLiteConfig config = new SQLiteConfig();
+        config.setBusyTimeout(ESPERA_BLOQUEO_MS);
+        if (esWal()) {
+            config.setSynchronous(SQLiteConfig.SynchronousMode.NORMAL);
+            config.setCacheSize(-CACHE_KIB);
+            config.setPragma(SQLiteConfig.Pragma.MMAP_SIZE, String.valueOf(MMAP_BYTES));
+        }
+        return config;
+    }
+}
@@ -0,0 +1,511 @@
+package es.iespuertodelacruz.bait.modelo.mysql;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import es.iespuertodelacruz.bait.exceptions.PersistenciaException;
+
+public class PoolConexiones {
+    public static final String PROPIEDAD_MINIMO = "bait.pool.minimo";
+    public static final String PROPIEDAD_MAXIMO = "bait.pool.maximo";
+    public static final String PROPIEDAD_ESPERA = "bait.pool.espera";
+    private static final int MINIMO_POR_DEFECTO = 1;
+    private static final int MAXIMO_POR_DEFECTO = 10;
+    private static final long ESPERA_POR_DEFECTO = 5000;
+    private static final int SEGUNDOS_VALIDACION = 1;
+    private static final String SUFIJO_ESCRITURA = "#escritura";
+
+    private static final Map<String, PoolConexiones> POOLS = new ConcurrentHashMap<>();
+
+    private String driver;
+    private String url;
+    private String usuario;
+    private String password;
+    private Properties propiedades;
+    private int minimo;
+    private int maximo;
+    private long esperaMaxima;
+    private Semaphore permisos;
+    private LinkedBlockingDeque<Connection> libres;
+    private AtomicInteger abiertas;
+    private AtomicLong peticiones;
+    private AtomicLong reutilizadas;
+    private AtomicLong creadas;
+    private AtomicLong descartadas;
+    private AtomicLong esperasAgotadas;
+
+    /**
+     * Constructor con todos los parametros del pool
+     *
+     * @param driver       que se usa para conectar con la base de datos
+     * @param url          de la base de datos o fichero db
+     * @param usuario      con acceso a la base de datos
+     * @param password     del usuario de la base de datos
+     * @param minimo       conexiones que se abren al crear el pool
+     * @param maximo       conexiones que pueden estar prestadas a la vez
+     * @param esperaMaxima milisegundos que se espera por una conexion libre
+     * @throws PersistenciaException error a controlar
+     */
+    public PoolConexiones(String driver, String url, String usuario, String password, int minimo, int maximo,
+            long esperaMaxima) throws PersistenciaException {
+        this(driver, url, usuario, password, new Properties(), minimo, maximo, esperaMaxima);
+    }
+
+    /**
+     * Constructor con las propiedades con las que el driver abre cada conexion
+     *
+     * @param driver       que se usa para conectar con la base de datos
+     * @param url          de la base de datos o fichero db
+     * @param usuario      con acceso a la base de datos
+     * @param password     del usuario de la base de datos
+     * @param propiedades  de conexion que se pasan al driver
+     * @param minimo       conexiones que se abren al crear el pool
+     * @param maximo       conexiones que pueden estar prestadas a la vez
+     * @param esperaMaxima milisegundos que se espera por una conexion libre
+     * @throws PersistenciaException error a controlar
+     */
+    public PoolConexiones(String driver, String url, String usuario, String password, Properties propiedades,
+            int minimo, int maximo, long esperaMaxima) throws PersistenciaException {
+        if (minimo < 0 || maximo <= 0 || minimo > maximo) {
+            throw new PersistenciaException("Configuracion del pool de conexiones incorrecta: minimo " + minimo
+                    + ", maximo " + maximo);
+        }
+        this.driver = driver;
+        this.url = url;
+        this.usuario = usuario;
+        this.password = password;
+        this.propiedades = propiedades;
+        this.minimo = minimo;
+        this.maximo = maximo;
+        this.esperaMaxima = esperaMaxima;
+        permisos = new Semaphore(maximo, true);
+        libres = new LinkedBlockingDeque<>();
+        abiertas = new AtomicInteger();
+        peticiones = new AtomicLong();
+        reutilizadas = new AtomicLong();
+        creadas = new AtomicLong();
+        descartadas = new AtomicLong();
+        esperasAgotadas = new AtomicLong();
+
+        try {
+            Class.forName(driver);
+        } catch (ClassNotFoundException e) {
+            throw new PersistenciaException("No se encuentra el driver de la base de datos " + driver, e);
+        }
+        for (int i = 0; i < minimo; i++) {
+            libres.offerLast(abrir());
+        }
+    }
+
+    /**
+     * Funcion que devuelve el pool compartido para una url, creandolo la primera
+     * vez con la configuracion de las propiedades del sistema. Si ya existe con
+     * otra configuracion se lanza un error en lugar de devolverlo
+     *
+     * @param driver   que se usa para conectar con la base de datos
+     * @param url      de la base de datos o fichero db
+     * @param usuario  con acceso a la base de datos
+     * @param password del usuario de la base de datos
+     * @return el pool de la url
+     * @throws PersistenciaException error a controlar
+     */
+    public static PoolConexiones obtener(String driver, String url, String usuario, String password)
+            throws PersistenciaException {
+        return obtener(driver, url, usuario, password, new Properties());
+    }
+
+    /**
+     * Funcion que devuelve el pool de lectura compartido para una url, creandolo
+     * la primera vez con la configuracion de las propiedades del sistema
+     *
+     * @param driver      que se usa para conectar con la base de datos
+     * @param url         de la base de datos o fichero db
+     * @param usuario     con acceso a la base de datos
+     * @param password    del usuario de la base de datos
+     * @param propiedades de conexion que se pasan al driver
+     * @return el pool de la url
+     * @throws PersistenciaException error a controlar
+     */
+    public static PoolConexiones obtener(String driver, String url, String usuario, String password,
+            Properties propiedades) throws PersistenciaException {
+        int maximo = Integer.getInteger(PROPIEDAD_MAXIMO, MAXIMO_POR_DEFECTO);
+        return obtener(url, driver, url, usuario, password, propiedades,
+                Math.min(Integer.getInteger(PROPIEDAD_MINIMO, MINIMO_POR_DEFECTO), maximo), maximo);
+    }
+
+    /**
+     * Funcion que devuelve el pool de escritura compartido para una url: una
+     * sola conexion, porque la base de datos solo admite un escritor a la vez
+     *
+     * @param driver      que se usa para conectar con la base de datos
+     * @param url         de la base de datos o fichero db
+     * @param usuario     con acceso a la base de datos
+     * @param password    del usuario de la base de datos
+     * @param propiedades de conexion que se pasan al driver
+     * @return el pool de escritura de la url
+     * @throws PersistenciaException error a controlar
+     */
+    public static PoolConexiones obtenerEscritura(String driver, String url, String usuario, String password,
+            Properties propiedades) throws PersistenciaException {
+        return obtener(url + SUFIJO_ESCRITURA, driver, url, usuario, password, propiedades, 1, 1);
+    }
+
+    /**
+     * Funcion que devuelve el pool guardado con una clave, creandolo la primera
+     * vez. Pedirlo despues con otra configuracion es un error, porque el pool
+     * ya creado no la aplicaria
+     *
+     * @param clave       con la que se comparte el pool
+     * @param driver      que se usa para conectar con la base de datos
+     * @param url         de la base de datos o fichero db
+     * @param usuario     con acceso a la base de datos
+     * @param password    del usuario de la base de datos
+     * @param propiedades de conexion que se pasan al driver
+     * @param minimo      conexiones que se abren al crear el pool
+     * @param maximo      conexiones que pueden estar prestadas a la vez
+     * @return el pool de la clave
+     * @throws PersistenciaException si no se puede crear o ya existe con otra
+     *                               configuracion
+     */
+    private static PoolConexiones obtener(String clave, String driver, String url, String usuario,
+            String password, Properties propiedades, int minimo, int maximo) throws PersistenciaException {
+        long esperaMaxima = Long.getLong(PROPIEDAD_ESPERA, ESPERA_POR_DEFECTO);
+        PoolConexiones pool = POOLS.get(clave);
+        if (pool == null) {
+            synchronized (POOLS) {
+                pool = POOLS.get(clave);
+                if (pool == null) {
+                    pool = new PoolConexiones(driver, url, usuario, password, propiedades, minimo, maximo,
+                            esperaMaxima);
+                    POOLS.put(clave, pool);
+                    return pool;
+                }
+            }
+        }
+        if (!pool.configuradoCon(driver, usuario, password, propiedades, minimo, maximo, esperaMaxima)) {
+            throw new PersistenciaException("El pool de " + url + " ya existe con otra configuracion: minimo "
+                    + pool.minimo + ", maximo " + pool.maximo + ", espera " + pool.esperaMaxima + " ms");
+        }
+        return pool;
+    }
+
+    /**
+     * Funcion que indica si el pool se creo con esta configuracion
+     *
+     * @param driver       que se usa para conectar con la base de datos
+     * @param usuario      con acceso a la base de datos
+     * @param password     del usuario de la base de datos
+     * @param propiedades  de conexion que se pasan al driver
+     * @param minimo       conexiones que se abren al crear el pool
+     * @param maximo       conexiones que pueden estar prestadas a la vez
+     * @param esperaMaxima milisegundos que se espera por una conexion libre
+     * @return verdadero/falso
+     */
+    private boolean configuradoCon(String driver, String usuario, String password, Properties propiedades,
+            int minimo, int maximo, long esperaMaxima) {
+        return this.driver.equals(driver) && Objects.equals(this.usuario, usuario)
+                && Objects.equals(this.password, password) && this.propiedades.equals(propiedades)
+                && this.minimo == minimo && this.maximo == maximo && this.esperaMaxima == esperaMaxima;
+    }
+
+    /**
+     * Metodo que cierra las conexiones libres de todos los pools compartidos
+     */
+    public static void cerrarTodos() {
+        synchronized (POOLS) {
+            for (PoolConexiones pool : POOLS.values()) {
+                pool.cerrar();
+            }
+        }
+    }
+
+    /**
+     * Funcion que presta una conexion del pool. Al cerrarla vuelve al pool en
+     * lugar de cerrarse
+     *
+     * @return la conexion prestada
+     * @throws PersistenciaException si no hay conexiones libres en el tiempo de
+     *                               espera
+     */
+    public Connection getConnection() throws PersistenciaException {
+        Connection fisica = null;
+        peticiones.incrementAndGet();
+        try {
+            if (!permisos.tryAcquire(esperaMaxima, TimeUnit.MILLISECONDS)) {
+                esperasAgotadas.incrementAndGet();
+                throw new PersistenciaException("No hay conexiones libres en el pool tras " + esperaMaxima + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PersistenciaException("Interrumpido esperando una conexion del pool", e);
+        }
+
+        try {
+            while (fisica == null && (fisica = libres.pollFirst()) != null) {
+                if (valida(fisica)) {
+                    reutilizadas.incrementAndGet();
+                } else {
+                    descartar(fisica);
+                    fisica = null;
+                }
+            }
+            if (fisica == null) {
+                fisica = abrir();
+            }
+        } catch (PersistenciaException e) {
+            permisos.release();
+            throw e;
+        }
+
+        return envolver(fisica);
+    }
+
+    /**
+     * Funcion que comprueba que una conexion libre sigue siendo utilizable
+     *
+     * @param fisica conexion a validar
+     * @return verdadero/falso
+     */
+    private boolean valida(Connection fisica) {
+        try {
+            return !fisica.isClosed() && fisica.isValid(SEGUNDOS_VALIDACION);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Funcion que abre una nueva conexion fisica con la base de datos
+     *
+     * @return la conexion abierta
+     * @throws PersistenciaException error a controlar
+     */
+    private Connection abrir() throws PersistenciaException {
+        Connection connection;
+        Properties conexion = new Properties();
+        conexion.putAll(propiedades);
+        if (usuario != null && password != null) {
+            conexion.setProperty("user", usuario);
+            conexion.setProperty("password", password);
+        }
+        try {
+            connection = DriverManager.getConnection(url, conexion);
+        } catch (SQLException e) {
+            throw new PersistenciaException("Se ha producido un error al conectar a la base de datos ", e);
+        }
+        abiertas.incrementAndGet();
+        creadas.incrementAndGet();
+        return connection;
+    }
+
+    /**
+     * Metodo que cierra una conexion fisica que ya no se puede reutilizar
+     *
+     * @param fisica conexion a cerrar
+     */
+    private void descartar(Connection fisica) {
+        descartadas.incrementAndGet();
+        abiertas.decrementAndGet();
+        try {
+            fisica.close();
+        } catch (SQLException e) {
+            // La conexion ya no es utilizable, no hay nada mas que hacer
+        }
+    }
+
+    /**
+     * Metodo que devuelve una conexion fisica al pool dejandola en estado limpio
+     *
+     * @param fisica conexion a devolver
+     */
+    private void devolver(Connection fisica) {
+        try {
+            if (!fisica.getAutoCommit()) {
+                fisica.rollback();
+                fisica.setAutoCommit(true);
+            }
+            if (libres.size() < maximo) {
+                libres.offerFirst(fisica);
+            } else {
+                descartar(fisica);
+            }
+        } catch (SQLException e) {
+            descartar(fisica);
+        } finally {
+            permisos.release();
+        }
+    }
+
+    /**
+     * Funcion que envuelve una conexion fisica para que close() la devuelva al
+     * pool
+     *
+     * @param fisica conexion real
+     * @return la conexion prestada
+     */
+    private Connection envolver(Connection fisica) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, new ConexionPrestada(fisica));
+    }
+
+    /**
+     * Metodo que cierra todas las conexiones libres del pool
+     */
+    public void cerrar() {
+        Connection fisica;
+        while ((fisica = libres.pollFirst()) != null) {
+            descartar(fisica);
+        }
+    }
+
+    /**
+     * Funcion que devuelve una foto de las estadisticas actuales del pool
+     *
+     * @return las estadisticas
+     */
+    public Estadisticas getEstadisticas() {
+        int libresActuales = libres.size();
+        return new Estadisticas(minimo, maximo, abiertas.get(), maximo - permisos.availablePermits(),
+                libresActuales, peticiones.get(), reutilizadas.get(), creadas.get(), descartadas.get(),
+                esperasAgotadas.get());
+    }
+
+    /**
+     * Manejador de la conexion prestada: el close() la devuelve al pool y el
+     * resto de metodos se delegan en la conexion real
+     */
+    private class ConexionPrestada implements InvocationHandler {
+        private Connection fisica;
+        private boolean cerrada;
+
+        ConexionPrestada(Connection fisica) {
+            this.fisica = fisica;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String nombre = method.getName();
+            if ("close".equals(nombre)) {
+                synchronized (this) {
+                    if (!cerrada) {
+                        cerrada = true;
+                        devolver(fisica);
+                    }
+                }
+                return null;
+            }
+            if ("isClosed".equals(nombre)) {
+                return cerrada || fisica.isClosed();
+            }
+            if ("equals".equals(nombre)) {
+                return proxy == args[0];
+            }
+            if ("hashCode".equals(nombre)) {
+                return System.identityHashCode(proxy);
+            }
+            if ("toString".equals(nombre)) {
+                return "ConexionPrestada[" + fisica + "]";
+            }
+            if (cerrada) {
+                throw new SQLException("La conexion ya ha sido devuelta al pool");
+            }
+            try {
+                return method.invoke(fisica, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * Foto inmutable del estado del pool
+     */
+    public static class Estadisticas {
+        private int minimo;
+        private int maximo;
+        private int abiertas;
+        private int prestadas;
+        private int libres;
+        private long peticiones;
+        private long reutilizadas;
+        private long creadas;
+        private long descartadas;
+        private long esperasAgotadas;
+
+        Estadisticas(int minimo, int maximo, int abiertas, int prestadas, int libres, long peticiones,
+                long reutilizadas, long creadas, long descartadas, long esperasAgotadas) {
+            this.minimo = minimo;
+            this.maximo = maximo;
+            this.abiertas = abiertas;
+            this.prestadas = prestadas;
+            this.libres = libres;
+            this.peticiones = peticiones;
+            this.reutilizadas = reutilizadas;
+            this.creadas = creadas;
+            this.descartadas = descartadas;
+            this.esperasAgotadas = esperasAgotadas;
+        }
+
+        public int getMinimo() {
+            return this.minimo;
+        }
+
+        public int getMaximo() {
+            return this.maximo;
+        }
+
+        public int getAbiertas() {
+            return this.abiertas;
+        }
+
+        public int getPrestadas() {
+            return this.prestadas;
+        }
+
+        public int getLibres() {
+            return this.libres;
+        }
+
+        public long getPeticiones() {
+            return this.peticiones;
+        }
+
+        public long getReutilizadas() {
+            return this.reutilizadas;
+        }
+
+        public long getCreadas() {
+            return this.creadas;
+        }
+
+        public long getDescartadas() {
+            return this.descartadas;
+        }
+
+        public long getEsperasAgotadas() {
+            return this.esperasAgotadas;
+        }
+
+        @Override
+        public String toString() {
+            return "Abiertas: " + getAbiertas() + " | Prestadas: " + getPrestadas() + " | Libres: " + getLibres()
+                    + " | Peticiones: " + getPeticiones() + " | Reutilizadas: " + getReutilizadas()
+                    + " | Creadas: " + getCreadas() + " | Descartadas: " + getDescartadas()
+                    + " | Esperas agotadas: " + getEsperasAgotadas();
+        }
+    }
+}
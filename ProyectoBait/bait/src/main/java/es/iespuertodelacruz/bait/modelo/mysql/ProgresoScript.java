@@ -0,0 +1,18 @@
+package es.iespuertodelacruz.bait.modelo.mysql;
+
+@FunctionalInterface
+public interface ProgresoScript {
+    ProgresoScript NINGUNO = (script, sentencias, bytesLeidos, bytesTotales) -> {
+    };
+
+    /**
+     * Metodo al que se avisa cada vez que se ejecuta un lote de sentencias de
+     * un script
+     * 
+     * @param script       nombre del fichero que se esta ejecutando
+     * @param sentencias   ejecutadas hasta ahora
+     * @param bytesLeidos  del fichero hasta ahora
+     * @param bytesTotales tamaño del fichero
+     */
+    void avance(String script, int sentencias, long bytesLeidos, long bytesTotales);
+}
@@ -0,0 +1,90 @@
+package es.iespuertodelacruz.bait.modelo.mysql;
+
+import java.util.ArrayList;
+
+/**
+ * Resultado de una actualizacion por lotes: cuantas filas han ido bien y que
+ * elementos han fallado y por que
+ */
+public class ResultadoLote<T> {
+    private int correctos;
+    private ArrayList<Fallo<T>> fallos;
+
+    /**
+     * Constructor basico de la clase
+     */
+    public ResultadoLote() {
+        fallos = new ArrayList<>();
+    }
+
+    /**
+     * Metodo que anota un elemento guardado correctamente
+     */
+    void correcto() {
+        correctos++;
+    }
+
+    /**
+     * Metodo que anota un elemento que no se ha podido guardar
+     * 
+     * @param elemento que ha fallado
+     * @param motivo   del fallo
+     */
+    void fallo(T elemento, String motivo) {
+        fallos.add(new Fallo<>(elemento, motivo));
+    }
+
+    public int getCorrectos() {
+        return correctos;
+    }
+
+    public ArrayList<Fallo<T>> getFallos() {
+        return fallos;
+    }
+
+    /**
+     * Funcion que indica si todos los elementos se han guardado
+     * 
+     * @return verdadero/falso
+     */
+    public boolean esCorrecto() {
+        return fallos.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return correctos + " correctos, " + fallos.size() + " fallidos";
+    }
+
+    /**
+     * Elemento que no se ha podido guardar con el motivo
+     */
+    public static class Fallo<T> {
+        private T elemento;
+        private String motivo;
+
+        /**
+         * Constructor con el elemento y el motivo
+         * 
+         * @param elemento que ha fallado
+         * @param motivo   del fallo
+         */
+        public Fallo(T elemento, String motivo) {
+            this.elemento = elemento;
+            this.motivo = motivo;
+        }
+
+        public T getElemento() {
+            return elemento;
+        }
+
+        public String getMotivo() {
+            return motivo;
+        }
+
+        @Override
+        public String toString() {
+            return elemento + ": " + motivo;
+        }
+    }
+}
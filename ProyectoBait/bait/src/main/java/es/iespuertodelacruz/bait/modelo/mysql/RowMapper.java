@@ -0,0 +1,17 @@
+package es.iespuertodelacruz.bait.modelo.mysql;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+@FunctionalInterface
+public interface RowMapper<T> {
+
+    /**
+     * Funcion que convierte la fila actual del ResultSet en un objeto
+     * 
+     * @param resultSet posicionado en la fila a convertir
+     * @return el objeto construido con la fila
+     * @throws SQLException error al leer la fila
+     */
+    T mapear(ResultSet resultSet) throws SQLException;
+}
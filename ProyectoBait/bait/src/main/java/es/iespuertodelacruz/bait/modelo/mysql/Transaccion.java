@@ -0,0 +1,82 @@
+package es.iespuertodelacruz.bait.modelo.mysql;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+
+/**
+ * Conexion abierta por Bbdd.ejecutarEnTransaccion que comparten todas las
+ * operaciones de una unidad de trabajo. Quien la recibe no debe cerrarla ni
+ * confirmarla
+ */
+public class Transaccion {
+    private Connection connection;
+    private MapaIdentidad mapa;
+    private ArrayList<Runnable> alConfirmar;
+
+    /**
+     * Constructor con la conexion de la transaccion
+     * 
+     * @param connection con el autocommit desactivado
+     * @param mapa       de identidad del hilo que pidio la escritura, o null
+     */
+    Transaccion(Connection connection, MapaIdentidad mapa) {
+        this.connection = connection;
+        this.mapa = mapa;
+        alConfirmar = new ArrayList<>();
+    }
+
+    /**
+     * Funcion que devuelve la conexion de la transaccion
+     * 
+     * @return Connection
+     */
+    public Connection getConnection() {
+        return connection;
+    }
+
+    /**
+     * Metodo que registra una accion que solo se ejecuta si la transaccion se
+     * confirma, por ejemplo actualizar la copia en memoria de lo modificado
+     * 
+     * @param accion que se ejecuta tras el commit
+     */
+    public void despuesDeConfirmar(Runnable accion) {
+        alConfirmar.add(accion);
+    }
+
+    /**
+     * Metodo que quita una entidad modificada del mapa de identidad de quien
+     * pidio la escritura, una vez confirmada. La transaccion corre en el hilo
+     * del escritor, asi que MapaIdentidad.olvidar no llegaria a ese mapa
+     * 
+     * @param tipo clase de la entidad
+     * @param id   identificador de la entidad
+     */
+    public void olvidar(Class<?> tipo, String id) {
+        if (mapa != null) {
+            despuesDeConfirmar(() -> mapa.encolarOlvido(tipo, id));
+        }
+    }
+
+    /**
+     * Metodo que quita todas las entidades de un tipo del mapa de identidad de
+     * quien pidio la escritura, una vez confirmada
+     * 
+     * @param tipo clase de las entidades
+     */
+    public void olvidarTodas(Class<?> tipo) {
+        if (mapa != null) {
+            despuesDeConfirmar(() -> mapa.encolarOlvido(tipo, null));
+        }
+    }
+
+    /**
+     * Metodo que ejecuta las acciones registradas una vez confirmada la
+     * transaccion
+     */
+    void confirmada() {
+        for (Runnable accion : alConfirmar) {
+            accion.run();
+        }
+    }
+}
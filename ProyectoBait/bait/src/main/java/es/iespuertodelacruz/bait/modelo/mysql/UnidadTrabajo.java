@@ -0,0 +1,19 @@
+package es.iespuertodelacruz.bait.modelo.mysql;
+
+import es.iespuertodelacruz.bait.exceptions.PersistenciaException;
+
+@FunctionalInterface
+public interface UnidadTrabajo<T, E extends Exception> {
+
+    /**
+     * Funcion que realiza todas las operaciones de la unidad de trabajo con la
+     * transaccion recibida
+     * 
+     * @param transaccion en la que se ejecutan las operaciones
+     * @return el resultado de la unidad de trabajo
+     * @throws PersistenciaException error a controlar
+     * @throws E                     error propio de la unidad de trabajo, que
+     *                               tambien deshace la transaccion
+     */
+    T ejecutar(Transaccion transaccion) throws PersistenciaException, E;
+}
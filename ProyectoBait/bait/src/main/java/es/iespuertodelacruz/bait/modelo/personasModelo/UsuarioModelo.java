@@ -1,14 +1,20 @@
 package es.iespuertodelacruz.bait.modelo.personasModelo;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.stream.Stream;
 
 import es.iespuertodelacruz.bait.api.personas.Usuario;
 import es.iespuertodelacruz.bait.exceptions.PersistenciaException;
 import es.iespuertodelacruz.bait.modelo.mysql.BbddSqlite;
+import es.iespuertodelacruz.bait.modelo.mysql.Binder;
+import es.iespuertodelacruz.bait.modelo.mysql.BinderLote;
+import es.iespuertodelacruz.bait.modelo.mysql.MapaIdentidad;
+import es.iespuertodelacruz.bait.modelo.mysql.Pagina;
+import es.iespuertodelacruz.bait.modelo.mysql.Paginador;
+import es.iespuertodelacruz.bait.modelo.mysql.ResultadoLote;
+import es.iespuertodelacruz.bait.modelo.mysql.RowMapper;
+import es.iespuertodelacruz.bait.modelo.mysql.Transaccion;
 import es.iespuertodelacruz.bait.modelo.mysql.UtilidadesSQL;
 
 public class UsuarioModelo {
@@ -16,6 +22,45 @@ public class UsuarioModelo {
     public static final String TABLE_NAME = "USUARIOS";
     private static UtilidadesSQL utilidadesSQL = new UtilidadesSQL(TABLE_NAME, "dni, nombre, apellidos, email, direccion"
     + ", telefono, pais, codigoPostal, provincia, nombreUsuario, password, rol, saldo");
+    private static final BinderLote<Usuario> INSERTAR = (preparedStatement, usuario) -> {
+        preparedStatement.setString(1, usuario.getDni());
+        preparedStatement.setString(2, usuario.getNombre());
+        preparedStatement.setString(3, usuario.getApellidos());
+        preparedStatement.setString(4, usuario.getEmail());
+        preparedStatement.setString(5, usuario.getDireccion());
+        preparedStatement.setString(6, usuario.getTelefono());
+        preparedStatement.setString(7, usuario.getPais());
+        preparedStatement.setString(8, usuario.getCodigoPostal());
+        preparedStatement.setString(9, usuario.getProvincia());
+        preparedStatement.setString(10, usuario.getNombreUsuario());
+        preparedStatement.setString(11, usuario.getPassword());
+        preparedStatement.setString(12, usuario.getRol());
+        preparedStatement.setFloat(13, usuario.getSaldo());
+    };
+    private static final BinderLote<Usuario> MODIFICAR = (preparedStatement, usuario) -> {
+        INSERTAR.enlazar(preparedStatement, usuario);
+        preparedStatement.setString(14, usuario.getDni());
+    };
+    private static final String REDUCIR_SALDO = "UPDATE " + TABLE_NAME 
+        + " SET saldo = saldo - ? WHERE dni = ? AND saldo >= ?";
+    private static final String AUMENTAR_SALDO = "UPDATE " + TABLE_NAME + " SET saldo = saldo + ? WHERE dni = ?";
+    public static final String SELECT_POR_NOMBRE_USUARIO = utilidadesSQL.setSelectOne("nombreUsuario");
+    private static final String SELECT_SALDO = "SELECT saldo FROM " + TABLE_NAME + " WHERE dni = ?";
+    /**
+     * Columnas del usuario (alias u) para reutilizarlas en otros JOIN
+     */
+    public static final String COLUMNAS = "u.dni, u.nombre, u.apellidos, u.email, u.direccion, u.telefono, u.pais, "
+        + "u.codigoPostal, u.provincia, u.nombreUsuario, u.password, u.rol, u.saldo";
+    /**
+     * Convierte una fila con las COLUMNAS en el usuario
+     */
+    public static final RowMapper<Usuario> MAPPER = resultSet -> new Usuario(resultSet.getString("dni"), 
+        resultSet.getString("nombre"), resultSet.getString("apellidos"), resultSet.getString("email"), 
+        resultSet.getString("direccion"), resultSet.getString("telefono"), resultSet.getString("pais"), 
+        resultSet.getString("codigoPostal"), resultSet.getString("provincia"), resultSet.getString("nombreUsuario"), 
+        resultSet.getString("password"), resultSet.getString("rol"), resultSet.getFloat("saldo"));
+    private static final Paginador<Usuario> PAGINADOR = new Paginador<>(utilidadesSQL.getSELECTALL(), "dni",
+        () -> MAPPER, Usuario::getDni);
 
     /**
      * Constructor basico de la clase
@@ -31,32 +76,12 @@ public class UsuarioModelo {
      * @throws PersistenciaException error a controlar
      */
     public void insertar(Usuario usuario) throws PersistenciaException {
-        Connection connection = null;
-        PreparedStatement preparedStatement = null;
-
         try {
-            connection = persistencia.getConnection();
-            preparedStatement = connection.prepareStatement(utilidadesSQL.getINSERT());
-            preparedStatement.setString(1, usuario.getDni());
-            preparedStatement.setString(2, usuario.getNombre());
-            preparedStatement.setString(3, usuario.getApellidos());
-            preparedStatement.setString(4, usuario.getEmail());
-            preparedStatement.setString(5, usuario.getDireccion());
-            preparedStatement.setString(6, usuario.getTelefono());
-            preparedStatement.setString(7, usuario.getPais());
-            preparedStatement.setString(8, usuario.getCodigoPostal());
-            preparedStatement.setString(9, usuario.getProvincia());
-            preparedStatement.setString(10, usuario.getNombreUsuario());
-            preparedStatement.setString(11, usuario.getPassword());
-            preparedStatement.setString(12, usuario.getRol());
-            preparedStatement.setFloat(13, usuario.getSaldo());
-            
-            preparedStatement.execute();
-        } catch (Exception e) {
+            persistencia.actualizar(utilidadesSQL.getINSERT(), INSERTAR.para(usuario));
+        } catch (PersistenciaException e) {
             throw new PersistenciaException("Ha ocurrido un error al insertar un usuario", e);
-        }finally{
-            persistencia.closeConnection(connection, preparedStatement, null);
         }
+        MapaIdentidad.olvidar(Usuario.class, usuario.getDni());
     }
 
     /**
@@ -65,69 +90,45 @@ public class UsuarioModelo {
      * @throws PersistenciaException error a controlar
      */
     public void eliminar(String dni) throws PersistenciaException {
-        Connection connection = null;
-        PreparedStatement preparedStatement = null;
-
         try {
-            connection = persistencia.getConnection();
-            preparedStatement = connection.prepareStatement(utilidadesSQL.setDelete("dni"));
-            preparedStatement.setString(1, dni);
-
-            preparedStatement.executeUpdate();
-        } catch (SQLException e) {
+            persistencia.actualizar(utilidadesSQL.setDelete("dni"), preparedStatement -> {
+                preparedStatement.setString(1, dni);
+            });
+        } catch (PersistenciaException e) {
             throw new PersistenciaException("Ha ocurrido un error al eliminar un usuario", e);
-        }finally{
-            persistencia.closeConnection(connection, preparedStatement, null);
         }
+        MapaIdentidad.olvidar(Usuario.class, dni);
     }
 
     /**
      * Funcion que realiza un consulta y devuelve una lista de usuario
      * @param sql consulta que se va a realizar
-     * @param valor del campo patron
+     * @param valores de los campos patron
      * @return una lista de usuario 
      * @throws PersistenciaException error a controlar
      */
-    private ArrayList<Usuario> buscarPorElemento(String sql, String valor) throws PersistenciaException{
-        ResultSet resultSet;
-        ArrayList<Usuario> lista = new ArrayList<>();
-
-        resultSet = persistencia.buscarElemento(sql, valor);
-
-        try {
-            while (resultSet.next()){
-                String dni = resultSet.getString("dni");
-                String nombre = resultSet.getString("nombre");
-                String apellidos = resultSet.getString("apellidos");
-                String email = resultSet.getString("email");
-                String direccion = resultSet.getString("direccion");
-                String telefono = resultSet.getString("telefono");
-                String pais = resultSet.getString("pais");
-                String codigoPostal = resultSet.getString("codigoPostal");
-                String provincia = resultSet.getString("provincia");
-                String nombreUsuario = resultSet.getString("nombreUsuario");
-                String password = resultSet.getString("password");
-                String rol = resultSet.getString("rol");
-                float saldo = resultSet.getFloat("saldo");
-
-                Usuario usuario = new Usuario(dni, nombre, apellidos, email, direccion, telefono, pais, codigoPostal, provincia, nombreUsuario, password, rol, saldo);
-                lista.add(usuario);
-            }
-        } catch (SQLException e) {
-            throw new PersistenciaException(e.getMessage());
-        }
-
-        return lista;
-
+    private ArrayList<Usuario> buscarPorElemento(String sql, Object... valores) throws PersistenciaException{
+        return persistencia.consultar(sql, Binder.valores(valores), MAPPER);
     }
 
     /**
-     * Funcion que busca un usuario por su dni
+     * Funcion que busca un usuario por su dni. Dentro de una peticion se lee
+     * una sola vez gracias al mapa de identidad
      * @param dni de la persona que se va abuscar
      * @return el usuario encontrado
      * @throws PersistenciaException error a controlar
      */
     public Usuario buscaPorDni(String dni) throws PersistenciaException {
+        return MapaIdentidad.buscar(Usuario.class, dni, this::leerPorDni);
+    }
+
+    /**
+     * Funcion que lee un usuario por su dni de la base de datos
+     * @param dni de la persona que se va abuscar
+     * @return el usuario encontrado
+     * @throws PersistenciaException error a controlar
+     */
+    private Usuario leerPorDni(String dni) throws PersistenciaException {
         ArrayList<Usuario> lista;
         Usuario usuario = null;
         String sql = utilidadesSQL.setSelectOne("dni");
@@ -149,11 +150,10 @@ public class UsuarioModelo {
     public Usuario buscaPorNombreUsuario(String nombreUsuario) throws PersistenciaException {
         ArrayList<Usuario> lista;
         Usuario usuario = null;
-        String sql = utilidadesSQL.setSelectOne("nombreUsuario");
-        lista = buscarPorElemento(sql, nombreUsuario); 
+        lista = buscarPorElemento(SELECT_POR_NOMBRE_USUARIO, nombreUsuario); 
 
         if (!lista.isEmpty()) {
-            usuario = lista.get(0);
+            usuario = MapaIdentidad.registrar(Usuario.class, lista.get(0).getDni(), lista.get(0));
         }
 
         return usuario;
@@ -168,10 +168,33 @@ public class UsuarioModelo {
         ArrayList<Usuario> lista;
         String sql = utilidadesSQL.getSELECTALL();
 
-        lista = buscarPorElemento(sql, "");
+        lista = buscarPorElemento(sql);
 
         return lista;
     }
+
+    /**
+     * Funcion que devuelve los usuarios como un Stream perezoso que va leyendo las
+     * filas segun se recorre, sin cargarlas todas en memoria. La conexion queda
+     * abierta hasta que se cierra, asi que debe usarse en un try-with-resources
+     * @return el Stream de usuarios
+     * @throws PersistenciaException error a controlar
+    */
+    public Stream<Usuario> streamListado() throws PersistenciaException {
+        return persistencia.consultarStream(utilidadesSQL.getSELECTALL(), Binder.NINGUNO, MAPPER);
+    }
+
+    /**
+     * Funcion que obtiene una pagina del listado de usuarios, ordenado por su
+     * identificador
+     * @param token de la pagina, null para la primera
+     * @param tamanio numero maximo de usuarios de la pagina
+     * @return la pagina de usuarios
+     * @throws PersistenciaException error a controlar
+    */
+    public Pagina<Usuario> obtenerPagina(String token, int tamanio) throws PersistenciaException {
+        return PAGINADOR.obtener(persistencia, token, tamanio, "");
+    }
     
     /**
      * Metodo que modifica un usuario en la base datos
@@ -179,32 +202,108 @@ public class UsuarioModelo {
      * @throws PersistenciaException error a controlar
      */
     public void modificar(Usuario usuario) throws PersistenciaException {
-        Connection connection = null;
-        PreparedStatement preparedStatement = null;
-
         try {
-            connection = persistencia.getConnection();
-            preparedStatement = connection.prepareStatement(utilidadesSQL.setUpdate());
-            preparedStatement.setString(1, usuario.getDni());
-            preparedStatement.setString(2, usuario.getNombre());
-            preparedStatement.setString(3, usuario.getApellidos());
-            preparedStatement.setString(4, usuario.getEmail());
-            preparedStatement.setString(5, usuario.getDireccion());
-            preparedStatement.setString(6, usuario.getTelefono());
-            preparedStatement.setString(7, usuario.getPais());
-            preparedStatement.setString(8, usuario.getCodigoPostal());
-            preparedStatement.setString(9, usuario.getProvincia());
-            preparedStatement.setString(10, usuario.getNombreUsuario());
-            preparedStatement.setString(11, usuario.getPassword());
-            preparedStatement.setString(12, usuario.getRol());
-            preparedStatement.setFloat(13, usuario.getSaldo());
-            preparedStatement.setString(14, usuario.getDni());
-
-            preparedStatement.executeUpdate();
-        } catch (SQLException e) {
+            persistencia.actualizar(utilidadesSQL.setUpdate(), MODIFICAR.para(usuario));
+        } catch (PersistenciaException e) {
             throw new PersistenciaException("Ha ocurrido un error al modificar un usuario", e);
-        }finally{
-            persistencia.closeConnection(connection, preparedStatement, null);
+        }
+        MapaIdentidad.olvidar(Usuario.class, usuario.getDni());
+    }
+
+    /**
+     * Funcion que descuenta saldo en la base de datos solo si el usuario tiene
+     * suficiente, sin depender de la copia que tenga la sesion
+     * @param dni del usuario
+     * @param cantidad que se descuenta
+     * @return el nuevo saldo, o null si no tiene saldo suficiente o no existe
+     * @throws PersistenciaException error a controlar
+     */
+    public Float reducirSaldo(String dni, float cantidad) throws PersistenciaException {
+        return persistencia.ejecutarEnTransaccion(transaccion -> reducirSaldo(dni, cantidad, transaccion));
+    }
+
+    /**
+     * Funcion que descuenta saldo dentro de una transaccion abierta
+     * @param dni del usuario
+     * @param cantidad que se descuenta
+     * @param transaccion en la que se descuenta
+     * @return el nuevo saldo, o null si no tiene saldo suficiente o no existe
+     * @throws PersistenciaException error a controlar
+     */
+    public Float reducirSaldo(String dni, float cantidad, Transaccion transaccion) throws PersistenciaException {
+        return actualizarSaldo(transaccion, REDUCIR_SALDO, dni, cantidad, dni, cantidad);
+    }
+
+    /**
+     * Funcion que suma saldo en la base de datos sin depender de la copia que
+     * tenga la sesion
+     * @param dni del usuario
+     * @param cantidad que se añade
+     * @return el nuevo saldo, o null si no existe el usuario
+     * @throws PersistenciaException error a controlar
+     */
+    public Float añadirSaldo(String dni, float cantidad) throws PersistenciaException {
+        return persistencia.ejecutarEnTransaccion(
+            transaccion -> actualizarSaldo(transaccion, AUMENTAR_SALDO, dni, cantidad, dni));
+    }
+
+    /**
+     * Funcion que actualiza el saldo y lee el resultado en la misma transaccion,
+     * de modo que el saldo devuelto es el que ha dejado esta actualizacion
+     * @param transaccion en la que se actualiza
+     * @param sql actualizacion del saldo
+     * @param dni del usuario
+     * @param valores de los parametros de la actualizacion
+     * @return el nuevo saldo, o null si la actualizacion no afecta a ninguna fila
+     * @throws PersistenciaException error a controlar
+     */
+    private Float actualizarSaldo(Transaccion transaccion, String sql, String dni, Object... valores) 
+        throws PersistenciaException {
+        ArrayList<Float> saldos;
+
+        try {
+            if (persistencia.actualizar(transaccion, sql, Binder.valores(valores)) == 0) {
+                return null;
+            }
+            transaccion.olvidar(Usuario.class, dni);
+        } catch (PersistenciaException e) {
+            throw new PersistenciaException("Ha ocurrido un error al actualizar el saldo de un usuario", e);
+        }
+
+        saldos = persistencia.consultar(transaccion, SELECT_SALDO, Binder.valores(dni), 
+            resultSet -> resultSet.getFloat("saldo"));
+        return saldos.isEmpty() ? null : saldos.get(0);
+    }
+
+    /**
+     * Funcion que inserta los usuarios en una sola transaccion, reutilizando la
+     * sentencia con executeBatch
+     * @param usuarios que se van a insertar en la base de datos
+     * @return el resultado con los usuarios que no se han podido insertar
+     * @throws PersistenciaException error a controlar
+     */
+    public ResultadoLote<Usuario> insertarLote(Collection<Usuario> usuarios) throws PersistenciaException {
+        try {
+            MapaIdentidad.olvidarTodas(Usuario.class);
+            return persistencia.actualizarLote(utilidadesSQL.getINSERT(), usuarios, INSERTAR);
+        } catch (PersistenciaException e) {
+            throw new PersistenciaException("Ha ocurrido un error al insertar los usuarios", e);
+        }
+    }
+
+    /**
+     * Funcion que modifica los usuarios en una sola transaccion, reutilizando la
+     * sentencia con executeBatch
+     * @param usuarios que se van a modificar
+     * @return el resultado con los usuarios que no se han podido modificar
+     * @throws PersistenciaException error a controlar
+     */
+    public ResultadoLote<Usuario> modificarLote(Collection<Usuario> usuarios) throws PersistenciaException {
+        try {
+            MapaIdentidad.olvidarTodas(Usuario.class);
+            return persistencia.actualizarLote(utilidadesSQL.setUpdate(), usuarios, MODIFICAR);
+        } catch (PersistenciaException e) {
+            throw new PersistenciaException("Ha ocurrido un error al modificar los usuarios", e);
         }
     }
 
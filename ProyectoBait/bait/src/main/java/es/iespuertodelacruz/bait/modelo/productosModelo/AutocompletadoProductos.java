@@ -0,0 +1,152 @@
+package es.iespuertodelacruz.bait.modelo.productosModelo;
+
+import java.util.ArrayList;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import es.iespuertodelacruz.bait.api.productos.Producto;
+import es.iespuertodelacruz.bait.exceptions.PersistenciaException;
+import es.iespuertodelacruz.bait.modelo.busqueda.Sugerencia;
+import es.iespuertodelacruz.bait.modelo.busqueda.TrieSugerencias;
+
+/**
+ * Nombres de los productos en un trie compacto para autocompletar el
+ * buscador, ordenados por unidades vendidas. Se carga la primera vez que se
+ * usa y despues se mantiene con los avisos de ProductoModelo: las ventas
+ * llegan con cada pedido, asi que solo se vuelve a leer de la base de datos
+ * cuando se invalida
+ */
+public class AutocompletadoProductos implements ObservadorProductos {
+    private static AutocompletadoProductos instancia;
+
+    private ProductoModelo productoModelo;
+    private ReentrantReadWriteLock candado;
+    private TrieSugerencias trie;
+
+    /**
+     * Constructor con el modelo del que se cargan los productos
+     * 
+     * @param productoModelo de la base de datos
+     */
+    AutocompletadoProductos(ProductoModelo productoModelo) {
+        this.productoModelo = productoModelo;
+        candado = new ReentrantReadWriteLock();
+    }
+
+    /**
+     * Funcion que devuelve el autocompletado compartido, registrandolo la
+     * primera vez para que reciba los cambios de los productos
+     * 
+     * @return el autocompletado de productos
+     * @throws PersistenciaException error a controlar
+     */
+    public static synchronized AutocompletadoProductos obtener() throws PersistenciaException {
+        if (instancia == null) {
+            instancia = new AutocompletadoProductos(new ProductoModelo());
+            ProductoModelo.añadirObservador(instancia);
+        }
+        return instancia;
+    }
+
+    /**
+     * Funcion que devuelve los productos mas vendidos con alguna palabra del
+     * nombre que empieza por el prefijo
+     * 
+     * @param prefijo que ha escrito el usuario
+     * @param limite  numero maximo de sugerencias
+     * @return las sugerencias, con el id y el nombre del producto
+     * @throws PersistenciaException si no se puede cargar el trie
+     */
+    public ArrayList<Sugerencia> sugerir(String prefijo, int limite) throws PersistenciaException {
+        TrieSugerencias cargado = cargar();
+        candado.readLock().lock();
+        try {
+            return cargado.buscar(prefijo, limite);
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void guardado(Producto producto) {
+        actualizar(() -> {
+            Sugerencia anterior = trie.get(producto.getIdProducto());
+            int ventas = anterior == null ? 0 : anterior.getPeso();
+            trie.añadir(new Sugerencia(producto.getIdProducto(), producto.getNombre(), ventas));
+        });
+    }
+
+    @Override
+    public void eliminado(String idProducto) {
+        actualizar(() -> trie.quitar(idProducto));
+    }
+
+    @Override
+    public void stockModificado(String idProducto, int stock) {
+        // El stock no cambia las sugerencias
+    }
+
+    @Override
+    public void vendido(String idProducto, int unidades) {
+        actualizar(() -> trie.sumarPeso(idProducto, unidades));
+    }
+
+    @Override
+    public void invalidado() {
+        candado.writeLock().lock();
+        try {
+            trie = null;
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Funcion que carga los nombres y las ventas si el trie no esta cargado.
+     * Devuelve el trie que ha visto o cargado, que sigue siendo valido aunque
+     * despues se invalide
+     * 
+     * @return el trie de sugerencias
+     * @throws PersistenciaException error a controlar
+     */
+    private TrieSugerencias cargar() throws PersistenciaException {
+        candado.readLock().lock();
+        try {
+            if (trie != null) {
+                return trie;
+            }
+        } finally {
+            candado.readLock().unlock();
+        }
+
+        candado.writeLock().lock();
+        try {
+            if (trie == null) {
+                TrieSugerencias nuevo = new TrieSugerencias();
+                for (Sugerencia sugerencia : productoModelo.obtenerSugerencias()) {
+                    nuevo.añadir(sugerencia);
+                }
+                trie = nuevo;
+            }
+            return trie;
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Metodo que aplica un cambio con el candado de escritura, si el trie esta
+     * cargado. Si no, se leera ya con el cambio
+     * 
+     * @param cambio a aplicar
+     */
+    private void actualizar(Runnable cambio) {
+        candado.writeLock().lock();
+        try {
+            if (trie != null) {
+                cambio.run();
+            }
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,382 @@
+package es.iespuertodelacruz.bait.modelo.productosModelo;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import es.iespuertodelacruz.bait.api.productos.Categoria;
+import es.iespuertodelacruz.bait.api.productos.Marca;
+import es.iespuertodelacruz.bait.api.productos.Producto;
+import es.iespuertodelacruz.bait.exceptions.PersistenciaException;
+
+/**
+ * Cache LRU de productos por su identificador delante de la base de datos. Se
+ * limita por el tamaño aproximado en memoria de los productos, y cada entrada
+ * caduca pasado un tiempo aunque nadie la haya invalidado. Los cambios llegan
+ * como observador de ProductoModelo. Si varios hilos piden a la vez un
+ * producto que no esta, solo uno lo lee y los demas esperan su resultado
+ */
+public class CacheProductos implements ObservadorProductos {
+    public static final String PROPIEDAD_BYTES = "bait.cache.productos.bytes";
+    public static final String PROPIEDAD_SEGUNDOS = "bait.cache.productos.segundos";
+    private static final long BYTES_POR_DEFECTO = 1024L * 1024L;
+    private static final long SEGUNDOS_POR_DEFECTO = 30;
+    /**
+     * Lo que ocupa un producto con su categoria y su marca sin contar el texto
+     */
+    private static final int BYTES_FIJOS = 160;
+    private static CacheProductos instancia;
+
+    /**
+     * Lee un producto de la base de datos
+     */
+    @FunctionalInterface
+    public interface Cargador {
+        /**
+         * Funcion que lee un producto
+         *
+         * @param idProducto del producto
+         * @return el producto o null si no existe
+         * @throws PersistenciaException error a controlar
+         */
+        Producto cargar(String idProducto) throws PersistenciaException;
+    }
+
+    /**
+     * Producto guardado con lo que ocupa y cuando caduca
+     */
+    private static class Entrada {
+        private Producto producto;
+        private long peso;
+        private long caduca;
+
+        Entrada(Producto producto, long peso, long caduca) {
+            this.producto = producto;
+            this.peso = peso;
+            this.caduca = caduca;
+        }
+    }
+
+    private Cargador cargador;
+    private long maximoBytes;
+    private long duracion;
+    private LinkedHashMap<String, Entrada> entradas;
+    private long bytes;
+    private ConcurrentHashMap<String, CompletableFuture<Producto>> cargando;
+    private AtomicLong version;
+    private LongAdder aciertos;
+    private LongAdder fallos;
+    private LongAdder expulsiones;
+    private LongAdder caducadas;
+    private LongAdder cargas;
+    private LongAdder nanosCarga;
+
+    /**
+     * Constructor con el limite de memoria y la duracion de las entradas
+     *
+     * @param cargador    que lee los productos que no estan
+     * @param maximoBytes tamaño aproximado maximo de los productos guardados
+     * @param segundos    que dura cada entrada
+     */
+    public CacheProductos(Cargador cargador, long maximoBytes, long segundos) {
+        this.cargador = cargador;
+        this.maximoBytes = maximoBytes;
+        duracion = TimeUnit.SECONDS.toNanos(segundos);
+        entradas = new LinkedHashMap<>(16, 0.75f, true);
+        cargando = new ConcurrentHashMap<>();
+        version = new AtomicLong();
+        aciertos = new LongAdder();
+        fallos = new LongAdder();
+        expulsiones = new LongAdder();
+        caducadas = new LongAdder();
+        cargas = new LongAdder();
+        nanosCarga = new LongAdder();
+    }
+
+    /**
+     * Funcion que devuelve la cache compartida, registrandola la primera vez
+     * para que reciba los cambios de los productos. El tamaño y la duracion se
+     * configuran con las propiedades bait.cache.productos.bytes y
+     * bait.cache.productos.segundos
+     *
+     * @return la cache de productos
+     * @throws PersistenciaException error a controlar
+     */
+    public static synchronized CacheProductos obtener() throws PersistenciaException {
+        if (instancia == null) {
+            ProductoModelo productoModelo = new ProductoModelo();
+            instancia = new CacheProductos(productoModelo::leerPorId,
+                Long.getLong(PROPIEDAD_BYTES, BYTES_POR_DEFECTO), Long.getLong(PROPIEDAD_SEGUNDOS, SEGUNDOS_POR_DEFECTO));
+            ProductoModelo.añadirObservador(instancia);
+        }
+        return instancia;
+    }
+
+    /**
+     * Funcion que busca un producto, leyendolo de la base de datos si no esta
+     * o ha caducado. Los que no existen no se guardan
+     *
+     * @param idProducto del producto
+     * @return una copia del producto o null si no existe
+     * @throws PersistenciaException error a controlar
+     */
+    public Producto buscar(String idProducto) throws PersistenciaException {
+        if (idProducto == null) {
+            return null;
+        }
+        Producto producto = leer(idProducto);
+        if (producto != null) {
+            aciertos.increment();
+            return copiar(producto);
+        }
+        fallos.increment();
+
+        CompletableFuture<Producto> nueva = new CompletableFuture<>();
+        CompletableFuture<Producto> carga = cargando.putIfAbsent(idProducto, nueva);
+        if (carga != null) {
+            return copiar(esperar(carga));
+        }
+
+        long leida = version.get();
+        long inicio = System.nanoTime();
+        try {
+            producto = cargador.cargar(idProducto);
+            cargas.increment();
+            nanosCarga.add(System.nanoTime() - inicio);
+            if (producto != null) {
+                guardar(idProducto, producto, leida);
+            }
+            nueva.complete(producto);
+        } catch (PersistenciaException | RuntimeException e) {
+            nueva.completeExceptionally(e);
+            throw e;
+        } finally {
+            cargando.remove(idProducto, nueva);
+        }
+        return copiar(producto);
+    }
+
+    /**
+     * Funcion que espera la lectura que ha empezado otro hilo
+     *
+     * @param carga en curso
+     * @return el producto leido o null si no existe
+     * @throws PersistenciaException si la lectura ha fallado
+     */
+    private Producto esperar(CompletableFuture<Producto> carga) throws PersistenciaException {
+        try {
+            return carga.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof PersistenciaException) {
+                throw (PersistenciaException) e.getCause();
+            }
+            throw new PersistenciaException("Ha ocurrido un error al leer el producto", e);
+        }
+    }
+
+    /**
+     * Funcion que devuelve el producto guardado si no ha caducado
+     *
+     * @param idProducto del producto
+     * @return el producto o null
+     */
+    private synchronized Producto leer(String idProducto) {
+        Entrada entrada = entradas.get(idProducto);
+        if (entrada == null) {
+            return null;
+        }
+        if (System.nanoTime() - entrada.caduca > 0) {
+            quitar(idProducto);
+            caducadas.increment();
+            return null;
+        }
+        return entrada.producto;
+    }
+
+    /**
+     * Metodo que guarda un producto leido, salvo que se haya invalidado algo
+     * mientras se leia, y expulsa los menos usados hasta caber en el limite
+     *
+     * @param idProducto del producto
+     * @param producto   leido
+     * @param leida      version de la cache cuando empezo la lectura
+     */
+    private synchronized void guardar(String idProducto, Producto producto, long leida) {
+        if (leida != version.get()) {
+            return;
+        }
+        quitar(idProducto);
+        Entrada entrada = new Entrada(producto, peso(producto), System.nanoTime() + duracion);
+        entradas.put(idProducto, entrada);
+        bytes += entrada.peso;
+
+        Iterator<Map.Entry<String, Entrada>> menosUsadas = entradas.entrySet().iterator();
+        while (bytes > maximoBytes && menosUsadas.hasNext()) {
+            bytes -= menosUsadas.next().getValue().peso;
+            menosUsadas.remove();
+            expulsiones.increment();
+        }
+    }
+
+    /**
+     * Metodo que quita una entrada y descuenta lo que ocupa
+     *
+     * @param idProducto del producto
+     */
+    private void quitar(String idProducto) {
+        Entrada entrada = entradas.remove(idProducto);
+        if (entrada != null) {
+            bytes -= entrada.peso;
+        }
+    }
+
+    /**
+     * Metodo que invalida un producto: lo quita y descarta las lecturas en
+     * curso, que podrian traer el valor anterior al cambio
+     *
+     * @param idProducto del producto
+     */
+    public synchronized void invalidar(String idProducto) {
+        version.incrementAndGet();
+        quitar(idProducto);
+        cargando.remove(idProducto);
+    }
+
+    /**
+     * Metodo que vacia la cache
+     */
+    public synchronized void vaciar() {
+        version.incrementAndGet();
+        entradas.clear();
+        bytes = 0;
+        cargando.clear();
+    }
+
+    @Override
+    public void guardado(Producto producto) {
+        invalidar(producto.getIdProducto());
+    }
+
+    @Override
+    public void eliminado(String idProducto) {
+        invalidar(idProducto);
+    }
+
+    @Override
+    public void stockModificado(String idProducto, int stock) {
+        invalidar(idProducto);
+    }
+
+    @Override
+    public void invalidado() {
+        vaciar();
+    }
+
+    /**
+     * Funcion que estima lo que ocupa un producto en memoria
+     *
+     * @param producto del que se calcula
+     * @return bytes aproximados
+     */
+    private long peso(Producto producto) {
+        long caracteres = longitud(producto.getIdProducto()) + longitud(producto.getNombre())
+            + longitud(producto.getDescripcion());
+        if (producto.getCategoria() != null) {
+            caracteres += longitud(producto.getCategoria().getIdCategoria())
+                + longitud(producto.getCategoria().getNombre());
+        }
+        if (producto.getMarca() != null) {
+            caracteres += longitud(producto.getMarca().getIdMarca()) + longitud(producto.getMarca().getNombre());
+        }
+        return BYTES_FIJOS + 2 * caracteres;
+    }
+
+    private int longitud(String texto) {
+        return texto == null ? 0 : texto.length();
+    }
+
+    /**
+     * Funcion que copia un producto con su categoria y su marca, para que quien
+     * lo recibe pueda modificarlo sin cambiar el guardado
+     *
+     * @param producto que se copia
+     * @return la copia o null
+     */
+    private Producto copiar(Producto producto) {
+        if (producto == null) {
+            return null;
+        }
+        Categoria categoria = producto.getCategoria();
+        Marca marca = producto.getMarca();
+        return new Producto(producto.getIdProducto(), producto.getNombre(),
+            categoria == null ? null : new Categoria(categoria.getIdCategoria(), categoria.getNombre()),
+            producto.getPrecio(), producto.getDescripcion(), producto.getStock(),
+            marca == null ? null : new Marca(marca.getIdMarca(), marca.getNombre()));
+    }
+
+    /**
+     * Funcion que devuelve la proporcion de busquedas que estaban en la cache
+     *
+     * @return de 0 a 1, 0 si no ha habido busquedas
+     */
+    public double getTasaAciertos() {
+        long encontradas = aciertos.sum();
+        long total = encontradas + fallos.sum();
+        return total == 0 ? 0 : (double) encontradas / total;
+    }
+
+    public long getAciertos() {
+        return aciertos.sum();
+    }
+
+    public long getFallos() {
+        return fallos.sum();
+    }
+
+    /**
+     * Funcion que devuelve las entradas quitadas por no caber
+     *
+     * @return numero de expulsiones
+     */
+    public long getExpulsiones() {
+        return expulsiones.sum();
+    }
+
+    public long getCaducadas() {
+        return caducadas.sum();
+    }
+
+    /**
+     * Funcion que devuelve las lecturas hechas en la base de datos. Las que
+     * esperan a la de otro hilo no cuentan
+     *
+     * @return numero de cargas
+     */
+    public long getCargas() {
+        return cargas.sum();
+    }
+
+    /**
+     * Funcion que devuelve el tiempo medio de lectura de la base de datos
+     *
+     * @return nanosegundos por carga, 0 si no ha habido ninguna
+     */
+    public long getNanosMedioCarga() {
+        long total = cargas.sum();
+        return total == 0 ? 0 : nanosCarga.sum() / total;
+    }
+
+    public synchronized int getTamanio() {
+        return entradas.size();
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+}
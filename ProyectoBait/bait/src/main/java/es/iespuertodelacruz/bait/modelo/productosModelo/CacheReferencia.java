@@ -0,0 +1,159 @@
+package es.iespuertodelacruz.bait.modelo.productosModelo;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+import es.iespuertodelacruz.bait.exceptions.PersistenciaException;
+
+/**
+ * Copia en memoria de una tabla de referencia (categorias, marcas) indexada
+ * por su identificador. El mapa es inmutable y se sustituye entero en cada
+ * cambio, asi que las lecturas no bloquean: solo leen la referencia volatil.
+ * Como los elementos de la api se pueden modificar, se guardan y se devuelven
+ * copias.
+ * Las escrituras y la carga inicial se sincronizan entre si para que una carga
+ * no pise un cambio hecho mientras se leia la tabla
+ */
+public class CacheReferencia<T> {
+    /**
+     * Lee todos los elementos de la tabla
+     */
+    @FunctionalInterface
+    public interface Cargador<T> {
+        /**
+         * Funcion que lee la tabla completa
+         * 
+         * @return todos los elementos
+         * @throws PersistenciaException error a controlar
+         */
+        Collection<T> cargar() throws PersistenciaException;
+    }
+
+    private Function<T, String> clave;
+    private UnaryOperator<T> copia;
+    private Cargador<T> cargador;
+    private volatile Map<String, T> elementos;
+    private LongAdder aciertos;
+    private LongAdder fallos;
+
+    /**
+     * Constructor con la clave de los elementos y como cargarlos
+     * 
+     * @param clave    funcion que devuelve el identificador de un elemento
+     * @param copia    funcion que copia un elemento
+     * @param cargador que lee la tabla la primera vez que se usa
+     */
+    public CacheReferencia(Function<T, String> clave, UnaryOperator<T> copia, Cargador<T> cargador) {
+        this.clave = clave;
+        this.copia = copia;
+        this.cargador = cargador;
+        aciertos = new LongAdder();
+        fallos = new LongAdder();
+    }
+
+    /**
+     * Funcion que busca un elemento por su identificador, cargando la tabla
+     * si todavia no se ha cargado
+     * 
+     * @param id del elemento
+     * @return una copia del elemento o null si no existe
+     * @throws PersistenciaException error a controlar
+     */
+    public T buscar(String id) throws PersistenciaException {
+        Map<String, T> actuales = elementos;
+        if (actuales == null) {
+            actuales = cargar();
+        }
+        T elemento = id == null ? null : actuales.get(id);
+        if (elemento == null) {
+            fallos.increment();
+            return null;
+        }
+        aciertos.increment();
+        return copia.apply(elemento);
+    }
+
+    /**
+     * Metodo que añade o sustituye un elemento. Si la tabla no esta cargada no
+     * hace nada: se leera con el cambio cuando se use
+     * 
+     * @param elemento guardado en la base de datos
+     */
+    public synchronized void poner(T elemento) {
+        if (elementos != null) {
+            HashMap<String, T> nuevos = new HashMap<>(elementos);
+            nuevos.put(clave.apply(elemento), copia.apply(elemento));
+            elementos = Map.copyOf(nuevos);
+        }
+    }
+
+    /**
+     * Metodo que quita un elemento
+     * 
+     * @param id del elemento borrado de la base de datos
+     */
+    public synchronized void quitar(String id) {
+        if (elementos != null && elementos.containsKey(id)) {
+            HashMap<String, T> nuevos = new HashMap<>(elementos);
+            nuevos.remove(id);
+            elementos = Map.copyOf(nuevos);
+        }
+    }
+
+    /**
+     * Metodo que descarta la copia para que se vuelva a leer la tabla, para los
+     * cambios en lote de los que no se sabe que filas se han guardado
+     */
+    public synchronized void invalidar() {
+        elementos = null;
+    }
+
+    /**
+     * Funcion que lee la tabla si ningun otro hilo lo ha hecho ya
+     * 
+     * @return los elementos cargados
+     * @throws PersistenciaException error a controlar
+     */
+    private synchronized Map<String, T> cargar() throws PersistenciaException {
+        if (elementos == null) {
+            HashMap<String, T> leidos = new HashMap<>();
+            for (T elemento : cargador.cargar()) {
+                leidos.put(clave.apply(elemento), elemento);
+            }
+            elementos = Map.copyOf(leidos);
+        }
+        return elementos;
+    }
+
+    /**
+     * Funcion que devuelve las busquedas que han encontrado el elemento
+     * 
+     * @return numero de aciertos
+     */
+    public long getAciertos() {
+        return aciertos.sum();
+    }
+
+    /**
+     * Funcion que devuelve las busquedas de identificadores que no existen
+     * 
+     * @return numero de fallos
+     */
+    public long getFallos() {
+        return fallos.sum();
+    }
+
+    /**
+     * Funcion que devuelve el numero de elementos en memoria
+     * 
+     * @return elementos cargados, 0 si no se ha cargado
+     */
+    public int getTamanio() {
+        Map<String, T> actuales = elementos;
+        return actuales == null ? 0 : actuales.size();
+    }
+}
@@ -0,0 +1,352 @@
+package es.iespuertodelacruz.bait.modelo.productosModelo;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import es.iespuertodelacruz.bait.api.productos.Producto;
+import es.iespuertodelacruz.bait.exceptions.PersistenciaException;
+import es.iespuertodelacruz.bait.modelo.mysql.Pagina;
+import es.iespuertodelacruz.bait.modelo.mysql.Paginador;
+
+/**
+ * Version del catalogo: los productos con su categoria y su marca, ordenados
+ * por su identificador. Que productos hay y sus datos nunca cambian despues de
+ * crearse; cada cambio crea una version nueva con el numero siguiente. El
+ * stock va aparte, en una celda por producto compartida entre versiones, asi
+ * que una venta no crea version y todas la ven. Los productos son compartidos
+ * entre todos los lectores y no deben modificarse
+ */
+public class Catalogo {
+    private static final Comparator<Producto> POR_ID = Comparator.comparing(Producto::getIdProducto);
+    /**
+     * Numero de productos que se guardan de cada top; los que piden mas se
+     * calculan cada vez
+     */
+    public static final int MAXIMO_TOP = 100;
+
+    private long version;
+    private ArrayList<Producto> ordenados;
+    private CeldaStock[] stocks;
+    private AtomicLong cambiosStock;
+    private List<Producto> productos;
+    private Map<String, Integer> posiciones;
+    private volatile FacetasProductos facetas;
+    private Object bloqueoFacetas;
+    private ConcurrentHashMap<String, int[]> tops;
+
+    /**
+     * Constructor con los productos ya ordenados y su stock
+     *
+     * @param version      numero de la version
+     * @param ordenados    productos ordenados por su identificador
+     * @param stocks       celda de stock de cada producto, en el mismo orden
+     * @param cambiosStock contador de cambios de stock, compartido entre
+     *                     versiones
+     */
+    private Catalogo(long version, ArrayList<Producto> ordenados, CeldaStock[] stocks, AtomicLong cambiosStock) {
+        this.version = version;
+        this.ordenados = ordenados;
+        this.stocks = stocks;
+        this.cambiosStock = cambiosStock;
+        productos = new ConStock();
+        HashMap<String, Integer> indice = new HashMap<>();
+        for (int i = 0; i < ordenados.size(); i++) {
+            indice.put(ordenados.get(i).getIdProducto(), i);
+        }
+        posiciones = Map.copyOf(indice);
+        tops = new ConcurrentHashMap<>();
+        bloqueoFacetas = new Object();
+    }
+
+    /**
+     * Funcion que crea la primera version a partir de los productos leidos
+     *
+     * @param version   numero de la version
+     * @param productos en cualquier orden
+     * @return el catalogo
+     */
+    static Catalogo crear(long version, Collection<Producto> productos) {
+        ArrayList<Producto> ordenados = new ArrayList<>(productos);
+        ordenados.sort(POR_ID);
+        CeldaStock[] stocks = new CeldaStock[ordenados.size()];
+        for (int i = 0; i < stocks.length; i++) {
+            stocks[i] = new CeldaStock(ordenados.get(i).getStock());
+        }
+        return new Catalogo(version, ordenados, stocks, new AtomicLong());
+    }
+
+    /**
+     * Funcion que crea la version siguiente con los productos leidos de nuevo.
+     * Los productos que ya estaban conservan su celda de stock, para que no se
+     * pierdan las ventas que se confirmen mientras se leian
+     *
+     * @param version   numero de la version nueva
+     * @param productos en cualquier orden
+     * @param desde     valor de getCambiosStock antes de empezar a leerlos
+     * @return el catalogo nuevo
+     */
+    Catalogo recargar(long version, Collection<Producto> productos, long desde) {
+        ArrayList<Producto> nuevos = new ArrayList<>(productos);
+        nuevos.sort(POR_ID);
+        CeldaStock[] celdas = new CeldaStock[nuevos.size()];
+        for (int i = 0; i < celdas.length; i++) {
+            Producto producto = nuevos.get(i);
+            Integer posicion = posiciones.get(producto.getIdProducto());
+            if (posicion == null) {
+                celdas[i] = new CeldaStock(producto.getStock());
+            } else {
+                celdas[i] = stocks[posicion];
+                celdas[i].recargar(producto.getStock(), desde);
+            }
+        }
+        return new Catalogo(version, nuevos, celdas, cambiosStock);
+    }
+
+    /**
+     * Funcion que crea la version siguiente con un producto añadido o
+     * sustituido
+     *
+     * @param version  numero de la version nueva
+     * @param producto guardado
+     * @return el catalogo nuevo
+     */
+    Catalogo con(long version, Producto producto) {
+        ArrayList<Producto> nuevos = new ArrayList<>(ordenados.size() + 1);
+        nuevos.addAll(ordenados);
+        ArrayList<CeldaStock> celdas = new ArrayList<>(stocks.length + 1);
+        Collections.addAll(celdas, stocks);
+        Integer posicion = posiciones.get(producto.getIdProducto());
+        if (posicion != null) {
+            nuevos.set(posicion, producto);
+            stocks[posicion].poner(producto.getStock(), cambiosStock.incrementAndGet());
+        } else {
+            int hueco = -Collections.binarySearch(nuevos, producto, POR_ID) - 1;
+            nuevos.add(hueco, producto);
+            celdas.add(hueco, new CeldaStock(producto.getStock()));
+        }
+        return new Catalogo(version, nuevos, celdas.toArray(new CeldaStock[0]), cambiosStock);
+    }
+
+    /**
+     * Funcion que crea la version siguiente sin un producto
+     *
+     * @param version    numero de la version nueva
+     * @param idProducto del producto eliminado
+     * @return el catalogo nuevo, o este si no tenia el producto
+     */
+    Catalogo sin(long version, String idProducto) {
+        Integer posicion = idProducto == null ? null : posiciones.get(idProducto);
+        if (posicion == null) {
+            return this;
+        }
+        ArrayList<Producto> nuevos = new ArrayList<>(ordenados);
+        nuevos.remove((int) posicion);
+        ArrayList<CeldaStock> celdas = new ArrayList<>(stocks.length);
+        Collections.addAll(celdas, stocks);
+        celdas.remove((int) posicion);
+        return new Catalogo(version, nuevos, celdas.toArray(new CeldaStock[0]), cambiosStock);
+    }
+
+    /**
+     * Funcion que guarda el stock confirmado de un producto en su celda, sin
+     * copiar el catalogo, y cambia su bit en las facetas si ya estan creadas.
+     * El bit se pone con el valor de la celda, no con el recibido, para que
+     * gane siempre el ultimo stock aunque se este creando el indice
+     *
+     * @param idProducto del producto
+     * @param stock      que tiene ahora
+     * @return verdadero si el producto esta en esta version
+     */
+    boolean actualizarStock(String idProducto, int stock) {
+        Integer posicion = idProducto == null ? null : posiciones.get(idProducto);
+        if (posicion == null) {
+            return false;
+        }
+        stocks[posicion].poner(stock, cambiosStock.incrementAndGet());
+        FacetasProductos indice = facetas;
+        if (indice != null) {
+            synchronized (bloqueoFacetas) {
+                indice.ponerStock(posicion, stocks[posicion].getStock() > 0);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Funcion que devuelve el numero del ultimo cambio de stock
+     *
+     * @return numero de cambios de stock
+     */
+    long getCambiosStock() {
+        return cambiosStock.get();
+    }
+
+    /**
+     * Funcion que devuelve una pagina del catalogo con los mismos tokens que
+     * ProductoModelo.obtenerPagina
+     *
+     * @param token   de la pagina, null para la primera
+     * @param tamanio numero maximo de productos
+     * @return la pagina de productos
+     * @throws PersistenciaException si el token no es valido
+     */
+    public Pagina<Producto> obtenerPagina(String token, int tamanio) throws PersistenciaException {
+        return Paginador.paginar(productos, Producto::getIdProducto, token, tamanio);
+    }
+
+    /**
+     * Funcion que busca un producto por su identificador
+     *
+     * @param idProducto del producto
+     * @return el producto con su stock actual, o null si no esta
+     */
+    public Producto buscar(String idProducto) {
+        Integer posicion = idProducto == null ? null : posiciones.get(idProducto);
+        return posicion == null ? null : producto(posicion);
+    }
+
+    /**
+     * Funcion que devuelve el indice de facetas de esta version, creandolo la
+     * primera vez que se pide. Despues los cambios de stock lo actualizan sin
+     * volver a crearlo; al publicarlo se repasa el stock por si ha cambiado
+     * alguno mientras se creaba
+     *
+     * @return las facetas de los productos
+     */
+    public FacetasProductos getFacetas() {
+        FacetasProductos indice = facetas;
+        if (indice == null) {
+            indice = new FacetasProductos(productos);
+            facetas = indice;
+            synchronized (bloqueoFacetas) {
+                for (int i = 0; i < stocks.length; i++) {
+                    indice.ponerStock(i, stocks[i].getStock() > 0);
+                }
+            }
+        }
+        return indice;
+    }
+
+    /**
+     * Funcion que devuelve los primeros productos de una categoria en un orden.
+     * Se calculan con un monticulo de tamaño limitado, sin ordenar la
+     * categoria entera, y se guardan en esta version para las siguientes
+     * peticiones. Los ordenes por stock se calculan cada vez, porque el stock
+     * cambia sin crear version
+     *
+     * @param idCategoria de la categoria, null para todo el catalogo
+     * @param orden       en el que se eligen
+     * @param limite      numero maximo de productos
+     * @return los productos ordenados, que no se pueden modificar
+     */
+    public List<Producto> obtenerTop(String idCategoria, OrdenProductos orden, int limite) {
+        if (limite > MAXIMO_TOP || orden.isPorStock()) {
+            return top(idCategoria, orden, limite);
+        }
+        String clave = orden.name() + ':' + (idCategoria == null ? "" : idCategoria);
+        int[] mejores = tops.get(clave);
+        if (mejores == null) {
+            List<Producto> encontrados = top(idCategoria, orden, MAXIMO_TOP);
+            if (encontrados.isEmpty()) {
+                return encontrados;
+            }
+            mejores = new int[encontrados.size()];
+            for (int i = 0; i < mejores.length; i++) {
+                mejores[i] = posiciones.get(encontrados.get(i).getIdProducto());
+            }
+            tops.putIfAbsent(clave, mejores);
+        }
+        ArrayList<Producto> primeros = new ArrayList<>(Math.min(limite, mejores.length));
+        for (int i = 0; i < mejores.length && i < limite; i++) {
+            primeros.add(producto(mejores[i]));
+        }
+        return Collections.unmodifiableList(primeros);
+    }
+
+    /**
+     * Funcion que recorre los productos una vez guardando en un monticulo los
+     * mejores encontrados hasta el momento, con el peor arriba para saber
+     * rapido si uno nuevo entra
+     *
+     * @param idCategoria de la categoria, null para todo el catalogo
+     * @param orden       en el que se eligen
+     * @param limite      numero maximo de productos
+     * @return los productos ordenados, que no se pueden modificar
+     */
+    private List<Producto> top(String idCategoria, OrdenProductos orden, int limite) {
+        Comparator<Producto> comparador = orden.getComparador();
+        PriorityQueue<Producto> peores = new PriorityQueue<>(Math.min(limite, productos.size()) + 1,
+            comparador.reversed());
+        for (Producto producto : productos) {
+            if (idCategoria != null && (producto.getCategoria() == null
+                    || !idCategoria.equals(producto.getCategoria().getIdCategoria()))) {
+                continue;
+            }
+            if (peores.size() < limite) {
+                peores.add(producto);
+            } else if (comparador.compare(producto, peores.peek()) < 0) {
+                peores.poll();
+                peores.add(producto);
+            }
+        }
+        ArrayList<Producto> mejores = new ArrayList<>(peores);
+        mejores.sort(comparador);
+        return Collections.unmodifiableList(mejores);
+    }
+
+    /**
+     * Funcion que devuelve el producto de una posicion con su stock actual.
+     * Solo se crea uno nuevo si el stock ha cambiado desde que se guardo
+     *
+     * @param posicion del producto
+     * @return el producto
+     */
+    private Producto producto(int posicion) {
+        Producto producto = ordenados.get(posicion);
+        int stock = stocks[posicion].getStock();
+        if (stock == producto.getStock()) {
+            return producto;
+        }
+        return new Producto(producto.getIdProducto(), producto.getNombre(), producto.getCategoria(),
+            producto.getPrecio(), producto.getDescripcion(), stock, producto.getMarca());
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Funcion que devuelve los productos ordenados por su identificador, con su
+     * stock actual
+     *
+     * @return la lista, que no se puede modificar
+     */
+    public List<Producto> getProductos() {
+        return productos;
+    }
+
+    /**
+     * Vista de los productos de la version con el stock de sus celdas
+     */
+    private class ConStock extends AbstractList<Producto> implements RandomAccess {
+        @Override
+        public Producto get(int posicion) {
+            return producto(posicion);
+        }
+
+        @Override
+        public int size() {
+            return ordenados.size();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package es.iespuertodelacruz.bait.modelo.productosModelo;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+import es.iespuertodelacruz.bait.api.productos.Producto;
+import es.iespuertodelacruz.bait.exceptions.PersistenciaException;
+
+/**
+ * Publica la version actual del catalogo. Los lectores solo leen una
+ * referencia atomica, sin bloqueos; los cambios que llegan de ProductoModelo
+ * se aplican de uno en uno sobre una copia, que se publica cambiando la
+ * referencia. Quien ya tiene una version la sigue viendo entera aunque se
+ * publique otra. Los cambios de stock, que llegan desde el hilo del escritor
+ * tras cada venta, solo actualizan la celda del producto, sin copias ni
+ * bloqueos compartidos
+ */
+public class CatalogoProductos implements ObservadorProductos {
+    /**
+     * Veces que se vuelve a leer el catalogo si cambia mientras se recarga
+     */
+    private static final int REINTENTOS_RECARGA = 3;
+
+    private static CatalogoProductos instancia;
+
+    private ProductoModelo productoModelo;
+    private AtomicReference<Catalogo> actual;
+    private long version;
+
+    /**
+     * Constructor con el modelo del que se cargan los productos
+     * 
+     * @param productoModelo de la base de datos
+     */
+    CatalogoProductos(ProductoModelo productoModelo) {
+        this.productoModelo = productoModelo;
+        actual = new AtomicReference<>();
+    }
+
+    /**
+     * Funcion que devuelve el catalogo compartido, registrandolo la primera
+     * vez para que reciba los cambios de los productos
+     * 
+     * @return el catalogo de productos
+     * @throws PersistenciaException error a controlar
+     */
+    public static synchronized CatalogoProductos obtener() throws PersistenciaException {
+        if (instancia == null) {
+            instancia = new CatalogoProductos(new ProductoModelo());
+            ProductoModelo.añadirObservador(instancia);
+        }
+        return instancia;
+    }
+
+    /**
+     * Funcion que devuelve la version actual del catalogo. Solo la primera vez,
+     * o tras un error al recargarlo, lee los productos de la base de datos
+     * 
+     * @return el catalogo
+     * @throws PersistenciaException si no se puede cargar
+     */
+    public Catalogo getCatalogo() throws PersistenciaException {
+        Catalogo catalogo = actual.get();
+        if (catalogo == null) {
+            catalogo = cargar();
+        }
+        return catalogo;
+    }
+
+    /**
+     * Funcion que lee todos los productos y publica una version nueva, si
+     * ningun otro hilo lo ha hecho ya
+     * 
+     * @return el catalogo publicado
+     * @throws PersistenciaException error a controlar
+     */
+    private synchronized Catalogo cargar() throws PersistenciaException {
+        Catalogo catalogo = actual.get();
+        if (catalogo == null) {
+            catalogo = Catalogo.crear(++version, productoModelo.obtenerListado());
+            actual.set(catalogo);
+        }
+        return catalogo;
+    }
+
+    @Override
+    public synchronized void guardado(Producto producto) {
+        Catalogo catalogo = actual.get();
+        if (catalogo != null) {
+            actual.set(catalogo.con(++version, producto));
+        }
+    }
+
+    @Override
+    public synchronized void eliminado(String idProducto) {
+        Catalogo catalogo = actual.get();
+        if (catalogo != null && catalogo.buscar(idProducto) != null) {
+            actual.set(catalogo.sin(++version, idProducto));
+        }
+    }
+
+    /**
+     * Metodo que guarda el stock en la celda del producto, que comparten todas
+     * las versiones que lo tienen. Si mientras tanto se publica otra version,
+     * se guarda tambien en ella por si el producto tiene una celda nueva
+     *
+     * @param idProducto del producto
+     * @param stock      que tiene ahora
+     */
+    @Override
+    public void stockModificado(String idProducto, int stock) {
+        Catalogo catalogo = actual.get();
+        Catalogo actualizado = null;
+        while (catalogo != null && catalogo != actualizado) {
+            catalogo.actualizarStock(idProducto, stock);
+            actualizado = catalogo;
+            catalogo = actual.get();
+        }
+    }
+
+    /**
+     * Metodo que recarga el catalogo entero. Los productos se leen sin
+     * bloquear a nadie y mientras tanto los lectores siguen viendo la version
+     * anterior; si otro cambio publica una version durante la lectura se
+     * vuelve a leer. Si falla, se deja sin cargar para que lo lea el siguiente
+     * que lo pida
+     */
+    @Override
+    public void invalidado() {
+        for (int intento = 0; intento < REINTENTOS_RECARGA; intento++) {
+            Catalogo anterior = actual.get();
+            if (anterior == null) {
+                return;
+            }
+            long desde = anterior.getCambiosStock();
+            ArrayList<Producto> leidos;
+            try {
+                leidos = productoModelo.obtenerListado();
+            } catch (PersistenciaException e) {
+                synchronized (this) {
+                    actual.set(null);
+                }
+                return;
+            }
+            synchronized (this) {
+                if (actual.get() == anterior) {
+                    actual.set(anterior.recargar(++version, leidos, desde));
+                    return;
+                }
+            }
+        }
+        synchronized (this) {
+            actual.set(null);
+        }
+    }
+}
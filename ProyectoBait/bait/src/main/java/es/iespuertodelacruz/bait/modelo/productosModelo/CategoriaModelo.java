@@ -1,14 +1,19 @@
 package es.iespuertodelacruz.bait.modelo.productosModelo;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.stream.Stream;
 
 import es.iespuertodelacruz.bait.api.productos.Categoria;
 import es.iespuertodelacruz.bait.exceptions.PersistenciaException;
 import es.iespuertodelacruz.bait.modelo.mysql.BbddSqlite;
+import es.iespuertodelacruz.bait.modelo.mysql.Binder;
+import es.iespuertodelacruz.bait.modelo.mysql.BinderLote;
+import es.iespuertodelacruz.bait.modelo.mysql.MapaIdentidad;
+import es.iespuertodelacruz.bait.modelo.mysql.Pagina;
+import es.iespuertodelacruz.bait.modelo.mysql.Paginador;
+import es.iespuertodelacruz.bait.modelo.mysql.ResultadoLote;
+import es.iespuertodelacruz.bait.modelo.mysql.RowMapper;
 import es.iespuertodelacruz.bait.modelo.mysql.UtilidadesSQL;
 
 public class CategoriaModelo {
@@ -17,6 +22,20 @@ public class CategoriaModelo {
     public static final String IDENTIFICADOR = "idCategoria";
 
     private static UtilidadesSQL utilidadesSQL = new UtilidadesSQL(TABLE_NAME, IDENTIFICADOR + ", nombre");
+    private static final BinderLote<Categoria> INSERTAR = (preparedStatement, categoria) -> {
+        preparedStatement.setString(1, categoria.getIdCategoria());
+        preparedStatement.setString(2, categoria.getNombre());
+    };
+    private static final BinderLote<Categoria> MODIFICAR = (preparedStatement, categoria) -> {
+        INSERTAR.enlazar(preparedStatement, categoria);
+        preparedStatement.setString(3, categoria.getIdCategoria());
+    };
+    private static final RowMapper<Categoria> MAPPER = resultSet -> 
+        new Categoria(resultSet.getString(IDENTIFICADOR), resultSet.getString("nombre"));
+    private static final Paginador<Categoria> PAGINADOR = new Paginador<>(utilidadesSQL.getSELECTALL(), IDENTIFICADOR,
+        () -> MAPPER, Categoria::getIdCategoria);
+    private static final CacheReferencia<Categoria> CACHE = new CacheReferencia<>(Categoria::getIdCategoria,
+        elemento -> new Categoria(elemento.getIdCategoria(), elemento.getNombre()), () -> new CategoriaModelo().obtenerListado());
 
     /**
      * Constructor basico de la clase
@@ -32,21 +51,13 @@ public class CategoriaModelo {
      * @throws PersistenciaException error a controlar
      */
     public void insertar(Categoria categoria) throws PersistenciaException {
-        Connection connection = null;
-        PreparedStatement preparedStatement = null;
-
         try {
-            connection = persistencia.getConnection();
-            preparedStatement = connection.prepareStatement(utilidadesSQL.getINSERT());
-            preparedStatement.setString(1, categoria.getIdCategoria());
-            preparedStatement.setString(2, categoria.getNombre());
-            
-            preparedStatement.executeUpdate();
-        } catch (Exception e) {
+            persistencia.actualizar(utilidadesSQL.getINSERT(), INSERTAR.para(categoria));
+        } catch (PersistenciaException e) {
             throw new PersistenciaException("Ha ocurrido un error al insertar la categoria", e);
-        }finally{
-            persistencia.closeConnection(connection, preparedStatement, null);
         }
+        CACHE.poner(categoria);
+        MapaIdentidad.olvidar(Categoria.class, categoria.getIdCategoria());
     }
 
     /**
@@ -55,49 +66,39 @@ public class CategoriaModelo {
      * @throws PersistenciaException error a controlar
      */
     public void eliminar(String idCategoria) throws PersistenciaException {
-        Connection connection = null;
-        PreparedStatement preparedStatement = null;
-
+        int eliminados;
         try {
-            connection = persistencia.getConnection();
-            preparedStatement = connection.prepareStatement(utilidadesSQL.setDelete(IDENTIFICADOR));
-            preparedStatement.setString(1, idCategoria);
-
-            preparedStatement.executeUpdate();
-        } catch (Exception e) {
+            eliminados = persistencia.actualizar(utilidadesSQL.setDelete(IDENTIFICADOR), preparedStatement -> {
+                preparedStatement.setString(1, idCategoria);
+            });
+        } catch (PersistenciaException e) {
             throw new PersistenciaException("Ha ocurrido un error al eliminar una categoria", e);
-        }finally{
-            persistencia.closeConnection(connection, preparedStatement, null);
+        }
+        CACHE.quitar(idCategoria);
+        MapaIdentidad.olvidar(Categoria.class, idCategoria);
+        if (eliminados > 0) {
+            ProductoModelo.avisarInvalidado();
         }
     }
 
     /**
      * Funcion que realiza un consulta y devuelve una lista de categorias
      * @param sql consulta que se va a realizar
-     * @param valor del campo a filtrar
+     * @param valores de los campos a filtrar
      * @return una lista de categoria
      * @throws PersistenciaException error a controlar
      */
-    private ArrayList<Categoria> buscarPorElemento(String sql, String valor) throws PersistenciaException{
-        ResultSet resultSet;
-        ArrayList<Categoria> lista = new ArrayList<>();
-
-        resultSet = persistencia.buscarElemento(sql, valor);
-
-        try {
-            while (resultSet.next()){
-                String idCategoria = resultSet.getString(IDENTIFICADOR);
-                String nombre = resultSet.getString("nombre");
-
-                Categoria categoria = new Categoria(idCategoria, nombre);
-                lista.add(categoria);
-            }
-        } catch (SQLException e) {
-            throw new PersistenciaException(e.getMessage());
-        }
-
-        return lista;
+    private ArrayList<Categoria> buscarPorElemento(String sql, Object... valores) throws PersistenciaException{
+        return persistencia.consultar(sql, Binder.valores(valores), MAPPER);
+    }
 
+    /**
+     * Funcion que devuelve la cache de categorias que usa buscarPorId, con sus
+     * contadores de aciertos y fallos
+     * @return la cache compartida
+     */
+    public static CacheReferencia<Categoria> getCache() {
+        return CACHE;
     }
 
     /**
@@ -107,16 +108,7 @@ public class CategoriaModelo {
      * @throws PersistenciaException error a controlar
      */
     public Categoria buscarPorId(String idCategoria) throws PersistenciaException {
-        ArrayList<Categoria> lista;
-        Categoria categoria = null;
-        String sql = utilidadesSQL.setSelectOne(IDENTIFICADOR);
-        lista = buscarPorElemento(sql, idCategoria); 
-
-        if (!lista.isEmpty()) {
-            categoria = lista.get(0);
-        }
-
-        return categoria;
+        return MapaIdentidad.buscar(Categoria.class, idCategoria, CACHE::buscar);
     }
 
     /**
@@ -147,10 +139,33 @@ public class CategoriaModelo {
         ArrayList<Categoria> lista;
         String sql = utilidadesSQL.getSELECTALL();
 
-        lista = buscarPorElemento(sql, "");
+        lista = buscarPorElemento(sql);
 
         return lista;
     }
+
+    /**
+     * Funcion que devuelve las categorias como un Stream perezoso que va leyendo las
+     * filas segun se recorre, sin cargarlas todas en memoria. La conexion queda
+     * abierta hasta que se cierra, asi que debe usarse en un try-with-resources
+     * @return el Stream de categorias
+     * @throws PersistenciaException error a controlar
+    */
+    public Stream<Categoria> streamListado() throws PersistenciaException {
+        return persistencia.consultarStream(utilidadesSQL.getSELECTALL(), Binder.NINGUNO, MAPPER);
+    }
+
+    /**
+     * Funcion que obtiene una pagina del listado de categorias, ordenado por su
+     * identificador
+     * @param token de la pagina, null para la primera
+     * @param tamanio numero maximo de categorias de la pagina
+     * @return la pagina de categorias
+     * @throws PersistenciaException error a controlar
+    */
+    public Pagina<Categoria> obtenerPagina(String token, int tamanio) throws PersistenciaException {
+        return PAGINADOR.obtener(persistencia, token, tamanio, "");
+    }
     
     /**
      * Metodo que modifica una categoria en la base datos
@@ -158,21 +173,54 @@ public class CategoriaModelo {
      * @throws PersistenciaException error a controlar
      */
     public void modificar(Categoria categoria) throws PersistenciaException {
-        Connection connection = null;
-        PreparedStatement preparedStatement = null;
-
         try {
-            connection = persistencia.getConnection();
-            preparedStatement = connection.prepareStatement(utilidadesSQL.setUpdate());
-            preparedStatement.setString(1, categoria.getIdCategoria());
-            preparedStatement.setString(2, categoria.getNombre());
-            preparedStatement.setString(3, categoria.getIdCategoria());
-
-            preparedStatement.execute();
-        } catch (Exception e) {
+            if (persistencia.actualizar(utilidadesSQL.setUpdate(), MODIFICAR.para(categoria)) > 0) {
+                CACHE.poner(categoria);
+                MapaIdentidad.olvidar(Categoria.class, categoria.getIdCategoria());
+                ProductoModelo.avisarInvalidado();
+            }
+        } catch (PersistenciaException e) {
             throw new PersistenciaException("Ha ocurrido un error al modificar la categoria", e);
-        }finally{
-            persistencia.closeConnection(connection, preparedStatement, null);
+        }
+    }
+
+    /**
+     * Funcion que inserta las categorias en una sola transaccion, reutilizando la
+     * sentencia con executeBatch
+     * @param categorias que se van a insertar en la base de datos
+     * @return el resultado con las categorias que no se han podido insertar
+     * @throws PersistenciaException error a controlar
+     */
+    public ResultadoLote<Categoria> insertarLote(Collection<Categoria> categorias) throws PersistenciaException {
+        try {
+            ResultadoLote<Categoria> resultado = persistencia.actualizarLote(utilidadesSQL.getINSERT(), categorias, 
+                INSERTAR);
+            CACHE.invalidar();
+            MapaIdentidad.olvidarTodas(Categoria.class);
+            return resultado;
+        } catch (PersistenciaException e) {
+            throw new PersistenciaException("Ha ocurrido un error al insertar las categorias", e);
+        }
+    }
+
+    /**
+     * Funcion que modifica las categorias en una sola transaccion, reutilizando la
+     * sentencia con executeBatch
+     * @param categorias que se van a modificar
+     * @return el resultado con las categorias que no se han podido modificar
+     * @throws PersistenciaException error a controlar
+     */
+    public ResultadoLote<Categoria> modificarLote(Collection<Categoria> categorias) throws PersistenciaException {
+        try {
+            ResultadoLote<Categoria> resultado = persistencia.actualizarLote(utilidadesSQL.setUpdate(), categorias, MODIFICAR);
+            CACHE.invalidar();
+            MapaIdentidad.olvidarTodas(Categoria.class);
+            if (resultado.getCorrectos() > 0) {
+                ProductoModelo.avisarInvalidado();
+            }
+            return resultado;
+        } catch (PersistenciaException e) {
+            throw new PersistenciaException("Ha ocurrido un error al modificar las categorias", e);
         }
     }
 
@@ -0,0 +1,53 @@
+package es.iespuertodelacruz.bait.modelo.productosModelo;
+
+/**
+ * Stock actual de un producto del catalogo. Lo comparten todas las versiones
+ * que tienen el producto, de modo que una venta cambia solo esta celda en
+ * lugar de copiar el catalogo entero
+ */
+class CeldaStock {
+    private volatile int stock;
+    private long marca;
+
+    /**
+     * Constructor con el stock inicial
+     * 
+     * @param stock del producto
+     */
+    CeldaStock(int stock) {
+        this.stock = stock;
+    }
+
+    /**
+     * Funcion que devuelve el stock actual
+     * 
+     * @return unidades en stock
+     */
+    int getStock() {
+        return stock;
+    }
+
+    /**
+     * Metodo que guarda un stock confirmado en la base de datos
+     * 
+     * @param stock nuevo
+     * @param marca numero del cambio, que crece con cada cambio de stock
+     */
+    synchronized void poner(int stock, long marca) {
+        this.stock = stock;
+        this.marca = marca;
+    }
+
+    /**
+     * Metodo que guarda el stock leido al recargar el catalogo, salvo que haya
+     * llegado un cambio despues de empezar a leer, que es mas reciente
+     * 
+     * @param stock leido
+     * @param desde numero del ultimo cambio antes de empezar a leer
+     */
+    synchronized void recargar(int stock, long desde) {
+        if (marca <= desde) {
+            this.stock = stock;
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package es.iespuertodelacruz.bait.modelo.productosModelo;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import es.iespuertodelacruz.bait.api.productos.Categoria;
+import es.iespuertodelacruz.bait.api.productos.Marca;
+import es.iespuertodelacruz.bait.api.productos.Producto;
+
+/**
+ * Indice de bits de los productos por categoria, marca, franja de precio y
+ * stock. El bit i de cada valor dice si el producto i de la lista lo tiene, asi
+ * que filtrar es hacer and y or de los bits y contar cuantos quedan con cada
+ * valor es contar los bits de la interseccion, sin recorrer los productos. Se
+ * crea sobre una lista que no cambia; solo los bits del stock se actualizan
+ * despues, uno a uno, cuando se vende o se repone un producto
+ */
+public class FacetasProductos {
+    /**
+     * Limites superiores de las franjas de precio. La ultima franja no tiene
+     * limite
+     */
+    public static final float[] LIMITES_PRECIO = { 20f, 50f, 100f, 200f, 500f };
+
+    /**
+     * Bits de un valor de una faceta. Se construyen con un BitSet y se guardan
+     * como array de long para filtrar y contar sin crear objetos
+     */
+    private static class Valor {
+        private BitSet bits;
+        private long[] palabras;
+
+        Valor(BitSet bits) {
+            this.bits = bits;
+        }
+
+        void cerrar() {
+            palabras = bits.toLongArray();
+            bits = null;
+        }
+    }
+
+    private List<Producto> productos;
+    private TreeMap<String, Valor> categorias;
+    private TreeMap<String, Valor> marcas;
+    private Valor[] franjas;
+    private AtomicLongArray conStock;
+
+    /**
+     * Constructor que indexa los productos
+     *
+     * @param productos lista que no va a cambiar
+     */
+    public FacetasProductos(List<Producto> productos) {
+        this.productos = productos;
+        categorias = new TreeMap<>();
+        marcas = new TreeMap<>();
+        franjas = new Valor[LIMITES_PRECIO.length + 1];
+        for (int i = 0; i < franjas.length; i++) {
+            franjas[i] = new Valor(new BitSet(productos.size()));
+        }
+        conStock = new AtomicLongArray((productos.size() + 63) >>> 6);
+
+        for (int i = 0; i < productos.size(); i++) {
+            Producto producto = productos.get(i);
+            Categoria categoria = producto.getCategoria();
+            if (categoria != null && categoria.getIdCategoria() != null) {
+                categorias.computeIfAbsent(categoria.getIdCategoria(), id -> new Valor(new BitSet())).bits.set(i);
+            }
+            Marca marca = producto.getMarca();
+            if (marca != null && marca.getIdMarca() != null) {
+                marcas.computeIfAbsent(marca.getIdMarca(), id -> new Valor(new BitSet())).bits.set(i);
+            }
+            franjas[franja(producto.getPrecio())].bits.set(i);
+            ponerStock(i, producto.getStock() > 0);
+        }
+
+        categorias.values().forEach(Valor::cerrar);
+        marcas.values().forEach(Valor::cerrar);
+        for (Valor valor : franjas) {
+            valor.cerrar();
+        }
+    }
+
+    /**
+     * Metodo que cambia el bit del stock de un producto sin tocar el resto del
+     * indice
+     *
+     * @param posicion del producto en la lista
+     * @param hayStock verdadero si le queda alguna unidad
+     */
+    void ponerStock(int posicion, boolean hayStock) {
+        int i = posicion >>> 6;
+        long bit = 1L << posicion;
+        long antes;
+        long despues;
+        do {
+            antes = conStock.get(i);
+            despues = hayStock ? antes | bit : antes & ~bit;
+        } while (antes != despues && !conStock.compareAndSet(i, antes, despues));
+    }
+
+    /**
+     * Funcion que devuelve la franja de un precio
+     *
+     * @param precio del producto
+     * @return posicion de la franja, de 0 a LIMITES_PRECIO.length
+     */
+    public static int franja(float precio) {
+        int franja = 0;
+        while (franja < LIMITES_PRECIO.length && precio >= LIMITES_PRECIO[franja]) {
+            franja++;
+        }
+        return franja;
+    }
+
+    /**
+     * Funcion que devuelve el texto de una franja para mostrarlo
+     *
+     * @param franja posicion de la franja
+     * @return por ejemplo "20 - 50" o "500 o mas"
+     */
+    public static String nombreFranja(int franja) {
+        float desde = franja == 0 ? 0 : LIMITES_PRECIO[franja - 1];
+        if (franja >= LIMITES_PRECIO.length) {
+            return Math.round(desde) + " o mas";
+        }
+        return Math.round(desde) + " - " + Math.round(LIMITES_PRECIO[franja]);
+    }
+
+    /**
+     * Funcion que filtra los productos y cuenta, entre los que quedan, cuantos
+     * tienen cada valor de cada faceta. El resultado se calcula palabra a
+     * palabra en una sola pasada, sin crear conjuntos intermedios
+     *
+     * @param filtro con los valores elegidos
+     * @param limite numero maximo de productos que se devuelven
+     * @return los productos y las cuentas
+     */
+    public ResultadoFacetas filtrar(FiltroProductos filtro, int limite) {
+        long[][] elegidasCategorias = elegidos(categorias, filtro.getCategorias());
+        long[][] elegidasMarcas = elegidos(marcas, filtro.getMarcas());
+        long[][] elegidasFranjas = null;
+        if (!filtro.getFranjas().isEmpty()) {
+            ArrayList<long[]> elegidas = new ArrayList<>();
+            for (Integer franja : filtro.getFranjas()) {
+                if (franja != null && franja >= 0 && franja < franjas.length) {
+                    elegidas.add(franjas[franja].palabras);
+                }
+            }
+            elegidasFranjas = elegidas.toArray(new long[0][]);
+        }
+
+        long[] palabras = new long[(productos.size() + 63) >>> 6];
+        int total = 0;
+        for (int i = 0; i < palabras.length; i++) {
+            long palabra = i < palabras.length - 1 || productos.size() % 64 == 0 ? -1L
+                : (1L << productos.size() % 64) - 1;
+            if (elegidasCategorias != null) {
+                palabra &= union(elegidasCategorias, i);
+            }
+            if (elegidasMarcas != null) {
+                palabra &= union(elegidasMarcas, i);
+            }
+            if (elegidasFranjas != null) {
+                palabra &= union(elegidasFranjas, i);
+            }
+            if (filtro.isSoloConStock()) {
+                palabra &= conStock.get(i);
+            }
+            palabras[i] = palabra;
+            total += Long.bitCount(palabra);
+        }
+
+        LinkedHashMap<Integer, Integer> cuentaFranjas = new LinkedHashMap<>();
+        for (int i = 0; i < franjas.length; i++) {
+            int cuenta = contar(palabras, franjas[i].palabras);
+            if (cuenta > 0) {
+                cuentaFranjas.put(i, cuenta);
+            }
+        }
+
+        ArrayList<Producto> encontrados = new ArrayList<>(Math.min(limite, total));
+        for (int i = 0; i < palabras.length && encontrados.size() < limite; i++) {
+            long palabra = palabras[i];
+            while (palabra != 0 && encontrados.size() < limite) {
+                encontrados.add(productos.get(i * 64 + Long.numberOfTrailingZeros(palabra)));
+                palabra &= palabra - 1;
+            }
+        }
+        return new ResultadoFacetas(encontrados, total, contar(palabras, categorias), contar(palabras, marcas),
+            cuentaFranjas, contarStock(palabras));
+    }
+
+    /**
+     * Funcion que devuelve los bits de los valores elegidos de una faceta. Los
+     * valores que no tiene ningun producto no se devuelven
+     *
+     * @param faceta   bits por valor
+     * @param elegidos valores
+     * @return los bits de cada valor, o null si no se ha elegido ninguno
+     */
+    private long[][] elegidos(Map<String, Valor> faceta, Collection<String> elegidos) {
+        if (elegidos.isEmpty()) {
+            return null;
+        }
+        ArrayList<long[]> bits = new ArrayList<>(elegidos.size());
+        for (String elegido : elegidos) {
+            Valor valor = faceta.get(elegido);
+            if (valor != null) {
+                bits.add(valor.palabras);
+            }
+        }
+        return bits.toArray(new long[0][]);
+    }
+
+    /**
+     * Funcion que une una palabra de los bits de varios valores
+     *
+     * @param valores bits de cada valor
+     * @param i       posicion de la palabra
+     * @return la union de esa palabra
+     */
+    private static long union(long[][] valores, int i) {
+        long union = 0;
+        for (long[] valor : valores) {
+            union |= palabra(valor, i);
+        }
+        return union;
+    }
+
+    /**
+     * Funcion que devuelve una palabra de unos bits. toLongArray quita las
+     * palabras a cero del final, asi que las que faltan valen cero
+     *
+     * @param bits palabras
+     * @param i    posicion de la palabra
+     * @return la palabra
+     */
+    private static long palabra(long[] bits, int i) {
+        return i < bits.length ? bits[i] : 0L;
+    }
+
+    /**
+     * Funcion que cuenta cuantos de los productos filtrados tienen cada valor
+     * de una faceta
+     *
+     * @param palabras bits del resultado
+     * @param faceta   bits por valor
+     * @return la cuenta de los valores que tiene alguno, en orden
+     */
+    private Map<String, Integer> contar(long[] palabras, TreeMap<String, Valor> faceta) {
+        TreeMap<String, Integer> cuentas = new TreeMap<>();
+        for (Map.Entry<String, Valor> valor : faceta.entrySet()) {
+            int cuenta = contar(palabras, valor.getValue().palabras);
+            if (cuenta > 0) {
+                cuentas.put(valor.getKey(), cuenta);
+            }
+        }
+        return cuentas;
+    }
+
+    /**
+     * Funcion que cuenta los bits de la interseccion de dos conjuntos
+     *
+     * @param a bits de uno
+     * @param b bits del otro
+     * @return numero de bits a uno en los dos
+     */
+    private static int contar(long[] a, long[] b) {
+        int cuenta = 0;
+        int longitud = Math.min(a.length, b.length);
+        for (int i = 0; i < longitud; i++) {
+            cuenta += Long.bitCount(a[i] & b[i]);
+        }
+        return cuenta;
+    }
+
+    /**
+     * Funcion que cuenta cuantos de los productos filtrados tienen stock
+     *
+     * @param palabras bits del resultado
+     * @return numero de productos con stock
+     */
+    private int contarStock(long[] palabras) {
+        int cuenta = 0;
+        for (int i = 0; i < palabras.length; i++) {
+            cuenta += Long.bitCount(palabras[i] & conStock.get(i));
+        }
+        return cuenta;
+    }
+
+    /**
+     * Funcion que devuelve el numero de productos indexados
+     *
+     * @return numero de productos
+     */
+    public int getTamanio() {
+        return productos.size();
+    }
+}
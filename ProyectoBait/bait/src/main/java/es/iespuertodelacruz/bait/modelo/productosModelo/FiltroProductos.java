@@ -0,0 +1,70 @@
+package es.iespuertodelacruz.bait.modelo.productosModelo;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Filtro del catalogo por facetas. Dentro de una faceta basta con cumplir uno
+ * de los valores elegidos; entre facetas hay que cumplirlas todas. Una faceta
+ * sin valores no filtra
+ */
+public class FiltroProductos {
+    private HashSet<String> categorias;
+    private HashSet<String> marcas;
+    private HashSet<Integer> franjas;
+    private boolean soloConStock;
+
+    /**
+     * Constructor basico de la clase, sin filtrar nada
+     */
+    public FiltroProductos() {
+        categorias = new HashSet<>();
+        marcas = new HashSet<>();
+        franjas = new HashSet<>();
+    }
+
+    /**
+     * Metodo que añade una categoria a las elegidas
+     * @param idCategoria de la categoria
+     */
+    public void añadirCategoria(String idCategoria) {
+        categorias.add(idCategoria);
+    }
+
+    /**
+     * Metodo que añade una marca a las elegidas
+     * @param idMarca de la marca
+     */
+    public void añadirMarca(String idMarca) {
+        marcas.add(idMarca);
+    }
+
+    /**
+     * Metodo que añade una franja de precio a las elegidas
+     * @param franja posicion de la franja en FacetasProductos.LIMITES_PRECIO
+     */
+    public void añadirFranja(int franja) {
+        franjas.add(franja);
+    }
+
+    public Set<String> getCategorias() {
+        return Collections.unmodifiableSet(categorias);
+    }
+
+    public Set<String> getMarcas() {
+        return Collections.unmodifiableSet(marcas);
+    }
+
+    public Set<Integer> getFranjas() {
+        return Collections.unmodifiableSet(franjas);
+    }
+
+    public boolean isSoloConStock() {
+        return soloConStock;
+    }
+
+    public void setSoloConStock(boolean soloConStock) {
+        this.soloConStock = soloConStock;
+    }
+}
@@ -0,0 +1,357 @@
+package es.iespuertodelacruz.bait.modelo.productosModelo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import es.iespuertodelacruz.bait.api.productos.Producto;
+import es.iespuertodelacruz.bait.exceptions.PersistenciaException;
+import es.iespuertodelacruz.bait.modelo.busqueda.IndiceInvertido;
+import es.iespuertodelacruz.bait.modelo.busqueda.ListaEnteros;
+import es.iespuertodelacruz.bait.modelo.busqueda.Normalizador;
+
+/**
+ * Indice invertido en memoria sobre el nombre y la descripcion de los
+ * productos, para responder al buscador sin ir a la base de datos. Se carga
+ * la primera vez que se usa y despues se mantiene con los avisos de
+ * ProductoModelo. Los productos que devuelve son compartidos y no deben
+ * modificarse
+ */
+public class IndiceProductos implements ObservadorProductos {
+    /**
+     * Errores de escritura que se admiten como mucho por palabra
+     */
+    public static final int DISTANCIA_MAXIMA = 2;
+    private static IndiceProductos instancia;
+
+    private ProductoModelo productoModelo;
+    private ReentrantReadWriteLock candado;
+    private IndiceInvertido indice;
+    private ArrayList<Producto> documentos;
+    private HashMap<String, Integer> documentoPorId;
+    private int huecos;
+    private boolean cargado;
+
+    /**
+     * Constructor con el modelo del que se cargan los productos
+     * 
+     * @param productoModelo de la base de datos
+     */
+    IndiceProductos(ProductoModelo productoModelo) {
+        this.productoModelo = productoModelo;
+        candado = new ReentrantReadWriteLock();
+    }
+
+    /**
+     * Funcion que devuelve el indice compartido, registrandolo la primera vez
+     * para que reciba los cambios de los productos
+     * 
+     * @return el indice de productos
+     * @throws PersistenciaException error a controlar
+     */
+    public static synchronized IndiceProductos obtener() throws PersistenciaException {
+        if (instancia == null) {
+            instancia = new IndiceProductos(new ProductoModelo());
+            ProductoModelo.añadirObservador(instancia);
+        }
+        return instancia;
+    }
+
+    /**
+     * Funcion que busca los productos que tienen, en el nombre o en la
+     * descripcion, una palabra que empieza por cada palabra del texto. Salen
+     * primero los que lo cumplen solo con el nombre
+     * 
+     * @param texto que escribe el usuario
+     * @return la lista de productos encontrados
+     * @throws PersistenciaException si no se puede cargar el indice
+     */
+    public ArrayList<Producto> buscar(String texto) throws PersistenciaException {
+        ArrayList<String> prefijos = Normalizador.tokens(texto);
+        ArrayList<Producto> porNombre = new ArrayList<>();
+        ArrayList<Producto> porDescripcion = new ArrayList<>();
+
+        cargar();
+        try {
+            ListaEnteros encontrados = indice.buscar(prefijos);
+            for (int i = 0; i < encontrados.tamanio(); i++) {
+                Producto producto = documentos.get(encontrados.get(i));
+                if (empiezanTodos(Normalizador.tokens(producto.getNombre()), prefijos)) {
+                    porNombre.add(producto);
+                } else {
+                    porDescripcion.add(producto);
+                }
+            }
+        } finally {
+            candado.readLock().unlock();
+        }
+        porNombre.addAll(porDescripcion);
+        return porNombre;
+    }
+
+    /**
+     * Funcion que busca los productos que tienen, por cada palabra del texto,
+     * una palabra parecida en el nombre o la descripcion, admitiendo errores
+     * de escritura segun su longitud: ninguno hasta 2 letras, uno con 3 y
+     * hasta distanciaMaxima a partir de 4. Salen primero los que tienen menos
+     * errores en total
+     * 
+     * @param texto           que escribe el usuario
+     * @param distanciaMaxima errores que se admiten como mucho por palabra
+     * @return la lista de productos encontrados
+     * @throws PersistenciaException si no se puede cargar el indice
+     */
+    public ArrayList<Producto> buscarAproximado(String texto, int distanciaMaxima) throws PersistenciaException {
+        ArrayList<String> palabras = Normalizador.tokens(texto);
+        ArrayList<ArrayList<ListaEnteros>> niveles = new ArrayList<>(palabras.size());
+        ArrayList<Producto> productos = new ArrayList<>();
+        if (palabras.isEmpty()) {
+            return productos;
+        }
+
+        cargar();
+        try {
+            ListaEnteros candidatos = null;
+            for (String palabra : palabras) {
+                ArrayList<ListaEnteros> parecidos = indice.buscarAproximado(palabra, 
+                    Math.min(distanciaMaxima, tolerancia(palabra)));
+                ListaEnteros todos = ListaEnteros.union(parecidos);
+                candidatos = candidatos == null ? todos : candidatos.interseccion(todos);
+                niveles.add(parecidos);
+            }
+
+            int[] encontrados = candidatos.toArray();
+            long[] ordenados = new long[encontrados.length];
+            for (int i = 0; i < encontrados.length; i++) {
+                ordenados[i] = ((long) errores(niveles, encontrados[i]) << Integer.SIZE) | encontrados[i];
+            }
+            Arrays.sort(ordenados);
+            for (long ordenado : ordenados) {
+                productos.add(documentos.get((int) ordenado));
+            }
+        } finally {
+            candado.readLock().unlock();
+        }
+        return productos;
+    }
+
+    /**
+     * Funcion que devuelve cuantos productos hay indexados
+     * 
+     * @return numero de productos
+     * @throws PersistenciaException si no se puede cargar el indice
+     */
+    public int getProductos() throws PersistenciaException {
+        cargar();
+        try {
+            return documentoPorId.size();
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void guardado(Producto producto) {
+        actualizar(() -> {
+            quitar(producto.getIdProducto());
+            añadir(producto);
+        });
+    }
+
+    @Override
+    public void eliminado(String idProducto) {
+        actualizar(() -> quitar(idProducto));
+    }
+
+    @Override
+    public void stockModificado(String idProducto, int stock) {
+        actualizar(() -> {
+            Integer documento = documentoPorId.get(idProducto);
+            if (documento != null) {
+                Producto anterior = documentos.get(documento);
+                documentos.set(documento, new Producto(anterior.getIdProducto(), anterior.getNombre(),
+                    anterior.getCategoria(), anterior.getPrecio(), anterior.getDescripcion(), stock, 
+                    anterior.getMarca()));
+            }
+        });
+    }
+
+    @Override
+    public void invalidado() {
+        candado.writeLock().lock();
+        try {
+            cargado = false;
+            indice = null;
+            documentos = null;
+            documentoPorId = null;
+            huecos = 0;
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Metodo que carga todos los productos si el indice no esta cargado y
+     * vuelve con el candado de lectura cogido, para que una invalidacion no
+     * pueda vaciar el indice antes de usarlo. Si hay que cargarlo, se pasa del
+     * candado de escritura al de lectura sin soltarlo. Quien lo llama tiene
+     * que soltar el candado de lectura
+     * 
+     * @throws PersistenciaException error a controlar
+     */
+    private void cargar() throws PersistenciaException {
+        candado.readLock().lock();
+        if (cargado) {
+            return;
+        }
+        candado.readLock().unlock();
+
+        candado.writeLock().lock();
+        try {
+            if (!cargado) {
+                indexar(productoModelo.obtenerListado());
+                cargado = true;
+            }
+            candado.readLock().lock();
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Metodo que crea el indice desde cero con los productos recibidos
+     * 
+     * @param productos a indexar
+     */
+    private void indexar(List<Producto> productos) {
+        indice = new IndiceInvertido();
+        documentos = new ArrayList<>(productos.size());
+        documentoPorId = new HashMap<>();
+        huecos = 0;
+        for (Producto producto : productos) {
+            añadir(producto);
+        }
+    }
+
+    /**
+     * Metodo que aplica un cambio con el candado de escritura. Si el indice no
+     * esta cargado no hay nada que actualizar: se leera ya con el cambio.
+     * Cuando mas de la mitad de los documentos son huecos de productos quitados
+     * se vuelve a indexar lo que queda
+     * 
+     * @param cambio a aplicar
+     */
+    private void actualizar(Runnable cambio) {
+        candado.writeLock().lock();
+        try {
+            if (cargado) {
+                cambio.run();
+                if (huecos > documentoPorId.size()) {
+                    ArrayList<Producto> productos = new ArrayList<>(documentoPorId.size());
+                    for (Producto producto : documentos) {
+                        if (producto != null) {
+                            productos.add(producto);
+                        }
+                    }
+                    indexar(productos);
+                }
+            }
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Metodo que añade un producto como documento nuevo
+     * 
+     * @param producto a indexar
+     */
+    private void añadir(Producto producto) {
+        int documento = documentos.size();
+        documentos.add(producto);
+        documentoPorId.put(producto.getIdProducto(), documento);
+        indice.añadir(documento, tokens(producto));
+    }
+
+    /**
+     * Metodo que quita un producto del indice si estaba
+     * 
+     * @param idProducto del producto
+     */
+    private void quitar(String idProducto) {
+        Integer documento = documentoPorId.remove(idProducto);
+        if (documento != null) {
+            indice.quitar(documento, tokens(documentos.get(documento)));
+            documentos.set(documento, null);
+            huecos++;
+        }
+    }
+
+    /**
+     * Funcion que devuelve los terminos de un producto
+     * 
+     * @param producto a indexar
+     * @return los terminos del nombre y la descripcion
+     */
+    private ArrayList<String> tokens(Producto producto) {
+        ArrayList<String> tokens = Normalizador.tokens(producto.getNombre());
+        tokens.addAll(Normalizador.tokens(producto.getDescripcion()));
+        return tokens;
+    }
+
+    /**
+     * Funcion que devuelve los errores que se admiten en una palabra segun su
+     * longitud, para que las palabras cortas no se parezcan a todo
+     * 
+     * @param palabra normalizada
+     * @return numero de errores
+     */
+    private int tolerancia(String palabra) {
+        if (palabra.length() <= 2) {
+            return 0;
+        }
+        return palabra.length() == 3 ? 1 : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Funcion que suma, para cada palabra buscada, la menor distancia con la
+     * que aparece el documento
+     * 
+     * @param niveles   documentos por distancia de cada palabra
+     * @param documento del producto
+     * @return los errores en total
+     */
+    private int errores(ArrayList<ArrayList<ListaEnteros>> niveles, int documento) {
+        int errores = 0;
+        for (ArrayList<ListaEnteros> parecidos : niveles) {
+            int distancia = 0;
+            while (!parecidos.get(distancia).contiene(documento)) {
+                distancia++;
+            }
+            errores += distancia;
+        }
+        return errores;
+    }
+
+    /**
+     * Funcion que indica si cada prefijo es el principio de alguna palabra
+     * 
+     * @param palabras  normalizadas
+     * @param prefijos normalizados
+     * @return verdadero/falso
+     */
+    private boolean empiezanTodos(ArrayList<String> palabras, ArrayList<String> prefijos) {
+        for (String prefijo : prefijos) {
+            boolean encontrado = false;
+            for (int i = 0; i < palabras.size() && !encontrado; i++) {
+                encontrado = palabras.get(i).startsWith(prefijo);
+            }
+            if (!encontrado) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
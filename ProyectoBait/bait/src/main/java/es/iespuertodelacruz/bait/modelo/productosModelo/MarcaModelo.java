@@ -1,20 +1,39 @@
 package es.iespuertodelacruz.bait.modelo.productosModelo;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.stream.Stream;
 
 import es.iespuertodelacruz.bait.api.productos.Marca;
 import es.iespuertodelacruz.bait.exceptions.PersistenciaException;
 import es.iespuertodelacruz.bait.modelo.mysql.BbddSqlite;
+import es.iespuertodelacruz.bait.modelo.mysql.Binder;
+import es.iespuertodelacruz.bait.modelo.mysql.BinderLote;
+import es.iespuertodelacruz.bait.modelo.mysql.MapaIdentidad;
+import es.iespuertodelacruz.bait.modelo.mysql.Pagina;
+import es.iespuertodelacruz.bait.modelo.mysql.Paginador;
+import es.iespuertodelacruz.bait.modelo.mysql.ResultadoLote;
+import es.iespuertodelacruz.bait.modelo.mysql.RowMapper;
 import es.iespuertodelacruz.bait.modelo.mysql.UtilidadesSQL;
 
 public class MarcaModelo {
     public static final String TABLE_NAME = "MARCAS";
     private static final String IDENTIFICADOR = "idMarca";
     private static UtilidadesSQL utilidadesSQL = new UtilidadesSQL(TABLE_NAME, IDENTIFICADOR + ", nombre");
+    private static final BinderLote<Marca> INSERTAR = (preparedStatement, marca) -> {
+        preparedStatement.setString(1, marca.getIdMarca());
+        preparedStatement.setString(2, marca.getNombre());
+    };
+    private static final BinderLote<Marca> MODIFICAR = (preparedStatement, marca) -> {
+        INSERTAR.enlazar(preparedStatement, marca);
+        preparedStatement.setString(3, marca.getIdMarca());
+    };
+    private static final RowMapper<Marca> MAPPER = resultSet -> 
+        new Marca(resultSet.getString(IDENTIFICADOR), resultSet.getString("nombre"));
+    private static final Paginador<Marca> PAGINADOR = new Paginador<>(utilidadesSQL.getSELECTALL(), IDENTIFICADOR,
+        () -> MAPPER, Marca::getIdMarca);
+    private static final CacheReferencia<Marca> CACHE = new CacheReferencia<>(Marca::getIdMarca,
+        elemento -> new Marca(elemento.getIdMarca(), elemento.getNombre()), () -> new MarcaModelo().obtenerListado());
     BbddSqlite persistencia;
 
     /**
@@ -33,20 +52,13 @@ public class MarcaModelo {
      * @throws PersistenciaException error a controlar
      */
     public void insertar(Marca marca) throws PersistenciaException {
-        Connection connection = null;
-        PreparedStatement preparedStatement = null;
         try {
-            connection = persistencia.getConnection();
-            preparedStatement = connection.prepareStatement(utilidadesSQL.getINSERT());
-            preparedStatement.setString(1, marca.getIdMarca());
-            preparedStatement.setString(2, marca.getNombre());
-
-            preparedStatement.executeUpdate();
-        } catch (Exception e) {
+            persistencia.actualizar(utilidadesSQL.getINSERT(), INSERTAR.para(marca));
+        } catch (PersistenciaException e) {
             throw new PersistenciaException("Ha ocurrido un error al insertar una marca", e);
-        } finally {
-            persistencia.closeConnection(connection, preparedStatement, null);
         }
+        CACHE.poner(marca);
+        MapaIdentidad.olvidar(Marca.class, marca.getIdMarca());
 
     }
 
@@ -57,52 +69,42 @@ public class MarcaModelo {
      * @throws PersistenciaException error a controlar
      */
     public void eliminar(String idMarca) throws PersistenciaException {
-        Connection connection = null;
-        PreparedStatement preparedStatement = null;
-
+        int eliminados;
         try {
-            connection = persistencia.getConnection();
-            preparedStatement = connection.prepareStatement(utilidadesSQL.setDelete(IDENTIFICADOR));
-            preparedStatement.setString(1, idMarca);
-
-            preparedStatement.executeUpdate();
-
-        } catch (Exception e) {
+            eliminados = persistencia.actualizar(utilidadesSQL.setDelete(IDENTIFICADOR), preparedStatement -> {
+                preparedStatement.setString(1, idMarca);
+            });
+        } catch (PersistenciaException e) {
             throw new PersistenciaException("Ha ocurrido un error al eliminar una marca", e);
-        } finally {
-            persistencia.closeConnection(connection, preparedStatement, null);
+        }
+        CACHE.quitar(idMarca);
+        MapaIdentidad.olvidar(Marca.class, idMarca);
+        if (eliminados > 0) {
+            ProductoModelo.avisarInvalidado();
         }
 
     }
 
     /**
-     * Funcion que realiza un consulta y devuelve una lista de categorias
+     * Funcion que realiza un consulta y devuelve una lista de marcas
      * 
-     * @param sql   consulta que se va a realizar
-     * @param valor del campo a filtrar
-     * @return una lista de categoria
+     * @param sql     consulta que se va a realizar
+     * @param valores de los campos a filtrar
+     * @return una lista de marcas
      * @throws PersistenciaException error a controlar
      */
-    private ArrayList<Marca> buscarPorElemento(String sql, String valor) throws PersistenciaException {
-        ResultSet resultSet;
-        ArrayList<Marca> lista = new ArrayList<>();
-
-        resultSet = persistencia.buscarElemento(sql, valor);
-
-        try {
-            while (resultSet.next()) {
-                String IdMarca = resultSet.getString(IDENTIFICADOR);
-                String nombre = resultSet.getString("nombre");
-
-                Marca marca = new Marca(IdMarca, nombre);
-                lista.add(marca);
-            }
-        } catch (SQLException e) {
-            throw new PersistenciaException(e.getMessage());
-        }
-
-        return lista;
+    private ArrayList<Marca> buscarPorElemento(String sql, Object... valores) throws PersistenciaException {
+        return persistencia.consultar(sql, Binder.valores(valores), MAPPER);
+    }
 
+    /**
+     * Funcion que devuelve la cache de marcas que usa buscarPorId, con sus
+     * contadores de aciertos y fallos
+     * 
+     * @return la cache compartida
+     */
+    public static CacheReferencia<Marca> getCache() {
+        return CACHE;
     }
 
     /**
@@ -113,16 +115,7 @@ public class MarcaModelo {
      * @throws PersistenciaException error a controlar
      */
     public Marca buscarPorId(String idMarca) throws PersistenciaException {
-        ArrayList<Marca> lista;
-        Marca marca = null;
-        String sql = utilidadesSQL.setSelectOne(IDENTIFICADOR);
-        lista = buscarPorElemento(sql, idMarca);
-
-        if (!lista.isEmpty()) {
-            marca = lista.get(0);
-        }
-
-        return marca;
+        return MapaIdentidad.buscar(Marca.class, idMarca, CACHE::buscar);
     }
 
     /**
@@ -155,11 +148,36 @@ public class MarcaModelo {
         ArrayList<Marca> lista;
         String sql = utilidadesSQL.getSELECTALL();
 
-        lista = buscarPorElemento(sql, "");
+        lista = buscarPorElemento(sql);
 
         return lista;
     }
 
+    /**
+     * Funcion que devuelve las marcas como un Stream perezoso que va leyendo las
+     * filas segun se recorre, sin cargarlas todas en memoria. La conexion queda
+     * abierta hasta que se cierra, asi que debe usarse en un try-with-resources
+     * 
+     * @return el Stream de marcas
+     * @throws PersistenciaException error a controlar
+     */
+    public Stream<Marca> streamListado() throws PersistenciaException {
+        return persistencia.consultarStream(utilidadesSQL.getSELECTALL(), Binder.NINGUNO, MAPPER);
+    }
+
+    /**
+     * Funcion que obtiene una pagina del listado de marcas, ordenado por su
+     * identificador
+     * 
+     * @param token de la pagina, null para la primera
+     * @param tamanio numero maximo de marcas de la pagina
+     * @return la pagina de marcas
+     * @throws PersistenciaException error a controlar
+     */
+    public Pagina<Marca> obtenerPagina(String token, int tamanio) throws PersistenciaException {
+        return PAGINADOR.obtener(persistencia, token, tamanio, "");
+    }
+
     /**
      * Metodo que modifica un campo en concreto de la base datos
      * 
@@ -167,22 +185,56 @@ public class MarcaModelo {
      * @throws PersistenciaException error a controlar
      */
     public void modificar(Marca marca) throws PersistenciaException {
-        Connection connection = null;
-        PreparedStatement preparedStatement = null;
         try {
-            connection = persistencia.getConnection();
-            preparedStatement = connection.prepareStatement(utilidadesSQL.setUpdate());
-            preparedStatement.setString(1, marca.getIdMarca());
-            preparedStatement.setString(2, marca.getNombre());
-            preparedStatement.setString(3, marca.getIdMarca());
-
-            preparedStatement.executeUpdate();
-        } catch (Exception e) {
+            if (persistencia.actualizar(utilidadesSQL.setUpdate(), MODIFICAR.para(marca)) > 0) {
+                CACHE.poner(marca);
+                MapaIdentidad.olvidar(Marca.class, marca.getIdMarca());
+                ProductoModelo.avisarInvalidado();
+            }
+        } catch (PersistenciaException e) {
             throw new PersistenciaException("Ha ocurrido un error al modificar una marca", e);
-        } finally {
-            persistencia.closeConnection(connection, preparedStatement, null);
         }
 
     }
 
+    /**
+     * Funcion que inserta las marcas en una sola transaccion, reutilizando la
+     * sentencia con executeBatch
+     * @param marcas que se van a insertar en la base de datos
+     * @return el resultado con las marcas que no se han podido insertar
+     * @throws PersistenciaException error a controlar
+     */
+    public ResultadoLote<Marca> insertarLote(Collection<Marca> marcas) throws PersistenciaException {
+        try {
+            ResultadoLote<Marca> resultado = persistencia.actualizarLote(utilidadesSQL.getINSERT(), marcas, 
+                INSERTAR);
+            CACHE.invalidar();
+            MapaIdentidad.olvidarTodas(Marca.class);
+            return resultado;
+        } catch (PersistenciaException e) {
+            throw new PersistenciaException("Ha ocurrido un error al insertar las marcas", e);
+        }
+    }
+
+    /**
+     * Funcion que modifica las marcas en una sola transaccion, reutilizando la
+     * sentencia con executeBatch
+     * @param marcas que se van a modificar
+     * @return el resultado con las marcas que no se han podido modificar
+     * @throws PersistenciaException error a controlar
+     */
+    public ResultadoLote<Marca> modificarLote(Collection<Marca> marcas) throws PersistenciaException {
+        try {
+            ResultadoLote<Marca> resultado = persistencia.actualizarLote(utilidadesSQL.setUpdate(), marcas, MODIFICAR);
+            CACHE.invalidar();
+            MapaIdentidad.olvidarTodas(Marca.class);
+            if (resultado.getCorrectos() > 0) {
+                ProductoModelo.avisarInvalidado();
+            }
+            return resultado;
+        } catch (PersistenciaException e) {
+            throw new PersistenciaException("Ha ocurrido un error al modificar las marcas", e);
+        }
+    }
+
 }
@@ -0,0 +1,47 @@
+package es.iespuertodelacruz.bait.modelo.productosModelo;
+
+import es.iespuertodelacruz.bait.api.productos.Producto;
+
+/**
+ * Recibe los cambios de los productos una vez confirmados en la base de datos
+ */
+public interface ObservadorProductos {
+
+    /**
+     * Metodo al que se avisa cuando se inserta o se modifica un producto
+     * 
+     * @param producto tal y como ha quedado guardado
+     */
+    void guardado(Producto producto);
+
+    /**
+     * Metodo al que se avisa cuando se elimina un producto
+     * 
+     * @param idProducto del producto eliminado
+     */
+    void eliminado(String idProducto);
+
+    /**
+     * Metodo al que se avisa cuando cambia el stock de un producto
+     * 
+     * @param idProducto del producto
+     * @param stock      que tiene ahora
+     */
+    void stockModificado(String idProducto, int stock);
+
+    /**
+     * Metodo al que se avisa cuando se venden unidades de un producto. Por
+     * defecto no hace nada, el cambio de stock llega aparte
+     * 
+     * @param idProducto del producto
+     * @param unidades   vendidas
+     */
+    default void vendido(String idProducto, int unidades) {
+    }
+
+    /**
+     * Metodo al que se avisa cuando cambian muchos productos a la vez, o sus
+     * categorias o marcas, y conviene volver a leerlos todos
+     */
+    void invalidado();
+}
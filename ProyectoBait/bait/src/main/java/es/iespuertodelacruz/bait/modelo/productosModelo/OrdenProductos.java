@@ -0,0 +1,97 @@
+package es.iespuertodelacruz.bait.modelo.productosModelo;
+
+import java.util.Comparator;
+import java.util.function.Function;
+
+import es.iespuertodelacruz.bait.api.productos.Producto;
+
+/**
+ * Ordenes en los que se pueden listar los productos. Cada uno tiene la
+ * columna por la que se ordena en SQL, cubierta por un indice junto al
+ * identificador, y el comparador equivalente para ordenar en memoria. El
+ * identificador desempata en el mismo sentido que la columna
+ */
+public enum OrdenProductos {
+    PRECIO_ASC("ROUND(p.precio, 2)", false, OrdenProductos::precio),
+    PRECIO_DESC("ROUND(p.precio, 2)", true, OrdenProductos::precio),
+    NOMBRE_ASC("p.nombre", false, Producto::getNombre),
+    NOMBRE_DESC("p.nombre", true, Producto::getNombre),
+    STOCK_ASC("p.stock", false, producto -> (long) producto.getStock()),
+    STOCK_DESC("p.stock", true, producto -> (long) producto.getStock());
+
+    private String[] columnas;
+    private boolean descendente;
+    private Function<Producto, Comparable<?>> valor;
+    private Comparator<Producto> comparador;
+
+    /**
+     * Constructor con la columna y el valor del producto que le corresponde
+     * 
+     * @param columna     expresion SQL sobre PRODUCTOS con alias p
+     * @param descendente true para ordenar de mayor a menor
+     * @param valor       funcion que devuelve el valor de la columna de un
+     *                    producto, con el mismo tipo que en la base de datos
+     */
+    OrdenProductos(String columna, boolean descendente, Function<Producto, Comparable<?>> valor) {
+        columnas = new String[] { columna, "p.idProducto" };
+        this.descendente = descendente;
+        this.valor = valor;
+        Comparator<Producto> ascendente = (uno, otro) -> {
+            @SuppressWarnings("unchecked")
+            Comparable<Object> primero = (Comparable<Object>) valor.apply(uno);
+            int comparacion = primero.compareTo(valor.apply(otro));
+            return comparacion != 0 ? comparacion : uno.getIdProducto().compareTo(otro.getIdProducto());
+        };
+        comparador = descendente ? ascendente.reversed() : ascendente;
+    }
+
+    /**
+     * Funcion que devuelve el precio redondeado a centimos igual que la
+     * columna del indice, para que el float leido coincida con el double
+     * guardado
+     * 
+     * @param producto del que se lee el precio
+     * @return el precio redondeado
+     */
+    private static Double precio(Producto producto) {
+        return Math.round(producto.getPrecio() * 100) / 100.0;
+    }
+
+    /**
+     * Funcion que devuelve las columnas por las que se ordena en SQL
+     * 
+     * @return la columna del orden y el identificador
+     */
+    public String[] getColumnas() {
+        return columnas.clone();
+    }
+
+    public boolean isDescendente() {
+        return descendente;
+    }
+
+    /**
+     * Funcion que indica si el orden depende del stock, que cambia sin crear
+     * una version nueva del catalogo
+     * 
+     * @return verdadero/falso
+     */
+    public boolean isPorStock() {
+        return this == STOCK_ASC || this == STOCK_DESC;
+    }
+
+    /**
+     * Funcion que devuelve la clave de un producto en este orden, para
+     * paginar desde el
+     * 
+     * @param producto del que se saca la clave
+     * @return el valor de la columna y el identificador
+     */
+    public Object[] getClave(Producto producto) {
+        return new Object[] { valor.apply(producto), producto.getIdProducto() };
+    }
+
+    public Comparator<Producto> getComparador() {
+        return comparador;
+    }
+}
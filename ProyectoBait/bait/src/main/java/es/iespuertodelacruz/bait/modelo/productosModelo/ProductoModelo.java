@@ -1,16 +1,25 @@
 package es.iespuertodelacruz.bait.modelo.productosModelo;
 
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
 
 import es.iespuertodelacruz.bait.api.productos.Categoria;
 import es.iespuertodelacruz.bait.api.productos.Marca;
 import es.iespuertodelacruz.bait.api.productos.Producto;
 import es.iespuertodelacruz.bait.exceptions.PersistenciaException;
+import es.iespuertodelacruz.bait.modelo.busqueda.Sugerencia;
 import es.iespuertodelacruz.bait.modelo.mysql.BbddSqlite;
+import es.iespuertodelacruz.bait.modelo.mysql.Binder;
+import es.iespuertodelacruz.bait.modelo.mysql.BinderLote;
+import es.iespuertodelacruz.bait.modelo.mysql.MapaIdentidad;
+import es.iespuertodelacruz.bait.modelo.mysql.Pagina;
+import es.iespuertodelacruz.bait.modelo.mysql.Paginador;
+import es.iespuertodelacruz.bait.modelo.mysql.ResultadoLote;
+import es.iespuertodelacruz.bait.modelo.mysql.RowMapper;
+import es.iespuertodelacruz.bait.modelo.mysql.Transaccion;
 import es.iespuertodelacruz.bait.modelo.mysql.UtilidadesSQL;
 
 public class ProductoModelo {
@@ -18,17 +27,80 @@ public class ProductoModelo {
     private static final String IDENTIFICADOR = "idProducto";
     private static UtilidadesSQL utilidadesSQL = new UtilidadesSQL(TABLE_NAME,"idProducto, nombre, precio, descripcion"
     + ", stock, idCategoria, idMarca");
+    private static final BinderLote<Producto> INSERTAR = (preparedStatement, producto) -> {
+        preparedStatement.setString(1, producto.getIdProducto());
+        preparedStatement.setString(2, producto.getNombre());
+        preparedStatement.setFloat(3, producto.getPrecio());
+        preparedStatement.setString(4, producto.getDescripcion());
+        preparedStatement.setInt(5, producto.getStock());
+        preparedStatement.setString(6, producto.getCategoria().getIdCategoria());
+        preparedStatement.setString(7, producto.getMarca().getIdMarca());
+    };
+    private static final BinderLote<Producto> MODIFICAR = (preparedStatement, producto) -> {
+        INSERTAR.enlazar(preparedStatement, producto);
+        preparedStatement.setString(8, producto.getIdProducto());
+    };
+    /**
+     * Columnas del producto con su categoria y su marca, con alias que no chocan
+     * con las de otras tablas para poder reutilizarlas en otros JOIN
+     */
+    public static final String COLUMNAS = "p.idProducto, p.nombre AS nombreProducto, p.precio, p.descripcion, "
+        + "p.stock, c.idCategoria, c.nombre AS nombreCategoria, m.idMarca, m.nombre AS nombreMarca";
+    /**
+     * JOIN de PRODUCTOS (alias p) con CATEGORIAS (c) y MARCAS (m)
+     */
+    public static final String JOIN_CATEGORIA_MARCA = " LEFT JOIN CATEGORIAS c ON c.idCategoria = p.idCategoria"
+        + " LEFT JOIN MARCAS m ON m.idMarca = p.idMarca";
+    private static final String REDUCIR_STOCK = "UPDATE " + TABLE_NAME 
+        + " SET stock = stock - ? WHERE idProducto = ? AND stock >= ?";
+    private static final String SELECT_STOCK = "SELECT stock FROM " + TABLE_NAME + " WHERE idProducto = ?";
+    private static final CopyOnWriteArrayList<ObservadorProductos> OBSERVADORES = new CopyOnWriteArrayList<>();
+    private static final String AUMENTAR_STOCK = "UPDATE " + TABLE_NAME + " SET stock = stock + ? WHERE idProducto = ?";
+    /**
+     * Consulta de los productos con su categoria y su marca, a la que se añaden
+     * los filtros
+     */
+    public static final String SELECT_PRODUCTOS = "SELECT " + COLUMNAS + " FROM PRODUCTOS p" + JOIN_CATEGORIA_MARCA;
+    public static final String FILTRO_CATEGORIA = " WHERE p.idCategoria = ?";
+    public static final String FILTRO_MARCA = " WHERE p.idMarca = ?";
+    /**
+     * Busqueda de texto completo sobre PRODUCTOS_FTS, ordenada por bm25 con el
+     * nombre diez veces mas importante que la descripcion
+     */
+    public static final String SELECT_TEXTO = "SELECT " + COLUMNAS + " FROM PRODUCTOS_FTS"
+        + " JOIN PRODUCTOS p ON p.rowid = PRODUCTOS_FTS.rowid" + JOIN_CATEGORIA_MARCA
+        + " WHERE PRODUCTOS_FTS MATCH ? ORDER BY bm25(PRODUCTOS_FTS, 10.0, 1.0) LIMIT ?";
+    public static final int SIN_LIMITE = -1;
+    /**
+     * Nombre de cada producto con las unidades vendidas en sus pedidos
+     */
+    public static final String SELECT_VENTAS = "SELECT p.idProducto, p.nombre, COALESCE(SUM(pe.unidades), 0) AS ventas"
+        + " FROM PRODUCTOS p LEFT JOIN PEDIDOS pe ON pe.idProducto = p.idProducto GROUP BY p.idProducto";
+    /**
+     * Convierte una fila con las COLUMNAS en el producto con su categoria y su marca
+     */
+    public static final RowMapper<Producto> MAPPER = resultSet -> {
+        Categoria categoria = null;
+        Marca marca = null;
+        if (resultSet.getString("idCategoria") != null) {
+            categoria = new Categoria(resultSet.getString("idCategoria"), resultSet.getString("nombreCategoria"));
+        }
+        if (resultSet.getString("idMarca") != null) {
+            marca = new Marca(resultSet.getString("idMarca"), resultSet.getString("nombreMarca"));
+        }
+        return new Producto(resultSet.getString(IDENTIFICADOR), resultSet.getString("nombreProducto"), categoria, 
+            resultSet.getFloat("precio"), resultSet.getString("descripcion"), resultSet.getInt("stock"), marca);
+    };
+    private static final Paginador<Producto> PAGINADOR = new Paginador<>(SELECT_PRODUCTOS, "p.idProducto", 
+        () -> MAPPER, Producto::getIdProducto);
+    private static final EnumMap<OrdenProductos, Paginador<Producto>> PAGINADORES_ORDENADOS = paginadoresOrdenados();
     BbddSqlite persistencia;
-    MarcaModelo marcaModelo;
-    CategoriaModelo categoriaModelo;
 
     /**
      * Constructor basico de la clase
      * @throws PersistenciaException error a controlar
      */
     public ProductoModelo() throws PersistenciaException {
-        categoriaModelo = new CategoriaModelo();
-        marcaModelo = new MarcaModelo();
         persistencia = new BbddSqlite(TABLE_NAME, null, null);
     }
 
@@ -38,27 +110,13 @@ public class ProductoModelo {
      * @throws PersistenciaException error a controlar
      */
     public void insertar(Producto producto) throws PersistenciaException {
-        Connection connection = null;
-        PreparedStatement preparedStatement = null;
-
         try {
-            connection = persistencia.getConnection();
-            preparedStatement = connection.prepareStatement(utilidadesSQL.getINSERT());
-            preparedStatement.setString(1, producto.getIdProducto());
-            preparedStatement.setString(2, producto.getNombre());
-            preparedStatement.setFloat(3, producto.getPrecio());
-            preparedStatement.setString(4, producto.getDescripcion());
-            preparedStatement.setInt(5, producto.getStock());
-            preparedStatement.setString(6, producto.getCategoria().getIdCategoria());
-            preparedStatement.setString(7, producto.getMarca().getIdMarca());
-
-            preparedStatement.executeUpdate();
-        } catch (Exception e) {
+            persistencia.actualizar(utilidadesSQL.getINSERT(), INSERTAR.para(producto));
+        } catch (PersistenciaException e) {
             throw new PersistenciaException("Ha ocurrido un error al insertar un producto", e);
-        }finally{
-            persistencia.closeConnection(connection, preparedStatement, null);
         }
-     
+        MapaIdentidad.olvidar(Producto.class, producto.getIdProducto());
+        avisarGuardado(producto.getIdProducto());
     }
 
     /**
@@ -68,70 +126,77 @@ public class ProductoModelo {
      * @throws PersistenciaException error a controlar
      */
     public void eliminar(String idProducto) throws PersistenciaException {
-        Connection connection = null;
-        PreparedStatement preparedStatement = null;
+        int eliminados;
         try {
-            connection = persistencia.getConnection();
-            preparedStatement = connection.prepareStatement(utilidadesSQL.setDelete(IDENTIFICADOR));
-            preparedStatement.setString(1, idProducto);
-
-            preparedStatement.executeUpdate();
-        } catch (Exception e) {
+            eliminados = persistencia.actualizar(utilidadesSQL.setDelete(IDENTIFICADOR), preparedStatement -> {
+                preparedStatement.setString(1, idProducto);
+            });
+        } catch (PersistenciaException e) {
             throw new PersistenciaException("Ha ocurrido un error al eliminar un producto", e);
-        }finally{
-            persistencia.closeConnection(connection, preparedStatement, null);
         }
-
+        if (eliminados > 0) {
+            MapaIdentidad.olvidar(Producto.class, idProducto);
+            for (ObservadorProductos observador : OBSERVADORES) {
+                observador.eliminado(idProducto);
+            }
+        }
     }
 
     /**
-     * Funcion que realiza un consulta y devuelve una lista de productos
-     * @param sql consulta que se va a realizar
-     * @param valor del campo a filtrar
+     * Funcion que realiza un consulta y devuelve una lista de productos. La
+     * categoria y la marca llegan en la misma fila gracias al JOIN
+     * @param filtro condicion WHERE que se añade a la consulta, o vacio
+     * @param valores de los campos a filtrar
      * @return una lista de productos
      * @throws PersistenciaException error a controlar
      */
-    private ArrayList<Producto> buscarPorElemento(String sql, String valor) throws PersistenciaException{
-        ResultSet resultSet;
-        ArrayList<Producto> lista = new ArrayList<>();
+    private ArrayList<Producto> buscarPorElemento(String filtro, Object... valores) throws PersistenciaException{
+        return persistencia.consultar(SELECT_PRODUCTOS + filtro, Binder.valores(valores), MAPPER);
+    }
 
-        resultSet = persistencia.buscarElemento(sql, valor);
+    /**
+     * Funcion que busca un producto por su idProducto. Pasa por el mapa de
+     * identidad de la peticion y por la cache de productos, que solo va a la
+     * base de datos si no lo tiene
+     * @param idProducto del producto que se va buscar
+     * @return el producto encontrado
+     * @throws PersistenciaException error a controlar
+     */
+    public Producto buscarPorId(String idProducto) throws PersistenciaException {
+        return MapaIdentidad.buscar(Producto.class, idProducto, CacheProductos.obtener()::buscar);
+    }
 
-        try {
-            while (resultSet.next()){
-                String idProducto = resultSet.getString("idProducto");
-                String nombre = resultSet.getString("nombre");
-                float precio = resultSet.getFloat("precio");
-                String descripcion = resultSet.getString("descripcion");
-                int stock = resultSet.getInt("stock");
-                String idCategoria = resultSet.getString("idCategoria");
-                String idMarca = resultSet.getString("idMarca");
-
-                Categoria categoria = categoriaModelo.buscarPorId(idCategoria);
-                Marca marca = marcaModelo.buscarPorId(idMarca);
-
-                Producto producto = new Producto(idProducto, nombre, categoria, precio, descripcion, stock, marca);
-                lista.add(producto);
-            }
-        } catch (SQLException e) {
-            throw new PersistenciaException(e.getMessage());
-        }
+    /**
+     * Funcion que lee un producto por su idProducto de la base de datos
+     * @param idProducto del producto que se va buscar
+     * @return el producto encontrado
+     * @throws PersistenciaException error a controlar
+     */
+    Producto leerPorId(String idProducto) throws PersistenciaException {
+        ArrayList<Producto> lista;
+        Producto producto = null;
+        lista = buscarPorElemento(" WHERE p.idProducto = ?", idProducto); 
 
-        return lista;
+        if (!lista.isEmpty()) {
+            producto = lista.get(0);
+        }
 
+        return producto;
     }
 
     /**
-     * Funcion que busca un producto por su idProducto
+     * Funcion que busca un producto por su idProducto dentro de una transaccion
+     * abierta, viendo lo que esta ya ha modificado
      * @param idProducto del producto que se va buscar
+     * @param transaccion en la que se busca
      * @return el producto encontrado
      * @throws PersistenciaException error a controlar
      */
-    public Producto buscarPorId(String idProducto) throws PersistenciaException {
+    public Producto buscarPorId(String idProducto, Transaccion transaccion) throws PersistenciaException {
         ArrayList<Producto> lista;
         Producto producto = null;
-        String sql = utilidadesSQL.setSelectOne(IDENTIFICADOR);
-        lista = buscarPorElemento(sql, idProducto); 
+        lista = persistencia.consultar(transaccion, SELECT_PRODUCTOS + " WHERE p.idProducto = ?", 
+            Binder.valores(idProducto), MAPPER);
 
         if (!lista.isEmpty()) {
             producto = lista.get(0);
@@ -141,18 +206,55 @@ public class ProductoModelo {
     }
 
     /**
-     * Funcion que busca productos por su categoria
+     * Funcion que busca productos por las palabras de su nombre o su
+     * descripcion, ordenados por relevancia
      * @param nombre del producto que se va buscar
      * @return la lista de producto encontrado
      * @throws PersistenciaException error a controlar
      */
     public ArrayList<Producto> buscarPorNombre(String nombre) throws PersistenciaException {
-        ArrayList<Producto> lista = null;
-        String sql = "SELECT * FROM PRODUCTOS WHERE nombre LIKE '%"+nombre+"%';";
+        return buscarPorTexto(nombre, SIN_LIMITE);
+    }
 
-        lista = buscarPorElemento(sql, "");
+    /**
+     * Funcion que busca productos en el indice de texto completo. Cada palabra
+     * del texto se busca como prefijo ("mand" encuentra "Mando") sin importar
+     * mayusculas ni tildes, y los resultados salen ordenados por relevancia,
+     * pesando mas el nombre que la descripcion
+     * @param texto que escribe el usuario
+     * @param limite numero maximo de productos, o SIN_LIMITE
+     * @return la lista de productos encontrados
+     * @throws PersistenciaException error a controlar
+     */
+    public ArrayList<Producto> buscarPorTexto(String texto, int limite) throws PersistenciaException {
+        String expresion = expresionBusqueda(texto);
+        if (expresion.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return persistencia.consultar(SELECT_TEXTO, Binder.valores(expresion, limite), MAPPER);
+    }
 
-        return lista;
+    /**
+     * Funcion que convierte el texto del usuario en una expresion MATCH segura:
+     * solo se quedan las letras y los numeros de cada palabra, entre comillas y
+     * como prefijo, de modo que los operadores de FTS5 no se interpretan
+     * @param texto que escribe el usuario
+     * @return la expresion, vacia si no hay ninguna palabra
+     */
+    private static String expresionBusqueda(String texto) {
+        StringBuilder expresion = new StringBuilder();
+        if (texto == null) {
+            return "";
+        }
+        for (String palabra : texto.split("[^\\p{L}\\p{N}]+")) {
+            if (!palabra.isEmpty()) {
+                if (expresion.length() > 0) {
+                    expresion.append(' ');
+                }
+                expresion.append('"').append(palabra).append("\"*");
+            }
+        }
+        return expresion.toString();
     }
 
     /**
@@ -163,8 +265,7 @@ public class ProductoModelo {
      */
     public ArrayList<Producto> buscarPorCategoria(String idCategoria) throws PersistenciaException {
         ArrayList<Producto> lista = null;
-        String sql = utilidadesSQL.setSelectOne("idCategoria");
-        lista = buscarPorElemento(sql, idCategoria); 
+        lista = buscarPorElemento(FILTRO_CATEGORIA, idCategoria); 
 
         return lista;
     }
@@ -177,8 +278,7 @@ public class ProductoModelo {
      */
     public ArrayList<Producto> buscarPorMarca(String idMarca) throws PersistenciaException {
         ArrayList<Producto> lista = null;
-        String sql = utilidadesSQL.setSelectOne("idMarca");
-        lista = buscarPorElemento(sql, idMarca); 
+        lista = buscarPorElemento(FILTRO_MARCA, idMarca); 
 
         return lista;
     }
@@ -191,13 +291,77 @@ public class ProductoModelo {
     */
     public ArrayList<Producto> obtenerListado() throws PersistenciaException {
         ArrayList<Producto> lista = null;
-        String sql = utilidadesSQL.getSELECTALL();
-
-        lista = buscarPorElemento(sql, "");
+        lista = buscarPorElemento("");
 
         return lista;
     }
 
+    /**
+     * Funcion que devuelve los productos como un Stream perezoso que va leyendo las
+     * filas segun se recorre, sin cargarlas todas en memoria. La conexion queda
+     * abierta hasta que se cierra, asi que debe usarse en un try-with-resources
+     * @return el Stream de productos
+     * @throws PersistenciaException error a controlar
+    */
+    public Stream<Producto> streamListado() throws PersistenciaException {
+        return persistencia.consultarStream(SELECT_PRODUCTOS, Binder.NINGUNO, MAPPER);
+    }
+
+    /**
+     * Funcion que obtiene una pagina del listado de productos, ordenado por su
+     * identificador
+     * @param token de la pagina, null para la primera
+     * @param tamanio numero maximo de productos de la pagina
+     * @return la pagina de productos
+     * @throws PersistenciaException error a controlar
+    */
+    public Pagina<Producto> obtenerPagina(String token, int tamanio) throws PersistenciaException {
+        return PAGINADOR.obtener(persistencia, token, tamanio, "");
+    }
+
+    /**
+     * Funcion que obtiene una pagina del listado de productos en el orden
+     * pedido. Cada pagina es un ORDER BY ... LIMIT que recorre el indice del
+     * orden desde la clave de la anterior
+     * @param orden en el que se listan
+     * @param token de la pagina, null para la primera
+     * @param tamanio numero maximo de productos de la pagina
+     * @return la pagina de productos
+     * @throws PersistenciaException error a controlar
+    */
+    public Pagina<Producto> obtenerPagina(OrdenProductos orden, String token, int tamanio) 
+            throws PersistenciaException {
+        return PAGINADORES_ORDENADOS.get(orden).obtener(persistencia, token, tamanio, "");
+    }
+
+    /**
+     * Funcion que crea un paginador por cada orden de los productos
+     * @return los paginadores por orden
+     */
+    private static EnumMap<OrdenProductos, Paginador<Producto>> paginadoresOrdenados() {
+        EnumMap<OrdenProductos, Paginador<Producto>> paginadores = new EnumMap<>(OrdenProductos.class);
+        for (OrdenProductos orden : OrdenProductos.values()) {
+            paginadores.put(orden, new Paginador<>(SELECT_PRODUCTOS, orden.getColumnas(), orden.isDescendente(),
+                () -> MAPPER, orden::getClave));
+        }
+        return paginadores;
+    }
+
+    /**
+     * Funcion que devuelve una sugerencia por producto con su nombre, pesada
+     * con las unidades vendidas
+     * @return la lista de sugerencias
+     * @throws PersistenciaException error a controlar
+     */
+    public ArrayList<Sugerencia> obtenerSugerencias() throws PersistenciaException {
+        try {
+            return persistencia.consultar(SELECT_VENTAS, Binder.NINGUNO, resultSet -> new Sugerencia(
+                resultSet.getString(IDENTIFICADOR), resultSet.getString("nombre"), resultSet.getInt("ventas")));
+        } catch (PersistenciaException e) {
+            throw new PersistenciaException("Ha ocurrido un error al obtener las ventas de los productos", e);
+        }
+    }
+
 
     /**
      * Metodo encargado de modificar un producto en la base de datos
@@ -205,28 +369,193 @@ public class ProductoModelo {
      * @throws PersistenciaException error a controlar
      */
     public void modificar(Producto producto) throws PersistenciaException {
-        Connection connection = null;
-        PreparedStatement preparedStatement = null;
-
+        int modificados;
         try {
-            connection = persistencia.getConnection();
-            preparedStatement = connection.prepareStatement(utilidadesSQL.setUpdate());
-            preparedStatement.setString(1, producto.getIdProducto());
-            preparedStatement.setString(2, producto.getNombre());
-            preparedStatement.setFloat(3, producto.getPrecio());
-            preparedStatement.setString(4, producto.getDescripcion());
-            preparedStatement.setInt(5, producto.getStock());
-            preparedStatement.setString(6, producto.getCategoria().getIdCategoria());
-            preparedStatement.setString(7, producto.getMarca().getIdMarca());
-            preparedStatement.setString(8, producto.getIdProducto());
-
-            preparedStatement.executeUpdate();
-        } catch (Exception e) {
+            modificados = persistencia.actualizar(utilidadesSQL.setUpdate(), MODIFICAR.para(producto));
+        } catch (PersistenciaException e) {
             throw new PersistenciaException("Ha ocurrido un error al modificar un producto", e);
-        }finally{
-            persistencia.closeConnection(connection, preparedStatement, null);
         }
-        
+        if (modificados > 0) {
+            MapaIdentidad.olvidar(Producto.class, producto.getIdProducto());
+            avisarGuardado(producto.getIdProducto());
+        }
+    }
+
+    /**
+     * Funcion que descuenta unidades del stock en una sola sentencia, solo si
+     * hay stock suficiente, de modo que dos compras a la vez no pueden dejarlo
+     * en negativo
+     * @param idProducto del producto que se compra
+     * @param unidades que se descuentan
+     * @return verdadero si se ha descontado, falso si no hay stock suficiente o
+     * no existe el producto
+     * @throws PersistenciaException error a controlar
+     */
+    public boolean reducirStock(String idProducto, int unidades) throws PersistenciaException {
+        return persistencia.ejecutarEnTransaccion(transaccion -> reducirStock(idProducto, unidades, transaccion));
+    }
+
+    /**
+     * Funcion que descuenta unidades del stock dentro de una transaccion abierta
+     * @param idProducto del producto que se compra
+     * @param unidades que se descuentan
+     * @param transaccion en la que se descuenta
+     * @return verdadero si se ha descontado, falso si no hay stock suficiente o
+     * no existe el producto
+     * @throws PersistenciaException error a controlar
+     */
+    public boolean reducirStock(String idProducto, int unidades, Transaccion transaccion) throws PersistenciaException {
+        boolean reducido = actualizarStock(transaccion, REDUCIR_STOCK, idProducto, unidades, idProducto, unidades);
+        if (reducido && !OBSERVADORES.isEmpty()) {
+            transaccion.despuesDeConfirmar(() -> {
+                for (ObservadorProductos observador : OBSERVADORES) {
+                    observador.vendido(idProducto, unidades);
+                }
+            });
+        }
+        return reducido;
+    }
+
+    /**
+     * Funcion que suma unidades al stock en una sola sentencia
+     * @param idProducto del producto a reponer
+     * @param cantidad que se añade
+     * @return verdadero si se ha actualizado, falso si no existe el producto
+     * @throws PersistenciaException error a controlar
+     */
+    public boolean aumentarStock(String idProducto, int cantidad) throws PersistenciaException {
+        return persistencia.ejecutarEnTransaccion(
+            transaccion -> actualizarStock(transaccion, AUMENTAR_STOCK, idProducto, cantidad, idProducto));
+    }
+
+    /**
+     * Funcion que ejecuta una actualizacion del stock y devuelve si ha afectado a
+     * alguna fila. Si hay observadores, lee el stock nuevo en la misma
+     * transaccion y se lo pasa cuando se confirma
+     * @param transaccion en la que se actualiza
+     * @param sql actualizacion que se ejecuta
+     * @param idProducto del producto que se actualiza
+     * @param valores de los parametros de la sentencia
+     * @return verdadero/falso
+     * @throws PersistenciaException error a controlar
+     */
+    private boolean actualizarStock(Transaccion transaccion, String sql, String idProducto, Object... valores) 
+        throws PersistenciaException {
+        boolean actualizado;
+        try {
+            actualizado = persistencia.actualizar(transaccion, sql, Binder.valores(valores)) > 0;
+            if (actualizado) {
+                transaccion.olvidar(Producto.class, idProducto);
+            }
+            if (actualizado && !OBSERVADORES.isEmpty()) {
+                int stock = persistencia.consultar(transaccion, SELECT_STOCK, Binder.valores(idProducto), 
+                    resultSet -> resultSet.getInt("stock")).get(0);
+                transaccion.despuesDeConfirmar(() -> {
+                    for (ObservadorProductos observador : OBSERVADORES) {
+                        observador.stockModificado(idProducto, stock);
+                    }
+                });
+            }
+        } catch (PersistenciaException e) {
+            throw new PersistenciaException("Ha ocurrido un error al actualizar el stock de un producto", e);
+        }
+        return actualizado;
+    }
+
+    /**
+     * Funcion que inserta los productos en una sola transaccion, reutilizando la
+     * sentencia con executeBatch
+     * @param productos que se van a insertar en la base de datos
+     * @return el resultado con los productos que no se han podido insertar
+     * @throws PersistenciaException error a controlar
+     */
+    public ResultadoLote<Producto> insertarLote(Collection<Producto> productos) throws PersistenciaException {
+        try {
+            return avisarLote(persistencia.actualizarLote(utilidadesSQL.getINSERT(), productos, INSERTAR));
+        } catch (PersistenciaException e) {
+            throw new PersistenciaException("Ha ocurrido un error al insertar los productos", e);
+        }
+    }
+
+    /**
+     * Funcion que modifica los productos en una sola transaccion, reutilizando la
+     * sentencia con executeBatch
+     * @param productos que se van a modificar
+     * @return el resultado con los productos que no se han podido modificar
+     * @throws PersistenciaException error a controlar
+     */
+    public ResultadoLote<Producto> modificarLote(Collection<Producto> productos) throws PersistenciaException {
+        try {
+            return avisarLote(persistencia.actualizarLote(utilidadesSQL.setUpdate(), productos, MODIFICAR));
+        } catch (PersistenciaException e) {
+            throw new PersistenciaException("Ha ocurrido un error al modificar los productos", e);
+        }
+    }
+
+    /**
+     * Metodo que registra un observador de los cambios de los productos
+     * @param observador que recibe los cambios
+     */
+    public static void añadirObservador(ObservadorProductos observador) {
+        OBSERVADORES.add(observador);
+    }
+
+    /**
+     * Metodo que deja de avisar a un observador
+     * @param observador que ya no recibe los cambios
+     */
+    public static void quitarObservador(ObservadorProductos observador) {
+        OBSERVADORES.remove(observador);
+    }
+
+    /**
+     * Metodo que avisa a los observadores de que han cambiado muchos productos
+     * a la vez, o sus categorias o marcas. Vacia los productos del mapa de
+     * identidad del hilo que lo llama, asi que debe llamarse en el de la
+     * peticion y no dentro de una transaccion
+     */
+    static void avisarInvalidado() {
+        MapaIdentidad.olvidarTodas(Producto.class);
+        for (ObservadorProductos observador : OBSERVADORES) {
+            observador.invalidado();
+        }
+    }
+
+    /**
+     * Metodo que avisa a los observadores de un producto guardado, leido de
+     * nuevo para que llegue con su categoria y su marca completas. La
+     * escritura ya esta confirmada, asi que si no se puede leer no se informa
+     * de un error: se invalida todo y los observadores lo volveran a cargar
+     * @param idProducto del producto guardado
+     */
+    private void avisarGuardado(String idProducto) {
+        if (OBSERVADORES.isEmpty()) {
+            return;
+        }
+        Producto guardado;
+        try {
+            guardado = leerPorId(idProducto);
+        } catch (PersistenciaException e) {
+            avisarInvalidado();
+            return;
+        }
+        if (guardado != null) {
+            for (ObservadorProductos observador : OBSERVADORES) {
+                observador.guardado(guardado);
+            }
+        }
+    }
+
+    /**
+     * Funcion que avisa de un lote con algun producto guardado
+     * @param resultado del lote
+     * @return el mismo resultado
+     */
+    private ResultadoLote<Producto> avisarLote(ResultadoLote<Producto> resultado) {
+        if (resultado.getCorrectos() > 0) {
+            avisarInvalidado();
+        }
+        return resultado;
     }
 
 }
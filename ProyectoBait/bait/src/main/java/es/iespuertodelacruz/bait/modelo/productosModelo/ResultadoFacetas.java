@@ -0,0 +1,64 @@
+package es.iespuertodelacruz.bait.modelo.productosModelo;
+
+import java.util.ArrayList;
+import java.util.Map;
+
+import es.iespuertodelacruz.bait.api.productos.Producto;
+
+/**
+ * Productos que cumplen un filtro por facetas y, para cada valor de cada
+ * faceta, cuantos de ellos lo tienen. Los valores que no tiene ninguno no
+ * aparecen
+ */
+public class ResultadoFacetas {
+    private ArrayList<Producto> productos;
+    private int total;
+    private Map<String, Integer> categorias;
+    private Map<String, Integer> marcas;
+    private Map<Integer, Integer> franjas;
+    private int conStock;
+
+    /**
+     * Constructor con todos los datos
+     * 
+     * @param productos  primeros productos que cumplen el filtro
+     * @param total      numero de productos que cumplen el filtro
+     * @param categorias cuenta por idCategoria
+     * @param marcas     cuenta por idMarca
+     * @param franjas    cuenta por franja de precio
+     * @param conStock   cuantos tienen stock
+     */
+    ResultadoFacetas(ArrayList<Producto> productos, int total, Map<String, Integer> categorias,
+            Map<String, Integer> marcas, Map<Integer, Integer> franjas, int conStock) {
+        this.productos = productos;
+        this.total = total;
+        this.categorias = categorias;
+        this.marcas = marcas;
+        this.franjas = franjas;
+        this.conStock = conStock;
+    }
+
+    public ArrayList<Producto> getProductos() {
+        return productos;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public Map<String, Integer> getCategorias() {
+        return categorias;
+    }
+
+    public Map<String, Integer> getMarcas() {
+        return marcas;
+    }
+
+    public Map<Integer, Integer> getFranjas() {
+        return franjas;
+    }
+
+    public int getConStock() {
+        return conStock;
+    }
+}
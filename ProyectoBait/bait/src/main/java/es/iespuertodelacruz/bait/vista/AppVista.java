@@ -5,6 +5,7 @@ import java.util.Scanner;
 
 import es.iespuertodelacruz.bait.exceptions.PersistenciaException;
 import es.iespuertodelacruz.bait.modelo.mysql.Bbdd;
+import es.iespuertodelacruz.bait.modelo.mysql.BbddSqlite;
 
 public class AppVista{
     static MenuAdmin menuAdmin;
@@ -12,6 +13,7 @@ public class AppVista{
     static Bbdd bbdd;
 
     public static void main(String[] args) throws PersistenciaException{
+        BbddSqlite.inicializar();
         if(menuAdmin == null){
             menuAdmin = new MenuAdmin();
         }
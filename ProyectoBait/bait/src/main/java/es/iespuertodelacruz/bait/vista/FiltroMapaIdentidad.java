@@ -0,0 +1,52 @@
+package es.iespuertodelacruz.bait.vista;
+
+import java.io.IOException;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+
+import es.iespuertodelacruz.bait.modelo.mysql.MapaIdentidad;
+
+public class FiltroMapaIdentidad implements Filter {
+
+    /**
+     * Metodo que no necesita configuracion al arrancar el filtro
+     * @param configuracion del filtro
+     */
+    @Override
+    public void init(FilterConfig configuracion) {
+        // No hay nada que preparar
+    }
+
+    /**
+     * Metodo que abre un mapa de identidad para la peticion, de forma que cada
+     * entidad se lea una sola vez, y lo vacia al terminar aunque falle
+     * @param peticion que se atiende
+     * @param respuesta que se devuelve
+     * @param cadena con el resto de filtros y la pagina
+     * @throws IOException error a controlar
+     * @throws ServletException error a controlar
+     */
+    @Override
+    public void doFilter(ServletRequest peticion, ServletResponse respuesta, FilterChain cadena)
+            throws IOException, ServletException {
+        MapaIdentidad mapa = MapaIdentidad.abrir();
+        try {
+            cadena.doFilter(peticion, respuesta);
+        } finally {
+            mapa.close();
+        }
+    }
+
+    /**
+     * Metodo que no tiene nada que liberar al parar el filtro
+     */
+    @Override
+    public void destroy() {
+        // No hay nada que liberar
+    }
+}
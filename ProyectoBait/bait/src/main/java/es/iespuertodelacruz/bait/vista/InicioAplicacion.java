@@ -0,0 +1,37 @@
+package es.iespuertodelacruz.bait.vista;
+
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+
+import es.iespuertodelacruz.bait.exceptions.PersistenciaException;
+import es.iespuertodelacruz.bait.modelo.mysql.BbddSqlite;
+import es.iespuertodelacruz.bait.modelo.mysql.EscritorBbdd;
+import es.iespuertodelacruz.bait.modelo.mysql.PoolConexiones;
+
+public class InicioAplicacion implements ServletContextListener {
+
+    /**
+     * Metodo que prepara la base de datos al desplegar la aplicacion web, antes
+     * de atender la primera peticion
+     * @param evento de arranque del contexto
+     */
+    @Override
+    public void contextInitialized(ServletContextEvent evento) {
+        try {
+            BbddSqlite.inicializar();
+        } catch (PersistenciaException e) {
+            throw new IllegalStateException("No se ha podido inicializar la base de datos", e);
+        }
+    }
+
+    /**
+     * Metodo que termina las escrituras pendientes y cierra las conexiones al
+     * parar la aplicacion web
+     * @param evento de parada del contexto
+     */
+    @Override
+    public void contextDestroyed(ServletContextEvent evento) {
+        EscritorBbdd.cerrarTodos();
+        PoolConexiones.cerrarTodos();
+    }
+}
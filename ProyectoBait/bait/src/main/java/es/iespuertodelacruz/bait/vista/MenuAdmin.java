@@ -18,6 +18,7 @@ import es.iespuertodelacruz.bait.controlador.productosController.MarcaController
 import es.iespuertodelacruz.bait.controlador.productosController.ProductoController;
 import es.iespuertodelacruz.bait.exceptions.ApiException;
 import es.iespuertodelacruz.bait.exceptions.PersistenciaException;
+import es.iespuertodelacruz.bait.modelo.mysql.Pagina;
 
 public class MenuAdmin extends MenuUsuario{
     private static final String ERROR_AL_OBTENER_LISTADO = "**Ha ocurrido un error al obtener la lista**";
@@ -166,10 +167,13 @@ public class MenuAdmin extends MenuUsuario{
                     }
                     break;
                 case 5:
-                    ArrayList<Usuario> usuarios;
+                    String paginaUsuario = null;
                     try {
-                        usuarios = usuarioController.obtenerListado();
-                        System.out.println(listarUsuarios(usuarios));
+                        do {
+                            Pagina<Usuario> usuarios = usuarioController.obtenerPagina(paginaUsuario, Pagina.getTamanioPorDefecto());
+                            System.out.println(listarUsuarios(usuarios.getElementos()));
+                            paginaUsuario = usuarios.getSiguiente();
+                        } while (verSiguientePagina(paginaUsuario));
                     } catch (PersistenciaException | ApiException e) {
                         System.out.println(ERROR_AL_OBTENER_LISTADO);
                     }
@@ -420,10 +424,13 @@ public class MenuAdmin extends MenuUsuario{
                     }
                     break;
                 case 5:
-                    ArrayList<Categoria> categorias;
+                    String paginaCategoria = null;
                     try {
-                        categorias = categoriaController.obtenerListado();
-                        System.out.println(listarCategorias(categorias));
+                        do {
+                            Pagina<Categoria> categorias = categoriaController.obtenerPagina(paginaCategoria, Pagina.getTamanioPorDefecto());
+                            System.out.println(listarCategorias(categorias.getElementos()));
+                            paginaCategoria = categorias.getSiguiente();
+                        } while (verSiguientePagina(paginaCategoria));
                     } catch (PersistenciaException | ApiException e) {
                         System.out.println("**"+e.getMessage()+"**");
                     }
@@ -504,10 +511,13 @@ public class MenuAdmin extends MenuUsuario{
                     }
                     break;
                 case 5:
-                    ArrayList<Marca> marcas;
+                    String paginaMarca = null;
                     try {
-                        marcas = marcaController.obtenerListado();
-                        System.out.println(listarMarcas(marcas));
+                        do {
+                            Pagina<Marca> marcas = marcaController.obtenerPagina(paginaMarca, Pagina.getTamanioPorDefecto());
+                            System.out.println(listarMarcas(marcas.getElementos()));
+                            paginaMarca = marcas.getSiguiente();
+                        } while (verSiguientePagina(paginaMarca));
                     } catch (PersistenciaException | ApiException e) {
                         System.out.println("**"+e.getMessage()+"**");
                     }
@@ -578,10 +588,13 @@ public class MenuAdmin extends MenuUsuario{
                     }
                     break;
                 case 4:
-                    ArrayList<Pedido> pedidos;
+                    String paginaPedido = null;
                     try {
-                        pedidos = pedidoController.obtenerListado();
-                        System.out.println(listarPedidos(pedidos));
+                        do {
+                            Pagina<Pedido> pedidos = pedidoController.obtenerPagina(paginaPedido, Pagina.getTamanioPorDefecto());
+                            System.out.println(listarPedidos(pedidos.getElementos()));
+                            paginaPedido = pedidos.getSiguiente();
+                        } while (verSiguientePagina(paginaPedido));
                     } catch (PersistenciaException | ApiException e) {
                         System.out.println("**"+e.getMessage()+"**");
                     }
@@ -651,10 +664,13 @@ public class MenuAdmin extends MenuUsuario{
                     }
                     break;
                 case 4:
-                    ArrayList<Envio> envios;
+                    String paginaEnvio = null;
                     try {
-                        envios = envioController.obtenerListado();
-                        System.out.println(listarEnvios(envios));
+                        do {
+                            Pagina<Envio> envios = envioController.obtenerPagina(paginaEnvio, Pagina.getTamanioPorDefecto());
+                            System.out.println(listarEnvios(envios.getElementos()));
+                            paginaEnvio = envios.getSiguiente();
+                        } while (verSiguientePagina(paginaEnvio));
                     } catch (PersistenciaException | ApiException e) {
                         System.out.println("**"+e.getMessage()+"**");
                     }
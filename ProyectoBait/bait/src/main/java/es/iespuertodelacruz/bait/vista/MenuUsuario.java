@@ -14,6 +14,7 @@ import es.iespuertodelacruz.bait.controlador.personasController.UsuarioControlle
 import es.iespuertodelacruz.bait.controlador.productosController.ProductoController;
 import es.iespuertodelacruz.bait.exceptions.ApiException;
 import es.iespuertodelacruz.bait.exceptions.PersistenciaException;
+import es.iespuertodelacruz.bait.modelo.mysql.Pagina;
 
 public class MenuUsuario {
     private static final String ERROR_AL_OBTENER_LISTADO = "**Ha ocurrido un error al obtener la lista**";
@@ -115,7 +116,8 @@ public class MenuUsuario {
     }
 
     /**
-     * Menu para buscar productos por nombre, categoria y marca
+     * Menu para buscar productos por nombre, categoria y marca, o por nombre
+     * aproximado si no se sabe como se escribe
      */
     public void menuBuscarProductos() {
         boolean salir = false;
@@ -129,6 +131,7 @@ public class MenuUsuario {
                 System.out.println("2. Buscar producto por categoria");
                 System.out.println("3. Buscar producto por marca");
                 System.out.println("4. Listar todos");
+                System.out.println("5. Buscar producto por nombre aproximado");
                 System.out.println(OPCION_SALIR);
                 System.out.println("Selecciona opcion:");
                 opcion = sn.nextInt();
@@ -163,18 +166,32 @@ public class MenuUsuario {
                         }
                         break;
                     case 4:
+                        String paginaProductos = null;
                         try {
-                            productos = productoController.obtenerListado();
-                            System.out.println(listarProductos(productos)); 
+                            do {
+                                Pagina<Producto> pagina = productoController.obtenerPagina(paginaProductos, 
+                                    Pagina.getTamanioPorDefecto());
+                                System.out.println(listarProductos(pagina.getElementos())); 
+                                paginaProductos = pagina.getSiguiente();
+                            } while (verSiguientePagina(paginaProductos));
                         } catch (PersistenciaException | ApiException e) {
                             System.out.println(ERROR_AL_OBTENER_LISTADO);
                         }
                         break;
+                    case 5:
+                        identificadorBusqueda = obtenerDato("el nombre, aunque tenga errores.");
+                        try {
+                            productos = productoController.buscarAproximado(identificadorBusqueda);
+                            System.out.println(listarProductos(productos)); 
+                        } catch (ApiException | PersistenciaException e) {
+                            System.err.println("**"+e.getMessage()+"**");
+                        }
+                        break;
                     case 0:
                         salir = true;
                         break;
                     default:
-                        System.err.println(ERROR_AL_OBTENER_LISTADO + "4");
+                        System.err.println(ERROR_AL_OBTENER_LISTADO + "5");
                 }
             }
         } catch (InputMismatchException ex) {
@@ -322,6 +339,15 @@ public class MenuUsuario {
         return usuario;
     }
 
+    /**
+     * Funcion que pregunta si se quiere ver la siguiente pagina de un listado
+     * @param token de la siguiente pagina, null si no hay mas
+     * @return true si hay siguiente pagina y el usuario quiere verla
+     */
+    public boolean verSiguientePagina(String token) {
+        return token != null && obtenerDato("s para ver la siguiente pagina.").equalsIgnoreCase("s");
+    }
+
     /**
      * Funcion que obtiene un dato y los devuelve
      * @param mensaje del dato que se va a obtener
@@ -1,9 +1,11 @@
 <%@ page import='es.iespuertodelacruz.bait.api.productos.Categoria' %>
+<%@ page import='es.iespuertodelacruz.bait.modelo.mysql.Pagina' %>
 <%@page import='java.util.ArrayList' %>
 
 <jsp:useBean id="categoriaController" class="es.iespuertodelacruz.bait.controlador.productosController.CategoriaController" />
-<% ArrayList<Categoria> categorias = categoriaController.obtenerListado(); %>
-<% for(Categoria categoriaLista : categorias){ %>  
+<% Pagina<Categoria> paginaCategorias = categoriaController.obtenerPagina(request.getParameter("paginaCategorias"), 
+    Pagina.getTamanioPorDefecto()); %>
+<% for(Categoria categoriaLista : paginaCategorias.getElementos()){ %>  
     <table>
         <tr >
             <th>IdCategoria</th>
@@ -15,5 +17,11 @@
         </tr>
     </table> 
 <% } %>
-           
- 
\ No newline at end of file
+<p class="paginacion">
+<% if (paginaCategorias.hayAnterior()) { %>
+    <a href="?paginaCategorias=<%= paginaCategorias.getAnterior() %>#listarCategoria">Anterior</a>
+<% } %>
+<% if (paginaCategorias.haySiguiente()) { %>
+    <a href="?paginaCategorias=<%= paginaCategorias.getSiguiente() %>#listarCategoria">Siguiente</a>
+<% } %>
+</p>
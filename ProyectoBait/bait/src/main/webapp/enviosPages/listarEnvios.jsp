@@ -1,8 +1,10 @@
 <%@ page import='es.iespuertodelacruz.bait.api.movimientos.Envio' %>
+<%@ page import='es.iespuertodelacruz.bait.modelo.mysql.Pagina' %>
 
 <jsp:useBean id="envioController" class="es.iespuertodelacruz.bait.controlador.movimientosController.EnvioController" />
-<% ArrayList<Envio> envios = envioController.obtenerListado(); %>
-<% for(Envio envio : envios){ %>  
+<% Pagina<Envio> paginaEnvios = envioController.obtenerPagina(request.getParameter("paginaEnvios"), 
+    Pagina.getTamanioPorDefecto()); %>
+<% for(Envio envio : paginaEnvios.getElementos()){ %>  
     <table>
         <tr>
             <td>IdEnvio</td>
@@ -22,5 +24,11 @@
         </tr>
     </table>    
 <% } %>
-           
- 
\ No newline at end of file
+<p class="paginacion">
+<% if (paginaEnvios.hayAnterior()) { %>
+    <a href="?paginaEnvios=<%= paginaEnvios.getAnterior() %>#listarEnvio">Anterior</a>
+<% } %>
+<% if (paginaEnvios.haySiguiente()) { %>
+    <a href="?paginaEnvios=<%= paginaEnvios.getSiguiente() %>#listarEnvio">Siguiente</a>
+<% } %>
+</p>
@@ -2,8 +2,32 @@
     <a href="../index.jsp" ><img class="logo" src="../img/logotipoBait.png" alt="logo" width="50px" height="50px"></a> 
     <div class="header-right">
         <form action="#">
-            <input class="buscador" type="search" name="buscador">
+            <input class="buscador" type="search" name="buscador" list="sugerencias" autocomplete="off">
+            <datalist id="sugerencias"></datalist>
         </form>     
         <a href="../login/login.jsp" ><img class="login" src="../img/iniciarSesion.png" alt="Icono-usuario" width="40px" height="40px"></a>
     </div>
+    <script>
+        (function () {
+            var buscador = document.querySelector(".buscador");
+            var lista = document.getElementById("sugerencias");
+            var url = "<%= request.getContextPath() %>/productosPages/autocompletar.jsp?prefijo=";
+            var pendiente;
+            buscador.addEventListener("input", function () {
+                clearTimeout(pendiente);
+                pendiente = setTimeout(function () {
+                    fetch(url + encodeURIComponent(buscador.value))
+                        .then(function (respuesta) { return respuesta.json(); })
+                        .then(function (sugerencias) {
+                            lista.innerHTML = "";
+                            sugerencias.forEach(function (sugerencia) {
+                                var opcion = document.createElement("option");
+                                opcion.value = sugerencia.nombre;
+                                lista.appendChild(opcion);
+                            });
+                        });
+                }, 150);
+            });
+        })();
+    </script>
 </header>
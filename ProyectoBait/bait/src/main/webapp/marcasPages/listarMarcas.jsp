@@ -1,8 +1,10 @@
 <%@ page import='es.iespuertodelacruz.bait.api.productos.Marca' %>
+<%@ page import='es.iespuertodelacruz.bait.modelo.mysql.Pagina' %>
 
 <jsp:useBean id="marcaController" class="es.iespuertodelacruz.bait.controlador.productosController.MarcaController" />
-<% ArrayList<Marca> marcas = marcaController.obtenerListado(); %>
-<% for(Marca marcaLista : marcas){ %>  
+<% Pagina<Marca> paginaMarcas = marcaController.obtenerPagina(request.getParameter("paginaMarcas"), 
+    Pagina.getTamanioPorDefecto()); %>
+<% for(Marca marcaLista : paginaMarcas.getElementos()){ %>  
     <table>
         <tr>
             <th>IdMarca</th>
@@ -13,4 +15,12 @@
             <td><%= marcaLista.getNombre()%></td>
         </tr>
     </table>   
-<% } %>
\ No newline at end of file
+<% } %>
+<p class="paginacion">
+<% if (paginaMarcas.hayAnterior()) { %>
+    <a href="?paginaMarcas=<%= paginaMarcas.getAnterior() %>#listarMarca">Anterior</a>
+<% } %>
+<% if (paginaMarcas.haySiguiente()) { %>
+    <a href="?paginaMarcas=<%= paginaMarcas.getSiguiente() %>#listarMarca">Siguiente</a>
+<% } %>
+</p>
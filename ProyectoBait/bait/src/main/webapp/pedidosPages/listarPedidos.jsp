@@ -1,8 +1,10 @@
 <%@ page import='es.iespuertodelacruz.bait.api.movimientos.Pedido' %>
+<%@ page import='es.iespuertodelacruz.bait.modelo.mysql.Pagina' %>
 
 <jsp:useBean id="pedidoController" class="es.iespuertodelacruz.bait.controlador.movimientosController.PedidoController" />
-<% ArrayList<Pedido> pedidos = pedidoController.obtenerListado(); %>
-<% for(Pedido pedidoLista : pedidos){ %>  
+<% Pagina<Pedido> paginaPedidos = pedidoController.obtenerPagina(request.getParameter("paginaPedidos"), 
+    Pagina.getTamanioPorDefecto()); %>
+<% for(Pedido pedidoLista : paginaPedidos.getElementos()){ %>  
     <table>
         <tr>
             <td>IdPedido</td>
@@ -29,4 +31,12 @@
             <td><%= pedidoLista.getProducto().getIdProducto() %></td>
         </tr>
     </table>   
-<% } %>
\ No newline at end of file
+<% } %>
+<p class="paginacion">
+<% if (paginaPedidos.hayAnterior()) { %>
+    <a href="?paginaPedidos=<%= paginaPedidos.getAnterior() %>#listarPedido">Anterior</a>
+<% } %>
+<% if (paginaPedidos.haySiguiente()) { %>
+    <a href="?paginaPedidos=<%= paginaPedidos.getSiguiente() %>#listarPedido">Siguiente</a>
+<% } %>
+</p>
@@ -0,0 +1,24 @@
+<%@page contentType="application/json" pageEncoding="UTF-8" trimDirectiveWhitespaces="true" %>
+<%@ page import='es.iespuertodelacruz.bait.modelo.busqueda.Sugerencia' %>
+<%@page import='java.util.ArrayList' %>
+
+<jsp:useBean id="productoController" class="es.iespuertodelacruz.bait.controlador.productosController.ProductoController" />
+<%!
+    private static final int SUGERENCIAS = 8;
+
+    private String json(String texto) {
+        StringBuilder resultado = new StringBuilder("\"");
+        for (char caracter : texto.toCharArray()) {
+            if (caracter == '"' || caracter == '\\') {
+                resultado.append('\\').append(caracter);
+            } else if (caracter < 0x20) {
+                resultado.append(String.format("\\u%04x", (int) caracter));
+            } else {
+                resultado.append(caracter);
+            }
+        }
+        return resultado.append('"').toString();
+    }
+%>
+<% ArrayList<Sugerencia> sugerencias = productoController.autocompletar(request.getParameter("prefijo"), SUGERENCIAS); %>
+[<% for (int i = 0; i < sugerencias.size(); i++) { %><%= i > 0 ? "," : "" %>{"idProducto":<%= json(sugerencias.get(i).getId()) %>,"nombre":<%= json(sugerencias.get(i).getTexto()) %>}<% } %>]
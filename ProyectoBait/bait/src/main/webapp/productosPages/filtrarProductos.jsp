@@ -0,0 +1,122 @@
+<%@page contentType="text/html" pageEncoding="UTF-8" %>
+<%@page import='es.iespuertodelacruz.bait.api.productos.Producto' %>
+<%@page import='es.iespuertodelacruz.bait.modelo.productosModelo.FacetasProductos' %>
+<%@page import='es.iespuertodelacruz.bait.modelo.productosModelo.FiltroProductos' %>
+<%@page import='es.iespuertodelacruz.bait.modelo.productosModelo.ResultadoFacetas' %>
+<%@page import='java.util.Map' %>
+<%@page errorPage = "../include/error/showError.jsp" %>
+<!DOCTYPE html>
+<html lang="en">
+<head>
+    <meta http-equiv="Content-Type" content="text/html; charset=UTF-8">
+    <link rel="stylesheet" href="../css/estilo.css">
+    <link rel="stylesheet" href="../css/menuAdmin.css">
+    <link rel="stylesheet" href="../css/tablasProductos.css">
+    <%@include file="../include/header.jsp" %>
+    <%@include file="../include/spam.jsp" %>
+</head>
+<body>
+
+    <jsp:useBean id="productoController" class="es.iespuertodelacruz.bait.controlador.productosController.ProductoController" />
+
+    <% 
+        FiltroProductos filtro = new FiltroProductos();
+        String[] categorias = request.getParameterValues("idCategoria");
+        String[] marcas = request.getParameterValues("idMarca");
+        String[] franjas = request.getParameterValues("franja");
+
+        if(categorias != null){
+            for(String idCategoria : categorias){
+                filtro.añadirCategoria(idCategoria);
+            }
+        }
+
+        if(marcas != null){
+            for(String idMarca : marcas){
+                filtro.añadirMarca(idMarca);
+            }
+        }
+
+        if(franjas != null){
+            for(String franja : franjas){
+                filtro.añadirFranja(Integer.parseInt(franja));
+            }
+        }
+
+        filtro.setSoloConStock(request.getParameter("conStock") != null);
+        ResultadoFacetas resultado = productoController.filtrar(filtro, 50);
+    %>
+    <div class="page">
+        <div class="tablas">
+            <form action="filtrarProductos.jsp" method="get">
+                <div class="facetas">
+                    <fieldset>
+                        <legend>Categoria</legend>
+                        <% for(Map.Entry<String, Integer> categoria : resultado.getCategorias().entrySet()){ %>
+                            <label>
+                                <input type="checkbox" name="idCategoria" value="<%= categoria.getKey()%>"
+                                    <%= filtro.getCategorias().contains(categoria.getKey()) ? "checked" : "" %>>
+                                <%= categoria.getKey()%> (<%= categoria.getValue()%>)
+                            </label><br>
+                        <% } %>
+                    </fieldset>
+                    <fieldset>
+                        <legend>Marca</legend>
+                        <% for(Map.Entry<String, Integer> marca : resultado.getMarcas().entrySet()){ %>
+                            <label>
+                                <input type="checkbox" name="idMarca" value="<%= marca.getKey()%>"
+                                    <%= filtro.getMarcas().contains(marca.getKey()) ? "checked" : "" %>>
+                                <%= marca.getKey()%> (<%= marca.getValue()%>)
+                            </label><br>
+                        <% } %>
+                    </fieldset>
+                    <fieldset>
+                        <legend>Precio</legend>
+                        <% for(Map.Entry<Integer, Integer> franja : resultado.getFranjas().entrySet()){ %>
+                            <label>
+                                <input type="checkbox" name="franja" value="<%= franja.getKey()%>"
+                                    <%= filtro.getFranjas().contains(franja.getKey()) ? "checked" : "" %>>
+                                <%= FacetasProductos.nombreFranja(franja.getKey())%> (<%= franja.getValue()%>)
+                            </label><br>
+                        <% } %>
+                    </fieldset>
+                    <fieldset>
+                        <legend>Stock</legend>
+                        <label>
+                            <input type="checkbox" name="conStock" <%= filtro.isSoloConStock() ? "checked" : "" %>>
+                            Con stock (<%= resultado.getConStock()%>)
+                        </label>
+                    </fieldset>
+                </div>
+                <input type="submit" value="Filtrar">
+            </form>
+
+            <p><%= resultado.getTotal()%> productos</p>
+
+            <% for( Producto producto : resultado.getProductos()){ %>
+                <table>
+                    
+                        <tr>
+                            <th>IdProducto</th>
+                            <td><%= producto.getIdProducto()%></td>
+                        </tr>
+                        <tr>
+                            <th>Nombre</th>
+                            <td><%= producto.getNombre()%></td>
+                        </tr>
+                        <tr>
+                            <th>Precio</th>
+                            <td><%= producto.getPrecio()%></td>
+                        </tr>
+                        <tr>
+                            <th>Stock</th>
+                            <td><%= producto.getStock()%></td>
+                        </tr>
+                
+                </table>
+            <% } %> 
+        </div>    
+    </div>
+</body>
+<%@include file="../include/footer.jsp" %>
+</html>
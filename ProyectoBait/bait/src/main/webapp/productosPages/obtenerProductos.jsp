@@ -1,13 +1,46 @@
 <%@ page import='es.iespuertodelacruz.bait.api.productos.Producto' %>
 <%@page import='java.util.ArrayList' %>
+<%@ page import='es.iespuertodelacruz.bait.modelo.mysql.Pagina' %>
+<%@ page import='es.iespuertodelacruz.bait.modelo.productosModelo.OrdenProductos' %>
 
 <jsp:useBean id="productoController" class="es.iespuertodelacruz.bait.controlador.productosController.ProductoController" />
-<% ArrayList<Producto> productos = productoController.obtenerListado(); %>
+<% ArrayList<Producto> productos; %>
+<% Pagina<Producto> paginaProductos = null; %>
 <% String buscador = request.getParameter("buscador"); %>
-<% if (buscador != null){
+<% String ordenProductos = request.getParameter("ordenProductos"); %>
+<% OrdenProductos orden = null;
+for (OrdenProductos posible : OrdenProductos.values()) {
+    if (posible.name().equals(ordenProductos)) {
+        orden = posible;
+    }
+}
+if (buscador != null){
     productos = productoController.buscarPorNombre(buscador);
+} else if (orden != null) {
+    paginaProductos = productoController.obtenerPagina(orden, request.getParameter("paginaProductos"), 
+        Pagina.getTamanioPorDefecto());
+    productos = paginaProductos.getElementos();
+} else {
+    paginaProductos = productoController.obtenerPagina(request.getParameter("paginaProductos"), 
+        Pagina.getTamanioPorDefecto());
+    productos = paginaProductos.getElementos();
 }
+String enlaceOrden = orden == null ? "" : "ordenProductos=" + orden.name() + "&";
 %>
+<% if (buscador == null) { %>
+<form class="paginacion" action="#listarProducto" method="get">
+    <select name="ordenProductos">
+        <option value="">Sin orden</option>
+        <option value="PRECIO_ASC" <%= orden == OrdenProductos.PRECIO_ASC ? "selected" : "" %>>Mas baratos</option>
+        <option value="PRECIO_DESC" <%= orden == OrdenProductos.PRECIO_DESC ? "selected" : "" %>>Mas caros</option>
+        <option value="NOMBRE_ASC" <%= orden == OrdenProductos.NOMBRE_ASC ? "selected" : "" %>>Nombre (A-Z)</option>
+        <option value="NOMBRE_DESC" <%= orden == OrdenProductos.NOMBRE_DESC ? "selected" : "" %>>Nombre (Z-A)</option>
+        <option value="STOCK_DESC" <%= orden == OrdenProductos.STOCK_DESC ? "selected" : "" %>>Mas stock</option>
+        <option value="STOCK_ASC" <%= orden == OrdenProductos.STOCK_ASC ? "selected" : "" %>>Menos stock</option>
+    </select>
+    <input type="submit" value="Ordenar">
+</form>
+<% } %>
 <% for(Producto producto : productos){ %>  
     <table>
         <tr>
@@ -40,5 +73,13 @@
         </tr>                  
     </table>
 <% } %>
-           
- 
\ No newline at end of file
+<% if (paginaProductos != null) { %>
+<p class="paginacion">
+<% if (paginaProductos.hayAnterior()) { %>
+    <a href="?<%= enlaceOrden %>paginaProductos=<%= paginaProductos.getAnterior() %>#listarProducto">Anterior</a>
+<% } %>
+<% if (paginaProductos.haySiguiente()) { %>
+    <a href="?<%= enlaceOrden %>paginaProductos=<%= paginaProductos.getSiguiente() %>#listarProducto">Siguiente</a>
+<% } %>
+</p>
+<% } %>
@@ -0,0 +1,81 @@
+<%@page contentType="text/html" pageEncoding="UTF-8" %>
+<%@page import='es.iespuertodelacruz.bait.api.productos.Categoria' %>
+<%@page import='es.iespuertodelacruz.bait.api.productos.Producto' %>
+<%@page import='es.iespuertodelacruz.bait.modelo.productosModelo.OrdenProductos' %>
+<%@page import='java.util.ArrayList' %>
+<%@page errorPage = "../include/error/showError.jsp" %>
+<!DOCTYPE html>
+<html lang="en">
+<head>
+    <meta http-equiv="Content-Type" content="text/html; charset=UTF-8">
+    <link rel="stylesheet" href="../css/estilo.css">
+    <link rel="stylesheet" href="../css/menuAdmin.css">
+    <link rel="stylesheet" href="../css/tablasProductos.css">
+    <%@include file="../include/header.jsp" %>
+    <%@include file="../include/spam.jsp" %>
+</head>
+<body>
+
+    <jsp:useBean id="productoController" class="es.iespuertodelacruz.bait.controlador.productosController.ProductoController" />
+    <jsp:useBean id="categoriaController" class="es.iespuertodelacruz.bait.controlador.productosController.CategoriaController" />
+
+    <% 
+        String idCategoria = request.getParameter("idCategoria");
+        if(idCategoria != null && idCategoria.isEmpty()){
+            idCategoria = null;
+        }
+        OrdenProductos orden = OrdenProductos.PRECIO_ASC;
+        for(OrdenProductos posible : OrdenProductos.values()){
+            if(posible.name().equals(request.getParameter("orden"))){
+                orden = posible;
+            }
+        }
+        ArrayList<Producto> productos = productoController.obtenerTop(idCategoria, orden, 10);
+    %>
+    <div class="page">
+        <div class="tablas">
+            <form action="topProductos.jsp" method="get">
+                <select name="idCategoria">
+                    <option value="">Todas</option>
+                    <% for(Categoria categoria : categoriaController.obtenerListado()){ %>
+                        <option value="<%= categoria.getIdCategoria()%>"
+                            <%= categoria.getIdCategoria().equals(idCategoria) ? "selected" : "" %>>
+                            <%= categoria.getNombre()%>
+                        </option>
+                    <% } %>
+                </select>
+                <select name="orden">
+                    <option value="PRECIO_ASC" <%= orden == OrdenProductos.PRECIO_ASC ? "selected" : "" %>>Mas baratos</option>
+                    <option value="PRECIO_DESC" <%= orden == OrdenProductos.PRECIO_DESC ? "selected" : "" %>>Mas caros</option>
+                    <option value="STOCK_DESC" <%= orden == OrdenProductos.STOCK_DESC ? "selected" : "" %>>Mas stock</option>
+                </select>
+                <input type="submit" value="Ver">
+            </form>
+
+            <% for( Producto producto : productos){ %>
+                <table>
+                    
+                        <tr>
+                            <th>IdProducto</th>
+                            <td><%= producto.getIdProducto()%></td>
+                        </tr>
+                        <tr>
+                            <th>Nombre</th>
+                            <td><%= producto.getNombre()%></td>
+                        </tr>
+                        <tr>
+                            <th>Precio</th>
+                            <td><%= producto.getPrecio()%></td>
+                        </tr>
+                        <tr>
+                            <th>Stock</th>
+                            <td><%= producto.getStock()%></td>
+                        </tr>
+                
+                </table>
+            <% } %> 
+        </div>    
+    </div>
+</body>
+<%@include file="../include/footer.jsp" %>
+</html>
@@ -24,6 +24,8 @@
                         <li><%= usuario.getNombreUsuario() %></li>
                         <li><a href="perfilCliente.jsp">Perfil</a></li>
                         <li><a href="ingresarDinero.jsp">Añadir saldo</a></li>
+                        <li><a href="../productosPages/filtrarProductos.jsp">Filtrar productos</a></li>
+                        <li><a href="../productosPages/topProductos.jsp">Mas baratos</a></li>
                         <li><a href="hacerPedido.jsp">Realizar pedido</a></li>
                         <li><a href="verPedido.jsp">Ver pedido</a></li>
                         <li><a href="verEnvio.jsp">Ver envio</a></li>
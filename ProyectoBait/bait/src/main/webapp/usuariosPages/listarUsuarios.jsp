@@ -1,5 +1,7 @@
-<% ArrayList<Usuario> usuarios = usuarioController.obtenerListado(); %>
-<% for(Usuario usuarioLista : usuarios){ %>  
+<%@ page import='es.iespuertodelacruz.bait.modelo.mysql.Pagina' %>
+<% Pagina<Usuario> paginaUsuarios = usuarioController.obtenerPagina(request.getParameter("paginaUsuarios"), 
+    Pagina.getTamanioPorDefecto()); %>
+<% for(Usuario usuarioLista : paginaUsuarios.getElementos()){ %>  
     <table>
         <tr>
             <td>Dni</td>
@@ -55,5 +57,11 @@
         </tr>
     </table>
 <% } %>
-           
- 
\ No newline at end of file
+<p class="paginacion">
+<% if (paginaUsuarios.hayAnterior()) { %>
+    <a href="?paginaUsuarios=<%= paginaUsuarios.getAnterior() %>#listarUsuario">Anterior</a>
+<% } %>
+<% if (paginaUsuarios.haySiguiente()) { %>
+    <a href="?paginaUsuarios=<%= paginaUsuarios.getSiguiente() %>#listarUsuario">Siguiente</a>
+<% } %>
+</p>
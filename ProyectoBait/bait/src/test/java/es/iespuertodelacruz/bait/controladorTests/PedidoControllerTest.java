@@ -240,4 +240,44 @@ public class PedidoControllerTest {
         }
     }
 
+    @Test
+    public void realizarPedidoSinSaldoTest() {
+        int stockInicial = 0;
+        int pedidosIniciales = 0;
+        try {
+            stockInicial = productoController.buscar(IDPRODUCTO).getStock();
+            pedidosIniciales = pedidoController.obtenerListado(DNI).size();
+            pedidoController.realizarPedido(usuario, IDPRODUCTO, 11);
+            fail("No deberia llegar aqui");
+        } catch (PersistenciaException | ApiException e) {
+            assertTrue(e.getMessage().contains("No tiene saldo suficiente"));
+        }
+
+        try {
+            assertEquals(stockInicial, productoController.buscar(IDPRODUCTO).getStock(), 
+                "El stock descontado deberia deshacerse");
+            assertEquals(pedidosIniciales, pedidoController.obtenerListado(DNI).size(), 
+                "No deberia guardarse ningun pedido");
+            assertEquals(100f, usuarioController.buscar(DNI).getSaldo(), "El saldo no deberia cambiar");
+            assertEquals(100f, usuario.getSaldo(), "El saldo de la sesion no deberia cambiar");
+        } catch (PersistenciaException | ApiException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void realizarPedidoSaldoSesionTest() {
+        Envio envio;
+        try {
+            envio = pedidoController.realizarPedido(usuario, IDPRODUCTO, 2);
+            assertEquals(80f, usuario.getSaldo(), "La sesion deberia recibir el saldo tras confirmar");
+            assertEquals(80f, usuarioController.buscar(DNI).getSaldo(), "El saldo deberia haberse descontado");
+
+            pedidoController.eliminar(envio.getPedido().getIdPedido());
+            envioController.eliminar(envio.getIdEnvio());
+        } catch (PersistenciaException | ApiException e) {
+            fail(e.getMessage());
+        }
+    }
+
 }
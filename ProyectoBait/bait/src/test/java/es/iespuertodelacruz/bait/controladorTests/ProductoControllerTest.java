@@ -5,6 +5,12 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -18,6 +24,10 @@ import es.iespuertodelacruz.bait.controlador.productosController.MarcaController
 import es.iespuertodelacruz.bait.controlador.productosController.ProductoController;
 import es.iespuertodelacruz.bait.exceptions.ApiException;
 import es.iespuertodelacruz.bait.exceptions.PersistenciaException;
+import es.iespuertodelacruz.bait.modelo.busqueda.Sugerencia;
+import es.iespuertodelacruz.bait.modelo.mysql.Pagina;
+import es.iespuertodelacruz.bait.modelo.productosModelo.FiltroProductos;
+import es.iespuertodelacruz.bait.modelo.productosModelo.OrdenProductos;
 
 public class ProductoControllerTest {
     private static final String IDPRODUCTO = "proc_PRODUCTO";
@@ -181,6 +191,149 @@ public class ProductoControllerTest {
         }
     }
 
+    @Test
+    public void buscarPorNombreVacioTest() {
+        try {
+            int productos = productoController.obtenerListado().size();
+            assertEquals(productos, productoController.buscarPorNombre("").size(), 
+                "Un buscador vacio deberia devolver el listado");
+            assertEquals(productos, productoController.buscarPorNombre("  ").size(), 
+                "Un buscador en blanco deberia devolver el listado");
+        } catch (PersistenciaException | ApiException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void buscarPorTextoTest() {
+        try {
+            ArrayList<Producto> productos = productoController.buscarPorTexto(NOMBRE.substring(0, 3), 5);
+            assertTrue(productos.contains(producto), "La lista no contiene el producto buscado por texto");
+            assertTrue(productos.size() <= 5, "No deberian devolverse mas productos que el limite");
+        } catch (PersistenciaException | ApiException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void buscarPorTextoLimiteErrorTest() {
+        try {
+            productoController.buscarPorTexto(NOMBRE, 0);
+            fail("No deberia llegar aqui");
+        } catch (PersistenciaException | ApiException e) {
+            assertTrue(e.getMessage().contains("mayor que cero"));
+        }
+    }
+
+    @Test
+    public void buscarAproximadoTest() {
+        try {
+            ArrayList<Producto> productos = productoController.buscarAproximado("auriclar");
+            assertTrue(productos.contains(producto), "Deberia encontrarse con una letra de menos");
+        } catch (PersistenciaException | ApiException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void buscarAproximadoErrorTest() {
+        try {
+            productoController.buscarAproximado(NOMBRE_INEXISTENTE);
+            fail("No deberia llegar aqui");
+        } catch (PersistenciaException | ApiException e) {
+            assertTrue(e.getMessage().contains("No existe"));
+        }
+    }
+
+    @Test
+    public void autocompletarTest() {
+        try {
+            ArrayList<Sugerencia> sugerencias = productoController.autocompletar("AURÍ", 50);
+            assertTrue(sugerencias.stream().anyMatch(sugerencia -> IDPRODUCTO.equals(sugerencia.getId())),
+                "Deberia sugerirse el producto por el principio de su nombre");
+            assertTrue(productoController.autocompletar(NOMBRE_INEXISTENTE, 5).isEmpty(),
+                "Sin coincidencias no deberia haber sugerencias");
+        } catch (PersistenciaException | ApiException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void autocompletarLimiteErrorTest() {
+        try {
+            productoController.autocompletar(NOMBRE, 0);
+            fail("No deberia llegar aqui");
+        } catch (PersistenciaException | ApiException e) {
+            assertTrue(e.getMessage().contains("mayor que cero"));
+        }
+    }
+
+    @Test
+    public void obtenerPaginaTest() {
+        try {
+            Pagina<Producto> pagina = productoController.obtenerPagina(null, 1);
+            assertEquals(1, pagina.getElementos().size(), "La pagina deberia tener un producto");
+            pagina = productoController.obtenerPagina(pagina.getSiguiente(), 1);
+            assertTrue(pagina.hayAnterior(), "La segunda pagina deberia tener anterior");
+        } catch (PersistenciaException | ApiException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void obtenerPaginaTamanioErrorTest() {
+        try {
+            productoController.obtenerPagina(null, 0);
+            fail("No deberia llegar aqui");
+        } catch (PersistenciaException | ApiException e) {
+            assertTrue(e.getMessage().contains("mayor que cero"));
+        }
+    }
+
+    @Test
+    public void obtenerPaginaOrdenadaTest() {
+        try {
+            Pagina<Producto> pagina = productoController.obtenerPagina(OrdenProductos.PRECIO_ASC, null, 5);
+            assertEquals(5, pagina.getElementos().size(), "Deberia llenarse la pagina");
+            for (int i = 1; i < pagina.getElementos().size(); i++) {
+                assertTrue(pagina.getElementos().get(i - 1).getPrecio() <= pagina.getElementos().get(i).getPrecio(),
+                    "Deberian salir de mas barato a mas caro");
+            }
+        } catch (PersistenciaException | ApiException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void obtenerPaginaOrdenNuloErrorTest() {
+        try {
+            productoController.obtenerPagina(null, null, 5);
+            fail("No deberia llegar aqui");
+        } catch (PersistenciaException | ApiException e) {
+            assertTrue(e.getMessage().contains("orden"));
+        }
+    }
+
+    @Test
+    public void obtenerTopLimiteErrorTest() {
+        try {
+            productoController.obtenerTop(null, OrdenProductos.PRECIO_ASC, 0);
+            fail("No deberia llegar aqui");
+        } catch (PersistenciaException | ApiException e) {
+            assertTrue(e.getMessage().contains("mayor que cero"));
+        }
+    }
+
+    @Test
+    public void filtrarLimiteErrorTest() {
+        try {
+            productoController.filtrar(new FiltroProductos(), 0);
+            fail("No deberia llegar aqui");
+        } catch (PersistenciaException | ApiException e) {
+            assertTrue(e.getMessage().contains("mayor que cero"));
+        }
+    }
+
     @Test
     public void buscarPorNombreErrorTest() {
         try {
@@ -255,5 +408,55 @@ public class ProductoControllerTest {
         }
     }
 
+    @Test
+    public void reducirStockInsuficienteTest() {
+        try {
+            productoController.reducirStock(IDPRODUCTO, UNIDADES + 1);
+            fail("No deberia llegar aqui");
+        } catch (PersistenciaException | ApiException e) {
+            assertTrue(e.getMessage().contains("No hay suficiente stock"));
+        }
+
+        try {
+            productoController.reducirStock(IDPRODUCTO_INEXISTENTE, 1);
+            fail("No deberia llegar aqui");
+        } catch (PersistenciaException | ApiException e) {
+            assertTrue(e.getMessage().contains("no existe"));
+        }
+    }
+
+    @Test
+    public void reducirStockConcurrenteTest() {
+        int compradores = 10;
+        int unidadesPorCompra = 2;
+        int compradas = 0;
+        ExecutorService executor = Executors.newFixedThreadPool(compradores);
+        List<Callable<Boolean>> compras = new ArrayList<>();
+        for (int i = 0; i < compradores; i++) {
+            compras.add(() -> {
+                try {
+                    productoController.reducirStock(IDPRODUCTO, unidadesPorCompra);
+                    return true;
+                } catch (ApiException e) {
+                    return false;
+                }
+            });
+        }
+
+        try {
+            for (Future<Boolean> compra : executor.invokeAll(compras)) {
+                if (compra.get()) {
+                    compradas++;
+                }
+            }
+            assertEquals(UNIDADES / unidadesPorCompra, compradas, "Solo deberian venderse las unidades que hay");
+            assertEquals(UNIDADES % unidadesPorCompra, productoController.buscar(IDPRODUCTO).getStock(),
+                "El stock no deberia quedar en negativo");
+        } catch (InterruptedException | ExecutionException | PersistenciaException | ApiException e) {
+            fail(e.getMessage());
+        } finally {
+            executor.shutdown();
+        }
+    }
 
 }
@@ -5,6 +5,12 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -212,5 +218,89 @@ public class UsuarioControllerTest {
         }
     }
 
-    
+    @Test
+    public void reducirSaldoInsuficienteTest() {
+        try {
+            usuarioController.reducirSaldo(usuario, 10);
+            fail("No deberia llegar aqui");
+        } catch (PersistenciaException | ApiException e) {
+            assertTrue(e.getMessage().contains("No tiene saldo suficiente"));
+        }
+    }
+
+    @Test
+    public void reducirSaldoNegativoTest() {
+        try {
+            usuarioController.añadirSaldo(usuario, 20);
+            usuarioController.reducirSaldo(usuario, -10);
+            fail("No deberia llegar aqui");
+        } catch (PersistenciaException | ApiException e) {
+            assertTrue(e.getMessage().contains("menor o igual que 0"));
+        }
+        try {
+            usuarioController.reducirSaldo(usuario, 0);
+            fail("No deberia llegar aqui");
+        } catch (PersistenciaException | ApiException e) {
+            assertTrue(e.getMessage().contains("menor o igual que 0"));
+        }
+        try {
+            assertEquals(20, usuarioController.buscar(DNI).getSaldo(), "El saldo no deberia cambiar");
+        } catch (PersistenciaException | ApiException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void saldoVariasSesionesTest() {
+        Usuario otraSesion;
+        try {
+            usuarioController.añadirSaldo(usuario, 20);
+            otraSesion = usuarioController.buscar(DNI);
+
+            usuarioController.reducirSaldo(usuario, 5);
+            usuarioController.reducirSaldo(otraSesion, 5);
+            assertEquals(10, otraSesion.getSaldo(), "La sesion deberia recibir el saldo real");
+            assertEquals(10, usuarioController.buscar(DNI).getSaldo(), "No deberia perderse ningun descuento");
+
+            usuarioController.añadirSaldo(usuario, 5);
+            assertEquals(15, usuario.getSaldo(), "La sesion deberia recibir el saldo real");
+        } catch (PersistenciaException | ApiException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void reducirSaldoConcurrenteTest() {
+        int compradores = 10;
+        float total = 3;
+        int pagos = 0;
+        ExecutorService executor = Executors.newFixedThreadPool(compradores);
+        List<Callable<Boolean>> compras = new ArrayList<>();
+        for (int i = 0; i < compradores; i++) {
+            compras.add(() -> {
+                try {
+                    usuarioController.reducirSaldo(usuarioController.buscar(DNI), total);
+                    return true;
+                } catch (ApiException e) {
+                    return false;
+                }
+            });
+        }
+
+        try {
+            usuarioController.añadirSaldo(usuario, 20);
+            for (Future<Boolean> compra : executor.invokeAll(compras)) {
+                if (compra.get()) {
+                    pagos++;
+                }
+            }
+            assertEquals(6, pagos, "Solo deberian pagarse las compras que cubre el saldo");
+            assertEquals(2, usuarioController.buscar(DNI).getSaldo(), "El saldo no deberia quedar en negativo");
+        } catch (InterruptedException | ExecutionException | PersistenciaException | ApiException e) {
+            fail(e.getMessage());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
 }
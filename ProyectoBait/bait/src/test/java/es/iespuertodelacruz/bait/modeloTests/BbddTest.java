@@ -0,0 +1,112 @@
+package es.iespuertodelacruz.bait.modeloTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import es.iespuertodelacruz.bait.exceptions.PersistenciaException;
+import es.iespuertodelacruz.bait.modelo.mysql.BbddSqlite;
+import es.iespuertodelacruz.bait.modelo.mysql.Binder;
+import es.iespuertodelacruz.bait.modelo.mysql.RowMapper;
+
+public class BbddTest {
+    private static final String SQL = "SELECT idCategoria FROM CATEGORIAS WHERE idCategoria = ?";
+    private static final String ID_CATEGORIA = "cat_game";
+    private static final RowMapper<String> MAPPER = resultSet -> resultSet.getString("idCategoria");
+
+    BbddSqlite bbdd;
+
+    @BeforeEach
+    public void setUp() {
+        try {
+            if (bbdd == null) {
+                bbdd = new BbddSqlite("CATEGORIAS", null, null);
+            }
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void consultarTest() {
+        ArrayList<String> lista;
+        try {
+            int prestadas = bbdd.getEstadisticasPool().getPrestadas();
+            lista = bbdd.consultar(SQL, Binder.valores(ID_CATEGORIA), MAPPER);
+            assertEquals(1, lista.size(), "Deberia encontrarse una categoria");
+            assertEquals(ID_CATEGORIA, lista.get(0), "La categoria encontrada no es correcta");
+            assertEquals(prestadas, bbdd.getEstadisticasPool().getPrestadas(), "La conexion deberia haberse devuelto");
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void perfilWalTest() {
+        try {
+            ArrayList<String> modo = bbdd.consultar("PRAGMA journal_mode", Binder.NINGUNO,
+                resultSet -> resultSet.getString(1));
+            assertEquals("wal", modo.get(0), "La base de datos deberia abrirse en modo WAL");
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void conexionLecturaSoloLecturaTest() {
+        try (Connection connection = bbdd.getConnection(); Statement statement = connection.createStatement()) {
+            statement.executeUpdate("CREATE TABLE SOLO_LECTURA (id INTEGER)");
+            fail("No deberia llegar aqui");
+        } catch (SQLException e) {
+            assertTrue(e.getMessage().contains("readonly"), "La conexion de lectura no deberia poder escribir");
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void consultarErrorTest() {
+        try {
+            bbdd.consultar("SELECT * FROM TABLA_INEXISTENTE", Binder.NINGUNO, MAPPER);
+            fail("No deberia llegar aqui");
+        } catch (PersistenciaException e) {
+            assertTrue(e.getMessage().contains("error en la busqueda"));
+        }
+    }
+
+    @Test
+    public void consultarStreamTest() {
+        List<String> lista;
+        int prestadas = 0;
+        try {
+            prestadas = bbdd.getEstadisticasPool().getPrestadas();
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        }
+
+        try (Stream<String> stream = bbdd.consultarStream(SQL, Binder.valores(ID_CATEGORIA), MAPPER)) {
+            assertEquals(prestadas + 1, bbdd.getEstadisticasPool().getPrestadas(), "La conexion deberia seguir abierta");
+            lista = stream.collect(Collectors.toList());
+            assertEquals(1, lista.size(), "Deberia encontrarse una categoria");
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        }
+
+        try {
+            assertEquals(prestadas, bbdd.getEstadisticasPool().getPrestadas(), "Al cerrar el stream se devuelve la conexion");
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        }
+    }
+}
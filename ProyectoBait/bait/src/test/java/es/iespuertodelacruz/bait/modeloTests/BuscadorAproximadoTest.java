@@ -0,0 +1,95 @@
+package es.iespuertodelacruz.bait.modeloTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import es.iespuertodelacruz.bait.modelo.busqueda.BuscadorAproximado;
+import es.iespuertodelacruz.bait.modelo.busqueda.IndiceInvertido;
+import es.iespuertodelacruz.bait.modelo.busqueda.ListaEnteros;
+
+public class BuscadorAproximadoTest {
+    private static final int NOMBRES = 100000;
+    private static final int VOCABULARIO = 50000;
+    private static final int CONSULTAS = 2000;
+    private static final String SILABAS = "ba be bi bo bu ca ce ci co cu da de di do du fa fe fi fo fu ga ge go gu "
+        + "la le li lo lu ma me mi mo mu na ne ni no nu pa pe pi po pu ra re ri ro ru sa se si so su ta te ti to tu "
+        + "za zo zu tra tre bra bro cla cri pla pro";
+
+    @Test
+    public void distanciaTest() {
+        assertEquals(0, BuscadorAproximado.distancia("zelda", "zelda"), "Palabras iguales");
+        assertEquals(1, BuscadorAproximado.distancia("horizn", "horizon"), "Falta una letra");
+        assertEquals(2, BuscadorAproximado.distancia("hart", "hearts"), "Faltan dos letras");
+        assertEquals(3, BuscadorAproximado.distancia("kitten", "sitting"), "Distancia clasica");
+        assertEquals(4, BuscadorAproximado.distancia("", "mano"), "Contra la palabra vacia");
+    }
+
+    @Test
+    public void buscarTest() {
+        String[] diccionario = {"dawn", "hart", "heart", "hearth", "hearts", "horizon", "kingdom", "zero"};
+
+        ArrayList<ArrayList<String>> parecidas = new BuscadorAproximado("hart", 2).buscar(diccionario);
+        assertEquals(List.of("hart"), parecidas.get(0), "Deberia estar la misma palabra");
+        assertEquals(List.of("heart"), parecidas.get(1), "Deberia estar a un error");
+        assertEquals(List.of("hearth", "hearts"), parecidas.get(2), "Deberian estar a dos errores");
+        assertEquals(List.of("horizon"), new BuscadorAproximado("horizn", 1).buscar(diccionario).get(1),
+            "Deberia encontrarse con un error");
+        assertTrue(new BuscadorAproximado("zelda", 2).buscar(new String[0]).get(0).isEmpty(),
+            "Sin palabras no hay resultados");
+    }
+
+    /**
+     * Indexa NOMBRES nombres de tres palabras sacadas de un vocabulario de
+     * VOCABULARIO palabras inventadas con silabas, que se parecen mucho entre
+     * si, y busca palabras con una letra de menos
+     */
+    @Test
+    @Tag("rendimiento")
+    public void latenciaTest() {
+        Random random = new Random(7);
+        String[] silabas = SILABAS.split(" ");
+        String[] palabras = new String[VOCABULARIO];
+        for (int i = 0; i < VOCABULARIO; i++) {
+            StringBuilder palabra = new StringBuilder();
+            for (int k = 0; k < 2 + random.nextInt(3); k++) {
+                palabra.append(silabas[random.nextInt(silabas.length)]);
+            }
+            palabras[i] = palabra.toString();
+        }
+        IndiceInvertido indice = new IndiceInvertido();
+        String[] primeras = new String[NOMBRES];
+        for (int i = 0; i < NOMBRES; i++) {
+            primeras[i] = palabras[random.nextInt(VOCABULARIO)];
+            indice.añadir(i, List.of(primeras[i], palabras[random.nextInt(VOCABULARIO)],
+                palabras[random.nextInt(VOCABULARIO)]));
+        }
+
+        long[] tiempos = new long[CONSULTAS];
+        for (int i = 0; i < CONSULTAS * 2; i++) {
+            String palabra = primeras[random.nextInt(NOMBRES)];
+            int posicion = random.nextInt(palabra.length());
+            String conError = palabra.substring(0, posicion) + palabra.substring(posicion + 1);
+            long inicio = System.nanoTime();
+            ArrayList<ListaEnteros> niveles = indice.buscarAproximado(conError, 2);
+            long nanos = System.nanoTime() - inicio;
+            assertTrue(!niveles.get(1).estaVacia() || !niveles.get(0).estaVacia(),
+                "Deberia encontrarse " + palabra + " buscando " + conError);
+            if (i >= CONSULTAS) {
+                tiempos[i - CONSULTAS] = nanos;
+            }
+        }
+        Arrays.sort(tiempos);
+        long p99 = tiempos[(int) (CONSULTAS * 0.99)];
+        assertTrue(p99 < 10_000_000, String.format(
+            "El p99 deberia estar por debajo de 10 ms: p50 %.2f ms, p99 %.2f ms", tiempos[CONSULTAS / 2] / 1e6,
+            p99 / 1e6));
+    }
+}
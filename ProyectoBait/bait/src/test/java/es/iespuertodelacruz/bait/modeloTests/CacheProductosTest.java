@@ -0,0 +1,183 @@
+package es.iespuertodelacruz.bait.modeloTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import es.iespuertodelacruz.bait.api.productos.Categoria;
+import es.iespuertodelacruz.bait.api.productos.Marca;
+import es.iespuertodelacruz.bait.api.productos.Producto;
+import es.iespuertodelacruz.bait.exceptions.PersistenciaException;
+import es.iespuertodelacruz.bait.modelo.productosModelo.CacheProductos;
+import es.iespuertodelacruz.bait.modelo.productosModelo.CategoriaModelo;
+import es.iespuertodelacruz.bait.modelo.productosModelo.MarcaModelo;
+import es.iespuertodelacruz.bait.modelo.productosModelo.ProductoModelo;
+
+public class CacheProductosTest {
+    private static final String ID_PRODUCTO = "pro_cache";
+    private static final String ID_CATEGORIA = "cat_cache";
+    private static final String ID_MARCA = "mar_cache";
+
+    ProductoModelo productoModelo;
+    CategoriaModelo categoriaModelo;
+    MarcaModelo marcaModelo;
+    Producto producto;
+    AtomicInteger lecturas;
+
+    @BeforeEach
+    public void setUp() {
+        Categoria categoria = new Categoria(ID_CATEGORIA, "cache");
+        Marca marca = new Marca(ID_MARCA, "cache");
+        producto = new Producto(ID_PRODUCTO, "Mando", categoria, 30f, "Mando inalambrico", 10, marca);
+        lecturas = new AtomicInteger();
+        try {
+            productoModelo = new ProductoModelo();
+            categoriaModelo = new CategoriaModelo();
+            marcaModelo = new MarcaModelo();
+            categoriaModelo.insertar(categoria);
+            marcaModelo.insertar(marca);
+            productoModelo.insertar(producto);
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @AfterEach
+    public void after() {
+        try {
+            productoModelo.eliminar(ID_PRODUCTO);
+            categoriaModelo.eliminar(ID_CATEGORIA);
+            marcaModelo.eliminar(ID_MARCA);
+        } catch (PersistenciaException e) {
+            fail("Error al eliminar la categoria, marca o producto.");
+        }
+    }
+
+    /**
+     * Cargador de prueba que crea el producto pedido y cuenta las lecturas
+     */
+    private Producto cargar(String idProducto) {
+        lecturas.incrementAndGet();
+        return new Producto(idProducto, "nombre", null, 1f, "descripcion", 1, null);
+    }
+
+    @Test
+    public void buscarPorIdTest() {
+        try {
+            CacheProductos cache = CacheProductos.obtener();
+            productoModelo.buscarPorId(ID_PRODUCTO);
+            long aciertos = cache.getAciertos();
+            long cargas = cache.getCargas();
+
+            assertEquals(producto, productoModelo.buscarPorId(ID_PRODUCTO), "Deberian ser iguales");
+            assertEquals(aciertos + 1, cache.getAciertos(), "La segunda busqueda deberia salir de la cache");
+            assertEquals(cargas, cache.getCargas(), "No deberia volver a leerse de la base de datos");
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void invalidarTest() {
+        try {
+            productoModelo.buscarPorId(ID_PRODUCTO);
+            producto.setNombre("Mando nuevo");
+            productoModelo.modificar(producto);
+            assertEquals("Mando nuevo", productoModelo.buscarPorId(ID_PRODUCTO).getNombre(),
+                "Modificar deberia invalidar el producto");
+
+            productoModelo.reducirStock(ID_PRODUCTO, 4);
+            assertEquals(6, productoModelo.buscarPorId(ID_PRODUCTO).getStock(),
+                "Cambiar el stock deberia invalidar el producto");
+
+            productoModelo.eliminar(ID_PRODUCTO);
+            assertNull(productoModelo.buscarPorId(ID_PRODUCTO), "Eliminar deberia invalidar el producto");
+            productoModelo.insertar(producto);
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void expulsarMenosUsadoTest() {
+        CacheProductos cache = new CacheProductos(this::cargar, 500, 60);
+        try {
+            cache.buscar("uno");
+            cache.buscar("dos");
+            cache.buscar("uno");
+            cache.buscar("tres");
+            assertTrue(cache.getBytes() <= 500, "No deberia pasar del limite: " + cache.getBytes());
+            assertEquals(1, cache.getExpulsiones(), "Deberia expulsarse un producto");
+
+            int leidos = lecturas.get();
+            cache.buscar("uno");
+            assertEquals(leidos, lecturas.get(), "El usado hace poco deberia seguir en la cache");
+            cache.buscar("dos");
+            assertEquals(leidos + 1, lecturas.get(), "El menos usado deberia haberse expulsado");
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void caducarTest() {
+        CacheProductos cache = new CacheProductos(this::cargar, 10_000, 0);
+        try {
+            cache.buscar("uno");
+            cache.buscar("uno");
+            assertEquals(2, lecturas.get(), "La entrada caducada deberia volver a leerse");
+            assertEquals(1, cache.getCaducadas(), "Deberia contarse una caducada");
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void agruparCargasTest() throws Exception {
+        CountDownLatch empezadas = new CountDownLatch(1);
+        CountDownLatch soltar = new CountDownLatch(1);
+        CacheProductos cache = new CacheProductos(idProducto -> {
+            empezadas.countDown();
+            try {
+                soltar.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return cargar(idProducto);
+        }, 10_000, 60);
+
+        ExecutorService hilos = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Producto>> resultados = new ArrayList<>();
+            resultados.add(hilos.submit(() -> cache.buscar("uno")));
+            assertTrue(empezadas.await(5, TimeUnit.SECONDS), "La primera carga deberia empezar");
+            for (int i = 0; i < 7; i++) {
+                resultados.add(hilos.submit(() -> cache.buscar("uno")));
+            }
+            Thread.sleep(100);
+            soltar.countDown();
+            for (Future<Producto> resultado : resultados) {
+                assertEquals("uno", resultado.get(5, TimeUnit.SECONDS).getIdProducto(),
+                    "Todos deberian recibir el producto");
+            }
+            assertEquals(1, lecturas.get(), "Las busquedas simultaneas deberian compartir la lectura");
+            assertEquals(1, cache.getCargas(), "Solo deberia contarse una carga");
+        } finally {
+            hilos.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package es.iespuertodelacruz.bait.modeloTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import es.iespuertodelacruz.bait.api.productos.Categoria;
+import es.iespuertodelacruz.bait.api.productos.Marca;
+import es.iespuertodelacruz.bait.api.productos.Producto;
+import es.iespuertodelacruz.bait.exceptions.PersistenciaException;
+import es.iespuertodelacruz.bait.modelo.mysql.Bbdd;
+import es.iespuertodelacruz.bait.modelo.mysql.Pagina;
+import es.iespuertodelacruz.bait.modelo.productosModelo.Catalogo;
+import es.iespuertodelacruz.bait.modelo.productosModelo.CatalogoProductos;
+import es.iespuertodelacruz.bait.modelo.productosModelo.CategoriaModelo;
+import es.iespuertodelacruz.bait.modelo.productosModelo.FacetasProductos;
+import es.iespuertodelacruz.bait.modelo.productosModelo.FiltroProductos;
+import es.iespuertodelacruz.bait.modelo.productosModelo.MarcaModelo;
+import es.iespuertodelacruz.bait.modelo.productosModelo.OrdenProductos;
+import es.iespuertodelacruz.bait.modelo.productosModelo.ProductoModelo;
+import es.iespuertodelacruz.bait.modelo.productosModelo.ResultadoFacetas;
+
+public class CatalogoProductosTest {
+    private static final String ID_PRODUCTO = "pro_catalogo";
+    private static final String ID_CATEGORIA = "cat_catalogo";
+    private static final String ID_MARCA = "mar_catalogo";
+
+    ProductoModelo productoModelo;
+    CategoriaModelo categoriaModelo;
+    MarcaModelo marcaModelo;
+    CatalogoProductos catalogo;
+    Producto producto;
+
+    @BeforeEach
+    public void setUp() {
+        Categoria categoria = new Categoria(ID_CATEGORIA, "catalogo");
+        Marca marca = new Marca(ID_MARCA, "catalogo");
+        producto = new Producto(ID_PRODUCTO, "Volante", categoria, 80f, "Volante con pedales", 5, marca);
+        try {
+            productoModelo = new ProductoModelo();
+            categoriaModelo = new CategoriaModelo();
+            marcaModelo = new MarcaModelo();
+            catalogo = CatalogoProductos.obtener();
+            categoriaModelo.insertar(categoria);
+            marcaModelo.insertar(marca);
+            catalogo.getCatalogo();
+            productoModelo.insertar(producto);
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @AfterEach
+    public void after() {
+        try {
+            productoModelo.eliminar(ID_PRODUCTO);
+            categoriaModelo.eliminar(ID_CATEGORIA);
+            marcaModelo.eliminar(ID_MARCA);
+        } catch (PersistenciaException e) {
+            fail("Error al eliminar la categoria, marca o producto.");
+        }
+    }
+
+    @Test
+    public void versionesTest() {
+        try {
+            Catalogo anterior = catalogo.getCatalogo();
+            assertEquals(producto, anterior.buscar(ID_PRODUCTO), "El producto insertado deberia estar");
+
+            long consultas = Bbdd.getConsultasEjecutadas();
+            assertSame(anterior, catalogo.getCatalogo(), "Sin cambios deberia leerse la misma version");
+            assertEquals(consultas, Bbdd.getConsultasEjecutadas(), "Leer el catalogo no deberia ir a la base de datos");
+
+            productoModelo.reducirStock(ID_PRODUCTO, 2);
+            assertSame(anterior, catalogo.getCatalogo(), "Un cambio de stock no deberia crear una version");
+            assertEquals(3, anterior.buscar(ID_PRODUCTO).getStock(), "Deberia verse el stock nuevo");
+
+            productoModelo.eliminar(ID_PRODUCTO);
+            Catalogo nuevo = catalogo.getCatalogo();
+            assertTrue(nuevo.getVersion() > anterior.getVersion(), "Cada cambio deberia crear una version mayor");
+            assertNull(nuevo.buscar(ID_PRODUCTO), "El producto eliminado no deberia estar");
+            assertEquals(3, anterior.buscar(ID_PRODUCTO).getStock(), "La version anterior deberia seguir entera");
+            productoModelo.insertar(producto);
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void recargarStockTest() {
+        try {
+            Catalogo anterior = catalogo.getCatalogo();
+            productoModelo.aumentarStock(ID_PRODUCTO, 4);
+            Producto modificado = new Producto(ID_PRODUCTO, "Volante nuevo", producto.getCategoria(), 80f,
+                "Volante con pedales", 9, producto.getMarca());
+            productoModelo.modificarLote(List.of(modificado));
+
+            Catalogo nuevo = catalogo.getCatalogo();
+            assertTrue(nuevo.getVersion() > anterior.getVersion(), "Un lote deberia crear una version mayor");
+            assertEquals(modificado, nuevo.buscar(ID_PRODUCTO), "Deberian leerse los datos del lote");
+            productoModelo.reducirStock(ID_PRODUCTO, 1);
+            assertEquals(8, nuevo.buscar(ID_PRODUCTO).getStock(), "La version recargada deberia ver las ventas");
+            assertEquals(8, anterior.buscar(ID_PRODUCTO).getStock(), "Las versiones comparten el stock");
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void facetasStockTest() {
+        try {
+            Catalogo actual = catalogo.getCatalogo();
+            FacetasProductos facetas = actual.getFacetas();
+            FiltroProductos filtro = new FiltroProductos();
+            filtro.añadirCategoria(ID_CATEGORIA);
+            filtro.setSoloConStock(true);
+            assertEquals(1, facetas.filtrar(filtro, 10).getTotal(), "El producto tiene stock");
+
+            productoModelo.reducirStock(ID_PRODUCTO, 5);
+            assertSame(facetas, catalogo.getCatalogo().getFacetas(), "Una venta no deberia crear otro indice");
+            assertEquals(0, facetas.filtrar(filtro, 10).getTotal(), "Sin stock no deberia salir");
+
+            productoModelo.aumentarStock(ID_PRODUCTO, 2);
+            ResultadoFacetas resultado = facetas.filtrar(filtro, 10);
+            assertEquals(1, resultado.getTotal(), "Al reponer deberia volver a salir");
+            assertEquals(2, resultado.getProductos().get(0).getStock(), "Deberia salir con el stock actual");
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void obtenerPaginaTest() {
+        try {
+            Catalogo actual = catalogo.getCatalogo();
+            ArrayList<Producto> recorridos = new ArrayList<>();
+            ArrayList<String> anteriores = new ArrayList<>();
+            Pagina<Producto> pagina = actual.obtenerPagina(null, 2);
+            assertFalse(pagina.hayAnterior(), "La primera pagina no tiene anterior");
+            while (true) {
+                recorridos.addAll(pagina.getElementos());
+                if (!pagina.haySiguiente()) {
+                    break;
+                }
+                anteriores.add(pagina.getElementos().get(0).getIdProducto());
+                pagina = actual.obtenerPagina(pagina.getSiguiente(), 2);
+            }
+            assertEquals(actual.getProductos(), recorridos, "Las paginas deberian recorrer todo el catalogo en orden");
+
+            for (int i = anteriores.size() - 1; i >= 0; i--) {
+                pagina = actual.obtenerPagina(pagina.getAnterior(), 2);
+                assertEquals(anteriores.get(i), pagina.getElementos().get(0).getIdProducto(),
+                    "Hacia atras deberian salir las mismas paginas");
+            }
+            assertFalse(pagina.hayAnterior(), "Hacia atras se deberia llegar a la primera pagina");
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void obtenerTopTest() {
+        try {
+            Catalogo actual = catalogo.getCatalogo();
+            for (OrdenProductos orden : OrdenProductos.values()) {
+                List<Producto> esperados = actual.getProductos().stream()
+                    .filter(producto -> "cat_game".equals(producto.getCategoria().getIdCategoria()))
+                    .sorted(orden.getComparador()).limit(3).collect(Collectors.toList());
+                assertEquals(esperados, actual.obtenerTop("cat_game", orden, 3), 
+                    "Deberian salir los tres primeros en orden " + orden);
+                assertEquals(esperados, actual.obtenerTop("cat_game", orden, 3), 
+                    "La segunda vez deberian salir los mismos " + orden);
+            }
+            assertEquals(List.of(producto), actual.obtenerTop(ID_CATEGORIA, OrdenProductos.PRECIO_ASC, 10),
+                "No deberian salir productos de otras categorias");
+            assertTrue(actual.obtenerTop("cat_inexistente", OrdenProductos.PRECIO_ASC, 10).isEmpty(),
+                "Una categoria sin productos no tiene top");
+
+            Producto otro = new Producto(ID_PRODUCTO + "_2", "Pedales", producto.getCategoria(), 20f, "Pedales", 1,
+                producto.getMarca());
+            productoModelo.insertar(otro);
+            try {
+                assertEquals(List.of(otro, producto), 
+                    catalogo.getCatalogo().obtenerTop(ID_CATEGORIA, OrdenProductos.PRECIO_ASC, 10),
+                    "La version nueva deberia tener el producto nuevo");
+                assertEquals(List.of(producto), actual.obtenerTop(ID_CATEGORIA, OrdenProductos.PRECIO_ASC, 10),
+                    "La version anterior no deberia cambiar");
+            } finally {
+                productoModelo.eliminar(otro.getIdProducto());
+            }
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        }
+    }
+}
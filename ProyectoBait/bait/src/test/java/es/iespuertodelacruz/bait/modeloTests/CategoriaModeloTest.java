@@ -1,18 +1,25 @@
 package es.iespuertodelacruz.bait.modeloTests;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import es.iespuertodelacruz.bait.api.productos.Categoria;
+import es.iespuertodelacruz.bait.api.productos.Producto;
 import es.iespuertodelacruz.bait.exceptions.PersistenciaException;
+import es.iespuertodelacruz.bait.modelo.mysql.Bbdd;
+import es.iespuertodelacruz.bait.modelo.productosModelo.CacheReferencia;
 import es.iespuertodelacruz.bait.modelo.productosModelo.CategoriaModelo;
+import es.iespuertodelacruz.bait.modelo.productosModelo.ObservadorProductos;
+import es.iespuertodelacruz.bait.modelo.productosModelo.ProductoModelo;
 
 public class CategoriaModeloTest {
     private static final String ID_CATEGORIA = "CAT_COMIC";
@@ -48,6 +55,44 @@ public class CategoriaModeloTest {
         }
     }
 
+    @Test
+    public void sinCambiosNoInvalidaTest() {
+        AtomicInteger invalidaciones = new AtomicInteger();
+        ObservadorProductos observador = new ObservadorProductos() {
+            @Override
+            public void guardado(Producto producto) {
+                // No se comprueba en esta prueba
+            }
+
+            @Override
+            public void eliminado(String idProducto) {
+                // No se comprueba en esta prueba
+            }
+
+            @Override
+            public void stockModificado(String idProducto, int stock) {
+                // No se comprueba en esta prueba
+            }
+
+            @Override
+            public void invalidado() {
+                invalidaciones.incrementAndGet();
+            }
+        };
+        ProductoModelo.añadirObservador(observador);
+        try {
+            categoriaModelo.modificar(new Categoria("cat_inexistente", "inexistente"));
+            categoriaModelo.eliminar("cat_inexistente");
+            assertEquals(0, invalidaciones.get(), "Sin filas cambiadas no deberian invalidarse los productos");
+            categoriaModelo.modificar(categoria);
+            assertEquals(1, invalidaciones.get(), "Deberian invalidarse los productos");
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        } finally {
+            ProductoModelo.quitarObservador(observador);
+        }
+    }
+
     @Test 
     public void insertarErrorTest() {
         String mensaje = "Ha ocurrido un error al insertar";
@@ -70,6 +115,46 @@ public class CategoriaModeloTest {
         }
     }
 
+    @Test
+    public void buscarPorIdCacheTest() {
+        CacheReferencia<Categoria> cache = CategoriaModelo.getCache();
+        try {
+            categoriaModelo.buscarPorId(ID_CATEGORIA);
+            long consultas = Bbdd.getConsultasEjecutadas();
+            long aciertos = cache.getAciertos();
+            long fallos = cache.getFallos();
+
+            Categoria categoriaBuscada = categoriaModelo.buscarPorId(ID_CATEGORIA);
+            assertEquals(categoria, categoriaBuscada, "Deberian ser iguales");
+            assertNull(categoriaModelo.buscarPorId("CAT_INEXISTENTE"), "No deberia encontrarse la categoria");
+            assertEquals(consultas, Bbdd.getConsultasEjecutadas(), "Las busquedas no deberian ir a la base de datos");
+            assertEquals(aciertos + 1, cache.getAciertos(), "Deberia contarse un acierto");
+            assertEquals(fallos + 1, cache.getFallos(), "Deberia contarse un fallo");
+
+            categoriaBuscada.setNombre("Otro nombre");
+            assertEquals(NOMBRE_CATEGORIA, categoriaModelo.buscarPorId(ID_CATEGORIA).getNombre(), 
+                "Cambiar la categoria devuelta no deberia cambiar la cache");
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void modificarCacheTest() {
+        try {
+            categoriaModelo.buscarPorId(ID_CATEGORIA);
+            categoria.setNombre("Manga");
+            categoriaModelo.modificar(categoria);
+            assertEquals("Manga", categoriaModelo.buscarPorId(ID_CATEGORIA).getNombre(), 
+                "La cache deberia tener el nombre nuevo");
+            categoriaModelo.eliminar(ID_CATEGORIA);
+            assertNull(categoriaModelo.buscarPorId(ID_CATEGORIA), "La categoria borrada no deberia estar en la cache");
+            categoriaModelo.insertar(categoria);
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        }
+    }
+
     @Test
     public void buscarPorNombreTest() {
         Categoria categoriaBuscada;
@@ -19,6 +19,7 @@ import es.iespuertodelacruz.bait.api.productos.Producto;
 import es.iespuertodelacruz.bait.exceptions.PersistenciaException;
 import es.iespuertodelacruz.bait.modelo.movimientosModelo.EnvioModelo;
 import es.iespuertodelacruz.bait.modelo.movimientosModelo.PedidoModelo;
+import es.iespuertodelacruz.bait.modelo.mysql.Bbdd;
 import es.iespuertodelacruz.bait.modelo.personasModelo.UsuarioModelo;
 import es.iespuertodelacruz.bait.modelo.productosModelo.CategoriaModelo;
 import es.iespuertodelacruz.bait.modelo.productosModelo.MarcaModelo;
@@ -163,4 +164,21 @@ public class EnvioModeloTest {
         }
     }
 
+    @Test
+    public void unaConsultaPorBusquedaTest() {
+        ArrayList<Envio> lista;
+        long consultas;
+        try {
+            consultas = Bbdd.getConsultasEjecutadas();
+            lista = envioModelo.obtenerListado(DNI);
+            assertEquals(consultas + 1, Bbdd.getConsultasEjecutadas(), "El listado deberia ser una sola consulta");
+            assertEquals(1, lista.size(), "Deberia encontrarse el envio del usuario");
+            assertEquals(pedido, lista.get(0).getPedido(), "El pedido deberia venir completo");
+            assertEquals(categoria, lista.get(0).getPedido().getProducto().getCategoria(), 
+                "La categoria del producto deberia venir completa");
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        }
+    }
+
 }
@@ -0,0 +1,273 @@
+package es.iespuertodelacruz.bait.modeloTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import es.iespuertodelacruz.bait.exceptions.PersistenciaException;
+import es.iespuertodelacruz.bait.modelo.mysql.BbddSqlite;
+import es.iespuertodelacruz.bait.modelo.mysql.EscritorBbdd;
+import es.iespuertodelacruz.bait.modelo.mysql.MigradorBbdd;
+import es.iespuertodelacruz.bait.modelo.mysql.Transaccion;
+
+public class EscritorBbddTest {
+    private static final String DRIVER = "org.sqlite.JDBC";
+    private static final String ID_PRODUCTO = "pro_escritor";
+    private static final int HILOS = 8;
+    private static final int PEDIDOS_POR_HILO = 50;
+
+    @TempDir
+    Path directorio;
+
+    String url;
+
+    @BeforeEach
+    public void setUp() {
+        url = "jdbc:sqlite:" + directorio.resolve("escritor.db");
+        try {
+            new BbddSqlite(MigradorBbdd.TABLA_VERSIONES, DRIVER, url, null, null);
+            try (Connection connection = DriverManager.getConnection(url);
+                    PreparedStatement preparedStatement = connection.prepareStatement(
+                        "INSERT INTO PRODUCTOS (idProducto, nombre, precio, stock, idCategoria, idMarca) "
+                        + "VALUES (?, 'escritor', 1, ?, 'cat_game', 'mar_sony')")) {
+                preparedStatement.setString(1, ID_PRODUCTO);
+                preparedStatement.setInt(2, HILOS * PEDIDOS_POR_HILO);
+                preparedStatement.executeUpdate();
+            }
+        } catch (PersistenciaException | SQLException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void escrituraErroneaNoDeshaceElLoteTest() {
+        EscritorBbdd escritor = nuevoEscritor(64, 50);
+        try {
+            CompletableFuture<Void> primera = escritor.enviar(transaccion -> insertarPedido(transaccion, "ped_1"));
+            CompletableFuture<Void> repetida = escritor.enviar(transaccion -> insertarPedido(transaccion, "ped_1"));
+            CompletableFuture<Void> tercera = escritor.enviar(transaccion -> insertarPedido(transaccion, "ped_2"));
+
+            primera.get();
+            tercera.get();
+            try {
+                repetida.get();
+                fail("No deberia llegar aqui");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof SQLException, "Deberia devolverse el error de la escritura");
+            }
+            assertEquals(2, contar("SELECT COUNT(*) FROM PEDIDOS"), "Las escrituras correctas deberian guardarse");
+            assertEquals(1, escritor.getCommits(), "Las tres escrituras deberian compartir commit");
+        } catch (PersistenciaException | InterruptedException | ExecutionException | SQLException e) {
+            fail(e.getMessage());
+        } finally {
+            escritor.cerrar();
+        }
+    }
+
+    @Test
+    public void despuesDeConfirmarTest() {
+        EscritorBbdd escritor = nuevoEscritor(1, 0);
+        StringBuilder confirmadas = new StringBuilder();
+        try {
+            escritor.enviar(transaccion -> {
+                insertarPedido(transaccion, "ped_1");
+                transaccion.despuesDeConfirmar(() -> confirmadas.append("ped_1"));
+                return null;
+            }).get();
+            try {
+                escritor.enviar(transaccion -> {
+                    transaccion.despuesDeConfirmar(() -> confirmadas.append("ped_1"));
+                    return insertarPedido(transaccion, "ped_1");
+                }).get();
+                fail("No deberia llegar aqui");
+            } catch (ExecutionException e) {
+                assertEquals("ped_1", confirmadas.toString(), "Solo deberian ejecutarse las acciones confirmadas");
+            }
+        } catch (PersistenciaException | InterruptedException | ExecutionException e) {
+            fail(e.getMessage());
+        } finally {
+            escritor.cerrar();
+        }
+    }
+
+    @Test
+    public void errorEnEscrituraTest() {
+        EscritorBbdd escritor = nuevoEscritor(64, 50);
+        try {
+            CompletableFuture<Void> primera = escritor.enviar(transaccion -> insertarPedido(transaccion, "ped_1"));
+            CompletableFuture<Void> erronea = escritor.enviar(transaccion -> {
+                insertarPedido(transaccion, "ped_2");
+                throw new AssertionError("error en la escritura");
+            });
+            CompletableFuture<Void> tercera = escritor.enviar(transaccion -> {
+                transaccion.despuesDeConfirmar(() -> {
+                    throw new AssertionError("error despues del commit");
+                });
+                return insertarPedido(transaccion, "ped_3");
+            });
+
+            primera.get();
+            try {
+                erronea.get();
+                fail("No deberia llegar aqui");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof AssertionError, "Deberia devolverse el error de la escritura");
+            }
+            try {
+                tercera.get();
+                fail("No deberia llegar aqui");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof AssertionError, "Deberia devolverse el error tras el commit");
+            }
+
+            escritor.enviar(transaccion -> insertarPedido(transaccion, "ped_4")).get(5, TimeUnit.SECONDS);
+            assertEquals(3, contar("SELECT COUNT(*) FROM PEDIDOS"), "Solo deberia deshacerse la escritura erronea");
+        } catch (PersistenciaException | InterruptedException | ExecutionException | TimeoutException
+                | SQLException e) {
+            fail(e.getMessage());
+        } finally {
+            escritor.cerrar();
+        }
+    }
+
+    @Test
+    public void enviarCerradoTest() {
+        EscritorBbdd escritor = nuevoEscritor(1, 0);
+        escritor.cerrar();
+        try {
+            escritor.enviar(transaccion -> insertarPedido(transaccion, "ped_1"));
+            fail("No deberia llegar aqui");
+        } catch (PersistenciaException e) {
+            assertTrue(e.getMessage().contains("cerrado"), "Deberia fallar enseguida con el escritor cerrado");
+        }
+    }
+
+    @Test
+    public void pedidosConcurrentesTest() {
+        pedidosPorSegundo(64, 2, "con");
+    }
+
+    @Test
+    @Tag("rendimiento")
+    public void rendimientoGroupCommitTest() {
+        double sinAgrupar = pedidosPorSegundo(1, 0, "sin");
+        double agrupando = pedidosPorSegundo(64, 2, "con");
+
+        assertTrue(agrupando >= sinAgrupar, String.format(
+            "El group commit no deberia ser mas lento: %.0f pedidos/segundo sin agrupar, %.0f agrupando",
+            sinAgrupar, agrupando));
+    }
+
+    /**
+     * Realiza HILOS * PEDIDOS_POR_HILO pedidos concurrentes (stock, pedido y
+     * envio) con un escritor y devuelve cuantos pedidos por segundo ha
+     * confirmado
+     */
+    private double pedidosPorSegundo(int lote, long espera, String prefijo) {
+        EscritorBbdd escritor = nuevoEscritor(lote, espera);
+        ExecutorService executor = Executors.newFixedThreadPool(HILOS);
+        List<Callable<Integer>> clientes = new ArrayList<>();
+        long inicio;
+        long nanos = 0;
+        for (int i = 0; i < HILOS; i++) {
+            String cliente = prefijo + "_" + i;
+            clientes.add(() -> {
+                for (int j = 0; j < PEDIDOS_POR_HILO; j++) {
+                    String idPedido = cliente + "_" + j;
+                    escritor.enviar(transaccion -> realizarPedido(transaccion, idPedido)).get();
+                }
+                return PEDIDOS_POR_HILO;
+            });
+        }
+
+        try {
+            int antes = contar("SELECT COUNT(*) FROM ENVIOS");
+            inicio = System.nanoTime();
+            for (Future<Integer> resultado : executor.invokeAll(clientes)) {
+                resultado.get();
+            }
+            nanos = System.nanoTime() - inicio;
+
+            assertEquals(antes + HILOS * PEDIDOS_POR_HILO, contar("SELECT COUNT(*) FROM ENVIOS"),
+                "Deberian guardarse todos los pedidos");
+            if (lote > 1) {
+                assertTrue(escritor.getCommits() < escritor.getEscrituras(), "Los pedidos deberian agruparse");
+            } else {
+                assertEquals(escritor.getEscrituras(), escritor.getCommits(), "Cada pedido deberia tener su commit");
+            }
+        } catch (InterruptedException | ExecutionException | SQLException e) {
+            fail(e.getMessage());
+        } finally {
+            executor.shutdown();
+            escritor.cerrar();
+        }
+
+        return HILOS * PEDIDOS_POR_HILO / (nanos / 1e9);
+    }
+
+    private EscritorBbdd nuevoEscritor(int lote, long espera) {
+        EscritorBbdd escritor = null;
+        try {
+            escritor = new EscritorBbdd(DriverManager.getConnection(url), lote, espera);
+        } catch (SQLException e) {
+            fail(e.getMessage());
+        }
+        return escritor;
+    }
+
+    private Void realizarPedido(Transaccion transaccion, String idPedido) throws SQLException {
+        Connection connection = transaccion.getConnection();
+        try (PreparedStatement stock = connection.prepareStatement(
+                "UPDATE PRODUCTOS SET stock = stock - 1 WHERE idProducto = ? AND stock >= 1");
+                PreparedStatement envio = connection.prepareStatement(
+                    "INSERT INTO ENVIOS (idEnvio, idPedido, fechaEnvio, estado) VALUES (?, ?, '2021-05-26', 'Enviado')")) {
+            stock.setString(1, ID_PRODUCTO);
+            stock.executeUpdate();
+            insertarPedido(transaccion, idPedido);
+            envio.setString(1, "env_" + idPedido);
+            envio.setString(2, idPedido);
+            envio.executeUpdate();
+        }
+        return null;
+    }
+
+    private Void insertarPedido(Transaccion transaccion, String idPedido) throws SQLException {
+        try (PreparedStatement preparedStatement = transaccion.getConnection().prepareStatement(
+                "INSERT INTO PEDIDOS (idPedido, unidades, total, fechaPedido, idCliente, idProducto) "
+                + "VALUES (?, 1, 1, '2021-05-26', 'cliente', ?)")) {
+            preparedStatement.setString(1, idPedido);
+            preparedStatement.setString(2, ID_PRODUCTO);
+            preparedStatement.executeUpdate();
+        }
+        return null;
+    }
+
+    private int contar(String sql) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url);
+                ResultSet resultSet = connection.createStatement().executeQuery(sql)) {
+            return resultSet.getInt(1);
+        }
+    }
+}
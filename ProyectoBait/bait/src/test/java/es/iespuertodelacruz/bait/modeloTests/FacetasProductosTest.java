@@ -0,0 +1,193 @@
+package es.iespuertodelacruz.bait.modeloTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import es.iespuertodelacruz.bait.api.productos.Categoria;
+import es.iespuertodelacruz.bait.api.productos.Marca;
+import es.iespuertodelacruz.bait.api.productos.Producto;
+import es.iespuertodelacruz.bait.modelo.productosModelo.FacetasProductos;
+import es.iespuertodelacruz.bait.modelo.productosModelo.FiltroProductos;
+import es.iespuertodelacruz.bait.modelo.productosModelo.ResultadoFacetas;
+
+public class FacetasProductosTest {
+    private static final int PRODUCTOS = 100000;
+    private static final int CONSULTAS = 2000;
+    private static final int CALENTAMIENTO = 10000;
+
+    @Test
+    public void filtrarTest() {
+        Categoria juegos = new Categoria("cat_juegos", "juegos");
+        Categoria consolas = new Categoria("cat_consolas", "consolas");
+        Marca sony = new Marca("mar_sony", "sony");
+        Marca nintendo = new Marca("mar_nintendo", "nintendo");
+        List<Producto> productos = List.of(
+            new Producto("p1", "Zelda", juegos, 60f, "juego", 3, nintendo),
+            new Producto("p2", "Mario", juegos, 45f, "juego", 0, nintendo),
+            new Producto("p3", "Switch", consolas, 300f, "consola", 2, nintendo),
+            new Producto("p4", "PS5", consolas, 550f, "consola", 0, sony),
+            new Producto("p5", "Gran Turismo", juegos, 70f, "juego", 8, sony));
+        FacetasProductos facetas = new FacetasProductos(productos);
+
+        ResultadoFacetas resultado = facetas.filtrar(new FiltroProductos(), 10);
+        assertEquals(5, resultado.getTotal(), "Sin filtro deberian estar todos");
+        assertEquals(Map.of("cat_juegos", 3, "cat_consolas", 2), resultado.getCategorias(),
+            "Deberian contarse todas las categorias");
+        assertEquals(3, resultado.getConStock(), "Deberian contarse los que tienen stock");
+
+        FiltroProductos filtro = new FiltroProductos();
+        filtro.añadirCategoria("cat_juegos");
+        filtro.setSoloConStock(true);
+        resultado = facetas.filtrar(filtro, 10);
+        assertEquals(List.of(productos.get(0), productos.get(4)), resultado.getProductos(),
+            "Deberian cumplir las dos facetas");
+        assertEquals(Map.of("mar_nintendo", 1, "mar_sony", 1), resultado.getMarcas(),
+            "Deberian contarse las marcas de lo que queda");
+        assertEquals(Map.of(FacetasProductos.franja(60f), 2), resultado.getFranjas(),
+            "Deberian contarse las franjas de lo que queda");
+
+        filtro = new FiltroProductos();
+        filtro.añadirMarca("mar_sony");
+        filtro.añadirMarca("mar_nintendo");
+        filtro.añadirFranja(FacetasProductos.franja(300f));
+        filtro.añadirFranja(FacetasProductos.franja(550f));
+        resultado = facetas.filtrar(filtro, 1);
+        assertEquals(2, resultado.getTotal(), "Dentro de una faceta basta con un valor");
+        assertEquals(1, resultado.getProductos().size(), "No deberian devolverse mas que el limite");
+        assertEquals(Map.of("cat_consolas", 2), resultado.getCategorias(), "Las categorias sin productos no salen");
+
+        filtro = new FiltroProductos();
+        filtro.añadirCategoria("cat_inexistente");
+        assertEquals(0, facetas.filtrar(filtro, 10).getTotal(), "Un valor que no existe no deberia dar nada");
+    }
+
+    @Test
+    public void franjaTest() {
+        assertEquals(0, FacetasProductos.franja(0f), "El 0 esta en la primera franja");
+        assertEquals(1, FacetasProductos.franja(20f), "El limite pertenece a la franja siguiente");
+        assertEquals(FacetasProductos.LIMITES_PRECIO.length, FacetasProductos.franja(10000f),
+            "Lo caro esta en la ultima franja");
+        assertEquals("20 - 50", FacetasProductos.nombreFranja(1), "Deberia mostrarse el rango");
+        assertEquals("500 o mas", FacetasProductos.nombreFranja(FacetasProductos.LIMITES_PRECIO.length),
+            "La ultima franja no tiene limite");
+    }
+
+    @Test
+    public void filtrarComoRecorridoTest() {
+        Random random = new Random(7);
+        Categoria[] categorias = categorias(8);
+        Marca[] marcas = marcas(10);
+        ArrayList<Producto> productos = productos(random, 2000, categorias, marcas);
+        FacetasProductos facetas = new FacetasProductos(productos);
+
+        for (int i = 0; i < 500; i++) {
+            FiltroProductos filtro = filtro(random, categorias, marcas);
+            ArrayList<Producto> esperados = new ArrayList<>();
+            TreeMap<String, Integer> categoriasEsperadas = new TreeMap<>();
+            TreeMap<String, Integer> marcasEsperadas = new TreeMap<>();
+            int conStock = 0;
+            for (Producto producto : productos) {
+                if (cumple(filtro, producto)) {
+                    esperados.add(producto);
+                    categoriasEsperadas.merge(producto.getCategoria().getIdCategoria(), 1, Integer::sum);
+                    marcasEsperadas.merge(producto.getMarca().getIdMarca(), 1, Integer::sum);
+                    conStock += producto.getStock() > 0 ? 1 : 0;
+                }
+            }
+
+            ResultadoFacetas resultado = facetas.filtrar(filtro, 20);
+            assertEquals(esperados.size(), resultado.getTotal(), "El total deberia ser el del recorrido");
+            assertEquals(esperados.subList(0, Math.min(20, esperados.size())), resultado.getProductos(),
+                "Deberian salir los primeros productos que cumplen el filtro");
+            assertEquals(categoriasEsperadas, resultado.getCategorias(),
+                "Las cuentas por categoria deberian coincidir");
+            assertEquals(marcasEsperadas, resultado.getMarcas(), "Las cuentas por marca deberian coincidir");
+            assertEquals(conStock, resultado.getConStock(), "La cuenta de productos con stock deberia coincidir");
+        }
+    }
+
+    @Test
+    @Tag("rendimiento")
+    public void latenciaTest() {
+        Random random = new Random(42);
+        Categoria[] categorias = categorias(40);
+        Marca[] marcas = marcas(60);
+        FacetasProductos facetas = new FacetasProductos(productos(random, PRODUCTOS, categorias, marcas));
+
+        long[] tiempos = new long[CONSULTAS];
+        for (int i = 0; i < CALENTAMIENTO + CONSULTAS; i++) {
+            FiltroProductos filtro = filtro(random, categorias, marcas);
+
+            long inicio = System.nanoTime();
+            ResultadoFacetas resultado = facetas.filtrar(filtro, 20);
+            long nanos = System.nanoTime() - inicio;
+            assertTrue(resultado.getProductos().size() <= 20, "No deberian devolverse mas que el limite");
+            if (i >= CALENTAMIENTO) {
+                tiempos[i - CALENTAMIENTO] = nanos;
+            }
+        }
+        Arrays.sort(tiempos);
+        long p99 = tiempos[(int) (CONSULTAS * 0.99)];
+        assertTrue(p99 < 1_000_000, String.format("El p99 deberia estar por debajo de 1 ms: p50 %d us, p99 %d us",
+            tiempos[CONSULTAS / 2] / 1000, p99 / 1000));
+    }
+
+    private Categoria[] categorias(int cuantas) {
+        Categoria[] categorias = new Categoria[cuantas];
+        for (int i = 0; i < categorias.length; i++) {
+            categorias[i] = new Categoria("cat_" + i, "categoria " + i);
+        }
+        return categorias;
+    }
+
+    private Marca[] marcas(int cuantas) {
+        Marca[] marcas = new Marca[cuantas];
+        for (int i = 0; i < marcas.length; i++) {
+            marcas[i] = new Marca("mar_" + i, "marca " + i);
+        }
+        return marcas;
+    }
+
+    private ArrayList<Producto> productos(Random random, int cuantos, Categoria[] categorias, Marca[] marcas) {
+        ArrayList<Producto> productos = new ArrayList<>(cuantos);
+        for (int i = 0; i < cuantos; i++) {
+            productos.add(new Producto("pro_" + i, "producto " + i, categorias[random.nextInt(categorias.length)],
+                random.nextInt(80000) / 100f, "descripcion", random.nextInt(4), marcas[random.nextInt(marcas.length)]));
+        }
+        return productos;
+    }
+
+    private FiltroProductos filtro(Random random, Categoria[] categorias, Marca[] marcas) {
+        FiltroProductos filtro = new FiltroProductos();
+        for (int j = random.nextInt(3); j > 0; j--) {
+            filtro.añadirCategoria(categorias[random.nextInt(categorias.length)].getIdCategoria());
+        }
+        for (int j = random.nextInt(3); j > 0; j--) {
+            filtro.añadirMarca(marcas[random.nextInt(marcas.length)].getIdMarca());
+        }
+        if (random.nextBoolean()) {
+            filtro.añadirFranja(random.nextInt(FacetasProductos.LIMITES_PRECIO.length + 1));
+        }
+        filtro.setSoloConStock(random.nextBoolean());
+        return filtro;
+    }
+
+    private boolean cumple(FiltroProductos filtro, Producto producto) {
+        return (filtro.getCategorias().isEmpty()
+                || filtro.getCategorias().contains(producto.getCategoria().getIdCategoria()))
+            && (filtro.getMarcas().isEmpty() || filtro.getMarcas().contains(producto.getMarca().getIdMarca()))
+            && (filtro.getFranjas().isEmpty()
+                || filtro.getFranjas().contains(FacetasProductos.franja(producto.getPrecio())))
+            && (!filtro.isSoloConStock() || producto.getStock() > 0);
+    }
+}
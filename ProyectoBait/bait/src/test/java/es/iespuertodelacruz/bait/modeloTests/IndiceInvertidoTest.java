@@ -0,0 +1,63 @@
+package es.iespuertodelacruz.bait.modeloTests;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import es.iespuertodelacruz.bait.modelo.busqueda.IndiceInvertido;
+import es.iespuertodelacruz.bait.modelo.busqueda.ListaEnteros;
+import es.iespuertodelacruz.bait.modelo.busqueda.Normalizador;
+
+public class IndiceInvertidoTest {
+
+    @Test
+    public void normalizarTest() {
+        assertEquals("futbol", Normalizador.normalizar("Fútbol"), "Deberian quitarse las tildes");
+        assertEquals(List.of("pokemon", "espana", "2021"), Normalizador.tokens("¡Pokémon España-2021!"),
+            "Deberia separarse por lo que no son letras o numeros");
+        assertTrue(Normalizador.tokens("  ;; ").isEmpty(), "Sin palabras no hay terminos");
+    }
+
+    @Test
+    public void listaEnterosTest() {
+        ListaEnteros lista = new ListaEnteros();
+        lista.añadir(5);
+        lista.añadir(1);
+        lista.añadir(9);
+        assertFalse(lista.añadir(5), "No deberian repetirse valores");
+        assertArrayEquals(new int[] {1, 5, 9}, lista.toArray(), "La lista deberia estar ordenada");
+
+        ListaEnteros otra = new ListaEnteros();
+        otra.añadir(5);
+        otra.añadir(7);
+        otra.añadir(9);
+        assertArrayEquals(new int[] {5, 9}, lista.interseccion(otra).toArray(), "Interseccion incorrecta");
+        assertArrayEquals(new int[] {1, 5, 7, 9}, lista.union(otra).toArray(), "Union incorrecta");
+
+        assertTrue(lista.quitar(5), "Deberia quitarse el valor");
+        assertFalse(lista.contiene(5), "El valor quitado no deberia estar");
+    }
+
+    @Test
+    public void buscarTest() {
+        IndiceInvertido indice = new IndiceInvertido();
+        indice.añadir(0, Normalizador.tokens("Mando inalambrico"));
+        indice.añadir(1, Normalizador.tokens("Mando con cable"));
+        indice.añadir(2, Normalizador.tokens("Cable HDMI"));
+
+        assertArrayEquals(new int[] {0, 1}, indice.buscar(List.of("man")).toArray(), "Deberia buscarse por prefijo");
+        assertArrayEquals(new int[] {1}, indice.buscar(List.of("cab", "man")).toArray(),
+            "Deberian estar todas las palabras");
+        assertTrue(indice.buscar(List.of()).estaVacia(), "Sin palabras no hay resultados");
+
+        indice.quitar(1, Normalizador.tokens("Mando con cable"));
+        assertArrayEquals(new int[] {2}, indice.buscar(List.of("cable")).toArray(),
+            "No deberia encontrarse un documento quitado");
+        assertEquals(4, indice.getTerminos(), "Los terminos sin documentos deberian desaparecer");
+    }
+}
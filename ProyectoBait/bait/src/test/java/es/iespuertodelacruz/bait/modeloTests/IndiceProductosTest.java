@@ -0,0 +1,155 @@
+package es.iespuertodelacruz.bait.modeloTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import es.iespuertodelacruz.bait.api.productos.Categoria;
+import es.iespuertodelacruz.bait.api.productos.Marca;
+import es.iespuertodelacruz.bait.api.productos.Producto;
+import es.iespuertodelacruz.bait.exceptions.PersistenciaException;
+import es.iespuertodelacruz.bait.modelo.productosModelo.CategoriaModelo;
+import es.iespuertodelacruz.bait.modelo.productosModelo.IndiceProductos;
+import es.iespuertodelacruz.bait.modelo.productosModelo.MarcaModelo;
+import es.iespuertodelacruz.bait.modelo.productosModelo.ProductoModelo;
+
+public class IndiceProductosTest {
+    private static final String ID_PRODUCTO = "pro_indice";
+    private static final String ID_CATEGORIA = "cat_indice";
+    private static final String ID_MARCA = "mar_indice";
+
+    ProductoModelo productoModelo;
+    CategoriaModelo categoriaModelo;
+    MarcaModelo marcaModelo;
+    IndiceProductos indice;
+    Producto producto;
+
+    @BeforeEach
+    public void setUp() {
+        Categoria categoria = new Categoria(ID_CATEGORIA, "indice");
+        Marca marca = new Marca(ID_MARCA, "indice");
+        producto = new Producto(ID_PRODUCTO, "Balón de Fútbol", categoria, 10f, "Tamaño reglamentario", 5, marca);
+        try {
+            productoModelo = new ProductoModelo();
+            categoriaModelo = new CategoriaModelo();
+            marcaModelo = new MarcaModelo();
+            indice = IndiceProductos.obtener();
+            categoriaModelo.insertar(categoria);
+            marcaModelo.insertar(marca);
+            indice.getProductos();
+            productoModelo.insertar(producto);
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @AfterEach
+    public void after() {
+        try {
+            productoModelo.eliminar(ID_PRODUCTO);
+            categoriaModelo.eliminar(ID_CATEGORIA);
+            marcaModelo.eliminar(ID_MARCA);
+        } catch (PersistenciaException e) {
+            fail("Error al eliminar la categoria, marca o producto.");
+        }
+    }
+
+    @Test
+    public void buscarSinTildesTest() {
+        try {
+            assertTrue(indice.buscar("futbol").contains(producto), "Deberia encontrarse sin tildes");
+            assertTrue(indice.buscar("BAL fút").contains(producto), "Deberia encontrarse por prefijos");
+            assertTrue(indice.buscar("tamano regla").contains(producto), "Deberia buscarse en la descripcion");
+            assertTrue(indice.buscar("futbol baloncesto").isEmpty(), "Deberian estar todas las palabras");
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void sincronizadoTest() {
+        try {
+            int productos = indice.getProductos();
+            producto.setNombre("Raqueta de padel");
+            productoModelo.modificar(producto);
+            assertTrue(indice.buscar("raqueta").contains(producto), "Deberia encontrarse por el nombre nuevo");
+            assertFalse(indice.buscar("balon").contains(producto), "No deberia encontrarse por el nombre viejo");
+
+            assertTrue(productoModelo.reducirStock(ID_PRODUCTO, 2), "Deberia reducirse el stock");
+            assertEquals(3, indice.buscar("raqueta").get(0).getStock(), "El indice deberia tener el stock nuevo");
+
+            productoModelo.eliminar(ID_PRODUCTO);
+            assertTrue(indice.buscar("raqueta").isEmpty(), "No deberia encontrarse un producto eliminado");
+            assertEquals(productos - 1, indice.getProductos(), "Deberia haber un producto menos");
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void buscarAproximadoTest() {
+        try {
+            assertTrue(indice.buscarAproximado("balom de fubtol", IndiceProductos.DISTANCIA_MAXIMA).contains(producto),
+                "Deberia encontrarse con errores de escritura");
+            assertTrue(indice.buscarAproximado("reglamentaryo", IndiceProductos.DISTANCIA_MAXIMA).contains(producto),
+                "Deberia buscarse en la descripcion");
+            assertTrue(indice.buscarAproximado("balcon", 0).isEmpty(), "Sin errores permitidos no deberia encontrarse");
+            assertTrue(indice.buscarAproximado("xy futbol", IndiceProductos.DISTANCIA_MAXIMA).isEmpty(),
+                "Las palabras cortas no admiten errores");
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void ordenPorNombreTest() {
+        try {
+            ArrayList<Producto> encontrados = indice.buscar("balon");
+            assertEquals(producto, encontrados.get(0), "Deberian salir primero los que coinciden en el nombre");
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void buscarMientrasSeInvalidaTest() throws Exception {
+        ExecutorService hilos = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> resultados = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                resultados.add(hilos.submit(() -> {
+                    for (int j = 0; j < 50; j++) {
+                        assertTrue(indice.buscar("balon").contains(producto), "Deberia encontrarse el producto");
+                        assertFalse(indice.buscarAproximado("balom", IndiceProductos.DISTANCIA_MAXIMA).isEmpty(),
+                            "Deberia encontrarse con errores de escritura");
+                        assertTrue(indice.getProductos() > 0, "Deberia haber productos indexados");
+                    }
+                    return null;
+                }));
+            }
+            resultados.add(hilos.submit(() -> {
+                for (int j = 0; j < 100; j++) {
+                    indice.invalidado();
+                    Thread.yield();
+                }
+            }));
+            for (Future<?> resultado : resultados) {
+                resultado.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            hilos.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package es.iespuertodelacruz.bait.modeloTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import es.iespuertodelacruz.bait.modelo.mysql.LectorScriptSql;
+
+public class LectorScriptSqlTest {
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    public void separarSentenciasTest() {
+        String script = "-- comentario; con punto y coma\n"
+            + "CREATE TABLE PRUEBA (id INTEGER, texto VARCHAR(50));\n"
+            + "/* bloque; */ INSERT INTO PRUEBA VALUES (1, 'uno; it''s');\n"
+            + ";\n"
+            + "INSERT INTO \"PRUEBA\" VALUES (2, 'dos--no es comentario')";
+        try (LectorScriptSql lector = new LectorScriptSql(escribir(script))) {
+            assertEquals("CREATE TABLE PRUEBA (id INTEGER, texto VARCHAR(50))", lector.siguiente());
+            assertEquals("INSERT INTO PRUEBA VALUES (1, 'uno; it''s')", lector.siguiente());
+            assertEquals("INSERT INTO \"PRUEBA\" VALUES (2, 'dos--no es comentario')", lector.siguiente(),
+                "La ultima sentencia no necesita punto y coma");
+            assertNull(lector.siguiente(), "No deberian quedar sentencias");
+            assertEquals(3, lector.getSentenciasLeidas());
+            assertEquals(lector.getBytesTotales(), lector.getBytesLeidos(), "Deberia haberse leido todo el fichero");
+        } catch (IOException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void triggerTest() {
+        String trigger = "CREATE TRIGGER IF NOT EXISTS PRUEBA_AI AFTER INSERT ON PRUEBA BEGIN\n"
+            + "  UPDATE PRUEBA SET texto = CASE WHEN new.id > 0 THEN 'si' ELSE 'no' END WHERE id = new.id;\n"
+            + "  DELETE FROM PRUEBA WHERE id < 0;\n"
+            + "END";
+        try (LectorScriptSql lector = new LectorScriptSql(escribir(trigger + ";\nSELECT 1;"))) {
+            assertEquals(trigger, lector.siguiente(), "El cuerpo del trigger no deberia partirse");
+            assertEquals("SELECT 1", lector.siguiente());
+        } catch (IOException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void ficheroGrandeTest() {
+        int filas = 20000;
+        StringBuilder script = new StringBuilder();
+        for (int i = 0; i < filas; i++) {
+            script.append("INSERT INTO PRUEBA VALUES (").append(i).append(", 'fila ").append(i).append("');\n");
+        }
+        try (LectorScriptSql lector = new LectorScriptSql(escribir(script.toString()))) {
+            int leidas = 0;
+            String sentencia = lector.siguiente();
+            while (sentencia != null) {
+                assertTrue(sentencia.startsWith("INSERT"), "Cada sentencia deberia estar completa");
+                leidas++;
+                sentencia = lector.siguiente();
+            }
+            assertEquals(filas, leidas, "Deberian leerse todas las sentencias");
+        } catch (IOException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    private Path escribir(String script) throws IOException {
+        return Files.writeString(directorio.resolve("script.sql"), script);
+    }
+}
@@ -0,0 +1,197 @@
+package es.iespuertodelacruz.bait.modeloTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import es.iespuertodelacruz.bait.api.movimientos.Pedido;
+import es.iespuertodelacruz.bait.api.personas.Usuario;
+import es.iespuertodelacruz.bait.api.productos.Categoria;
+import es.iespuertodelacruz.bait.api.productos.Marca;
+import es.iespuertodelacruz.bait.api.productos.Producto;
+import es.iespuertodelacruz.bait.exceptions.PersistenciaException;
+import es.iespuertodelacruz.bait.modelo.movimientosModelo.PedidoModelo;
+import es.iespuertodelacruz.bait.modelo.mysql.Bbdd;
+import es.iespuertodelacruz.bait.modelo.mysql.MapaIdentidad;
+import es.iespuertodelacruz.bait.modelo.personasModelo.UsuarioModelo;
+import es.iespuertodelacruz.bait.modelo.productosModelo.CategoriaModelo;
+import es.iespuertodelacruz.bait.modelo.productosModelo.MarcaModelo;
+import es.iespuertodelacruz.bait.modelo.productosModelo.ProductoModelo;
+
+public class MapaIdentidadTest {
+    private static final String DNI = "71234567M";
+    private static final String ID_PRODUCTO = "pro_mapa";
+    private static final String ID_CATEGORIA = "cat_mapa";
+    private static final String ID_MARCA = "mar_mapa";
+
+    UsuarioModelo usuarioModelo;
+    ProductoModelo productoModelo;
+    CategoriaModelo categoriaModelo;
+    MarcaModelo marcaModelo;
+    PedidoModelo pedidoModelo;
+    Usuario usuario;
+    Producto producto;
+
+    @BeforeEach
+    public void setUp() {
+        Categoria categoria = new Categoria(ID_CATEGORIA, "mapa");
+        Marca marca = new Marca(ID_MARCA, "mapa");
+        usuario = new Usuario(DNI, "nombre", "apellidos", "email@gmail.com", "direccion", "telefono", "pais",
+            "codigoPostal", "provincia", "usuarioMapa", "password", "Cliente", 0f);
+        producto = new Producto(ID_PRODUCTO, "Mando", categoria, 30f, "Mando inalambrico", 10, marca);
+        try {
+            usuarioModelo = new UsuarioModelo();
+            productoModelo = new ProductoModelo();
+            categoriaModelo = new CategoriaModelo();
+            marcaModelo = new MarcaModelo();
+            pedidoModelo = new PedidoModelo();
+            usuarioModelo.insertar(usuario);
+            categoriaModelo.insertar(categoria);
+            marcaModelo.insertar(marca);
+            productoModelo.insertar(producto);
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @AfterEach
+    public void after() {
+        try {
+            productoModelo.eliminar(ID_PRODUCTO);
+            categoriaModelo.eliminar(ID_CATEGORIA);
+            marcaModelo.eliminar(ID_MARCA);
+            usuarioModelo.eliminar(DNI);
+        } catch (PersistenciaException e) {
+            fail("Error al eliminar el usuario o el producto");
+        }
+    }
+
+    @Test
+    public void sinMapaTest() {
+        AtomicInteger cargas = new AtomicInteger();
+        try {
+            MapaIdentidad.buscar(String.class, "id", id -> "valor" + cargas.incrementAndGet());
+            MapaIdentidad.buscar(String.class, "id", id -> "valor" + cargas.incrementAndGet());
+            assertEquals(2, cargas.get(), "Sin mapa abierto se deberia leer siempre");
+            assertNull(MapaIdentidad.actual(), "No deberia haber mapa abierto");
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void buscarTest() {
+        AtomicInteger cargas = new AtomicInteger();
+        try (MapaIdentidad mapa = MapaIdentidad.abrir()) {
+            String primera = MapaIdentidad.buscar(String.class, "id", id -> new String("valor"));
+            assertSame(primera, MapaIdentidad.buscar(String.class, "id", id -> new String("otro")),
+                "Deberia devolverse el mismo objeto");
+            assertNull(MapaIdentidad.buscar(String.class, "no", id -> {
+                cargas.incrementAndGet();
+                return null;
+            }), "Lo que no existe deberia ser null");
+            MapaIdentidad.buscar(String.class, "no", id -> {
+                cargas.incrementAndGet();
+                return null;
+            });
+            assertEquals(1, cargas.get(), "Lo que no existe tambien se deberia recordar");
+
+            try (MapaIdentidad anidado = MapaIdentidad.abrir()) {
+                assertSame(mapa, anidado, "Dentro de otro se deberia reutilizar el mismo mapa");
+            }
+            assertSame(primera, MapaIdentidad.buscar(String.class, "id", id -> "otro"),
+                "Cerrar el anidado no deberia vaciar el mapa");
+
+            MapaIdentidad.olvidar(String.class, "id");
+            assertEquals("otro", MapaIdentidad.buscar(String.class, "id", id -> "otro"),
+                "Lo olvidado se deberia volver a leer");
+            assertEquals(3, mapa.getCargas(), "Deberian haberse leido tres veces");
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        }
+        assertNull(MapaIdentidad.actual(), "Al cerrar se deberia quitar el mapa del hilo");
+    }
+
+    @Test
+    public void usuarioTest() {
+        try (MapaIdentidad mapa = MapaIdentidad.abrir()) {
+            Usuario primero = usuarioModelo.buscaPorDni(DNI);
+            long consultas = Bbdd.getConsultasEjecutadas();
+            assertSame(primero, usuarioModelo.buscaPorDni(DNI), "Deberia devolverse el mismo usuario");
+            assertSame(primero, usuarioModelo.buscaPorNombreUsuario("usuarioMapa"),
+                "Por nombre de usuario deberia devolverse el mismo usuario");
+            assertEquals(consultas + 1, Bbdd.getConsultasEjecutadas(),
+                "Solo la busqueda por nombre deberia ir a la base de datos");
+
+            usuario.setNombre("otroNombre");
+            usuarioModelo.modificar(usuario);
+            assertEquals("otroNombre", usuarioModelo.buscaPorDni(DNI).getNombre(),
+                "Despues de modificar se deberia ver el cambio");
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void escrituraEnTransaccionTest() {
+        try (MapaIdentidad mapa = MapaIdentidad.abrir()) {
+            usuarioModelo.añadirSaldo(DNI, 50f);
+            assertEquals(10, productoModelo.buscarPorId(ID_PRODUCTO).getStock(), "El stock inicial deberia ser 10");
+            assertEquals(50f, usuarioModelo.buscaPorDni(DNI).getSaldo(), "El saldo inicial deberia ser 50");
+
+            pedidoModelo.ejecutarEnTransaccion(transaccion -> {
+                productoModelo.reducirStock(ID_PRODUCTO, 3, transaccion);
+                usuarioModelo.reducirSaldo(DNI, 20f, transaccion);
+                return null;
+            });
+            assertEquals(7, productoModelo.buscarPorId(ID_PRODUCTO).getStock(),
+                "Tras vender en la misma peticion se deberia ver el stock nuevo");
+            assertEquals(30f, usuarioModelo.buscaPorDni(DNI).getSaldo(),
+                "Tras cobrar en la misma peticion se deberia ver el saldo nuevo");
+
+            productoModelo.aumentarStock(ID_PRODUCTO, 5);
+            assertEquals(12, productoModelo.buscarPorId(ID_PRODUCTO).getStock(),
+                "Tras reponer se deberia ver el stock nuevo");
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void pedidosTest() {
+        Pedido pedido = new Pedido("ped_mapa", 1, 30, "2021-05-26", usuario, producto);
+        ArrayList<Pedido> lista;
+        try (MapaIdentidad mapa = MapaIdentidad.abrir()) {
+            pedidoModelo.insertar(pedido);
+            Usuario cliente = usuarioModelo.buscaPorDni(DNI);
+            lista = pedidoModelo.obtenerListado(DNI);
+            assertEquals(1, lista.size(), "Deberia encontrarse el pedido");
+            assertSame(cliente, lista.get(0).getUsuario(), "El pedido deberia compartir el cliente");
+            assertSame(lista.get(0).getProducto(), pedidoModelo.buscaPorIdentificador("ped_mapa").getProducto(),
+                "Las dos consultas deberian compartir el producto");
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        } finally {
+            try {
+                pedidoModelo.eliminar(pedido.getIdPedido());
+            } catch (PersistenciaException e) {
+                fail(e.getMessage());
+            }
+        }
+        try {
+            assertNotSame(usuarioModelo.buscaPorDni(DNI), usuarioModelo.buscaPorDni(DNI),
+                "Fuera del mapa cada busqueda deberia crear un usuario");
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        }
+    }
+}
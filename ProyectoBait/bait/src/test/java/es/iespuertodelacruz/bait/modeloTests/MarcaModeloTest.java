@@ -1,18 +1,24 @@
 package es.iespuertodelacruz.bait.modeloTests;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import es.iespuertodelacruz.bait.api.productos.Marca;
+import es.iespuertodelacruz.bait.api.productos.Producto;
 import es.iespuertodelacruz.bait.exceptions.PersistenciaException;
+import es.iespuertodelacruz.bait.modelo.mysql.Pagina;
 import es.iespuertodelacruz.bait.modelo.productosModelo.MarcaModelo;
+import es.iespuertodelacruz.bait.modelo.productosModelo.ObservadorProductos;
+import es.iespuertodelacruz.bait.modelo.productosModelo.ProductoModelo;
 
 public class MarcaModeloTest {
     private static final String ID_MARCA = "MAR_LG";
@@ -48,6 +54,44 @@ public class MarcaModeloTest {
         }
     }
 
+    @Test
+    public void sinCambiosNoInvalidaTest() {
+        AtomicInteger invalidaciones = new AtomicInteger();
+        ObservadorProductos observador = new ObservadorProductos() {
+            @Override
+            public void guardado(Producto producto) {
+                // No se comprueba en esta prueba
+            }
+
+            @Override
+            public void eliminado(String idProducto) {
+                // No se comprueba en esta prueba
+            }
+
+            @Override
+            public void stockModificado(String idProducto, int stock) {
+                // No se comprueba en esta prueba
+            }
+
+            @Override
+            public void invalidado() {
+                invalidaciones.incrementAndGet();
+            }
+        };
+        ProductoModelo.añadirObservador(observador);
+        try {
+            marcaModelo.modificar(new Marca("mar_inexistente", "inexistente"));
+            marcaModelo.eliminar("mar_inexistente");
+            assertEquals(0, invalidaciones.get(), "Sin filas cambiadas no deberian invalidarse los productos");
+            marcaModelo.modificar(marca);
+            assertEquals(1, invalidaciones.get(), "Deberian invalidarse los productos");
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        } finally {
+            ProductoModelo.quitarObservador(observador);
+        }
+    }
+
     @Test 
     public void insertarErrorTest() {
         String mensaje = "Ha ocurrido un error al insertar";
@@ -92,6 +136,53 @@ public class MarcaModeloTest {
         }
     }
 
+    @Test
+    public void obtenerPaginaTest() {
+        try {
+            ArrayList<String> esperados = new ArrayList<>();
+            for (Marca marcaLista : marcaModelo.obtenerListado()) {
+                esperados.add(marcaLista.getIdMarca());
+            }
+            esperados.sort(null);
+
+            ArrayList<String> recorridos = new ArrayList<>();
+            ArrayList<String> anteriores = new ArrayList<>();
+            Pagina<Marca> pagina = marcaModelo.obtenerPagina(null, 2);
+            assertFalse(pagina.hayAnterior(), "La primera pagina no tiene anterior");
+            while (true) {
+                assertTrue(pagina.getElementos().size() <= 2, "La pagina no puede pasar del tamaño");
+                for (Marca marcaLista : pagina.getElementos()) {
+                    recorridos.add(marcaLista.getIdMarca());
+                }
+                if (!pagina.haySiguiente()) {
+                    break;
+                }
+                anteriores.add(pagina.getElementos().get(0).getIdMarca());
+                pagina = marcaModelo.obtenerPagina(pagina.getSiguiente(), 2);
+            }
+            assertEquals(esperados, recorridos, "Las paginas deberian recorrer todas las marcas en orden");
+
+            for (int i = anteriores.size() - 1; i >= 0; i--) {
+                pagina = marcaModelo.obtenerPagina(pagina.getAnterior(), 2);
+                assertEquals(anteriores.get(i), pagina.getElementos().get(0).getIdMarca(), 
+                    "Hacia atras deberian salir las mismas paginas");
+            }
+            assertFalse(pagina.hayAnterior(), "Hacia atras se deberia llegar a la primera pagina");
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void obtenerPaginaTokenErrorTest() {
+        try {
+            marcaModelo.obtenerPagina("no es un token", 2);
+            fail("No deberia llegar aqui");
+        } catch (PersistenciaException e) {
+            assertTrue(e.getMessage().contains("El token de pagina no es valido"));
+        }
+    }
+
     @Test
     public void modificarTest() {
         Marca marcaBuscada;
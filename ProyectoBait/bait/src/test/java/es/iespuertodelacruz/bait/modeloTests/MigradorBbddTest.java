@@ -0,0 +1,128 @@
+package es.iespuertodelacruz.bait.modeloTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import es.iespuertodelacruz.bait.exceptions.PersistenciaException;
+import es.iespuertodelacruz.bait.modelo.mysql.BbddSqlite;
+import es.iespuertodelacruz.bait.modelo.mysql.Binder;
+import es.iespuertodelacruz.bait.modelo.mysql.MigradorBbdd;
+
+public class MigradorBbddTest {
+    private static final String DRIVER = "org.sqlite.JDBC";
+
+    @TempDir
+    Path directorio;
+
+    BbddSqlite bbdd;
+    Path migraciones;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        migraciones = Files.createDirectory(directorio.resolve("migraciones"));
+        String url = "jdbc:sqlite:" + directorio.resolve("migrador.db");
+        try {
+            bbdd = new BbddSqlite(MigradorBbdd.TABLA_VERSIONES, DRIVER, url, null, null);
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void esquemaInicialTest() {
+        try {
+            ArrayList<Integer> versiones = bbdd.consultar("SELECT version FROM " + MigradorBbdd.TABLA_VERSIONES,
+                Binder.NINGUNO, resultSet -> resultSet.getInt("version"));
+            assertTrue(versiones.contains(1), "La base de datos nueva deberia tener aplicadas las migraciones");
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void migrarSoloPendientesTest() throws IOException {
+        Files.writeString(migraciones.resolve("V900__tabla_prueba.sql"), "CREATE TABLE PRUEBA (id INTEGER);");
+        Files.writeString(migraciones.resolve("V901__datos_prueba.sql"), "INSERT INTO PRUEBA VALUES (1);");
+        Files.writeString(migraciones.resolve("notas.txt"), "no es una migracion");
+        MigradorBbdd migrador = new MigradorBbdd(bbdd, migraciones.toString());
+        try {
+            assertEquals(2, migrador.migrar(), "Deberian aplicarse las dos migraciones nuevas");
+            assertEquals(0, migrador.migrar(), "Una segunda ejecucion no deberia aplicar nada");
+
+            Files.writeString(migraciones.resolve("V902__mas_datos.sql"), "INSERT INTO PRUEBA VALUES (2);");
+            assertEquals(1, migrador.migrar(), "Solo deberia aplicarse la migracion nueva");
+
+            ArrayList<Integer> filas = bbdd.consultar("SELECT id FROM PRUEBA", Binder.NINGUNO,
+                resultSet -> resultSet.getInt("id"));
+            assertEquals(2, filas.size(), "Cada insert deberia haberse ejecutado una sola vez");
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void migracionErroneaTest() throws IOException {
+        Files.writeString(migraciones.resolve("V903__erronea.sql"), "CREATE TABLA MAL ESCRITA;");
+        MigradorBbdd migrador = new MigradorBbdd(bbdd, migraciones.toString());
+        try {
+            migrador.migrar();
+            fail("No deberia llegar aqui");
+        } catch (PersistenciaException e) {
+            assertTrue(e.getMessage().contains("V903__erronea.sql"));
+        }
+    }
+
+    @Test
+    public void progresoPorLotesTest() throws IOException {
+        StringBuilder script = new StringBuilder("CREATE TABLE GRANDE (id INTEGER PRIMARY KEY);\n");
+        for (int i = 0; i < 2499; i++) {
+            script.append("INSERT INTO GRANDE VALUES (").append(i).append(");\n");
+        }
+        Files.writeString(migraciones.resolve("V904__grande.sql"), script);
+        ArrayList<Integer> avisos = new ArrayList<>();
+        MigradorBbdd migrador = new MigradorBbdd(bbdd, migraciones.toString());
+        migrador.setSentenciasPorLote(1000);
+        migrador.setProgreso((nombre, sentencias, bytesLeidos, bytesTotales) -> avisos.add(sentencias));
+        try {
+            assertEquals(1, migrador.migrar(), "Deberia aplicarse la migracion");
+            assertEquals(List.of(1000, 2000, 2500), avisos, "Deberia avisarse tras cada lote");
+            ArrayList<Integer> filas = bbdd.consultar("SELECT COUNT(*) FROM GRANDE", Binder.NINGUNO,
+                resultSet -> resultSet.getInt(1));
+            assertEquals(2499, filas.get(0), "Deberian haberse insertado todas las filas");
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void migracionErroneaSeDeshaceTest() throws IOException {
+        Files.writeString(migraciones.resolve("V905__a_medias.sql"),
+            "CREATE TABLE A_MEDIAS (id INTEGER PRIMARY KEY);\nINSERT INTO A_MEDIAS VALUES (1);\n"
+            + "INSERT INTO A_MEDIAS VALUES (1);\n");
+        MigradorBbdd migrador = new MigradorBbdd(bbdd, migraciones.toString());
+        migrador.setSentenciasPorLote(1);
+        try {
+            migrador.migrar();
+            fail("No deberia llegar aqui");
+        } catch (PersistenciaException e) {
+            assertTrue(e.getMessage().contains("V905__a_medias.sql"));
+        }
+        try {
+            bbdd.consultar("SELECT * FROM A_MEDIAS", Binder.NINGUNO, resultSet -> resultSet.getInt(1));
+            fail("La tabla no deberia existir");
+        } catch (PersistenciaException e) {
+            assertTrue(e.getMessage().contains("error en la busqueda"));
+        }
+    }
+}
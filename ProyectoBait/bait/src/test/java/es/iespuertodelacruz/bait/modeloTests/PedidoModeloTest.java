@@ -1,10 +1,15 @@
 package es.iespuertodelacruz.bait.modeloTests;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -18,6 +23,7 @@ import es.iespuertodelacruz.bait.api.productos.Producto;
 import es.iespuertodelacruz.bait.exceptions.PersistenciaException;
 
 import es.iespuertodelacruz.bait.modelo.movimientosModelo.PedidoModelo;
+import es.iespuertodelacruz.bait.modelo.mysql.Bbdd;
 import es.iespuertodelacruz.bait.modelo.personasModelo.UsuarioModelo;
 import es.iespuertodelacruz.bait.modelo.productosModelo.CategoriaModelo;
 import es.iespuertodelacruz.bait.modelo.productosModelo.MarcaModelo;
@@ -142,6 +148,39 @@ public class PedidoModeloTest {
         }
     }
 
+    @Test
+    public void streamListadoTest() {
+        try (Stream<Pedido> pedidos = pedidoModelo.streamListado()) {
+            assertTrue(pedidos.anyMatch(pedido::equals), "El stream deberia contener el pedido");
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void streamListadoPorDniTest() {
+        Pedido segundo = new Pedido("ped_idPedido2", 1, 10, "2021-05-27", usuario, producto);
+        List<Pedido> lista;
+        try {
+            pedidoModelo.insertar(segundo);
+            try (Stream<Pedido> pedidos = pedidoModelo.streamListado(DNI)) {
+                lista = pedidos.collect(Collectors.toList());
+            }
+            assertEquals(2, lista.size(), "Deberian encontrarse los dos pedidos del usuario");
+            assertTrue(lista.contains(pedido) && lista.contains(segundo), "Los pedidos deberian venir completos");
+            assertNotSame(lista.get(0).getUsuario(), lista.get(1).getUsuario(), 
+                "Al recorrer el stream no se guardan los usuarios ya leidos");
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        } finally {
+            try {
+                pedidoModelo.eliminar(segundo.getIdPedido());
+            } catch (PersistenciaException e) {
+                fail(e.getMessage());
+            }
+        }
+    }
+
     @Test
     public void modificarTest() {
         Pedido pedidoBuscado;
@@ -155,4 +194,29 @@ public class PedidoModeloTest {
         }
     }
 
+    @Test
+    public void unaConsultaPorBusquedaTest() {
+        Pedido segundo = new Pedido("ped_idPedido2", 1, 10, "2021-05-27", usuario, producto);
+        ArrayList<Pedido> lista;
+        long consultas;
+        try {
+            pedidoModelo.insertar(segundo);
+            consultas = Bbdd.getConsultasEjecutadas();
+            lista = pedidoModelo.obtenerListado(DNI);
+            assertEquals(consultas + 1, Bbdd.getConsultasEjecutadas(), "El listado deberia ser una sola consulta");
+            assertEquals(2, lista.size(), "Deberian encontrarse los dos pedidos del usuario");
+            assertTrue(lista.contains(pedido) && lista.contains(segundo), "Los pedidos deberian venir completos");
+            assertSame(lista.get(0).getUsuario(), lista.get(1).getUsuario(), "El usuario deberia compartirse");
+            assertSame(lista.get(0).getProducto(), lista.get(1).getProducto(), "El producto deberia compartirse");
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        } finally {
+            try {
+                pedidoModelo.eliminar(segundo.getIdPedido());
+            } catch (PersistenciaException e) {
+                fail(e.getMessage());
+            }
+        }
+    }
+
 }
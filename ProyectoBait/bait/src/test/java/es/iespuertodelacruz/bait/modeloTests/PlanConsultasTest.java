@@ -0,0 +1,135 @@
+package es.iespuertodelacruz.bait.modeloTests;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import es.iespuertodelacruz.bait.api.productos.Producto;
+import es.iespuertodelacruz.bait.exceptions.PersistenciaException;
+import es.iespuertodelacruz.bait.modelo.movimientosModelo.EnvioModelo;
+import es.iespuertodelacruz.bait.modelo.movimientosModelo.PedidoModelo;
+import es.iespuertodelacruz.bait.modelo.mysql.BbddSqlite;
+import es.iespuertodelacruz.bait.modelo.mysql.Binder;
+import es.iespuertodelacruz.bait.modelo.personasModelo.UsuarioModelo;
+import es.iespuertodelacruz.bait.modelo.productosModelo.OrdenProductos;
+import es.iespuertodelacruz.bait.modelo.productosModelo.ProductoModelo;
+
+/**
+ * Comprueba con EXPLAIN QUERY PLAN que las busquedas mas usadas van por indice
+ * y no recorren la tabla entera
+ */
+public class PlanConsultasTest {
+    BbddSqlite bbdd;
+
+    @BeforeEach
+    public void setUp() {
+        try {
+            if (bbdd == null) {
+                bbdd = new BbddSqlite(UsuarioModelo.TABLE_NAME, null, null);
+            }
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void buscarPorNombreUsuarioTest() {
+        comprobarSinRecorrido(UsuarioModelo.SELECT_POR_NOMBRE_USUARIO, "IDX_USUARIOS_NOMBRE_USUARIO");
+    }
+
+    @Test
+    public void pedidosPorClienteTest() {
+        comprobarSinRecorrido(PedidoModelo.SELECT_PEDIDOS + PedidoModelo.FILTRO_CLIENTE, "IDX_PEDIDOS_CLIENTE");
+    }
+
+    @Test
+    public void enviosPorClienteTest() {
+        comprobarSinRecorrido(EnvioModelo.SELECT_ENVIOS + EnvioModelo.FILTRO_CLIENTE, "IDX_ENVIOS_PEDIDO");
+    }
+
+    @Test
+    public void productosPorCategoriaTest() {
+        comprobarSinRecorrido(ProductoModelo.SELECT_PRODUCTOS + ProductoModelo.FILTRO_CATEGORIA,
+            "IDX_PRODUCTOS_CATEGORIA");
+    }
+
+    @Test
+    public void productosPorMarcaTest() {
+        comprobarSinRecorrido(ProductoModelo.SELECT_PRODUCTOS + ProductoModelo.FILTRO_MARCA, "IDX_PRODUCTOS_MARCA");
+    }
+
+    @Test
+    public void productosPorTextoTest() {
+        try {
+            ArrayList<String> plan = bbdd.consultar("EXPLAIN QUERY PLAN " + ProductoModelo.SELECT_TEXTO, 
+                Binder.valores("x", 10), resultSet -> resultSet.getString("detail"));
+            assertTrue(plan.stream().anyMatch(paso -> paso.contains("PRODUCTOS_FTS VIRTUAL TABLE INDEX")),
+                "La busqueda deberia ir por el indice de texto: " + plan);
+            assertTrue(plan.stream().anyMatch(paso -> paso.startsWith("SEARCH TABLE PRODUCTOS AS p USING INTEGER PRIMARY KEY")),
+                "Los productos deberian leerse por rowid: " + plan);
+            assertFalse(plan.stream().anyMatch(paso -> paso.startsWith("SCAN TABLE PRODUCTOS AS p")), 
+                "La busqueda no deberia recorrer PRODUCTOS: " + plan);
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void paginaProductosTest() {
+        try {
+            ArrayList<String> plan = bbdd.consultar("EXPLAIN QUERY PLAN " + ProductoModelo.SELECT_PRODUCTOS 
+                + " WHERE p.idProducto > ? ORDER BY p.idProducto ASC LIMIT 21", Binder.valores("x"), 
+                resultSet -> resultSet.getString("detail"));
+            assertTrue(plan.stream().anyMatch(paso -> paso.startsWith("SEARCH TABLE PRODUCTOS AS p USING INDEX")),
+                "La pagina deberia empezar a leer por la clave: " + plan);
+            assertFalse(plan.stream().anyMatch(paso -> paso.contains("TEMP B-TREE")), 
+                "La pagina no deberia ordenarse aparte: " + plan);
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void paginaProductosOrdenadaTest() {
+        try {
+            for (OrdenProductos orden : OrdenProductos.values()) {
+                String[] columnas = orden.getColumnas();
+                String sentido = orden.isDescendente() ? " DESC" : " ASC";
+                String comparacion = orden.isDescendente() ? "<" : ">";
+                Object[] clave = orden.getClave(new Producto("x", "x", null, 1f, "x", 1, null));
+                ArrayList<String> plan = bbdd.consultar("EXPLAIN QUERY PLAN " + ProductoModelo.SELECT_PRODUCTOS 
+                    + " WHERE " + columnas[0] + " " + comparacion + "= ? AND (" + String.join(", ", columnas) + ") " 
+                    + comparacion + " (?, ?) ORDER BY " + String.join(sentido + ", ", columnas) + sentido + " LIMIT 21", 
+                    Binder.valores(clave[0], clave[0], clave[1]), resultSet -> resultSet.getString("detail"));
+                assertTrue(plan.stream().anyMatch(paso -> paso.startsWith("SEARCH TABLE PRODUCTOS AS p USING INDEX")),
+                    "La pagina en orden " + orden + " deberia empezar a leer por su indice: " + plan);
+                assertFalse(plan.stream().anyMatch(paso -> paso.contains("TEMP B-TREE")), 
+                    "La pagina en orden " + orden + " no deberia ordenarse aparte: " + plan);
+            }
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    /**
+     * Comprueba que ningun paso del plan es un SCAN y que se usa el indice
+     */
+    private void comprobarSinRecorrido(String sql, String indice) {
+        try {
+            ArrayList<String> plan = bbdd.consultar("EXPLAIN QUERY PLAN " + sql, Binder.valores("x"),
+                resultSet -> resultSet.getString("detail"));
+            for (String paso : plan) {
+                assertFalse(paso.startsWith("SCAN"), "La consulta no deberia recorrer la tabla: " + plan);
+            }
+            assertTrue(plan.stream().anyMatch(paso -> paso.contains(indice)),
+                "La consulta deberia usar " + indice + ": " + plan);
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        }
+    }
+}
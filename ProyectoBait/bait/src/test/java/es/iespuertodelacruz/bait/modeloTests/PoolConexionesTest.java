@@ -0,0 +1,128 @@
+package es.iespuertodelacruz.bait.modeloTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import es.iespuertodelacruz.bait.exceptions.PersistenciaException;
+import es.iespuertodelacruz.bait.modelo.mysql.PoolConexiones;
+
+public class PoolConexionesTest {
+    private static final String DRIVER = "org.sqlite.JDBC";
+    private static final String URL = "jdbc:sqlite::memory:";
+    private static final int MINIMO = 1;
+    private static final int MAXIMO = 2;
+
+    PoolConexiones pool;
+
+    @BeforeEach
+    public void setUp() {
+        try {
+            pool = new PoolConexiones(DRIVER, URL, null, null, MINIMO, MAXIMO, 100);
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @AfterEach
+    public void after() {
+        pool.cerrar();
+    }
+
+    @Test
+    public void configuracionDistintaErrorTest() {
+        String url = "jdbc:sqlite:file:configuracion?mode=memory";
+        try {
+            PoolConexiones compartido = PoolConexiones.obtener(DRIVER, url, null, null);
+            assertSame(compartido, PoolConexiones.obtener(DRIVER, url, null, null),
+                "Con la misma configuracion deberia devolverse el mismo pool");
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        }
+
+        System.setProperty(PoolConexiones.PROPIEDAD_MAXIMO, "3");
+        try {
+            PoolConexiones.obtener(DRIVER, url, null, null);
+            fail("No deberia llegar aqui");
+        } catch (PersistenciaException e) {
+            assertTrue(e.getMessage().contains("ya existe con otra configuracion"),
+                "Deberia avisar de que el pool tiene otra configuracion");
+        } finally {
+            System.clearProperty(PoolConexiones.PROPIEDAD_MAXIMO);
+        }
+    }
+
+    @Test
+    public void minimoTest() {
+        assertEquals(MINIMO, pool.getEstadisticas().getLibres(), "El pool deberia arrancar con el minimo de conexiones");
+    }
+
+    @Test
+    public void reutilizarTest() {
+        try {
+            Connection connection = pool.getConnection();
+            connection.close();
+            connection = pool.getConnection();
+            connection.close();
+
+            assertEquals(1, pool.getEstadisticas().getCreadas(), "Solo deberia haberse abierto una conexion");
+            assertEquals(2, pool.getEstadisticas().getReutilizadas(), "Las dos peticiones deberian reutilizar la conexion");
+            assertEquals(0, pool.getEstadisticas().getPrestadas(), "No deberia quedar ninguna conexion prestada");
+        } catch (PersistenciaException | SQLException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void maximoTest() {
+        try (Connection primera = pool.getConnection(); Connection segunda = pool.getConnection()) {
+            assertEquals(MAXIMO, pool.getEstadisticas().getPrestadas(), "Deberian estar todas las conexiones prestadas");
+            pool.getConnection();
+            fail("No deberia llegar aqui");
+        } catch (PersistenciaException e) {
+            assertTrue(e.getMessage().contains("No hay conexiones libres"));
+            assertEquals(1, pool.getEstadisticas().getEsperasAgotadas(), "Deberia contarse la espera agotada");
+        } catch (SQLException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void conexionDevueltaTest() {
+        try {
+            Connection connection = pool.getConnection();
+            connection.close();
+            assertTrue(connection.isClosed(), "La conexion devuelta deberia verse cerrada");
+            connection.createStatement();
+            fail("No deberia llegar aqui");
+        } catch (SQLException e) {
+            assertTrue(e.getMessage().contains("devuelta al pool"));
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void validarConexionTest() {
+        try {
+            Connection connection = pool.getConnection();
+            connection.unwrap(Connection.class).close();
+            connection.close();
+
+            connection = pool.getConnection();
+            assertTrue(connection.isValid(1), "El pool deberia haber sustituido la conexion rota");
+            connection.close();
+            assertEquals(1, pool.getEstadisticas().getDescartadas(), "La conexion rota deberia descartarse");
+        } catch (PersistenciaException | SQLException e) {
+            fail(e.getMessage());
+        }
+    }
+}
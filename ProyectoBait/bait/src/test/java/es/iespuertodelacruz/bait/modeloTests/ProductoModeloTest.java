@@ -1,10 +1,12 @@
 package es.iespuertodelacruz.bait.modeloTests;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -14,8 +16,13 @@ import es.iespuertodelacruz.bait.api.productos.Categoria;
 import es.iespuertodelacruz.bait.api.productos.Marca;
 import es.iespuertodelacruz.bait.api.productos.Producto;
 import es.iespuertodelacruz.bait.exceptions.PersistenciaException;
+import es.iespuertodelacruz.bait.modelo.mysql.Bbdd;
+import es.iespuertodelacruz.bait.modelo.mysql.Pagina;
+import es.iespuertodelacruz.bait.modelo.mysql.ResultadoLote;
 import es.iespuertodelacruz.bait.modelo.productosModelo.CategoriaModelo;
 import es.iespuertodelacruz.bait.modelo.productosModelo.MarcaModelo;
+import es.iespuertodelacruz.bait.modelo.productosModelo.ObservadorProductos;
+import es.iespuertodelacruz.bait.modelo.productosModelo.OrdenProductos;
 import es.iespuertodelacruz.bait.modelo.productosModelo.ProductoModelo;
 
 public class ProductoModeloTest {
@@ -70,6 +77,43 @@ public class ProductoModeloTest {
         }
     }
 
+    @Test
+    public void eliminarInexistenteNoAvisaTest() {
+        AtomicInteger eliminados = new AtomicInteger();
+        ObservadorProductos observador = new ObservadorProductos() {
+            @Override
+            public void guardado(Producto producto) {
+                // No se comprueba en esta prueba
+            }
+
+            @Override
+            public void eliminado(String idProducto) {
+                eliminados.incrementAndGet();
+            }
+
+            @Override
+            public void stockModificado(String idProducto, int stock) {
+                // No se comprueba en esta prueba
+            }
+
+            @Override
+            public void invalidado() {
+                // No se comprueba en esta prueba
+            }
+        };
+        ProductoModelo.añadirObservador(observador);
+        try {
+            productoModelo.eliminar("pro_inexistente");
+            assertEquals(0, eliminados.get(), "No deberia avisarse de un producto que no existe");
+            productoModelo.eliminar(ID_PRODUCTO);
+            assertEquals(1, eliminados.get(), "Deberia avisarse del producto eliminado");
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        } finally {
+            ProductoModelo.quitarObservador(observador);
+        }
+    }
+
     @Test 
     public void insertarErrorTest() {
         String mensaje = "Ha ocurrido un error al insertar";
@@ -149,4 +193,151 @@ public class ProductoModeloTest {
             fail(e.getMessage());
         }
     }
+
+    @Test
+    public void unaConsultaPorBusquedaTest() {
+        long consultas;
+        try {
+            consultas = Bbdd.getConsultasEjecutadas();
+            ArrayList<Producto> lista = productoModelo.obtenerListado();
+            assertTrue(lista.size() > 1, "El listado deberia tener varios productos");
+            assertEquals(consultas + 1, Bbdd.getConsultasEjecutadas(), "El listado deberia ser una sola consulta");
+
+            consultas = Bbdd.getConsultasEjecutadas();
+            productoModelo.buscarPorCategoria(ID_CATEGORIA);
+            productoModelo.buscarPorMarca(ID_MARCA);
+            productoModelo.buscarPorNombre(NOMBRE_PRODUCTO);
+            Producto productoBuscado = productoModelo.buscarPorId(ID_PRODUCTO);
+            assertEquals(consultas + 4, Bbdd.getConsultasEjecutadas(), "Cada busqueda deberia ser una sola consulta");
+            assertEquals(producto.getCategoria(), productoBuscado.getCategoria(), "La categoria deberia venir completa");
+            assertEquals(producto.getMarca(), productoBuscado.getMarca(), "La marca deberia venir completa");
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void buscarPorTextoTest() {
+        try {
+            assertTrue(productoModelo.buscarPorTexto("TÉS", 10).contains(producto), 
+                "Deberia encontrarse por prefijo sin importar mayusculas ni tildes");
+            assertTrue(productoModelo.buscarPorTexto("producto tes", 10).contains(producto), 
+                "Deberia buscarse tambien en la descripcion");
+            assertTrue(productoModelo.buscarPorTexto("\"test*", 10).contains(producto), 
+                "Los operadores de la busqueda no deberian interpretarse");
+            assertTrue(productoModelo.buscarPorTexto("test OR NEAR(zzz", 10).isEmpty(), 
+                "OR y NEAR deberian buscarse como palabras");
+            assertTrue(productoModelo.buscarPorTexto("  ;; ", 10).isEmpty(), "Sin palabras no hay resultados");
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void busquedaSincronizadaTest() {
+        try {
+            producto.setNombre("Volante carreras");
+            producto.setDescripcion("Volante con pedales");
+            productoModelo.modificar(producto);
+            assertTrue(productoModelo.buscarPorTexto("volan peda", 10).contains(producto), 
+                "Deberia encontrarse por el nombre nuevo");
+            assertFalse(productoModelo.buscarPorNombre(NOMBRE_PRODUCTO).contains(producto), 
+                "No deberia encontrarse por el nombre viejo");
+
+            productoModelo.eliminar(ID_PRODUCTO);
+            assertTrue(productoModelo.buscarPorTexto("volan", 10).isEmpty(), 
+                "No deberia encontrarse un producto eliminado");
+            productoModelo.insertar(producto);
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void insertarLoteTest() {
+        ArrayList<Producto> productos = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            productos.add(new Producto(ID_PRODUCTO + "_lote_" + i, NOMBRE_PRODUCTO, producto.getCategoria(), 1f,
+                "Producto lote", i, producto.getMarca()));
+        }
+        productos.add(4, producto);
+        System.setProperty(Bbdd.PROPIEDAD_TAMANIO_LOTE, "3");
+        try {
+            ResultadoLote<Producto> resultado = productoModelo.insertarLote(productos);
+            assertEquals(7, resultado.getCorrectos(), "Deberian insertarse los productos nuevos");
+            assertEquals(1, resultado.getFallos().size(), "Solo deberia fallar el producto repetido");
+            assertEquals(producto, resultado.getFallos().get(0).getElemento(), "Deberia fallar el producto repetido");
+            for (Producto productoLote : productos) {
+                assertEquals(productoLote, productoModelo.buscarPorId(productoLote.getIdProducto()),
+                    "El producto deberia estar guardado");
+            }
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        } finally {
+            System.clearProperty(Bbdd.PROPIEDAD_TAMANIO_LOTE);
+            eliminarLote(productos);
+        }
+    }
+
+    @Test
+    public void modificarLoteTest() {
+        ArrayList<Producto> productos = new ArrayList<>();
+        Producto inexistente = new Producto(ID_PRODUCTO + "_inexistente", NOMBRE_PRODUCTO, producto.getCategoria(), 
+            1f, "Producto inexistente", 1, producto.getMarca());
+        producto.setNombre("OtroNombre");
+        productos.add(producto);
+        productos.add(inexistente);
+        try {
+            ResultadoLote<Producto> resultado = productoModelo.modificarLote(productos);
+            assertEquals(1, resultado.getCorrectos(), "Deberia modificarse el producto existente");
+            assertEquals(inexistente, resultado.getFallos().get(0).getElemento(), 
+                "Deberia fallar el producto que no existe");
+            assertEquals(producto, productoModelo.buscarPorId(ID_PRODUCTO), "Los productos deberian ser iguales");
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void obtenerPaginaOrdenadaTest() {
+        try {
+            for (OrdenProductos orden : OrdenProductos.values()) {
+                ArrayList<Producto> esperados = productoModelo.obtenerListado();
+                esperados.sort(orden.getComparador());
+                ArrayList<Producto> recorridos = new ArrayList<>();
+                ArrayList<String> primeros = new ArrayList<>();
+                Pagina<Producto> pagina = productoModelo.obtenerPagina(orden, null, 4);
+                while (true) {
+                    recorridos.addAll(pagina.getElementos());
+                    if (!pagina.haySiguiente()) {
+                        break;
+                    }
+                    primeros.add(pagina.getElementos().get(0).getIdProducto());
+                    pagina = productoModelo.obtenerPagina(orden, pagina.getSiguiente(), 4);
+                }
+                assertEquals(esperados, recorridos, "Las paginas deberian recorrer todo en orden " + orden);
+
+                for (int i = primeros.size() - 1; i >= 0; i--) {
+                    pagina = productoModelo.obtenerPagina(orden, pagina.getAnterior(), 4);
+                    assertEquals(primeros.get(i), pagina.getElementos().get(0).getIdProducto(),
+                        "Hacia atras deberian salir las mismas paginas en orden " + orden);
+                }
+                assertFalse(pagina.hayAnterior(), "Hacia atras se deberia llegar a la primera pagina");
+            }
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    private void eliminarLote(ArrayList<Producto> productos) {
+        try {
+            for (Producto productoLote : productos) {
+                if (!productoLote.equals(producto)) {
+                    productoModelo.eliminar(productoLote.getIdProducto());
+                }
+            }
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        }
+    }
 }
@@ -0,0 +1,166 @@
+package es.iespuertodelacruz.bait.modeloTests;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import es.iespuertodelacruz.bait.api.productos.Categoria;
+import es.iespuertodelacruz.bait.api.productos.Marca;
+import es.iespuertodelacruz.bait.api.productos.Producto;
+import es.iespuertodelacruz.bait.exceptions.PersistenciaException;
+import es.iespuertodelacruz.bait.modelo.busqueda.Sugerencia;
+import es.iespuertodelacruz.bait.modelo.busqueda.TrieSugerencias;
+import es.iespuertodelacruz.bait.modelo.productosModelo.AutocompletadoProductos;
+import es.iespuertodelacruz.bait.modelo.productosModelo.CategoriaModelo;
+import es.iespuertodelacruz.bait.modelo.productosModelo.MarcaModelo;
+import es.iespuertodelacruz.bait.modelo.productosModelo.ProductoModelo;
+
+public class TrieSugerenciasTest {
+    private static final int PRODUCTOS = 20000;
+    private static final int CONSULTAS = 20000;
+
+    @Test
+    public void ordenPorPesoTest() {
+        TrieSugerencias trie = new TrieSugerencias();
+        trie.añadir(new Sugerencia("1", "Mando PS5", 10));
+        trie.añadir(new Sugerencia("2", "Mando Xbox", 30));
+        trie.añadir(new Sugerencia("3", "Manta eléctrica", 20));
+        trie.añadir(new Sugerencia("4", "Cable HDMI", 50));
+
+        assertEquals(List.of("2", "3", "1"), ids(trie.buscar("man", 10)), "Deberian ordenarse por peso");
+        assertEquals(List.of("2", "1"), ids(trie.buscar("MANDO", 10)), "Deberia ignorar las mayusculas");
+        assertEquals(List.of("3"), ids(trie.buscar("manta electr", 10)), "Deberia ignorar las tildes");
+        assertEquals(List.of("1"), ids(trie.buscar("ps", 10)), "Deberia buscarse desde cada palabra");
+        assertEquals(List.of("2"), ids(trie.buscar("man", 1)), "No deberian devolverse mas que el limite");
+        assertTrue(trie.buscar("mandos", 10).isEmpty(), "No deberia haber sugerencias");
+        assertTrue(trie.buscar("  ", 10).isEmpty(), "Sin palabras no hay sugerencias");
+    }
+
+    @Test
+    public void actualizarTest() {
+        TrieSugerencias trie = new TrieSugerencias();
+        trie.añadir(new Sugerencia("1", "Mando PS5", 10));
+        trie.añadir(new Sugerencia("2", "Mando Xbox", 30));
+
+        trie.sumarPeso("1", 25);
+        assertEquals(List.of("1", "2"), ids(trie.buscar("mando", 10)), "Deberia subir con las ventas");
+
+        trie.añadir(new Sugerencia("1", "Volante PS5", 35));
+        assertEquals(List.of("2"), ids(trie.buscar("mando", 10)), "No deberia sugerirse por el nombre viejo");
+        assertEquals(List.of("1"), ids(trie.buscar("vol", 10)), "Deberia sugerirse por el nombre nuevo");
+
+        trie.quitar("2");
+        assertTrue(trie.buscar("mando", 10).isEmpty(), "No deberia sugerirse un producto quitado");
+        assertEquals(1, trie.getSugerencias(), "Deberia quedar una sugerencia");
+    }
+
+    @Test
+    public void ventasSincronizadasTest() {
+        Categoria categoria = new Categoria("cat_trie", "trie");
+        Marca marca = new Marca("mar_trie", "trie");
+        Producto producto = new Producto("pro_trie", "Zapatillas trietest", categoria, 10f, "trie", 20, marca);
+        try {
+            ProductoModelo productoModelo = new ProductoModelo();
+            CategoriaModelo categoriaModelo = new CategoriaModelo();
+            MarcaModelo marcaModelo = new MarcaModelo();
+            AutocompletadoProductos autocompletado = AutocompletadoProductos.obtener();
+            categoriaModelo.insertar(categoria);
+            marcaModelo.insertar(marca);
+            autocompletado.sugerir("", 1);
+            try {
+                productoModelo.insertar(producto);
+                assertEquals(0, autocompletado.sugerir("trietest", 1).get(0).getPeso(), "Aun no hay ventas");
+                productoModelo.reducirStock("pro_trie", 3);
+                assertEquals(3, autocompletado.sugerir("trietest", 1).get(0).getPeso(), 
+                    "Deberian contarse las unidades vendidas");
+                productoModelo.eliminar("pro_trie");
+                assertTrue(autocompletado.sugerir("trietest", 1).isEmpty(), "No deberia sugerirse un producto eliminado");
+            } finally {
+                productoModelo.eliminar("pro_trie");
+                categoriaModelo.eliminar("cat_trie");
+                marcaModelo.eliminar("mar_trie");
+            }
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void sugerirMientrasSeInvalidaTest() throws Exception {
+        AutocompletadoProductos autocompletado = AutocompletadoProductos.obtener();
+        ExecutorService hilos = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> resultados = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                resultados.add(hilos.submit(() -> {
+                    for (int j = 0; j < 50; j++) {
+                        autocompletado.sugerir("m", 5);
+                    }
+                    return null;
+                }));
+            }
+            resultados.add(hilos.submit(() -> {
+                for (int j = 0; j < 100; j++) {
+                    autocompletado.invalidado();
+                    Thread.yield();
+                }
+            }));
+            for (Future<?> resultado : resultados) {
+                resultado.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            hilos.shutdownNow();
+        }
+    }
+
+    @Test
+    @Tag("rendimiento")
+    public void latenciaTest() {
+        String[] palabras = {"mando", "consola", "juego", "fútbol", "carreras", "volante", "auriculares", "cable",
+            "pokémon", "zelda", "mario", "edición", "especial", "digital", "pro", "mini", "ps5", "xbox", "switch"};
+        Random random = new Random(42);
+        TrieSugerencias trie = new TrieSugerencias();
+        for (int i = 0; i < PRODUCTOS; i++) {
+            String nombre = palabras[random.nextInt(palabras.length)] + " " + palabras[random.nextInt(palabras.length)]
+                + " " + i;
+            trie.añadir(new Sugerencia("pro_" + i, nombre, random.nextInt(1000)));
+        }
+
+        long[] tiempos = new long[CONSULTAS];
+        for (int i = 0; i < CONSULTAS * 2; i++) {
+            String palabra = palabras[random.nextInt(palabras.length)];
+            String prefijo = palabra.substring(0, 1 + random.nextInt(palabra.length()));
+            long inicio = System.nanoTime();
+            ArrayList<Sugerencia> sugerencias = trie.buscar(prefijo, 10);
+            long nanos = System.nanoTime() - inicio;
+            assertEquals(10, sugerencias.size(), "Deberian encontrarse sugerencias para " + prefijo);
+            if (i >= CONSULTAS) {
+                tiempos[i - CONSULTAS] = nanos;
+            }
+        }
+        Arrays.sort(tiempos);
+        long p99 = tiempos[(int) (CONSULTAS * 0.99)];
+        assertTrue(p99 < 1_000_000, String.format("El p99 deberia estar por debajo de 1 ms: p50 %d us, p99 %d us",
+            tiempos[CONSULTAS / 2] / 1000, p99 / 1000));
+    }
+
+    private List<String> ids(ArrayList<Sugerencia> sugerencias) {
+        ArrayList<String> ids = new ArrayList<>();
+        for (Sugerencia sugerencia : sugerencias) {
+            ids.add(sugerencia.getId());
+        }
+        return ids;
+    }
+}
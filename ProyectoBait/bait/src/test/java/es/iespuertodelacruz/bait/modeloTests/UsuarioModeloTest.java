@@ -70,6 +70,25 @@ public class UsuarioModeloTest {
         }
     }
 
+    @Test
+    public void nombreUsuarioRepetidoTest() {
+        String otroDni = "87654321X";
+        Usuario otro = new Usuario(otroDni, "otro", "apellidos", "otro@gmail.com", "direccion", "telefono", "pais", 
+            "codigoPostal", "provincia", NOMBRE_USUARIO, "password", "Admin", 0f);
+        try {
+            usuarioModelo.insertar(otro);
+            assertEquals(otro, usuarioModelo.buscaPorDni(otroDni), "Deberia guardarse con el nombre de usuario repetido");
+        } catch (PersistenciaException e) {
+            fail(e.getMessage());
+        } finally {
+            try {
+                usuarioModelo.eliminar(otroDni);
+            } catch (PersistenciaException e) {
+                fail("Error al eliminar el usuario");
+            }
+        }
+    }
+
     @Test
     public void obtenerListadoTest() {
         ArrayList<Usuario> lista;